@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * The {@code lapply} family of functions, which call an R closure for each element.
+ */
+public class ApplyBenchmark extends RBenchmarkBase {
+
+    @Param({"10000"}) public int size;
+
+    private Value x;
+    private Value list;
+
+    private Value lapply;
+    private Value vapply;
+    private Value sapply;
+    private Value mapply;
+
+    @Override
+    protected void setup() {
+        x = eval("function(n) runif(n)").execute(size);
+        list = eval("function(n) lapply(seq_len(n), function(i) c(i, i + 1))").execute(size);
+        lapply = eval("function(x) lapply(x, function(e) e + 1)");
+        vapply = eval("function(x) vapply(x, function(e) e * 2, 0)");
+        sapply = eval("function(l) sapply(l, function(e) e[[2L]] - e[[1L]])");
+        mapply = eval("function(x) mapply(function(a, b) a + b, x, rev(x))");
+    }
+
+    @Benchmark
+    public Value lapply(Allocations allocations) {
+        return allocations.operation(lapply.execute(x));
+    }
+
+    @Benchmark
+    public Value vapply(Allocations allocations) {
+        return allocations.operation(vapply.execute(x));
+    }
+
+    @Benchmark
+    public Value sapply(Allocations allocations) {
+        return allocations.operation(sapply.execute(list));
+    }
+
+    @Benchmark
+    public Value mapply(Allocations allocations) {
+        return allocations.operation(mapply.execute(x));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Vector and scalar arithmetic ({@code BinaryArithmeticNode}, {@code UnaryArithmeticNode}).
+ */
+public class ArithmeticBenchmark extends RBenchmarkBase {
+
+    @Param({"1000", "1000000"}) public int size;
+
+    private Value x;
+    private Value y;
+    private Value ix;
+
+    private Value add;
+    private Value mulScalar;
+    private Value intArith;
+    private Value math;
+    private Value scalarLoop;
+
+    @Override
+    protected void setup() {
+        x = eval("function(n) runif(n)").execute(size);
+        y = eval("function(n) runif(n)").execute(size);
+        ix = eval("function(n) sample.int(1000L, n, replace = TRUE)").execute(size);
+        add = eval("function(x, y) x + y");
+        mulScalar = eval("function(x) x * 2.5 - 1");
+        intArith = eval("function(x) (x * 3L + 1L) %/% 7L");
+        math = eval("function(x) sqrt(abs(-x)) + exp(x)");
+        scalarLoop = eval("function(x) { s <- 0; for (i in seq_along(x)) s <- s + x[[i]] * 0.5; s }");
+    }
+
+    @Benchmark
+    public Value add(Allocations allocations) {
+        return allocations.operation(add.execute(x, y));
+    }
+
+    @Benchmark
+    public Value mulScalar(Allocations allocations) {
+        return allocations.operation(mulScalar.execute(x));
+    }
+
+    @Benchmark
+    public Value intArith(Allocations allocations) {
+        return allocations.operation(intArith.execute(ix));
+    }
+
+    @Benchmark
+    public Value math(Allocations allocations) {
+        return allocations.operation(math.execute(x));
+    }
+
+    @Benchmark
+    public Value scalarLoop(Allocations allocations) {
+        return allocations.operation(scalarLoop.execute(x));
+    }
+}
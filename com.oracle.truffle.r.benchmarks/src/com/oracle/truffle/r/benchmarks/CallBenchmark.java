@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Closure calls with different kinds of argument matching ({@code RCallNode},
+ * {@code ArgumentMatcher}) and S3 dispatch ({@code S3FunctionLookupNode}), the latter at a call
+ * site that sees one class and at a call site that sees more classes than it caches.
+ */
+public class CallBenchmark extends RBenchmarkBase {
+
+    private static final int CALLS = 10000;
+
+    private Value positional;
+    private Value named;
+    private Value varargs;
+    private Value monomorphic;
+    private Value megamorphic;
+    private Value objects;
+
+    @Override
+    protected void setup() {
+        eval("f <- function(alpha, beta = 2, gamma = 3) alpha + beta + gamma");
+        eval("g <- function(...) f(...)");
+        positional = eval("function(n) { s <- 0; for (i in seq_len(n)) s <- s + f(i, 1, 2); s }");
+        named = eval("function(n) { s <- 0; for (i in seq_len(n)) s <- s + f(gam = 1, i, be = 2); s }");
+        varargs = eval("function(n) { s <- 0; for (i in seq_len(n)) s <- s + g(i, gamma = 1); s }");
+        eval("area <- function(shape, ...) UseMethod('area')");
+        eval("area.default <- function(shape, ...) 0");
+        eval("for (cl in paste0('shape', 1:10)) assign(paste0('area.', cl), eval(bquote(function(shape, ...) .(nchar(cl)) * unclass(shape))))");
+        objects = eval("lapply(1:10, function(i) structure(i, class = paste0('shape', i)))");
+        monomorphic = eval("function(objs, n) { s <- 0; o <- objs[[1L]]; for (i in seq_len(n)) s <- s + area(o); s }");
+        megamorphic = eval("function(objs, n) { s <- 0; for (i in seq_len(n)) s <- s + area(objs[[i %% 10L + 1L]]); s }");
+    }
+
+    @Benchmark
+    public Value positional(Allocations allocations) {
+        return allocations.operation(positional.execute(CALLS));
+    }
+
+    @Benchmark
+    public Value named(Allocations allocations) {
+        return allocations.operation(named.execute(CALLS));
+    }
+
+    @Benchmark
+    public Value varargs(Allocations allocations) {
+        return allocations.operation(varargs.execute(CALLS));
+    }
+
+    @Benchmark
+    public Value s3Monomorphic(Allocations allocations) {
+        return allocations.operation(monomorphic.execute(objects, CALLS));
+    }
+
+    @Benchmark
+    public Value s3Megamorphic(Allocations allocations) {
+        return allocations.operation(megamorphic.execute(objects, CALLS));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Access to environments used as hash maps ({@code assign}, {@code get}, {@code exists},
+ * {@code $}) and to variables of enclosing function environments ({@code <<-}).
+ */
+public class EnvironmentBenchmark extends RBenchmarkBase {
+
+    @Param({"1000"}) public int keys;
+
+    private Value env;
+    private Value names;
+
+    private Value assign;
+    private Value get;
+    private Value exists;
+    private Value dollar;
+    private Value superAssign;
+
+    @Override
+    protected void setup() {
+        names = eval("function(n) paste0('key', seq_len(n))").execute(keys);
+        env = eval("function(keys) { e <- new.env(hash = TRUE); for (k in keys) assign(k, nchar(k), envir = e); e }").execute(names);
+        assign = eval("function(e, keys) { for (k in keys) assign(k, 1L, envir = e); e }");
+        get = eval("function(e, keys) { s <- 0L; for (k in keys) s <- s + get(k, envir = e, inherits = FALSE); s }");
+        exists = eval("function(e, keys) { s <- 0L; for (k in keys) if (exists(k, envir = e, inherits = FALSE) && !exists(paste0(k, '_'), envir = e)) s <- s + 1L; s }");
+        dollar = eval("function(e, keys) { s <- 0L; for (i in seq_along(keys)) s <- s + e$key1 + e[['key2']]; s }");
+        superAssign = eval("function(keys) { count <- 0L; inc <- function() count <<- count + 1L; for (k in keys) inc(); count }");
+    }
+
+    @Benchmark
+    public Value assign(Allocations allocations) {
+        return allocations.operation(assign.execute(env, names));
+    }
+
+    @Benchmark
+    public Value get(Allocations allocations) {
+        return allocations.operation(get.execute(env, names));
+    }
+
+    @Benchmark
+    public Value exists(Allocations allocations) {
+        return allocations.operation(exists.execute(env, names));
+    }
+
+    @Benchmark
+    public Value dollar(Allocations allocations) {
+        return allocations.operation(dollar.execute(env, names));
+    }
+
+    @Benchmark
+    public Value superAssign(Allocations allocations) {
+        return allocations.operation(superAssign.execute(names));
+    }
+}
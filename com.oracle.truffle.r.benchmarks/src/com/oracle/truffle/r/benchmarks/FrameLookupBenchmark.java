@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Stresses the bookkeeping of the environment hierarchy (frame descriptor metadata, lookup caches
+ * and stable values) that is shared by all the contexts in the VM. Every benchmark thread has its
+ * own context, so the {@code parallel} variant only scales with the number of threads if the
+ * lookups in the different contexts do not contend on a common lock. Compare its time per operation
+ * with the single-threaded variant (or run with {@code -t N} to get more data points).
+ */
+public class FrameLookupBenchmark extends RBenchmarkBase {
+
+    @Param({"1000"}) public int environments;
+
+    private Value function;
+
+    @Override
+    protected void setup() {
+        // new environments create new frame descriptors and slots, the evaluation in them performs
+        // uncached lookups of both local and enclosing bindings
+        function = eval("function(n) { s <- 0; for (i in seq_len(n)) { e <- new.env(); assign('x', i, envir = e); " +
+                        "s <- s + evalq({ y <- x + 1; if (exists('y', inherits = FALSE)) y else sum(x) }, e) }; s }");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Value single(Allocations allocations) {
+        return allocations.operation(function.execute(environments));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Value parallel(Allocations allocations) {
+        return allocations.operation(function.execute(environments));
+    }
+}
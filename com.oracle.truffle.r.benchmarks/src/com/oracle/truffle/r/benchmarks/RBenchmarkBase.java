@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class of the FastR micro-benchmarks. Each trial creates a new R context, the benchmarks
+ * typically evaluate R functions once in {@link #setup()} and call them with
+ * {@link Value#execute(Object...)} in the benchmark methods, the warm-up iterations give the
+ * compiler the time to compile them. The benchmark methods take an {@link Allocations} parameter to
+ * report the allocations per operation alongside the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class RBenchmarkBase {
+
+    protected Context context;
+
+    @Setup(Level.Trial)
+    public final void createContext() throws Exception {
+        context = Context.newBuilder("R").allowAllAccess(true).build();
+        context.initialize("R");
+        setup();
+    }
+
+    @TearDown(Level.Trial)
+    public final void closeContext() throws Exception {
+        try {
+            tearDown();
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Prepares the benchmark in the new context.
+     */
+    protected void setup() throws Exception {
+    }
+
+    protected void tearDown() throws Exception {
+    }
+
+    protected final Value eval(String code) {
+        return context.eval("R", code);
+    }
+
+    /**
+     * Reports the number of bytes allocated by the benchmark thread per operation in each
+     * iteration as the secondary result {@code bytesPerOp}. The benchmark methods must pass the
+     * result of each operation through {@link #operation(Object)}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Allocations {
+        private static final com.sun.management.ThreadMXBean THREAD_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        public long bytesPerOp;
+
+        private long operations;
+        private long startBytes;
+
+        @Setup(Level.Iteration)
+        public void startIteration() {
+            bytesPerOp = 0;
+            operations = 0;
+            startBytes = THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        @TearDown(Level.Iteration)
+        public void endIteration() {
+            long allocated = THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+            bytesPerOp = operations == 0 ? 0 : allocated / operations;
+        }
+
+        public <T> T operation(T result) {
+            operations++;
+            return result;
+        }
+    }
+}
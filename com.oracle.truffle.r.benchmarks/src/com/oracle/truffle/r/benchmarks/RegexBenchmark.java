@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * The {@code grep} family of builtins with Java regular expressions, PCRE ({@code perl = TRUE}) and
+ * fixed patterns, on vectors and with a different pattern per call.
+ */
+public class RegexBenchmark extends RBenchmarkBase {
+
+    @Param({"10000"}) public int size;
+
+    private Value text;
+
+    private Value grepl;
+    private Value gsub;
+    private Value gsubPerl;
+    private Value regmatches;
+    private Value fixed;
+    private Value strsplit;
+    private Value perElement;
+
+    @Override
+    protected void setup() {
+        text = eval("function(n) paste0('id-', seq_len(n), ' name_', sample(letters, n, TRUE), ' ', round(runif(n) * 1000, 2))").execute(size);
+        grepl = eval("function(x) grepl('name_[a-m]', x)");
+        gsub = eval("function(x) gsub('[0-9]+\\\\.[0-9]+', 'NUM', x)");
+        gsubPerl = eval("function(x) gsub('(?<=-)(\\\\d+)', '<\\\\1>', x, perl = TRUE)");
+        regmatches = eval("function(x) regmatches(x, regexpr('[0-9]+', x))");
+        fixed = eval("function(x) sub('name_', '', x, fixed = TRUE)");
+        strsplit = eval("function(x) strsplit(x, ' ', fixed = TRUE)");
+        perElement = eval("function(x) { s <- 0L; for (i in seq_len(1000L)) s <- s + regexpr(paste0(i %% 10L), x[[i]]); s }");
+    }
+
+    @Benchmark
+    public Value grepl(Allocations allocations) {
+        return allocations.operation(grepl.execute(text));
+    }
+
+    @Benchmark
+    public Value gsub(Allocations allocations) {
+        return allocations.operation(gsub.execute(text));
+    }
+
+    @Benchmark
+    public Value gsubPerl(Allocations allocations) {
+        return allocations.operation(gsubPerl.execute(text));
+    }
+
+    @Benchmark
+    public Value regmatches(Allocations allocations) {
+        return allocations.operation(regmatches.execute(text));
+    }
+
+    @Benchmark
+    public Value fixed(Allocations allocations) {
+        return allocations.operation(fixed.execute(text));
+    }
+
+    @Benchmark
+    public Value strsplit(Allocations allocations) {
+        return allocations.operation(strsplit.execute(text));
+    }
+
+    @Benchmark
+    public Value perElementPattern(Allocations allocations) {
+        return allocations.operation(perElement.execute(text));
+    }
+}
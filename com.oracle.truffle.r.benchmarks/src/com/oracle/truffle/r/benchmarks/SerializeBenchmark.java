@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Throughput of the XDR serialization of large atomic vectors, in memory ({@code serialize} and
+ * {@code unserialize}) and through uncompressed files ({@code saveRDS} and {@code readRDS}).
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializeBenchmark extends RBenchmarkBase {
+
+    @Param({"1000000"}) public int size;
+
+    @Param({"double", "integer", "logical", "complex", "raw"}) public String type;
+
+    private Value data;
+    private Value serialized;
+    private Path file;
+
+    private Value serialize;
+    private Value unserialize;
+    private Value saveRDS;
+    private Value readRDS;
+
+    @Override
+    protected void setup() throws Exception {
+        Value create = eval("function(type, n) switch(type, double = runif(n), integer = sample.int(n), logical = runif(n) > 0.5, " +
+                        "complex = complex(real = runif(n), imaginary = runif(n)), raw = as.raw(sample.int(n) %% 256L))");
+        data = create.execute(type, size);
+        serialize = eval("function(x) serialize(x, NULL)");
+        unserialize = eval("function(x) unserialize(x)");
+        saveRDS = eval("function(x, f) saveRDS(x, f, compress = FALSE)");
+        readRDS = eval("function(f) readRDS(f)");
+        serialized = serialize.execute(data);
+        file = Files.createTempFile("fastr-serialize", ".rds");
+        saveRDS.execute(data, file.toString());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Value serialize(Allocations allocations) {
+        return allocations.operation(serialize.execute(data));
+    }
+
+    @Benchmark
+    public Value unserialize(Allocations allocations) {
+        return allocations.operation(unserialize.execute(serialized));
+    }
+
+    @Benchmark
+    public Value saveRDS(Allocations allocations) {
+        return allocations.operation(saveRDS.execute(data, file.toString()));
+    }
+
+    @Benchmark
+    public Value readRDS(Allocations allocations) {
+        return allocations.operation(readRDS.execute(file.toString()));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Vector, list and matrix subsetting and subset assignment ({@code CachedExtractVectorNode},
+ * {@code CachedReplaceVectorNode}).
+ */
+public class SubsettingBenchmark extends RBenchmarkBase {
+
+    @Param({"10000"}) public int size;
+
+    private Value x;
+    private Value list;
+    private Value matrix;
+
+    private Value scalarIndex;
+    private Value vectorIndex;
+    private Value logicalIndex;
+    private Value listByName;
+    private Value matrixIndex;
+    private Value updateLoop;
+
+    @Override
+    protected void setup() {
+        x = eval("function(n) runif(n)").execute(size);
+        list = eval("function(n) setNames(as.list(seq_len(100)), paste0('e', seq_len(100)))").execute(size);
+        matrix = eval("function(n) matrix(runif(n), nrow = 100)").execute(size);
+        scalarIndex = eval("function(x) { s <- 0; for (i in seq_along(x)) s <- s + x[i]; s }");
+        vectorIndex = eval("function(x) x[seq(1L, length(x), by = 3L)]");
+        logicalIndex = eval("function(x) x[x > 0.5]");
+        listByName = eval("function(l) { s <- 0L; for (n in names(l)) s <- s + l[[n]] + l$e50; s }");
+        matrixIndex = eval("function(m) { s <- 0; for (j in seq_len(ncol(m))) for (i in seq_len(nrow(m))) s <- s + m[i, j]; s }");
+        updateLoop = eval("function(x) { for (i in seq_along(x)) x[i] <- x[i] * 2; x }");
+    }
+
+    @Benchmark
+    public Value scalarIndex(Allocations allocations) {
+        return allocations.operation(scalarIndex.execute(x));
+    }
+
+    @Benchmark
+    public Value vectorIndex(Allocations allocations) {
+        return allocations.operation(vectorIndex.execute(x));
+    }
+
+    @Benchmark
+    public Value logicalIndex(Allocations allocations) {
+        return allocations.operation(logicalIndex.execute(x));
+    }
+
+    @Benchmark
+    public Value listByName(Allocations allocations) {
+        return allocations.operation(listByName.execute(list));
+    }
+
+    @Benchmark
+    public Value matrixIndex(Allocations allocations) {
+        return allocations.operation(matrixIndex.execute(matrix));
+    }
+
+    @Benchmark
+    public Value updateLoop(Allocations allocations) {
+        return allocations.operation(updateLoop.execute(x));
+    }
+}
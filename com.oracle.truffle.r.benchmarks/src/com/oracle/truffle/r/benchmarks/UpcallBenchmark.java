@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Native code called via {@code .Call}, which calls back into FastR to allocate its result and to
+ * access the data of the vectors. The native routines are those of the {@code stats} package:
+ * {@code cfilter} (used by {@code filter}) and {@code ar2ma} (used by {@code ARMAtoMA}).
+ */
+public class UpcallBenchmark extends RBenchmarkBase {
+
+    private static final int CALLS = 1000;
+
+    @Param({"100", "100000"}) public int size;
+
+    private Value x;
+
+    private Value filter;
+    private Value filterLoop;
+    private Value ar2maLoop;
+
+    @Override
+    protected void setup() {
+        x = eval("function(n) runif(n)").execute(size);
+        filter = eval("function(x) .Call(stats:::C_cfilter, x, rep(1 / 3, 3), 2L, FALSE)");
+        filterLoop = eval("function(x, n) { y <- x[1:10]; f <- rep(1 / 3, 3); s <- 0; for (i in seq_len(n)) s <- s + .Call(stats:::C_cfilter, y, f, 2L, FALSE)[[2L]]; s }");
+        ar2maLoop = eval("function(n) { s <- 0; for (i in seq_len(n)) s <- s + sum(.Call(stats:::C_ar2ma, c(0.5, -0.2), 20L)); s }");
+    }
+
+    @Benchmark
+    public Value filter(Allocations allocations) {
+        return allocations.operation(filter.execute(x));
+    }
+
+    @Benchmark
+    public Value filterSmallCalls(Allocations allocations) {
+        return allocations.operation(filterLoop.execute(x, CALLS));
+    }
+
+    @Benchmark
+    public Value ar2maCalls(Allocations allocations) {
+        return allocations.operation(ar2maLoop.execute(CALLS));
+    }
+}
@@ -102,6 +102,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -159,7 +160,9 @@ final class REngine implements Engine, Engine.Timings {
         MaterializedFrame baseFrame = RRuntime.createNonFunctionFrame("base");
         REnvironment.baseInitialize(baseFrame, globalFrame);
         context.getStateRFFI().initializeVariables(context);
+        StartupTiming.timestamp("Before Base Loaded");
         RBuiltinPackages.loadBase(context.getLanguage(), baseFrame);
+        StartupTiming.timestamp("After Base Loaded");
         RGraphics.initialize(context);
         if (context.getOption(LoadProfiles)) {
             StartupTiming.timestamp("Before Profiles Loaded");
@@ -245,7 +248,30 @@ final class REngine implements Engine, Engine.Timings {
 
     @Override
     public Object parseAndEval(Source source, MaterializedFrame frame, boolean printResult) throws ParseException {
-        List<RSyntaxNode> list = parseSource(source);
+        return evalAll(parseSource(source), frame, printResult);
+    }
+
+    @Override
+    public Object parseAndEvalCached(Source source, MaterializedFrame frame) throws ParseException {
+        ConcurrentHashMap<String, List<RSyntaxNode>> cache = context.getLanguage().getParsedSourceCache();
+        String key = source.getCharacters().toString();
+        List<RSyntaxNode> parsed = cache.get(key);
+        if (parsed == null) {
+            parsed = parseSource(source);
+            List<RSyntaxNode> previous = cache.putIfAbsent(key, parsed);
+            if (previous != null) {
+                parsed = previous;
+            }
+        }
+        // the cached AST is never executed, since execution rewrites and specializes the nodes
+        ArrayList<RSyntaxNode> copy = new ArrayList<>(parsed.size());
+        for (RSyntaxNode node : parsed) {
+            copy.add(RContext.getASTBuilder().process(node));
+        }
+        return evalAll(copy, frame, false);
+    }
+
+    private Object evalAll(List<RSyntaxNode> list, MaterializedFrame frame, boolean printResult) {
         try {
             Object lastValue = RNull.instance;
             for (RSyntaxNode node : list) {
@@ -23,6 +23,8 @@
 package com.oracle.truffle.r.engine;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerAsserts;
@@ -67,6 +69,7 @@ import com.oracle.truffle.r.runtime.env.REnvironment;
 import com.oracle.truffle.r.runtime.env.RScope;
 import com.oracle.truffle.r.runtime.ffi.RFFIFactory;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
 import org.graalvm.options.OptionDescriptors;
 
 @TruffleLanguage.Registration(name = "R", id = "R", version = "3.5.1", mimeType = {RRuntime.R_APP_MIME, RRuntime.R_TEXT_MIME}, interactive = true, fileTypeDetectors = RFileTypeDetector.class)
@@ -74,12 +77,18 @@ import org.graalvm.options.OptionDescriptors;
 public final class TruffleRLanguageImpl extends TruffleRLanguage {
 
     private final HashMap<String, RFunction> builtinFunctionCache = new HashMap<>();
+    private final ConcurrentHashMap<String, List<RSyntaxNode>> parsedSourceCache = new ConcurrentHashMap<>();
 
     @Override
     public HashMap<String, RFunction> getBuiltinFunctionCache() {
         return builtinFunctionCache;
     }
 
+    @Override
+    public ConcurrentHashMap<String, List<RSyntaxNode>> getParsedSourceCache() {
+        return parsedSourceCache;
+    }
+
     /**
      * The choice of {@link RFFIFactory} is made statically so that it is bound into an AOT-compiled
      * VM. The decision is made directly in {@link RFFIFactory} to avoid some project dependencies
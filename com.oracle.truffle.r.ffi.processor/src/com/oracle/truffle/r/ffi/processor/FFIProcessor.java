@@ -242,6 +242,7 @@ public final class FFIProcessor extends AbstractProcessor {
         if (!returnKind.isPrimitive() && returnKind != TypeKind.VOID) {
             w.append("import com.oracle.truffle.r.runtime.data.RDataFactory;\n");
         }
+        w.append("import com.oracle.truffle.r.runtime.ffi.NativeCallStatistics;\n");
         w.append("import com.oracle.truffle.r.runtime.ffi.RFFIContext;\n");
         w.append("import com.oracle.truffle.r.runtime.ffi.RFFILog;\n");
         w.append("import com.oracle.truffle.r.ffi.impl.upcalls.UpCallsRFFI;\n");
@@ -337,6 +338,9 @@ public final class FFIProcessor extends AbstractProcessor {
         w.append("                    if (RFFILog.logEnabled()) {\n");
         w.append("                        RFFILog.logUpCall(\"" + name + "\", arguments);\n");
         w.append("                    }\n");
+        w.append("                    if (NativeCallStatistics.isEnabled()) {\n");
+        w.append("                        NativeCallStatistics.upcall(\"" + name + "\");\n");
+        w.append("                    }\n");
         w.append("                    RFFIContext ctx = RContext.getInstance().getStateRFFI();\n");
         if (returnKind != TypeKind.VOID) {
             w.append("                    Object resultRObj0;\n");
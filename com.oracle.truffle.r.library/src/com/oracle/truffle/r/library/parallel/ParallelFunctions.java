@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,10 +22,19 @@
  */
 package com.oracle.truffle.r.library.parallel;
 
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.integerValue;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.NodeWithArgumentCasts.Casts;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
+import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.rng.lecuyer.LecuyerCMRG;
 
 /**
  * The .Call support for the parallel package.
@@ -37,4 +46,34 @@ public class ParallelFunctions {
             return RRuntime.asLogical(RContext.getInstance().getParent() != null);
         }
     }
+
+    /**
+     * Advances L'Ecuyer-CMRG seeds to the start of the next stream ({@code nextRNGStream}) or
+     * substream ({@code nextRNGSubStream}), the R code has already checked the RNG kind.
+     */
+    public abstract static class NextStream extends RExternalBuiltinNode.Arg1 {
+        private final boolean subStream;
+
+        protected NextStream(boolean subStream) {
+            this.subStream = subStream;
+        }
+
+        static {
+            Casts casts = new Casts(NextStream.class);
+            casts.arg(0).mustBe(integerValue(), Message.INVALID_ARGUMENT, "seed").asIntegerVector();
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RIntVector nextStream(RAbstractIntVector seed) {
+            if (seed.getLength() < 7) {
+                throw error(Message.INVALID_ARGUMENT, "seed");
+            }
+            int[] seeds = new int[7];
+            for (int i = 0; i < seeds.length; i++) {
+                seeds[i] = seed.getDataAt(i);
+            }
+            return RDataFactory.createIntVector(subStream ? LecuyerCMRG.nextSubStream(seeds) : LecuyerCMRG.nextStream(seeds), RDataFactory.INCOMPLETE_VECTOR);
+        }
+    }
 }
@@ -2,7 +2,7 @@
  * Copyright (c) 1995, 1996, 1997  Robert Gentleman and Ross Ihaka
  * Copyright (c) 1995-2014, The R Core Team
  * Copyright (c) 2002-2008, The R Foundation
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -25,6 +25,7 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.missingValue
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.nullValue;
 import static com.oracle.truffle.r.runtime.nmath.MathConstants.DBL_MIN;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.object.DynamicObject;
@@ -33,6 +34,7 @@ import com.oracle.truffle.r.nodes.attributes.SetAttributeNode;
 import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.GetDimAttributeNode;
 import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.SetClassAttributeNode;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
+import com.oracle.truffle.r.runtime.ParallelChunks;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RRuntime;
@@ -43,11 +45,15 @@ import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess.RandomIterator;
-import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
 public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
 
-    private static final NACheck naCheck = NACheck.create();
+    /**
+     * The number of element operations (pairs of rows times columns) from which {@code dist} uses
+     * multiple threads, see {@link ParallelChunks#THREADS_OPTION}.
+     */
+    private static final long PARALLEL_THRESHOLD = 1L << 22;
+    private static final int TILE_SIZE = 64;
 
     @Child private GetFixedAttributeNode getNamesAttrNode = GetFixedAttributeNode.createNames();
 
@@ -73,13 +79,27 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
         }
         int nr = getDimNode.nrows(x);
         int nc = getDimNode.ncols(x);
-        int n = nr * (nr - 1) / 2; /* avoid int overflow for N ~ 50,000 */
+        int n = (int) ((long) nr * (nr - 1) / 2); /* avoid int overflow for N ~ 50,000 */
         double[] ans = new double[n];
 
+        // the rows are transposed to be contiguous, which is what the distance kernels iterate over
+        double[] rows = new double[nr * nc];
         try (RandomIterator xIter = xAccess.randomAccess(x)) {
-            rdistance(xAccess, xIter, nr, nc, ans, false, methodObj, p);
+            for (int j = 0; j < nc; j++) {
+                for (int i = 0; i < nr; i++) {
+                    rows[i * nc + j] = xAccess.getDouble(xIter, j * nr + i);
+                }
+            }
         }
-        RDoubleVector result = RDataFactory.createDoubleVector(ans, naCheck.neverSeenNA());
+        rdistance(rows, nr, nc, ans, methodObj, p);
+        boolean complete = true;
+        for (int i = 0; i < n; i++) {
+            if (RRuntime.isNA(ans[i])) {
+                complete = false;
+                break;
+            }
+        }
+        RDoubleVector result = RDataFactory.createDoubleVector(ans, complete);
         DynamicObject resultAttrs = result.initAttributes();
 
         RStringVector names = (RStringVector) getNamesAttrNode.execute(list);
@@ -121,30 +141,56 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
         return Method.values()[method - 1];
     }
 
-    private void rdistance(VectorAccess xAccess, RandomIterator xIter, int nr, int nc, double[] d, boolean diag, Method method, double p) {
-        int ij; /* can exceed 2^31 - 1, but Java can't handle that */
-        //
+    /**
+     * Computes the lower triangle of the distance matrix (without the diagonal) in column order into
+     * {@code d}. The columns of the result are processed in tiles of {@link #TILE_SIZE} rows of
+     * {@code x}, which stay in the cache while the other rows are streamed through. Large inputs are
+     * processed in parallel, each task owns whole tiles and so disjoint blocks of the result. Every
+     * distance is computed by the same kernel and the same order of operations, so the result does
+     * not depend on the number of threads.
+     */
+    @TruffleBoundary
+    private void rdistance(double[] x, int nr, int nc, double[] d, Method method, double p) {
         if (method == Method.MINKOWSKI) {
             if (!RRuntime.isFinite(p) || p <= 0) {
                 throw error(RError.Message.GENERIC, "distance(): invalid p");
             }
         }
-        int dc = diag ? 0 : 1; /* diag=1: we do the diagonal */
-        ij = 0;
-        naCheck.enable(true);
-        for (int j = 0; j <= nr; j++) {
-            for (int i = j + dc; i < nr; i++) {
-                double r = method.dist(xAccess, xIter, nr, nc, i, j, p);
-                naCheck.check(r);
-                d[ij++] = r;
+        int threads = 1;
+        if ((long) nr * nr * nc / 2 >= PARALLEL_THRESHOLD && (method != Method.BINARY || allFiniteOrNaN(x))) {
+            // the binary kernel warns about non-finite values, which cannot be done from the workers
+            threads = ParallelChunks.getThreadCount();
+        }
+        int tiles = (nr + TILE_SIZE - 1) / TILE_SIZE;
+        ParallelChunks.runCyclic(tiles, threads, tile -> {
+            int j0 = tile * TILE_SIZE;
+            int j1 = Math.min(j0 + TILE_SIZE, nr);
+            for (int i0 = j0; i0 < nr; i0 += TILE_SIZE) {
+                int i1 = Math.min(i0 + TILE_SIZE, nr);
+                for (int j = j0; j < j1; j++) {
+                    // start of the column j of the triangle
+                    long base = (long) j * nr - (long) j * (j + 1) / 2 - j - 1;
+                    for (int i = Math.max(i0, j + 1); i < i1; i++) {
+                        d[(int) (base + i)] = method.dist(x, nc, i * nc, j * nc, p);
+                    }
+                }
+            }
+        });
+    }
+
+    private static boolean allFiniteOrNaN(double[] x) {
+        for (int i = 0; i < x.length; i++) {
+            if (Double.isInfinite(x[i])) {
+                return false;
             }
         }
+        return true;
     }
 
     public enum Method {
         EUCLIDEAN {
             @Override
-            public double dist(VectorAccess xAccess, RandomIterator xIter, int nr, int nc, final int i1in, final int i2in, double p) {
+            public double dist(double[] x, int nc, final int i1in, final int i2in, double p) {
                 int i1 = i1in;
                 int i2 = i2in;
                 double dev;
@@ -155,15 +201,15 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
                 count = 0;
                 dist = 0;
                 for (j = 0; j < nc; j++) {
-                    if (bothNonNAN(xAccess.getDouble(xIter, i1), xAccess.getDouble(xIter, i2))) {
-                        dev = (xAccess.getDouble(xIter, i1) - xAccess.getDouble(xIter, i2));
+                    if (bothNonNAN(x[i1], x[i2])) {
+                        dev = (x[i1] - x[i2]);
                         if (!RRuntime.isNAorNaN(dev)) {
                             dist += dev * dev;
                             count++;
                         }
                     }
-                    i1 += nr;
-                    i2 += nr;
+                    i1++;
+                    i2++;
                 }
                 if (count == 0) {
                     return RRuntime.DOUBLE_NA;
@@ -177,7 +223,7 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
         },
         MAXIMUM {
             @Override
-            public double dist(VectorAccess xAccess, RandomIterator xIter, int nr, int nc, final int i1in, final int i2in, double p) {
+            public double dist(double[] x, int nc, final int i1in, final int i2in, double p) {
                 int i1 = i1in;
                 int i2 = i2in;
                 double dev;
@@ -188,8 +234,8 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
                 count = 0;
                 dist = -Double.MAX_VALUE;
                 for (j = 0; j < nc; j++) {
-                    if (bothNonNAN(xAccess.getDouble(xIter, i1), xAccess.getDouble(xIter, i2))) {
-                        dev = Math.abs(xAccess.getDouble(xIter, i1) - xAccess.getDouble(xIter, i2));
+                    if (bothNonNAN(x[i1], x[i2])) {
+                        dev = Math.abs(x[i1] - x[i2]);
                         if (!RRuntime.isNAorNaN(dev)) {
                             if (dev > dist) {
                                 dist = dev;
@@ -197,8 +243,8 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
                             count++;
                         }
                     }
-                    i1 += nr;
-                    i2 += nr;
+                    i1++;
+                    i2++;
                 }
                 if (count == 0) {
                     return RRuntime.DOUBLE_NA;
@@ -209,7 +255,7 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
         },
         MANHATTAN {
             @Override
-            public double dist(VectorAccess xAccess, RandomIterator xIter, int nr, int nc, final int i1in, final int i2in, double p) {
+            public double dist(double[] x, int nc, final int i1in, final int i2in, double p) {
                 int i1 = i1in;
                 int i2 = i2in;
                 double dev;
@@ -220,15 +266,15 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
                 count = 0;
                 dist = 0;
                 for (j = 0; j < nc; j++) {
-                    if (bothNonNAN(xAccess.getDouble(xIter, i1), xAccess.getDouble(xIter, i2))) {
-                        dev = Math.abs(xAccess.getDouble(xIter, i1) - xAccess.getDouble(xIter, i2));
+                    if (bothNonNAN(x[i1], x[i2])) {
+                        dev = Math.abs(x[i1] - x[i2]);
                         if (!RRuntime.isNAorNaN(dev)) {
                             dist += dev;
                             count++;
                         }
                     }
-                    i1 += nr;
-                    i2 += nr;
+                    i1++;
+                    i2++;
                 }
                 if (count == 0) {
                     return RRuntime.DOUBLE_NA;
@@ -242,7 +288,7 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
         },
         CANBERRA {
             @Override
-            public double dist(VectorAccess xAccess, RandomIterator xIter, int nr, int nc, final int i1in, final int i2in, double p) {
+            public double dist(double[] x, int nc, final int i1in, final int i2in, double p) {
                 int i1 = i1in;
                 int i2 = i2in;
                 double dev;
@@ -255,9 +301,9 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
                 count = 0;
                 dist = 0;
                 for (j = 0; j < nc; j++) {
-                    if (bothNonNAN(xAccess.getDouble(xIter, i1), xAccess.getDouble(xIter, i2))) {
-                        sum = Math.abs(xAccess.getDouble(xIter, i1) + xAccess.getDouble(xIter, i2));
-                        diff = Math.abs(xAccess.getDouble(xIter, i1) - xAccess.getDouble(xIter, i2));
+                    if (bothNonNAN(x[i1], x[i2])) {
+                        sum = Math.abs(x[i1] + x[i2]);
+                        diff = Math.abs(x[i1] - x[i2]);
                         if (sum > DBL_MIN || diff > DBL_MIN) {
                             dev = diff / sum;
                             if (!RRuntime.isNAorNaN(dev) ||
@@ -268,8 +314,8 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
                             }
                         }
                     }
-                    i1 += nr;
-                    i2 += nr;
+                    i1++;
+                    i2++;
                 }
                 if (count == 0) {
                     return RRuntime.DOUBLE_NA;
@@ -283,7 +329,7 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
         },
         BINARY {
             @Override
-            public double dist(VectorAccess xAccess, RandomIterator xIter, int nr, int nc, final int i1in, final int i2in, double p) {
+            public double dist(double[] x, int nc, final int i1in, final int i2in, double p) {
                 int i1 = i1in;
                 int i2 = i2in;
                 int total;
@@ -296,21 +342,21 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
                 dist = 0;
 
                 for (j = 0; j < nc; j++) {
-                    if (bothNonNAN(xAccess.getDouble(xIter, i1), xAccess.getDouble(xIter, i2))) {
-                        if (!bothFinite(xAccess.getDouble(xIter, i1), xAccess.getDouble(xIter, i2))) {
+                    if (bothNonNAN(x[i1], x[i2])) {
+                        if (!bothFinite(x[i1], x[i2])) {
                             RError.warning(RError.SHOW_CALLER2, RError.Message.GENERIC, "treating non-finite values as NA");
                         } else {
-                            if (xAccess.getDouble(xIter, i1) != 0. || xAccess.getDouble(xIter, i2) != 0.) {
+                            if (x[i1] != 0. || x[i2] != 0.) {
                                 count++;
-                                if (!(xAccess.getDouble(xIter, i1) != 0. && xAccess.getDouble(xIter, i2) != 0.)) {
+                                if (!(x[i1] != 0. && x[i2] != 0.)) {
                                     dist++;
                                 }
                             }
                             total++;
                         }
                     }
-                    i1 += nr;
-                    i2 += nr;
+                    i1++;
+                    i2++;
                 }
 
                 if (total == 0) {
@@ -325,7 +371,7 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
         },
         MINKOWSKI {
             @Override
-            public double dist(VectorAccess xAccess, RandomIterator xIter, int nr, int nc, final int i1in, final int i2in, double p) {
+            public double dist(double[] x, int nc, final int i1in, final int i2in, double p) {
                 int i1 = i1in;
                 int i2 = i2in;
                 double dev;
@@ -336,15 +382,15 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
                 count = 0;
                 dist = 0;
                 for (j = 0; j < nc; j++) {
-                    if (bothNonNAN(xAccess.getDouble(xIter, i1), xAccess.getDouble(xIter, i2))) {
-                        dev = (xAccess.getDouble(xIter, i1) - xAccess.getDouble(xIter, i2));
+                    if (bothNonNAN(x[i1], x[i2])) {
+                        dev = (x[i1] - x[i2]);
                         if (!RRuntime.isNAorNaN(dev)) {
                             dist += Math.pow(Math.abs(dev), p);
                             count++;
                         }
                     }
-                    i1 += nr;
-                    i2 += nr;
+                    i1++;
+                    i2++;
                 }
                 if (count == 0) {
                     return RRuntime.DOUBLE_NA;
@@ -356,6 +402,10 @@ public abstract class Cdist extends RExternalBuiltinNode.Arg4 {
             }
         };
 
-        public abstract double dist(VectorAccess xAccess, RandomIterator xIter, int nr, int nc, int i1, int i2, double p);
+        /**
+         * Computes the distance of the rows starting at {@code i1} and {@code i2} of the row-major
+         * matrix {@code x} with {@code nc} columns.
+         */
+        public abstract double dist(double[] x, int nc, int i1, int i2, double p);
     }
 }
@@ -1,7 +1,7 @@
 /*
  * Copyright (c) 1995-2012, The R Core Team
  * Copyright (c) 2003, The R Foundation
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -34,6 +34,7 @@ import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.SetDimNa
 import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctionsFactory.SetDimNamesAttributeNodeGen;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
 import com.oracle.truffle.r.nodes.unary.IsFactorNode;
+import com.oracle.truffle.r.runtime.ParallelChunks;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RRuntime;
@@ -73,6 +74,19 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
         return Double.isNaN(v);
     }
 
+    /**
+     * The number of multiply-adds from which the loops over the pairs of columns use multiple
+     * threads, see {@link ParallelChunks#THREADS_OPTION}. Each column of {@code x} is processed by
+     * a single task, which computes its results (in the same order of operations as the serial
+     * code) into a disjoint part of {@code ans}.
+     */
+    private static final long PARALLEL_THRESHOLD = 1L << 22;
+
+    private static int getThreadCount(int n, int ncx, int ncy, boolean kendall) {
+        long work = (long) n * ncx * ncy * (kendall ? n : 1);
+        return work >= PARALLEL_THRESHOLD ? ParallelChunks.getThreadCount() : 1;
+    }
+
     /*
      * Note that "if (kendall)" and "if (cor)" are used inside a double for() loop; which makes the
      * code better readable -- and is hopefully dealt with by a smartly optimizing compiler
@@ -161,7 +175,7 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
 
     @TruffleBoundary
     private static void cov_pairwise1(int n, int ncx, double[] x, double[] ans, boolean[] sd_0, boolean cor, boolean kendall) {
-        for (int i = 0; i < ncx; i++) {
+        ParallelChunks.runCyclic(ncx, getThreadCount(n, ncx, ncx, kendall), i -> {
             int xx = i * n;
             for (int j = 0; j <= i; j++) {
                 int yy = j * n;
@@ -170,19 +184,19 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
 
                 ANS(ans, ncx, j, i, ANS(ans, ncx, i, j));
             }
-        }
+        });
     }
 
     @TruffleBoundary
     private static void cov_pairwise2(int n, int ncx, int ncy, double[] x, double[] y, double[] ans, boolean[] sd_0, boolean cor, boolean kendall) {
-        for (int i = 0; i < ncx; i++) {
+        ParallelChunks.runCyclic(ncx, getThreadCount(n, ncx, ncy, kendall), i -> {
             int xx = i * n;
             for (int j = 0; j < ncy; j++) {
                 int yy = j * n;
 
                 COV_PAIRWISE_BODY(ans, n, ncx, i, j, x, y, xx, yy, sd_0, cor, kendall);
             }
-        }
+        });
     }
 
     /*
@@ -241,8 +255,6 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
     }
 
     private static void cov_complete1(int n, int ncx, double[] x, double[] xm, boolean[] ind, double[] ans, boolean[] sd_0, boolean cor, boolean kendall) {
-        int n1 = -1;
-
         /* total number of complete observations */
         int nobs = 0;
         for (int k = 0; k < n; k++) {
@@ -261,9 +273,9 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
 
         if (!kendall) {
             MEAN(n, ncx, x, xm, ind, nobs); /* -> xm[] */
-            n1 = nobs - 1;
         }
-        for (int i = 0; i < ncx; i++) {
+        int n1 = kendall ? -1 : nobs - 1;
+        ParallelChunks.runCyclic(ncx, getThreadCount(n, ncx, ncx, kendall), i -> {
             int xx = i * n;
 
             if (!kendall) {
@@ -287,9 +299,9 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                     double sum = 0;
                     for (int k = 0; k < n; k++) {
                         if (ind[k]) {
-                            for (n1 = 0; n1 < n; n1++) {
-                                if (ind[n1]) {
-                                    sum += RMath.sign(x[xx + k] - x[xx + n1]) * RMath.sign(x[yy + k] - x[yy + n1]);
+                            for (int l = 0; l < n; l++) {
+                                if (ind[l]) {
+                                    sum += RMath.sign(x[xx + k] - x[xx + l]) * RMath.sign(x[yy + k] - x[yy + l]);
                                 }
                             }
                         }
@@ -298,7 +310,7 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                     ANS(ans, ncx, i, j, sum);
                 }
             }
-        }
+        });
 
         if (cor) {
             for (int i = 0; i < ncx; i++) {
@@ -327,7 +339,6 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
     }
 
     private static void cov_na_1(int n, int ncx, double[] x, double[] xm, boolean[] has_na, double[] ans, boolean[] sd_0, boolean cor, boolean kendall) {
-        int n1 = -1;
         if (n <= 1) { /* too many missing */
             for (int i = 0; i < ncx; i++) {
                 for (int j = 0; j < ncx; j++) {
@@ -339,9 +350,9 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
 
         if (!kendall) {
             MEAN_(n, ncx, x, xm, has_na);/* -> xm[] */
-            n1 = n - 1;
         }
-        for (int i = 0; i < ncx; i++) {
+        int n1 = kendall ? -1 : n - 1;
+        ParallelChunks.runCyclic(ncx, getThreadCount(n, ncx, ncx, kendall), i -> {
             if (has_na[i]) {
                 for (int j = 0; j <= i; j++) {
                     ANS(ans, ncx, j, i, RRuntime.DOUBLE_NA);
@@ -377,8 +388,8 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                             int yy = j * n;
                             double sum = 0;
                             for (int k = 0; k < n; k++) {
-                                for (n1 = 0; n1 < n; n1++) {
-                                    sum += RMath.sign(x[xx + k] - x[xx + n1]) * RMath.sign(x[yy + k] - x[yy + n1]);
+                                for (int l = 0; l < n; l++) {
+                                    sum += RMath.sign(x[xx + k] - x[xx + l]) * RMath.sign(x[yy + k] - x[yy + l]);
                                 }
                             }
                             ANS(ans, ncx, j, i, sum);
@@ -387,7 +398,7 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                     }
                 }
             }
-        }
+        });
 
         if (cor) {
             for (int i = 0; i < ncx; i++) {
@@ -434,8 +445,8 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
             } else { /* Kendall's tau */
                 for (int k = 0; k < n; k++) {
                     if (ind[k]) {
-                        for (int n1_ = 0; n1_ < n; n1_++) {
-                            if (ind[n1_] && array[xx + k] != array[xx + n1_]) {
+                        for (int l = 0; l < n; l++) {
+                            if (ind[l] && array[xx + k] != array[xx + l]) {
                                 sum++; /* = sign(. - .)^2 */
                             }
                         }
@@ -447,8 +458,6 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
     }
 
     private static void cov_complete2(int n, int ncx, int ncy, double[] x, double[] y, double[] xm, double[] ym, boolean[] ind, double[] ans, boolean[] sd_0, boolean cor, boolean kendall) {
-        int n1 = -1;
-
         /* total number of complete observations */
         int nobs = 0;
         for (int k = 0; k < n; k++) {
@@ -468,9 +477,9 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
         if (!kendall) {
             MEAN(n, ncx, x, xm, ind, nobs);/* -> xm[] */
             MEAN(n, ncy, y, ym, ind, nobs);/* -> ym[] */
-            n1 = nobs - 1;
         }
-        for (int i = 0; i < ncx; i++) {
+        int n1 = kendall ? -1 : nobs - 1;
+        ParallelChunks.runCyclic(ncx, getThreadCount(n, ncx, ncy, kendall), i -> {
             int xx = i * n;
             if (!kendall) {
                 double xxm = xm[i];
@@ -491,9 +500,9 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                     double sum = 0;
                     for (int k = 0; k < n; k++) {
                         if (ind[k]) {
-                            for (n1 = 0; n1 < n; n1++) {
-                                if (ind[n1]) {
-                                    sum += RMath.sign(x[xx + k] - x[xx + n1]) * RMath.sign(y[yy + k] - y[yy + n1]);
+                            for (int l = 0; l < n; l++) {
+                                if (ind[l]) {
+                                    sum += RMath.sign(x[xx + k] - x[xx + l]) * RMath.sign(y[yy + k] - y[yy + l]);
                                 }
                             }
                         }
@@ -501,7 +510,7 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                     ANS(ans, ncx, i, j, sum);
                 }
             }
-        }
+        });
 
         if (cor) {
 
@@ -541,8 +550,8 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                     sum /= n1;
                 } else { /* Kendall's tau */
                     for (int k = 0; k < n; k++) {
-                        for (int n1_ = 0; n1_ < n; n1_++) {
-                            if (array[xx + k] != array[xx + n1_]) {
+                        for (int l = 0; l < n; l++) {
+                            if (array[xx + k] != array[xx + l]) {
                                 sum++; /* = sign(. - .)^2 */
                             }
                         }
@@ -555,7 +564,6 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
 
     private static void cov_na_2(int n, int ncx, int ncy, double[] x, double[] y, double[] xm, double[] ym, boolean[] has_na_x, boolean[] has_na_y, double[] ans, boolean[] sd_0, boolean cor,
                     boolean kendall) {
-        int n1 = -1;
         if (n <= 1) {/* too many missing */
             for (int i = 0; i < ncx; i++) {
                 for (int j = 0; j < ncy; j++) {
@@ -568,9 +576,9 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
         if (!kendall) {
             MEAN_(n, ncx, x, xm, has_na_x);/* -> xm[] */
             MEAN_(n, ncy, y, ym, has_na_y);/* -> ym[] */
-            n1 = n - 1;
         }
-        for (int i = 0; i < ncx; i++) {
+        int n1 = kendall ? -1 : n - 1;
+        ParallelChunks.runCyclic(ncx, getThreadCount(n, ncx, ncy, kendall), i -> {
             if (has_na_x[i]) {
                 for (int j = 0; j < ncy; j++) {
                     ANS(ans, ncx, i, j, RRuntime.DOUBLE_NA);
@@ -600,8 +608,8 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                             int yy = j * n;
                             double sum = 0;
                             for (int k = 0; k < n; k++) {
-                                for (n1 = 0; n1 < n; n1++) {
-                                    sum += RMath.sign(x[xx + k] - x[xx + n1]) * RMath.sign(y[yy + k] - y[yy + n1]);
+                                for (int l = 0; l < n; l++) {
+                                    sum += RMath.sign(x[xx + k] - x[xx + l]) * RMath.sign(y[yy + k] - y[yy + l]);
                                 }
                             }
                             ANS(ans, ncx, i, j, sum);
@@ -609,7 +617,7 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
                     }
                 }
             }
-        }
+        });
 
         if (cor) {
 
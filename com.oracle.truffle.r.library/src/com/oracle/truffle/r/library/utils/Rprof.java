@@ -27,34 +27,26 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElemen
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.function.Function;
+import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.frame.Frame;
-import com.oracle.truffle.api.frame.FrameInstance.FrameAccess;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventBinding;
 import com.oracle.truffle.api.instrumentation.EventContext;
 import com.oracle.truffle.api.instrumentation.ExecutionEventListener;
 import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
 import com.oracle.truffle.api.instrumentation.StandardTags;
-import com.oracle.truffle.api.nodes.RootNode;
-import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
-import com.oracle.truffle.r.nodes.control.BlockNode.HugeBlockRootNode;
-import com.oracle.truffle.r.nodes.function.FunctionDefinitionNode;
 import com.oracle.truffle.r.nodes.instrumentation.RInstrumentation;
-import com.oracle.truffle.r.runtime.RArguments;
-import com.oracle.truffle.r.runtime.RCaller;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RSource;
-import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.MemoryCopyTracer;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
@@ -63,27 +55,34 @@ import com.oracle.truffle.r.runtime.data.RObjectSize;
 import com.oracle.truffle.r.runtime.data.RTypedValue;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.instrument.InstrumentationState;
+import com.oracle.truffle.r.runtime.instrument.RprofWriter;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxCall;
 import com.oracle.truffle.r.runtime.nodes.RSyntaxElement;
-import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxLookup;
 
 /**
  * Implements the {@code Rprof} external.
  *
  * The output is basically a sequence of call stacks, output at each sample interval, with entries
- * in the stack identified by quoted function names. If memory profiling, the stack is preceded by a
- * auad of numbers {@code :smallv:bigv:nodes:duplicate_counter:} allocated in the interval. If line
- * profiling is enabled source files are listed as
- *
- * <pre>
- * #File N: path
- * </pre>
- *
- * and then the {@code N} is used in line number references of the form {@code N#L},which precede
- * the function name.
+ * in the stack identified by quoted function names, see {@link RprofWriter} for the details of the
+ * format. If the R option {@code fastr.rprof.format} is {@code "binary"} when the profiling is
+ * started, the samples are written in the compact binary format of {@link RprofWriter}, which can
+ * be converted to the text format with {@code .fastr.rprof.totext}.
  *
+ * The calls executed by the profiled thread are tracked by a listener for {@link StandardTags.CallTag}
+ * and a background thread samples this stack at each interval, independently of the progress of
+ * the profiled thread. Therefore, the time spent in long running builtins and in native code
+ * called via {@code .Call} and the like is attributed to these calls. The background thread writes
+ * the samples to the output file as they are taken and flushes them every
+ * {@link #FLUSH_INTERVAL} samples.
  */
 public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryCopyTracer.Listener {
 
+    /**
+     * The number of samples after which the output is flushed.
+     */
+    private static final int FLUSH_INTERVAL = 100;
+
     static {
         Casts casts = new Casts(Rprof.class);
         casts.arg(0, "filename").mustBe(stringValue()).asStringVector().mustBe(singleElement()).findFirst();
@@ -109,30 +108,50 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
             if (profState != null && profState.out() != null) {
                 endProfiling();
             }
+            boolean binary = isBinaryFormat();
+            // interval is in seconds, we convert to micros
+            long intervalInMicros = Math.max(1, (long) (1E6 * intervalD));
+            PrintStream out = null;
             try {
-                PrintStream out = new PrintStream(new FileOutputStream(filename, append));
+                out = new PrintStream(new BufferedOutputStream(new FileOutputStream(filename, append)));
+                RprofWriter writer = binary ? RprofWriter.createBinary(out, intervalInMicros, memProfiling, lineProfiling)
+                                : RprofWriter.createText(out, intervalInMicros, memProfiling, lineProfiling);
                 if (gcProfiling) {
                     warning(RError.Message.GENERIC, "Rprof: gc profiling not supported");
                 }
+                RprofState.MemoryQuad memoryQuad = null;
                 if (memProfiling) {
+                    memoryQuad = new RprofState.MemoryQuad();
                     RDataFactory.addListener(LISTENER);
                     MemoryCopyTracer.addListener(this);
                     MemoryCopyTracer.setTracingState(true);
                 }
-                // interval is in seconds, we convert to millis
-                long intervalInMillis = (long) (1E3 * intervalD);
-                StatementListener statementListener = new StatementListener();
-                ProfileThread profileThread = new ProfileThread(intervalInMillis, statementListener);
-                profileThread.setDaemon(true);
-                profState.initialize(out, profileThread, statementListener, intervalInMillis, lineProfiling, memProfiling);
-                profileThread.start();
+                CallStackListener callStack = new CallStackListener(Thread.currentThread());
+                SamplerThread samplerThread = new SamplerThread(intervalInMicros * 1000, callStack, writer, memoryQuad, lineProfiling);
+                samplerThread.setDaemon(true);
+                profState.initialize(out, samplerThread, callStack, memoryQuad);
+                samplerThread.start();
             } catch (IOException ex) {
+                if (out != null) {
+                    out.close();
+                }
                 throw error(RError.Message.GENERIC, String.format("Rprof: cannot open profile file '%s'", filename));
             }
         }
         return RNull.instance;
     }
 
+    private boolean isBinaryFormat() {
+        Object option = RContext.getInstance().stateROptions.getValue("fastr.rprof.format");
+        String format = option == null || option == RNull.instance ? "text" : RRuntime.asString(option);
+        if ("binary".equals(format)) {
+            return true;
+        } else if (!"text".equals(format)) {
+            warning(RError.Message.GENERIC, "Rprof: unknown value of option 'fastr.rprof.format', using \"text\"");
+        }
+        return false;
+    }
+
     private static final RDataFactory.Listener LISTENER = new RDataFactory.Listener() {
         @Override
         @TruffleBoundary
@@ -144,12 +163,12 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
             long size = RObjectSize.getObjectSize(data);
             if (data instanceof RAbstractVector) {
                 if (size >= Rprofmem.LARGE_VECTOR) {
-                    profState.memoryQuad.largeV += size;
+                    profState.memoryQuad.addLargeV(size);
                 } else {
-                    profState.memoryQuad.smallV += size;
+                    profState.memoryQuad.addSmallV(size);
                 }
             } else {
-                profState.memoryQuad.nodes += size;
+                profState.memoryQuad.addNodes(size);
             }
         }
     };
@@ -158,7 +177,9 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
     @TruffleBoundary
     public void reportCopying(RAbstractVector source, RAbstractVector dest) {
         RprofState profState = RprofState.get();
-        profState.memoryQuad.copied += RObjectSize.getObjectSize(source);
+        if (profState.memoryQuad != null) {
+            profState.memoryQuad.addCopied(RObjectSize.getObjectSize(source));
+        }
     }
 
     private static void endProfiling() {
@@ -168,97 +189,169 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
         }
     }
 
-    private static String getPath(RSyntaxElement node) {
-        Source source = node.getSourceSection().getSource();
-        return RSource.getPath(source);
-    }
-
-    private static final class ProfileThread extends Thread {
-        private final long interval;
-        private final StatementListener statementListener;
-        private volatile boolean running = true;
+    /**
+     * Maintains the stack of the calls executed by the profiled thread. The stack is only modified
+     * by the profiled thread and read by the {@link SamplerThread} without synchronization, which
+     * can see an inconsistent stack only if it is sampled in the middle of a call or return.
+     */
+    private static final class CallStackListener implements ExecutionEventListener {
+        private final Thread thread;
+        private final EventBinding<CallStackListener> binding;
+        private volatile RSyntaxElement[] stack = new RSyntaxElement[64];
+        private volatile int depth;
 
-        private ProfileThread(long interval, StatementListener statementListener) {
-            this.interval = interval;
-            this.statementListener = statementListener;
+        private CallStackListener(Thread thread) {
+            this.thread = thread;
+            SourceSectionFilter filter = SourceSectionFilter.newBuilder().tagIs(StandardTags.CallTag.class).build();
+            this.binding = RInstrumentation.getInstrumenter().attachExecutionEventListener(filter, this);
         }
 
         @Override
-        public void run() {
-            while (running) {
-                try {
-                    Thread.sleep(interval);
-                    statementListener.intervalElapsed();
-                } catch (InterruptedException ex) {
+        public void onEnter(EventContext context, VirtualFrame frame) {
+            if (Thread.currentThread() == thread) {
+                RSyntaxElement[] s = stack;
+                int d = depth;
+                if (d == s.length) {
+                    s = grow();
+                }
+                s[d] = (RSyntaxElement) context.getInstrumentedNode();
+                depth = d + 1;
+            }
+        }
 
+        @TruffleBoundary
+        private RSyntaxElement[] grow() {
+            RSyntaxElement[] s = Arrays.copyOf(stack, stack.length * 2);
+            stack = s;
+            return s;
+        }
+
+        private void pop() {
+            if (Thread.currentThread() == thread) {
+                int d = depth;
+                // the calls that were active when the profiling started are not on the stack
+                if (d > 0) {
+                    depth = d - 1;
                 }
             }
         }
+
+        @Override
+        public void onReturnValue(EventContext context, VirtualFrame frame, Object result) {
+            pop();
+        }
+
+        @Override
+        public void onReturnExceptional(EventContext context, VirtualFrame frame, Throwable exception) {
+            pop();
+        }
+
+        /**
+         * Returns the calls on the stack, innermost first.
+         */
+        private RSyntaxElement[] snapshot() {
+            RSyntaxElement[] s = stack;
+            int d = Math.min(depth, s.length);
+            RSyntaxElement[] result = new RSyntaxElement[d];
+            for (int i = 0; i < d; i++) {
+                result[i] = s[d - 1 - i];
+            }
+            return result;
+        }
+
+        private void dispose() {
+            binding.dispose();
+        }
     }
 
     /**
-     * Emulates a sampling timer by checking when the sample interval rolls over and at that point
-     * collects the stack of functions.
+     * Takes a sample of the {@link CallStackListener} at each interval and writes it.
      */
-    private final class StatementListener implements ExecutionEventListener {
-        private final ArrayList<ArrayList<RSyntaxElement>> intervalStacks = new ArrayList<>();
-        private final ArrayList<RprofState.MemoryQuad> intervalMemory = new ArrayList<>();
-        private volatile boolean newInterval;
-
-        private StatementListener() {
-            SourceSectionFilter.Builder builder = SourceSectionFilter.newBuilder();
-            builder.tagIs(StandardTags.StatementTag.class);
-            SourceSectionFilter filter = builder.build();
-            RInstrumentation.getInstrumenter().attachExecutionEventListener(filter, this);
-        }
+    private static final class SamplerThread extends Thread {
+        private final long intervalNanos;
+        private final CallStackListener callStack;
+        private final RprofWriter writer;
+        private final RprofState.MemoryQuad memoryQuad;
+        private final boolean lineProfiling;
+        private volatile boolean running = true;
 
-        private void intervalElapsed() {
-            newInterval = true;
+        private SamplerThread(long intervalNanos, CallStackListener callStack, RprofWriter writer, RprofState.MemoryQuad memoryQuad, boolean lineProfiling) {
+            super("Rprof sampler");
+            this.intervalNanos = intervalNanos;
+            this.callStack = callStack;
+            this.writer = writer;
+            this.memoryQuad = memoryQuad;
+            this.lineProfiling = lineProfiling;
         }
 
         @Override
-        public void onEnter(EventContext context, VirtualFrame frame) {
-            if (newInterval) {
-                onEnter(context);
-                newInterval = false;
+        public void run() {
+            long next = System.nanoTime() + intervalNanos;
+            int unflushed = 0;
+            try {
+                while (running) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        try {
+                            Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                        } catch (InterruptedException ex) {
+                            continue;
+                        }
+                    }
+                    if (!running) {
+                        break;
+                    }
+                    next += intervalNanos;
+                    if (sample()) {
+                        if (++unflushed >= FLUSH_INTERVAL) {
+                            writer.flush();
+                            unflushed = 0;
+                        }
+                    }
+                }
+                writer.flush();
+            } catch (IOException ex) {
+                // the output is not writable anymore, stop sampling
             }
         }
 
-        @TruffleBoundary
-        private void onEnter(EventContext context) {
-            /* context tells here we are now, frame provides callers. */
-            ArrayList<RSyntaxElement> stack = new ArrayList<>();
-            stack.add((RSyntaxElement) context.getInstrumentedNode());
-            collectStack(stack);
-            intervalStacks.add(stack);
-            RprofState profState = RprofState.get();
-            if (profState.memoryProfiling) {
-                intervalMemory.add(profState.memoryQuad.copyAndClear());
+        private boolean sample() throws IOException {
+            RSyntaxElement[] calls = callStack.snapshot();
+            long[] memory = memoryQuad == null ? null : memoryQuad.copyAndClear();
+            if (calls.length == 0) {
+                return false;
             }
-        }
-
-        @TruffleBoundary
-        private void collectStack(final ArrayList<RSyntaxElement> stack) {
-            Utils.iterateRFrames(FrameAccess.READ_ONLY, new Function<Frame, Object>() {
-
-                @Override
-                public Object apply(Frame fIn) {
-                    Frame f = RArguments.unwrap(fIn);
-                    RCaller call = RCaller.unwrapPromiseCaller(RArguments.getCall(f));
-                    if (RCaller.isValidCaller(call)) {
-                        stack.add(call.getSyntaxNode());
+            String[] names = new String[calls.length];
+            String[] files = lineProfiling ? new String[calls.length] : null;
+            int[] lines = lineProfiling ? new int[calls.length] : null;
+            for (int i = 0; i < calls.length; i++) {
+                names[i] = getFunctionName(calls[i]);
+                if (lineProfiling) {
+                    SourceSection source = calls[i].getSourceSection();
+                    if (source != null && source.isAvailable()) {
+                        files[i] = RSource.getPath(source.getSource());
+                        lines[i] = source.getStartLine();
                     }
-                    return null;
                 }
-            });
+            }
+            writer.writeSample(names, files, lines, memory);
+            return true;
         }
 
-        @Override
-        public void onReturnValue(EventContext context, VirtualFrame frame, Object result) {
+        private static String getFunctionName(RSyntaxElement call) {
+            RSyntaxElement lhs = call instanceof RSyntaxCall ? ((RSyntaxCall) call).getSyntaxLHS() : null;
+            return lhs instanceof RSyntaxLookup ? ((RSyntaxLookup) lhs).getIdentifier() : "<Anonymous>";
         }
 
-        @Override
-        public void onReturnExceptional(EventContext context, VirtualFrame frame, Throwable exception) {
+        private void finish() throws IOException {
+            running = false;
+            interrupt();
+            try {
+                join();
+            } catch (InterruptedException ex) {
+                // the output is closed anyway
+            }
+            writer.close();
         }
     }
 
@@ -267,25 +360,41 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
      *
      */
     private static final class RprofState extends InstrumentationState.RprofState {
-        private ProfileThread profileThread;
-        private StatementListener statementListener;
-        private long intervalInMillis;
-        private boolean lineProfiling;
-        private boolean memoryProfiling;
+        private SamplerThread samplerThread;
+        private CallStackListener callStack;
         private MemoryQuad memoryQuad;
 
+        /**
+         * The memory allocated by the profiled thread since the last sample.
+         */
         public static final class MemoryQuad {
-            public long smallV;
-            public long largeV;
-            public long nodes;
-            public long copied;
-
-            public MemoryQuad copyAndClear() {
-                MemoryQuad result = new MemoryQuad();
-                result.copied = copied;
-                result.largeV = largeV;
-                result.smallV = smallV;
-                result.nodes = nodes;
+            private long smallV;
+            private long largeV;
+            private long nodes;
+            private long copied;
+
+            public synchronized void addSmallV(long size) {
+                smallV += size;
+            }
+
+            public synchronized void addLargeV(long size) {
+                largeV += size;
+            }
+
+            public synchronized void addNodes(long size) {
+                nodes += size;
+            }
+
+            public synchronized void addCopied(long size) {
+                copied += size;
+            }
+
+            /**
+             * Returns the {@code largev}, {@code smallv}, {@code nodes} and {@code duplicated}
+             * counters and clears them.
+             */
+            public synchronized long[] copyAndClear() {
+                long[] result = new long[]{largeV, smallV, nodes, copied};
                 copied = 0;
                 largeV = 0;
                 smallV = 0;
@@ -303,73 +412,29 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
             return state;
         }
 
-        public void initialize(PrintStream outA, ProfileThread profileThreadA, StatementListener statementListenerA, long intervalInMillisA,
-                        boolean lineProfilingA, boolean memoryProfilingA) {
+        public void initialize(PrintStream outA, SamplerThread samplerThreadA, CallStackListener callStackA, MemoryQuad memoryQuadA) {
             setOut(outA);
-            this.profileThread = profileThreadA;
-            this.statementListener = statementListenerA;
-            this.intervalInMillis = intervalInMillisA;
-            this.lineProfiling = lineProfilingA;
-            this.memoryProfiling = memoryProfilingA;
-            this.memoryQuad = memoryProfilingA ? new MemoryQuad() : null;
+            this.samplerThread = samplerThreadA;
+            this.callStack = callStackA;
+            this.memoryQuad = memoryQuadA;
         }
 
         @Override
         public void cleanup(int status) {
-            profileThread.running = false;
-            HashMap<String, Integer> fileMap = null;
-            PrintStream out = this.out();
-            if (this.memoryProfiling) {
-                out.print("memory profiling: ");
-            }
-            if (this.lineProfiling) {
-                out.print("line profiling: ");
-            }
-            out.printf("sample.interval=%d\n", this.intervalInMillis * 1000);
-            if (this.lineProfiling) {
-                // scan stacks to find files
-                fileMap = new HashMap<>();
-                int fileIndex = 0;
-                for (ArrayList<RSyntaxElement> intervalStack : statementListener.intervalStacks) {
-                    for (RSyntaxElement node : intervalStack) {
-                        String path = getPath(node);
-                        if (path != null && fileMap.get(path) == null) {
-                            fileMap.put(path, ++fileIndex);
-                            out.printf("#File %d: %s\n", fileIndex, path);
-                        }
-                    }
-                }
+            if (out() == null) {
+                return;
             }
-            int index = 0;
-            for (ArrayList<RSyntaxElement> intervalStack : statementListener.intervalStacks) {
-                if (this.memoryProfiling) {
-                    RprofState.MemoryQuad mq = statementListener.intervalMemory.get(index);
-                    out.printf(":%d:%d:%d:%d:", mq.largeV, mq.smallV, mq.nodes, mq.copied);
-                }
-                for (RSyntaxElement node : intervalStack) {
-                    RootNode rootNode = ((RSyntaxNode) node).asRNode().getRootNode();
-                    if (rootNode instanceof HugeBlockRootNode) {
-                        rootNode = ((HugeBlockRootNode) rootNode).getOriginalRootNode();
-                    }
-                    if (rootNode instanceof FunctionDefinitionNode) {
-                        String name = rootNode.getName();
-                        if (this.lineProfiling) {
-                            Integer fileIndex = fileMap.get(getPath(node));
-                            if (fileIndex != null) {
-                                out.printf("%d#%d ", fileIndex, node.getSourceSection().getStartLine());
-                            }
-                        }
-                        out.printf("\"%s\" ", name);
-                    }
-                }
-                out.println();
-                index++;
+            callStack.dispose();
+            try {
+                samplerThread.finish();
+            } catch (IOException ex) {
+                // nothing to do, the output is closed
             }
-            out.close();
             this.setOut(null);
-            if (this.memoryProfiling) {
+            if (memoryQuad != null) {
                 RDataFactory.removeListener(LISTENER);
                 MemoryCopyTracer.setTracingState(false);
+                memoryQuad = null;
             }
         }
     }
@@ -35,13 +35,14 @@ import static com.oracle.truffle.r.runtime.RError.Message.INVALID_ARG;
 import static com.oracle.truffle.r.runtime.RRuntime.LOGICAL_FALSE;
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.r.nodes.attributes.SetFixedAttributeNode;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
+import com.oracle.truffle.r.runtime.ParallelChunks;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
@@ -70,71 +71,155 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
         return RError.SHOW_CALLER;
     }
 
-    private static boolean isNA(String s, RAbstractStringVector naStrings) {
+    private static boolean isNA(String s, String[] naStrings) {
         // naStrings are in addition to NA_character_
         if (RRuntime.isNA(s) || s.isEmpty()) { // Blank treated as NA too
             return true;
         }
-        for (int i = 0; i < naStrings.getLength(); i++) {
-            if (s.equals(naStrings.getDataAt(i))) {
+        for (int i = 0; i < naStrings.length; i++) {
+            if (s.equals(naStrings[i])) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * The minimal number of elements converted by one task when the conversion is split among
+     * several threads.
+     */
+    private static final int MIN_CHUNK_SIZE = 16 * 1024;
+
     /*
      * In the next three methods, firstPos is the index of the first element in the vector that is
-     * not isNA(elem, naStrings). However, there may be isNA values after that.
+     * not isNA(elem, naStrings). However, there may be isNA values after that. The elements after
+     * firstPos are converted in parallel chunks, a NumberFormatException from any chunk means that
+     * the conversion failed.
      */
 
-    private static RIntVector readIntVector(RAbstractStringVector x, int firstPos, int firstVal, RAbstractStringVector naStrings) {
-        int[] data = new int[x.getLength()];
+    private static RIntVector readIntVector(String[] x, int firstPos, int firstVal, String[] naStrings) {
+        int[] data = new int[x.length];
         Arrays.fill(data, 0, firstPos, RRuntime.INT_NA);
-        boolean complete = canBeComplete(firstPos);
+        boolean[] incomplete = new boolean[]{!canBeComplete(firstPos)};
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            if (isNA(s, naStrings)) {
-                data[i] = RRuntime.INT_NA;
-                complete = false;
-            } else {
-                int result = RRuntime.parseInt(s);
-                if (result == RRuntime.INT_NA) {
-                    throw new NumberFormatException();
+        int start = firstPos + 1;
+        ParallelChunks.run(data.length - start, MIN_CHUNK_SIZE, (from, to) -> {
+            boolean complete = true;
+            for (int i = start + from; i < start + to; i++) {
+                String s = x[i];
+                if (isNA(s, naStrings)) {
+                    data[i] = RRuntime.INT_NA;
+                    complete = false;
+                } else {
+                    int result = RRuntime.parseInt(s);
+                    if (result == RRuntime.INT_NA) {
+                        throw new NumberFormatException();
+                    }
+                    data[i] = result;
                 }
-                data[i] = result;
             }
-        }
-        return RDataFactory.createIntVector(data, complete);
+            if (!complete) {
+                incomplete[0] = true;
+            }
+        });
+        return RDataFactory.createIntVector(data, !incomplete[0]);
     }
 
-    private static RDoubleVector readDoubleVector(RAbstractStringVector x, int firstPos, double firstVal, RAbstractStringVector naStrings) {
-        double[] data = new double[x.getLength()];
+    private static RDoubleVector readDoubleVector(String[] x, int firstPos, double firstVal, String[] naStrings) {
+        double[] data = new double[x.length];
         Arrays.fill(data, 0, firstPos, RRuntime.DOUBLE_NA);
-        boolean complete = canBeComplete(firstPos);
+        boolean[] incomplete = new boolean[]{!canBeComplete(firstPos)};
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(s, true);
-            complete = complete && !isNA;
-        }
-        return RDataFactory.createDoubleVector(data, complete);
+        int start = firstPos + 1;
+        ParallelChunks.run(data.length - start, MIN_CHUNK_SIZE, (from, to) -> {
+            boolean complete = true;
+            for (int i = start + from; i < start + to; i++) {
+                String s = x[i];
+                boolean isNA = isNA(s, naStrings);
+                data[i] = isNA ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(s, true);
+                complete = complete && !isNA;
+            }
+            if (!complete) {
+                incomplete[0] = true;
+            }
+        });
+        return RDataFactory.createDoubleVector(data, !incomplete[0]);
     }
 
-    private static RLogicalVector readLogicalVector(RAbstractStringVector x, int firstPos, byte firstVal, RAbstractStringVector naStrings) {
-        byte[] data = new byte[x.getLength()];
+    private static RLogicalVector readLogicalVector(String[] x, int firstPos, byte firstVal, String[] naStrings) {
+        byte[] data = new byte[x.length];
         Arrays.fill(data, 0, firstPos, RRuntime.LOGICAL_NA);
-        boolean complete = canBeComplete(firstPos);
+        boolean[] incomplete = new boolean[]{!canBeComplete(firstPos)};
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(s, true);
-            complete = complete && !isNA;
+        int start = firstPos + 1;
+        ParallelChunks.run(data.length - start, MIN_CHUNK_SIZE, (from, to) -> {
+            boolean complete = true;
+            for (int i = start + from; i < start + to; i++) {
+                String s = x[i];
+                boolean isNA = isNA(s, naStrings);
+                data[i] = isNA ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(s, true);
+                complete = complete && !isNA;
+            }
+            if (!complete) {
+                incomplete[0] = true;
+            }
+        });
+        return RDataFactory.createLogicalVector(data, !incomplete[0]);
+    }
+
+    /**
+     * Creates the factor codes, the levels are the distinct non-NA values sorted like
+     * {@link String#compareTo}.
+     */
+    private RIntVector readFactor(String[] x, String[] naStrings) {
+        int threads = ParallelChunks.getThreadCount();
+        int chunkCount = ParallelChunks.getChunkCount(x.length, MIN_CHUNK_SIZE, threads);
+        @SuppressWarnings("unchecked")
+        HashSet<String>[] chunkLevels = new HashSet[chunkCount];
+        ParallelChunks.run(chunkCount, 1, threads, (from, to) -> {
+            for (int chunk = from; chunk < to; chunk++) {
+                HashSet<String> set = new HashSet<>();
+                int end = (int) ((long) x.length * (chunk + 1) / chunkCount);
+                for (int j = (int) ((long) x.length * chunk / chunkCount); j < end; j++) {
+                    String s = x[j];
+                    if (!isNA(s, naStrings)) {
+                        set.add(s);
+                    }
+                }
+                chunkLevels[chunk] = set;
+            }
+        });
+        HashSet<String> allLevels = chunkLevels[0];
+        for (int i = 1; i < chunkCount; i++) {
+            allLevels.addAll(chunkLevels[i]);
+        }
+        String[] levels = allLevels.toArray(new String[allLevels.size()]);
+        Arrays.sort(levels);
+        HashMap<String, Integer> levelIds = new HashMap<>(levels.length * 2);
+        for (int i = 0; i < levels.length; i++) {
+            levelIds.put(levels[i], i + 1);
         }
-        return RDataFactory.createLogicalVector(data, complete);
+
+        int[] data = new int[x.length];
+        boolean[] incomplete = new boolean[1];
+        ParallelChunks.run(x.length, MIN_CHUNK_SIZE, threads, (from, to) -> {
+            boolean complete = true;
+            for (int j = from; j < to; j++) {
+                String s = x[j];
+                if (!isNA(s, naStrings)) {
+                    data[j] = levelIds.get(s);
+                } else {
+                    data[j] = RRuntime.INT_NA;
+                    complete = false;
+                }
+            }
+            if (!complete) {
+                incomplete[0] = true;
+            }
+        });
+        RIntVector res = RDataFactory.createIntVector(data, !incomplete[0]);
+        setLevelsAttrNode.setAttr(res, RDataFactory.createStringVector(levels, RDataFactory.COMPLETE_VECTOR));
+        return res;
     }
 
     private static boolean canBeComplete(int firstNonNAPos) {
@@ -143,42 +228,44 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
 
     @Specialization
     @TruffleBoundary
-    protected Object typeConvert(RAbstractStringVector x, RAbstractStringVector naStrings, boolean asIs, @SuppressWarnings("unused") Object dec, @SuppressWarnings("unused") Object numeral) {
+    protected Object typeConvert(RAbstractStringVector x, RAbstractStringVector naStringsVec, boolean asIs, @SuppressWarnings("unused") Object dec, @SuppressWarnings("unused") Object numeral) {
         if (x.getLength() == 0) {
             return RDataFactory.createEmptyLogicalVector();
         }
 
+        String[] strings = x.materialize().getReadonlyStringData();
+        String[] naStrings = naStringsVec.materialize().getReadonlyStringData();
         int i = 0;
-        while (i < x.getLength() && (x.getDataAt(i).isEmpty() || isNA(x.getDataAt(i), naStrings))) {
+        while (i < strings.length && (strings[i].isEmpty() || isNA(strings[i], naStrings))) {
             i++;
         }
 
-        if (i == x.getLength()) {
+        if (i == strings.length) {
             // all NAs
             byte[] data = new byte[i];
             Arrays.fill(data, RRuntime.LOGICAL_NA);
             return RDataFactory.createLogicalVector(data, RDataFactory.INCOMPLETE_VECTOR);
         }
 
-        String s = x.getDataAt(i);
+        String s = strings[i];
         if (RRuntime.hasHexPrefix(s)) {
             // this is a mess
             // double takes precedence even if s is a hexadecimal integer
             try {
                 double doubleVal = RRuntime.string2doubleNoCheck(s, true);
-                return readDoubleVector(x, i, doubleVal, naStrings);
+                return readDoubleVector(strings, i, doubleVal, naStrings);
             } catch (NumberFormatException ix) {
                 // fall through
             }
         } else {
             try {
                 int intVal = RRuntime.string2intNoCheck(s, true);
-                return readIntVector(x, i, intVal, naStrings);
+                return readIntVector(strings, i, intVal, naStrings);
             } catch (NumberFormatException ix) {
                 try {
                     double doubleVal = RRuntime.string2doubleNoCheck(s, true);
                     try {
-                        return readDoubleVector(x, i, doubleVal, naStrings);
+                        return readDoubleVector(strings, i, doubleVal, naStrings);
                     } catch (NumberFormatException lx) {
                         // fall through
                     }
@@ -186,7 +273,7 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
                     try {
                         byte logicalVal = RRuntime.string2logicalNoCheck(s, true);
                         try {
-                            return readLogicalVector(x, i, logicalVal, naStrings);
+                            return readLogicalVector(strings, i, logicalVal, naStrings);
                         } catch (NumberFormatException lx) {
                             // fall through
                         }
@@ -201,33 +288,7 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
         if (asIs) {
             return x;
         } else {
-            // collect levels for a factor result
-            TreeMap<String, Integer> levels = new TreeMap<>();
-            for (int j = 0; j < x.getLength(); j++) {
-                s = x.getDataAt(j);
-                if (!isNA(s, naStrings)) {
-                    levels.put(s, 0);
-                }
-            }
-            // assign levels IDs
-            int pos = 1;
-            for (Map.Entry<String, Integer> entry : levels.entrySet()) {
-                entry.setValue(pos++);
-            }
-
-            int[] data = new int[x.getLength()];
-            boolean complete = true;
-            for (int j = 0; j < data.length; j++) {
-                s = x.getDataAt(j);
-                if (!isNA(s, naStrings)) {
-                    data[j] = levels.get(s);
-                } else {
-                    data[j] = RRuntime.INT_NA;
-                    complete = false;
-                }
-            }
-            RIntVector res = RDataFactory.createIntVector(data, complete);
-            setLevelsAttrNode.setAttr(res, RDataFactory.createStringVector(levels.keySet().toArray(new String[0]), RDataFactory.COMPLETE_VECTOR));
+            RIntVector res = readFactor(strings, naStrings);
             return RVector.setVectorClassAttr(res, RDataFactory.createStringVector("factor"));
         }
     }
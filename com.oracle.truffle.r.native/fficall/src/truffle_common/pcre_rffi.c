@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -31,7 +31,8 @@ extern char *pcre_maketables();
 extern void *pcre_compile(char *pattern, int options, char **errorMessage, int *errOffset, char *tables);
 extern int  pcre_exec(void *code, void *extra, char* subject, int subjectLength, int startOffset, int options, int *ovector, int ovecSize);
 extern int pcre_fullinfo(void *code, void *extra, int what, void *where);
-extern void pcre_free(void *code);
+extern void (*pcre_free)(void *code);
+extern void pcre_free_study(void *extra);
 
 char *call_pcre_maketables() {
     return pcre_maketables();
@@ -82,3 +83,12 @@ int call_pcre_getcapturenames(void (*setcapturename)(int i, char *name), long co
     }
     return res;
 }
+
+void call_pcre_free(long code, long extra) {
+    if (extra != 0) {
+        pcre_free_study((void *) extra);
+    }
+    if (code != 0) {
+        (*pcre_free)((void *) code);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -158,14 +158,15 @@ public abstract class Assign extends RBuiltinNode.Arg4 {
         }
 
         protected FrameDescriptor getFrameDescriptor(REnvironment env) {
-            return frameProfile.profile(env.getFrame(frameAccessProfile)).getFrameDescriptor();
+            return frameProfile.profile(env.peekFrame(frameAccessProfile)).getFrameDescriptor();
         }
 
-        @Specialization(guards = {"getFrameDescriptor(env) == envDesc", "write.getName().equals(name)"})
+        // writing directly to the frame does not need the bindings kept outside of the frame
+        @Specialization(guards = {"!env.hasBindingsOutsideFrame()", "getFrameDescriptor(env) == envDesc", "write.getName().equals(name)"})
         protected void assignCached(VirtualFrame frame, REnvironment env, @SuppressWarnings("unused") String name, Object value,
-                        @Cached("env.getFrame().getFrameDescriptor()") @SuppressWarnings("unused") FrameDescriptor envDesc,
+                        @Cached("env.peekFrame().getFrameDescriptor()") @SuppressWarnings("unused") FrameDescriptor envDesc,
                         @Cached("createWrite(name, envDesc)") ResolvedWriteSuperFrameVariableNode write) {
-            write.execute(frame, value, frameProfile.profile(env.getFrame(frameAccessProfile)));
+            write.execute(frame, value, frameProfile.profile(env.peekFrame(frameAccessProfile)));
         }
 
         @Specialization(replaces = "assignCached")
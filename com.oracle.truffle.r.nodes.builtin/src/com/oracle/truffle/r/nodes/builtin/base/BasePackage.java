@@ -125,6 +125,12 @@ import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInterop
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInteropTryNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRLibPaths;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRLibPathsNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRMapFile;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRMapFileNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRNativeMemory;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRNativeMemoryNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRNativeStats;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRNativeStatsNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastROptionBuiltin;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRPatchPackage;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRPatchPackageNodeGen;
@@ -134,8 +140,12 @@ import com.oracle.truffle.r.nodes.builtin.fastr.FastRPrintError;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRPrintErrorNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRRefCountInfo;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRRefCountInfoNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRRegExpCache;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRRegExpCacheNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRRegisterFunctions;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRRegisterFunctionsNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRRprofToText;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRRprofToTextNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSetConsoleHandler;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSetConsoleHandlerNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSlotAssign;
@@ -334,6 +344,8 @@ public class BasePackage extends RBuiltinPackage {
         add(CompileFunctions.Growconst.class, CompileFunctionsFactory.GrowconstNodeGen::create);
         add(CompileFunctions.Putconst.class, CompileFunctionsFactory.PutconstNodeGen::create);
         add(CompileFunctions.Getconst.class, CompileFunctionsFactory.GetconstNodeGen::create);
+        add(CompressFunctions.MemCompress.class, CompressFunctionsFactory.MemCompressNodeGen::create);
+        add(CompressFunctions.MemDecompress.class, CompressFunctionsFactory.MemDecompressNodeGen::create);
         add(ConditionFunctions.AddCondHands.class, ConditionFunctionsFactory.AddCondHandsNodeGen::create);
         add(ConditionFunctions.AddRestart.class, ConditionFunctionsFactory.AddRestartNodeGen::create);
         add(ConditionFunctions.DfltStop.class, ConditionFunctionsFactory.DfltStopNodeGen::create);
@@ -468,6 +480,9 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRContext.Spawn.class, FastRContextFactory.SpawnNodeGen::create);
         add(FastRContext.Interrupt.class, FastRContextFactory.InterruptNodeGen::create);
         add(FastRContext.Join.class, FastRContextFactory.JoinNodeGen::create);
+        add(FastRContext.PoolAdd.class, FastRContextFactory.PoolAddNodeGen::create);
+        add(FastRContext.PoolGet.class, FastRContextFactory.PoolGetNodeGen::create);
+        add(FastRContext.PoolShutdown.class, FastRContextFactory.PoolShutdownNodeGen::create);
         add(FastRRegisterFunctions.class, FastRRegisterFunctionsNodeGen::create);
         add(FastrDqrls.class, FastrDqrlsNodeGen::create);
         add(FastRDebug.class, FastRDebugNodeGen::create);
@@ -504,7 +519,12 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRInterop.ToFloat.class, FastRInteropFactory.ToFloatNodeGen::create);
         add(FastRInterop.ToLong.class, FastRInteropFactory.ToLongNodeGen::create);
         add(FastRInterop.ToShort.class, FastRInteropFactory.ToShortNodeGen::create);
+        add(FastRMapFile.class, FastRMapFileNodeGen::create);
+        add(FastRNativeMemory.class, FastRNativeMemoryNodeGen::create);
+        add(FastRNativeStats.class, FastRNativeStatsNodeGen::create);
         add(FastRRefCountInfo.class, FastRRefCountInfoNodeGen::create);
+        add(FastRRegExpCache.class, FastRRegExpCacheNodeGen::create);
+        add(FastRRprofToText.class, FastRRprofToTextNodeGen::create);
         add(FastRPkgSource.class, FastRPkgSourceNodeGen::create);
         add(FastRPrintError.class, FastRPrintErrorNodeGen::create);
         add(FastRSourceInfo.class, FastRSourceInfoNodeGen::create);
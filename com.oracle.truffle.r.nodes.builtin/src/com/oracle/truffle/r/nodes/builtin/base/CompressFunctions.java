@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.gte;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.instanceOf;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.lte;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
+
+import java.io.IOException;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RCompression;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
+
+/**
+ * In-memory compression of raw vectors. The {@code type} argument is the index in
+ * {@code c("none", "gzip", "bzip2", "xz", "unknown")}, where "unknown" is only allowed for
+ * {@code memDecompress}.
+ */
+public class CompressFunctions {
+
+    private static final RCompression.Type[] TYPES = {RCompression.Type.NONE, RCompression.Type.GZIP, RCompression.Type.BZIP2, RCompression.Type.XZ};
+    private static final String[] TYPE_NAMES = {"none", "gzip", "bzip2", "xz"};
+
+    @RBuiltin(name = "memCompress", kind = INTERNAL, parameterNames = {"from", "type"}, behavior = PURE)
+    public abstract static class MemCompress extends RBuiltinNode.Arg2 {
+
+        static {
+            Casts casts = new Casts(MemCompress.class);
+            casts.arg("from").mustBe(instanceOf(RAbstractRawVector.class), RError.Message.ARGUMENT_MUST_BE_RAW_VECTOR, "from");
+            casts.arg("type").asIntegerVector().findFirst().mustBe(gte(1).and(lte(4)));
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected Object memCompress(RAbstractRawVector from, int type) {
+            if (type == 1) {
+                return from;
+            }
+            try {
+                return RDataFactory.createRawVector(RCompression.compress(TYPES[type - 1], from.materialize().getReadonlyData()));
+            } catch (IOException ex) {
+                throw error(RError.Message.GENERIC, "internal error in memCompress(type = '" + TYPE_NAMES[type - 1] + "'): " + ex.getMessage());
+            }
+        }
+    }
+
+    @RBuiltin(name = "memDecompress", kind = INTERNAL, parameterNames = {"from", "type"}, behavior = PURE)
+    public abstract static class MemDecompress extends RBuiltinNode.Arg2 {
+
+        static {
+            Casts casts = new Casts(MemDecompress.class);
+            casts.arg("from").mustBe(instanceOf(RAbstractRawVector.class), RError.Message.ARGUMENT_MUST_BE_RAW_VECTOR, "from");
+            casts.arg("type").asIntegerVector().findFirst().mustBe(gte(1).and(lte(5)));
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected Object memDecompress(RAbstractRawVector from, int type) {
+            byte[] data = from.materialize().getReadonlyData();
+            RCompression.Type cType;
+            if (type == 5) {
+                cType = RCompression.getCompressionType(data);
+                if (cType == RCompression.Type.NONE) {
+                    warning(RError.Message.GENERIC, "unknown compression, assuming none");
+                }
+            } else {
+                cType = TYPES[type - 1];
+            }
+            if (cType == RCompression.Type.NONE) {
+                return from;
+            }
+            try {
+                return RDataFactory.createRawVector(RCompression.uncompress(cType, data));
+            } catch (IOException ex) {
+                throw error(RError.Message.GENERIC, "internal error in memDecompress(type = '" + TYPE_NAMES[cType.ordinal()] + "'): " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -50,7 +50,9 @@ import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RegExp;
+import com.oracle.truffle.r.runtime.RegExpCache;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
@@ -216,13 +218,22 @@ public class GrepFunctions {
             return RDataFactory.createIntVector(naData, RDataFactory.INCOMPLETE_VECTOR);
         }
 
+        /**
+         * Returns the compiled PCRE pattern from the {@link RegExpCache}, the result may only be
+         * used until the next pattern is compiled.
+         */
         protected PCRERFFI.Result compilePerlPattern(String pattern, boolean ignoreCase) {
             int cflags = ignoreCase ? PCRERFFI.CASELESS : 0;
-            long tables = maketablesNode.execute();
-            PCRERFFI.Result pcre = compileNode.execute(pattern, cflags, tables);
-            if (pcre.result == 0) {
-                // TODO output warning if pcre.errorMessage not NULL
-                throw error(RError.Message.INVALID_REGEXP, pattern);
+            RegExpCache.ContextStateImpl cache = RContext.getInstance().stateRegExpCache;
+            PCRERFFI.Result pcre = cache.getPCRE(pattern, cflags);
+            if (pcre == null) {
+                long tables = cache.getPCRETables(maketablesNode);
+                pcre = compileNode.execute(pattern, cflags, tables);
+                if (pcre.result == 0) {
+                    // TODO output warning if pcre.errorMessage not NULL
+                    throw error(RError.Message.INVALID_REGEXP, pattern);
+                }
+                cache.putPCRE(pattern, cflags, pcre);
             }
             return pcre;
         }
@@ -334,6 +345,14 @@ public class GrepFunctions {
         }
     }
 
+    /**
+     * Returns the compiled Java regular expression from the {@link RegExpCache}.
+     */
+    @TruffleBoundary
+    protected static Pattern compilePattern(String pattern, int flags) {
+        return RContext.getInstance().stateRegExpCache.getPattern(pattern, flags);
+    }
+
     public static CommonCodeNode createCommon() {
         return new CommonCodeNode();
     }
@@ -498,7 +517,7 @@ public class GrepFunctions {
                                 preparedReplacement = replacement.replace("$", "\\$");
                                 preparedReplacement = convertGroups(preparedReplacement, 0);
                             }
-                            value = Pattern.compile(pattern, Pattern.LITERAL).matcher(input).replaceAll(preparedReplacement);
+                            value = compilePattern(pattern, Pattern.LITERAL).matcher(input).replaceAll(preparedReplacement);
                         } else {
                             int ix = input.indexOf(pattern);
                             if (preparedReplacement == null) {
@@ -566,7 +585,7 @@ public class GrepFunctions {
                             value = sb.toString();
                         }
                     } else {
-                        Matcher matcher = Pattern.compile(pattern, Pattern.DOTALL).matcher(input);
+                        Matcher matcher = compilePattern(pattern, Pattern.DOTALL).matcher(input);
                         if (preparedReplacement == null) {
                             preparedReplacement = replacement.replace("$", "\\$");
                             // matcher.groupCount() only depends on the pattern (not on the input)
@@ -1023,7 +1042,7 @@ public class GrepFunctions {
             if (pattern.length() > 0 && pattern.charAt(0) == '*') {
                 actualPattern = pattern.substring(1);
             }
-            return Pattern.compile(actualPattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
+            return compilePattern(actualPattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
         }
     }
 
@@ -1138,7 +1157,7 @@ public class GrepFunctions {
 
         @TruffleBoundary
         private static Matcher getPatternMatcher(String pattern, String text, boolean ignoreCase) {
-            return Pattern.compile(pattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
+            return compilePattern(pattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
         }
     }
 
@@ -1478,22 +1497,14 @@ public class GrepFunctions {
             // treat split = NULL as split = ""
             RAbstractStringVector split = splitArg.getLength() == 0 ? RDataFactory.createStringVectorFromScalar("") : splitArg;
             String[] splits = new String[split.getLength()];
-            long pcreTables = perl ? common.maketablesNode.execute() : 0;
-            PCRERFFI.Result[] pcreSplits = perl ? new PCRERFFI.Result[splits.length] : null;
 
             na.enable(x);
             for (int i = 0; i < splits.length; i++) {
                 String currentSplit = split.getDataAt(i);
                 splits[i] = fixed || perl ? split.getDataAt(i) : RegExp.checkPreDefinedClasses(split.getDataAt(i));
-                if (perl) {
-                    if (!currentSplit.isEmpty()) {
-                        pcreSplits[i] = common.compileNode.execute(currentSplit, 0, pcreTables);
-                        if (pcreSplits[i].result == 0) {
-                            // TODO output warning if pcre.errorMessage not NULL
-                            throw error(RError.Message.INVALID_REGEXP, currentSplit);
-                        }
-                        // TODO pcre_study for vectors > 10 ? (cf GnuR)
-                    }
+                if (perl && !currentSplit.isEmpty()) {
+                    // reports invalid patterns before any splitting is done
+                    common.compilePerlPattern(currentSplit, false);
                 }
             }
             for (int i = 0; i < x.getLength(); i++) {
@@ -1516,7 +1527,9 @@ public class GrepFunctions {
                             resultItem = RDataFactory.createNAStringVector();
                         } else {
                             if (perl) {
-                                resultItem = splitPerl(data, pcreSplits[i % splits.length]);
+                                // the patterns are not kept, cached handles may be freed by
+                                // the next lookup when there are more splits than cache entries
+                                resultItem = splitPerl(data, common.compilePerlPattern(currentSplit, false));
                             } else {
                                 resultItem = splitIntl(data, currentSplit, fixed);
                             }
@@ -1579,7 +1592,7 @@ public class GrepFunctions {
                 if (input.equals(separator)) {
                     return RDataFactory.createStringVector("");
                 } else {
-                    return RDataFactory.createStringVector(input.split(separator), true);
+                    return RDataFactory.createStringVector(compilePattern(separator, 0).split(input), true);
                 }
             }
         }
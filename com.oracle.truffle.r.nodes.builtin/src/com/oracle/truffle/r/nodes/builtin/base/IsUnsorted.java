@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -36,6 +36,7 @@ import com.oracle.truffle.r.nodes.builtin.base.Order.CmpNode;
 import com.oracle.truffle.r.nodes.builtin.base.OrderNodeGen.CmpNodeGen;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
@@ -52,6 +53,7 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
     @Child private BinaryMapBooleanFunctionNode gt = new BinaryMapBooleanFunctionNode(BinaryCompare.GREATER_THAN.createOperation());
 
     private final ConditionProfile strictlyProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile knownSortedProfile = ConditionProfile.createBinaryProfile();
 
     static {
         Casts casts = new Casts(IsUnsorted.class);
@@ -60,9 +62,14 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
 
     @Specialization
     protected byte isUnsorted(RAbstractDoubleVector x, boolean strictly) {
+        if (knownSortedProfile.profile(!strictly && x.getKnownSortedness() == RVector.SORTED_ASCENDING)) {
+            return RRuntime.LOGICAL_FALSE;
+        }
         double last = x.getDataAt(0);
+        boolean naOrNaN = Double.isNaN(last);
         for (int k = 1; k < x.getLength(); k++) {
             double current = x.getDataAt(k);
+            naOrNaN |= Double.isNaN(current);
             if (strictlyProfile.profile(strictly)) {
                 if (ge.applyLogical(last, current) == RRuntime.LOGICAL_TRUE) {
                     return RRuntime.LOGICAL_TRUE;
@@ -74,14 +81,22 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
             }
             last = current;
         }
+        if (!naOrNaN) {
+            setSorted(x);
+        }
         return RRuntime.LOGICAL_FALSE;
     }
 
     @Specialization
     protected byte isUnsorted(RAbstractIntVector x, boolean strictly) {
+        if (knownSortedProfile.profile(!strictly && x.getKnownSortedness() == RVector.SORTED_ASCENDING)) {
+            return RRuntime.LOGICAL_FALSE;
+        }
         int last = x.getDataAt(0);
+        boolean naOrNaN = RRuntime.isNA(last);
         for (int k = 1; k < x.getLength(); k++) {
             int current = x.getDataAt(k);
+            naOrNaN |= RRuntime.isNA(current);
             if (strictlyProfile.profile(strictly)) {
                 if (ge.applyLogical(last, current) == RRuntime.LOGICAL_TRUE) {
                     return RRuntime.LOGICAL_TRUE;
@@ -93,6 +108,9 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
             }
             last = current;
         }
+        if (!naOrNaN) {
+            setSorted(x);
+        }
         return RRuntime.LOGICAL_FALSE;
     }
 
@@ -115,6 +133,17 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
         return RRuntime.LOGICAL_FALSE;
     }
 
+    /**
+     * Remembers that a vector without {@code NA}s that was found to be (non-strictly) sorted is
+     * sorted, which makes the subsequent checks, e.g., the ones done by {@code findInterval},
+     * constant time.
+     */
+    private static void setSorted(Object x) {
+        if (x instanceof RVector) {
+            ((RVector<?>) x).setKnownSortedness(RVector.SORTED_ASCENDING);
+        }
+    }
+
     protected CmpNode createCmpNode() {
         return CmpNodeGen.create();
     }
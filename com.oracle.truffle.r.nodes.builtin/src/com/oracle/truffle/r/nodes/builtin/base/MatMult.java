@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -37,6 +37,7 @@ import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.SetDimAt
 import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.SetDimNamesAttributeNode;
 import com.oracle.truffle.r.nodes.binary.BinaryMapArithmeticFunctionNode;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.ParallelChunks;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
@@ -71,6 +72,13 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
 
     private static final int BLOCK_SIZE = 64;
 
+    /**
+     * Minimal number of multiply-add operations ({@code aRows * aCols * bCols}) for which the
+     * blocked multiplication is distributed over several threads, see
+     * {@link ParallelChunks#THREADS_OPTION}.
+     */
+    private static final long PARALLEL_THRESHOLD = 256L * 256L * 256L;
+
     @Child private BinaryMapArithmeticFunctionNode mult = new BinaryMapArithmeticFunctionNode(BinaryArithmetic.MULTIPLY.createOperation());
     @Child private BinaryMapArithmeticFunctionNode add = new BinaryMapArithmeticFunctionNode(BinaryArithmetic.ADD.createOperation());
     private final boolean promoteDimNames;
@@ -192,7 +200,10 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
             CompilerDirectives.transferToInterpreterAndInvalidate();
             seenLargeMatrix = true;
         }
-        if (seenLargeMatrix) {
+        int threads;
+        if (seenLargeMatrix && (long) aRows * aCols * bCols >= PARALLEL_THRESHOLD && (threads = ParallelChunks.getThreadCount()) > 1) {
+            parallelMultiply(dataA, dataB, aRows, aCols, bCols, result, aRowStride, aColStride, bRowStride, bColStride, mirrored, threads);
+        } else if (seenLargeMatrix) {
             for (int row = 0; row < aRows; row += BLOCK_SIZE) {
                 for (int col = mirrored ? row : 0; col < bCols; col += BLOCK_SIZE) {
                     for (int k = 0; k < aCols; k += BLOCK_SIZE) {
@@ -255,6 +266,40 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
         return resultVec;
     }
 
+    /**
+     * Distributes the {@code BLOCK_SIZE x BLOCK_SIZE} tiles of the result among {@code threads}
+     * chunks run by {@link ParallelChunks}. Every tile is computed by one chunk, which iterates over
+     * the {@code k} blocks in the same order as the serial loop, so the result is bit-identical to
+     * the serial one.
+     */
+    @TruffleBoundary
+    private static void parallelMultiply(double[] dataA, double[] dataB, int aRows, int aCols, int bCols, double[] result, int aRowStride, int aColStride, int bRowStride, int bColStride,
+                    boolean mirrored, int threads) {
+        int rowTiles = (aRows + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int colTiles = (bCols + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int tileCount = 0;
+        int[] tileIndices = new int[rowTiles * colTiles];
+        for (int rowTile = 0; rowTile < rowTiles; rowTile++) {
+            for (int colTile = mirrored ? rowTile : 0; colTile < colTiles; colTile++) {
+                tileIndices[tileCount++] = rowTile * colTiles + colTile;
+            }
+        }
+        ParallelChunks.run(tileCount, 1, threads, (from, to) -> {
+            // profiles are per chunk, they must not be shared between threads
+            LoopConditionProfile loopProfile = LoopConditionProfile.createCountingProfile();
+            for (int i = from; i < to; i++) {
+                int row = (tileIndices[i] / colTiles) * BLOCK_SIZE;
+                int col = (tileIndices[i] % colTiles) * BLOCK_SIZE;
+                int remainingCols = Math.min(BLOCK_SIZE, bCols - col);
+                int remainingRows = Math.min(BLOCK_SIZE, aRows - row);
+                for (int k = 0; k < aCols; k += BLOCK_SIZE) {
+                    int remainingK = Math.min(BLOCK_SIZE, aCols - k);
+                    multiplyBlock(dataA, dataB, aRows, result, row, col, k, aRowStride, aColStride, bRowStride, bColStride, remainingCols, remainingRows, remainingK, loopProfile);
+                }
+            }
+        });
+    }
+
     private static void fixNARows(double[] dataA, int aRows, int aCols, int bCols, int aRowStride, int aColStride, double[] result) {
         // NA's in a cause the whole row to be NA in the result
         outer: for (int row = 0; row < aRows; row++) {
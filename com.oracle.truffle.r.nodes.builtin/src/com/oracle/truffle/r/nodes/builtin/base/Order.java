@@ -73,6 +73,7 @@ public abstract class Order extends RPrecedenceBuiltinNode {
     @Child private CastToVectorNode castVector2;
     @Child private CmpNode cmpNode;
     @Child private IsAtomicNA isNANode;
+    @Child private RadixOrderNode radixOrderNode;
 
     private final BranchProfile error = BranchProfile.create();
     private final ConditionProfile notRemoveNAs = ConditionProfile.createBinaryProfile();
@@ -262,14 +263,26 @@ public abstract class Order extends RPrecedenceBuiltinNode {
      */
     @Specialization(guards = {"!oneVec(args)", "!noVec(args)"})
     Object orderMulti(byte naLast, boolean decreasing, RArgsValuesAndNames args,
-                    @Cached("createEqualityProfile()") ValueProfile lengthProfile) {
+                    @Cached("createEqualityProfile()") ValueProfile lengthProfile,
+                    @Cached("createBinaryProfile()") ConditionProfile radixProfile) {
         int n = preprocessVectors(args, lengthProfile);
 
         int[] indx = new int[n];
         for (int i = 0; i < indx.length; i++) {
             indx[i] = i;
         }
-        orderVector(indx, args.getArguments(), RRuntime.fromLogical(naLast), decreasing);
+        Object[] vectors = args.getArguments();
+        if (radixProfile.profile(canRadixOrder(vectors))) {
+            RAbstractVector[] keys = new RAbstractVector[vectors.length];
+            boolean[] dec = new boolean[vectors.length];
+            for (int i = 0; i < vectors.length; i++) {
+                keys[i] = (RAbstractVector) vectors[i];
+                dec[i] = decreasing;
+            }
+            initRadixOrder().execute(indx, 0, n - 1, keys, dec, RRuntime.fromLogical(naLast));
+        } else {
+            orderVector(indx, vectors, RRuntime.fromLogical(naLast), decreasing);
+        }
         for (int i = 0; i < indx.length; i++) {
             indx[i] = indx[i] + 1;
         }
@@ -277,6 +290,32 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         return RDataFactory.createIntVector(indx, RDataFactory.COMPLETE_VECTOR);
     }
 
+    /**
+     * The radix sort handles all the key types except for complex vectors and strings that must be
+     * ordered according to the collation rules.
+     */
+    private static boolean canRadixOrder(Object[] vectors) {
+        for (Object v : vectors) {
+            if (!RadixOrderNode.isSupportedKey(v) || (v instanceof RAbstractStringVector && getCollationLocale() != Locale.ROOT)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @TruffleBoundary
+    static Locale getCollationLocale() {
+        return RContext.getInstance().stateRLocale.getLocale(RLocale.COLLATE);
+    }
+
+    private RadixOrderNode initRadixOrder() {
+        if (radixOrderNode == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            radixOrderNode = insert(RadixOrderNode.create());
+        }
+        return radixOrderNode;
+    }
+
     private boolean greaterSub(int i, int j, Object[] vectors, boolean naLast, boolean dec) {
         int c = -1;
         for (int k = 0; k < vectors.length; k++) {
@@ -322,81 +361,20 @@ public abstract class Order extends RPrecedenceBuiltinNode {
 
     abstract static class OrderVector1Node extends RBaseNode {
         private final ConditionProfile decProfile = ConditionProfile.createBinaryProfile();
+        private final ConditionProfile isCLocale = ConditionProfile.createBinaryProfile();
+
+        @Child private RadixOrderNode radixOrderNode;
 
         public abstract Object execute(int[] v, Object dv, byte naLast, boolean dec, boolean sortNA);
 
         @Specialization
         protected Object orderVector1(int[] indx, RAbstractIntVector dv, byte naLast, boolean decreasing, boolean sortNA) {
-            if (indx.length < 2) {
-                return indx;
-            }
-            int lo = 0;
-            int hi = indx.length - 1;
-            if (sortNA) {
-                int numNa = 0;
-                if (!dv.isComplete() && !RRuntime.isNA(naLast)) {
-                    boolean[] isNa = new boolean[indx.length];
-                    for (int i = 0; i < isNa.length; i++) {
-                        if (RRuntime.isNA(dv.getDataAt(i))) {
-                            isNa[i] = true;
-                            numNa++;
-                        }
-                    }
-
-                    if (numNa > 0) {
-                        if (!RRuntime.fromLogical(naLast)) {
-                            for (int i = 0; i < isNa.length; i++) {
-                                isNa[i] = !isNa[i];
-                            }
-                        }
-                        sortNA(indx, isNa, lo, hi);
-                        if (RRuntime.fromLogical(naLast)) {
-                            hi -= numNa;
-                        } else {
-                            lo += numNa;
-                        }
-                    }
-                }
-            }
-
-            sort(indx, dv, lo, hi, decreasing);
-            return indx;
+            return radixOrder(indx, dv, naLast, decreasing, sortNA);
         }
 
         @Specialization
         protected Object orderVector1(int[] indx, RAbstractDoubleVector dv, byte naLast, boolean decreasing, boolean sortNA) {
-            if (indx.length < 2) {
-                return indx;
-            }
-            int lo = 0;
-            int hi = indx.length - 1;
-            if (sortNA && !RRuntime.isNA(naLast)) {
-                int numNa = 0;
-                boolean[] isNa = new boolean[indx.length];
-                for (int i = 0; i < isNa.length; i++) {
-                    if (RRuntime.isNAorNaN(dv.getDataAt(i))) {
-                        isNa[i] = true;
-                        numNa++;
-                    }
-                }
-
-                if (numNa > 0) {
-                    if (!RRuntime.fromLogical(naLast)) {
-                        for (int i = 0; i < isNa.length; i++) {
-                            isNa[i] = !isNa[i];
-                        }
-                    }
-                    sortNA(indx, isNa, lo, hi);
-                    if (RRuntime.fromLogical(naLast)) {
-                        hi -= numNa;
-                    } else {
-                        lo += numNa;
-                    }
-                }
-            }
-
-            sort(indx, dv, lo, hi, decreasing);
-            return indx;
+            return radixOrder(indx, dv, naLast, decreasing, sortNA);
         }
 
         @Specialization
@@ -404,6 +382,9 @@ public abstract class Order extends RPrecedenceBuiltinNode {
             if (indx.length < 2) {
                 return indx;
             }
+            if (isCLocale.profile(getCollationLocale() == Locale.ROOT)) {
+                return radixOrder(indx, dv, naLast, decreasing, sortNA);
+            }
             int lo = 0;
             int hi = indx.length - 1;
             if (sortNA) {
@@ -482,38 +463,36 @@ public abstract class Order extends RPrecedenceBuiltinNode {
             return indx;
         }
 
-        private void sort(int[] indx, RAbstractDoubleVector dv, int lo, int hi, boolean dec) {
-            int t = 0;
-            for (; SINCS[t] > hi - lo + 1; t++) {
+        /**
+         * If {@code sortNA} is {@code false}, the NAs are not expected to be present and they are
+         * ordered as the smallest values, which is how the integer NA would compare.
+         */
+        private int[] radixOrder(int[] indx, RAbstractVector dv, byte naLast, boolean decreasing, boolean sortNA) {
+            if (indx.length < 2) {
+                return indx;
             }
-            for (int h = SINCS[t]; t < 16; h = SINCS[++t]) {
-                for (int i = lo + h; i <= hi; i++) {
-                    int itmp = indx[i];
-                    int j = i;
-                    while (j >= lo + h) {
-                        int a = indx[j - h];
-                        int b = itmp;
-                        if (decProfile.profile(dec)) {
-                            if (!((dv.getDataAt(a)) < dv.getDataAt(b) || (dv.getDataAt(a) == dv.getDataAt(b) && a > b))) {
-                                break;
-                            }
-                        } else {
-                            if (!((dv.getDataAt(a)) > dv.getDataAt(b) || (dv.getDataAt(a) == dv.getDataAt(b) && a > b))) {
-                                break;
-                            }
-                        }
-                        indx[j] = indx[j - h];
-                        j -= h;
-                    }
-                    indx[j] = itmp;
-                }
+            if (radixOrderNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                radixOrderNode = insert(RadixOrderNode.create());
             }
+            boolean naLastFlag = sortNA && !RRuntime.isNA(naLast) ? RRuntime.fromLogical(naLast) : decreasing;
+            return radixOrderNode.execute(indx, 0, indx.length - 1, new RAbstractVector[]{dv}, new boolean[]{decreasing}, naLastFlag);
         }
 
-        private void sort(int[] indx, RAbstractIntVector dv, int lo, int hi, boolean dec) {
+        @TruffleBoundary
+        private void sort(int[] indx, RAbstractStringVector dv, int lo, int hi, boolean dec) {
             int t = 0;
             for (; SINCS[t] > hi - lo + 1; t++) {
             }
+
+            // strings in the C locale are handled by the radix sort
+            int length = dv.getLength();
+            Collator collator = RLocale.getOrderCollator(getCollationLocale());
+            CollationKey[] entries = new CollationKey[length];
+            for (int i = 0; i < length; i++) {
+                entries[i] = collator.getCollationKey(dv.getDataAt(i));
+            }
+
             for (int h = SINCS[t]; t < 16; h = SINCS[++t]) {
                 for (int i = lo + h; i <= hi; i++) {
                     int itmp = indx[i];
@@ -521,12 +500,13 @@ public abstract class Order extends RPrecedenceBuiltinNode {
                     while (j >= lo + h) {
                         int a = indx[j - h];
                         int b = itmp;
+                        int c = entries[a].compareTo(entries[b]);
                         if (decProfile.profile(dec)) {
-                            if (!((dv.getDataAt(a)) < dv.getDataAt(b) || (dv.getDataAt(a) == dv.getDataAt(b) && a > b))) {
+                            if (!(c < 0 || (c == 0 && a > b))) {
                                 break;
                             }
                         } else {
-                            if (!((dv.getDataAt(a)) > dv.getDataAt(b) || (dv.getDataAt(a) == dv.getDataAt(b) && a > b))) {
+                            if (!(c > 0 || (c == 0 && a > b))) {
                                 break;
                             }
                         }
@@ -538,72 +518,6 @@ public abstract class Order extends RPrecedenceBuiltinNode {
             }
         }
 
-        @TruffleBoundary
-        private void sort(int[] indx, RAbstractStringVector dv, int lo, int hi, boolean dec) {
-            int t = 0;
-            for (; SINCS[t] > hi - lo + 1; t++) {
-            }
-
-            Locale locale = RContext.getInstance().stateRLocale.getLocale(RLocale.COLLATE);
-            if (locale == Locale.ROOT) {
-                // simple comparison based on numeric value of characters
-                for (int h = SINCS[t]; t < 16; h = SINCS[++t]) {
-                    for (int i = lo + h; i <= hi; i++) {
-                        int itmp = indx[i];
-                        int j = i;
-                        while (j >= lo + h) {
-                            int a = indx[j - h];
-                            int b = itmp;
-                            int c = dv.getDataAt(a).compareTo(dv.getDataAt(b));
-                            if (decProfile.profile(dec)) {
-                                if (!(c < 0 || (c == 0 && a > b))) {
-                                    break;
-                                }
-                            } else {
-                                if (!(c > 0 || (c == 0 && a > b))) {
-                                    break;
-                                }
-                            }
-                            indx[j] = indx[j - h];
-                            j -= h;
-                        }
-                        indx[j] = itmp;
-                    }
-                }
-            } else {
-                int length = dv.getLength();
-                Collator collator = RLocale.getOrderCollator(locale);
-                CollationKey[] entries = new CollationKey[length];
-                for (int i = 0; i < length; i++) {
-                    entries[i] = collator.getCollationKey(dv.getDataAt(i));
-                }
-
-                for (int h = SINCS[t]; t < 16; h = SINCS[++t]) {
-                    for (int i = lo + h; i <= hi; i++) {
-                        int itmp = indx[i];
-                        int j = i;
-                        while (j >= lo + h) {
-                            int a = indx[j - h];
-                            int b = itmp;
-                            int c = entries[a].compareTo(entries[b]);
-                            if (decProfile.profile(dec)) {
-                                if (!(c < 0 || (c == 0 && a > b))) {
-                                    break;
-                                }
-                            } else {
-                                if (!(c > 0 || (c == 0 && a > b))) {
-                                    break;
-                                }
-                            }
-                            indx[j] = indx[j - h];
-                            j -= h;
-                        }
-                        indx[j] = itmp;
-                    }
-                }
-            }
-        }
-
         private static boolean lt(RComplex a, RComplex b) {
             if (a.getRealPart() == b.getRealPart()) {
                 return a.getImaginaryPart() < b.getImaginaryPart();
@@ -729,6 +643,11 @@ public abstract class Order extends RPrecedenceBuiltinNode {
             return RRuntime.isNA(d) || Double.isNaN(d);
         }
 
+        @Specialization
+        protected boolean doLogical(RAbstractLogicalVector v, int idx) {
+            return RRuntime.isNA(v.getDataAt(idx));
+        }
+
         @Specialization
         protected boolean doString(RAbstractStringVector v, int idx) {
             return RRuntime.isNA(v.getDataAt(idx));
@@ -56,6 +56,7 @@ import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RScalar;
 import com.oracle.truffle.r.runtime.data.RStringSequence;
 import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.StringCache;
 import com.oracle.truffle.r.runtime.data.model.RAbstractListVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 
@@ -228,7 +229,7 @@ public abstract class Paste extends RBuiltinNode.Arg3 {
             pos += element.length();
         }
         assert pos == stringLength;
-        return new String(chars);
+        return StringCache.intern(new String(chars));
     }
 
     private static String collapseString(String[] value, String collapseString) {
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.base.RadixOrderNodeGen.EncodeKeyNodeGen;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
+import com.oracle.truffle.r.runtime.data.nodes.VectorAccess.RandomIterator;
+import com.oracle.truffle.r.runtime.nodes.RBaseNode;
+
+/**
+ * Stable LSD radix ordering used by {@link Order}, {@link Rank} and
+ * {@link SortFunctions.RadixSort}, i.e., {@code order}, {@code sort.list} and {@code rank}. It
+ * handles integer (including factors), logical, double and character keys, where character keys
+ * are ordered by code units (as in the C locale). Multiple keys are ordered by sorting on the last
+ * key first, every key can have its own {@code decreasing} flag.
+ *
+ * Every key is first encoded into an unsigned {@code long} relative to the minimum (or maximum if
+ * decreasing) of the key, so that the number of radix passes depends only on the range of the
+ * values, e.g., a factor with a few levels is sorted in one pass. Doubles are encoded by flipping
+ * the bits of their IEEE representation so that the unsigned order of the encoded values is the
+ * numeric order. {@code NA} (and {@code NaN}) values get the smallest or the largest key according
+ * to {@code na.last}.
+ */
+public abstract class RadixOrderNode extends RBaseNode {
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+
+    @Child private EncodeKeyNode encodeNode = EncodeKeyNodeGen.create();
+
+    public static RadixOrderNode create() {
+        return RadixOrderNodeGen.create();
+    }
+
+    public abstract int[] execute(int[] indx, int lo, int hi, RAbstractVector[] keys, boolean[] decreasing, boolean naLast);
+
+    /**
+     * Returns {@code true} if the vector can be used as a key. Character vectors should be used only
+     * if the caller wants them ordered by code units (C locale), not by the collation rules.
+     */
+    public static boolean isSupportedKey(Object v) {
+        return v instanceof RAbstractIntVector || v instanceof RAbstractLogicalVector || v instanceof RAbstractDoubleVector || v instanceof RAbstractStringVector;
+    }
+
+    /**
+     * Sorts the 0-based positions {@code indx[lo..hi]} according to the given keys, which must all
+     * have the length of the original vectors.
+     */
+    @Specialization
+    protected int[] doOrder(int[] indx, int lo, int hi, RAbstractVector[] keys, boolean[] decreasing, boolean naLast) {
+        int n = hi - lo + 1;
+        if (n < 2) {
+            return indx;
+        }
+        assert keys.length == decreasing.length;
+        /*
+         * The permutation is kept in terms of slots, i.e., offsets into indx[lo..hi], the keys are
+         * encoded per slot and moved together with the slots so that the passes access them
+         * sequentially.
+         */
+        int[] perm = null;
+        int[] permTmp = new int[n];
+        long[] cur = new long[n];
+        long[] curTmp = new long[n];
+        for (int k = keys.length - 1; k >= 0; k--) {
+            long maxKey = encodeNode.execute(keys[k], indx, lo, hi, cur, decreasing[k], naLast);
+            if (perm == null) {
+                perm = new int[n];
+                for (int i = 0; i < n; i++) {
+                    perm[i] = i;
+                }
+            } else {
+                gather(perm, cur, curTmp, n);
+                long[] t = cur;
+                cur = curTmp;
+                curTmp = t;
+            }
+            if (radixPasses(perm, cur, permTmp, curTmp, n, maxKey)) {
+                int[] t = perm;
+                perm = permTmp;
+                permTmp = t;
+            }
+        }
+        int[] slots = Arrays.copyOfRange(indx, lo, hi + 1);
+        for (int i = 0; i < n; i++) {
+            indx[lo + i] = slots[perm[i]];
+        }
+        return indx;
+    }
+
+    private static void gather(int[] perm, long[] keys, long[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = keys[perm[i]];
+        }
+    }
+
+    /**
+     * Stable LSD radix sort of {@code perm} by {@code keys}. The data ping-pongs between the two
+     * buffers, the result is {@code true} if it ended up in the temporary buffers.
+     */
+    private static boolean radixPasses(int[] perm, long[] keys, int[] permTmp, long[] keysTmp, int n, long maxKey) {
+        int bits = 64 - Long.numberOfLeadingZeros(maxKey);
+        int digits = (bits + RADIX_BITS - 1) / RADIX_BITS;
+        if (digits == 0) {
+            return false;
+        }
+        // histograms of all the digits are computed in one pass over the keys
+        int[][] counts = new int[digits][RADIX];
+        for (int i = 0; i < n; i++) {
+            long key = keys[i];
+            for (int d = 0; d < digits; d++) {
+                counts[d][(int) (key >>> (d * RADIX_BITS)) & RADIX_MASK]++;
+            }
+        }
+        int[] srcPerm = perm;
+        long[] srcKeys = keys;
+        int[] dstPerm = permTmp;
+        long[] dstKeys = keysTmp;
+        boolean swapped = false;
+        for (int d = 0; d < digits; d++) {
+            int[] count = counts[d];
+            if (isTrivialDigit(count, n)) {
+                // all the keys have the same value of this digit
+                continue;
+            }
+            int pos = 0;
+            for (int b = 0; b < RADIX; b++) {
+                int c = count[b];
+                count[b] = pos;
+                pos += c;
+            }
+            int shift = d * RADIX_BITS;
+            for (int i = 0; i < n; i++) {
+                long key = srcKeys[i];
+                int p = count[(int) (key >>> shift) & RADIX_MASK]++;
+                dstPerm[p] = srcPerm[i];
+                dstKeys[p] = key;
+            }
+            int[] tp = srcPerm;
+            srcPerm = dstPerm;
+            dstPerm = tp;
+            long[] tk = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tk;
+            swapped = !swapped;
+        }
+        return swapped;
+    }
+
+    private static boolean isTrivialDigit(int[] count, int n) {
+        for (int b = 0; b < RADIX; b++) {
+            if (count[b] != 0) {
+                return count[b] == n;
+            }
+        }
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    /**
+     * Encodes the values of the key at positions {@code indx[lo..hi]} into {@code keys[0..n-1]}
+     * and returns the largest encoded value. The non-NA values are mapped to
+     * {@code 1..(max - min + 1)}, {@code NA} to {@code 0} or {@code max - min + 2}.
+     */
+    abstract static class EncodeKeyNode extends RBaseNode {
+
+        public abstract long execute(RAbstractVector v, int[] indx, int lo, int hi, long[] keys, boolean decreasing, boolean naLast);
+
+        @Specialization(guards = "access.supports(v)", limit = "getVectorAccessCacheSize()")
+        protected long doEncode(RAbstractVector v, int[] indx, int lo, int hi, long[] keys, boolean decreasing, boolean naLast,
+                        @Cached("v.access()") VectorAccess access) {
+            try (RandomIterator iter = access.randomAccess(v)) {
+                switch (access.getType()) {
+                    case Integer:
+                        return encodeInt(access, iter, indx, lo, hi, keys, decreasing, naLast);
+                    case Logical:
+                        return encodeLogical(access, iter, indx, lo, hi, keys, decreasing, naLast);
+                    case Double:
+                        return encodeDouble(access, iter, indx, lo, hi, keys, decreasing, naLast);
+                    case Character:
+                        return encodeString(access, iter, indx, lo, hi, keys, decreasing, naLast);
+                    default:
+                        throw RInternalError.shouldNotReachHere("unsupported radix order key " + access.getType());
+                }
+            }
+        }
+
+        @Specialization(replaces = "doEncode")
+        protected long doEncodeGeneric(RAbstractVector v, int[] indx, int lo, int hi, long[] keys, boolean decreasing, boolean naLast) {
+            return doEncode(v, indx, lo, hi, keys, decreasing, naLast, v.slowPathAccess());
+        }
+
+        private static long encodeInt(VectorAccess access, RandomIterator iter, int[] indx, int lo, int hi, long[] keys, boolean decreasing, boolean naLast) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = lo; i <= hi; i++) {
+                int value = access.getInt(iter, indx[i]);
+                if (!access.na.check(value)) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+            if (min > max) {
+                // only NAs
+                min = max = 0;
+            }
+            long naKey = naLast ? max - min + 2 : 0;
+            for (int i = lo; i <= hi; i++) {
+                int value = access.getInt(iter, indx[i]);
+                keys[i - lo] = access.na.check(value) ? naKey : relativeKey(value, min, max, decreasing);
+            }
+            return Math.max(naKey, max - min + 1);
+        }
+
+        private static long encodeLogical(VectorAccess access, RandomIterator iter, int[] indx, int lo, int hi, long[] keys, boolean decreasing, boolean naLast) {
+            long naKey = naLast ? 3 : 0;
+            for (int i = lo; i <= hi; i++) {
+                byte value = access.getLogical(iter, indx[i]);
+                keys[i - lo] = access.na.check(value) ? naKey : relativeKey(value, RRuntime.LOGICAL_FALSE, RRuntime.LOGICAL_TRUE, decreasing);
+            }
+            return 3;
+        }
+
+        private static long encodeDouble(VectorAccess access, RandomIterator iter, int[] indx, int lo, int hi, long[] keys, boolean decreasing, boolean naLast) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = lo; i <= hi; i++) {
+                double value = access.getDouble(iter, indx[i]);
+                if (!access.na.checkNAorNaN(value)) {
+                    long bits = orderedBits(value);
+                    min = Math.min(min, bits);
+                    max = Math.max(max, bits);
+                }
+            }
+            if (min > max) {
+                // only NAs and NaNs
+                min = max = 0;
+            }
+            // the differences are unsigned, they fit because NaNs are never encoded
+            long naKey = naLast ? max - min + 2 : 0;
+            for (int i = lo; i <= hi; i++) {
+                double value = access.getDouble(iter, indx[i]);
+                keys[i - lo] = access.na.checkNAorNaN(value) ? naKey : relativeKey(orderedBits(value), min, max, decreasing);
+            }
+            return naLast ? naKey : max - min + 1;
+        }
+
+        @TruffleBoundary
+        private static long encodeString(VectorAccess access, RandomIterator iter, int[] indx, int lo, int hi, long[] keys, boolean decreasing, boolean naLast) {
+            // strings are replaced by the rank of their value among the distinct values
+            HashMap<String, Integer> ranks = new HashMap<>();
+            for (int i = lo; i <= hi; i++) {
+                String value = access.getString(iter, indx[i]);
+                if (!access.na.check(value)) {
+                    ranks.putIfAbsent(value, 0);
+                }
+            }
+            String[] distinct = ranks.keySet().toArray(new String[ranks.size()]);
+            Arrays.sort(distinct);
+            for (int i = 0; i < distinct.length; i++) {
+                ranks.put(distinct[i], i);
+            }
+            long max = distinct.length - 1;
+            long naKey = naLast ? max + 2 : 0;
+            for (int i = lo; i <= hi; i++) {
+                String value = access.getString(iter, indx[i]);
+                keys[i - lo] = access.na.check(value) ? naKey : relativeKey(ranks.get(value), 0, max, decreasing);
+            }
+            return Math.max(naKey, max + 1);
+        }
+
+        private static long relativeKey(long value, long min, long max, boolean decreasing) {
+            return (decreasing ? max - value : value - min) + 1;
+        }
+
+        /**
+         * Maps the double to a {@code long} whose signed order is the numeric order of the doubles,
+         * negative zero is treated as positive zero so that they compare equal.
+         */
+        private static long orderedBits(double value) {
+            long bits = Double.doubleToRawLongBits(value == 0 ? 0d : value);
+            return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+    }
+}
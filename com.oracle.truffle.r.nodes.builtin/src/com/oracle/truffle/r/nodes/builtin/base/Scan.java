@@ -1,7 +1,7 @@
 /*
  * Copyright (c) 1995, 1996, Robert Gentleman and Ross Ihaka
  * Copyright (c) 1998-2013, The R Core Team
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -38,7 +38,6 @@ import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.HashMap;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -47,6 +46,7 @@ import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.ExtractN
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.nodes.unary.CastToVectorNode;
 import com.oracle.truffle.r.nodes.unary.CastToVectorNodeGen;
+import com.oracle.truffle.r.runtime.ParallelChunks;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RInternalError;
@@ -61,6 +61,7 @@ import com.oracle.truffle.r.runtime.data.RFunction;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.data.StringCache;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
@@ -88,7 +89,6 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
     @SuppressWarnings("unused")
     private static class LocalData {
-        final HashMap<String, String> stringTable = new HashMap<>();
         RAbstractStringVector naStrings = null;
         boolean quiet = false;
         char sepchar = 0; // 0 means any whitespace
@@ -228,6 +228,10 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         return false;
     }
 
+    /**
+     * Splits the line into items, returns {@code null} if the line ends within a quoted item. Does
+     * not access the context, so that lines can be split in parallel.
+     */
     private static String[] getQuotedItems(LocalData data, String s) {
         ArrayList<String> items = new ArrayList<>();
 
@@ -260,7 +264,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                 pos++;
                 while (true) {
                     if (pos == length) {
-                        throw RError.error(RError.SHOW_CALLER, Message.INCOMPLETE_FINAL_LINE, s);
+                        return null;
                     }
                     ch = s.charAt(pos++);
                     if (ch == quoteStart) {
@@ -284,13 +288,20 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         return items.toArray(new String[items.size()]);
     }
 
+    private static String[] checkItems(String[] items, String line) {
+        if (items == null) {
+            throw RError.error(RError.SHOW_CALLER, Message.INCOMPLETE_FINAL_LINE, line);
+        }
+        return items;
+    }
+
     private static String[] getItems(LocalData data, boolean blSkip) throws IOException {
         while (true) {
             String[] str = data.con.readLines(1, EnumSet.of(ReadLineWarning.EMBEDDED_NUL), false);
             if (str == null || str.length == 0) {
                 return null;
             } else {
-                String[] items = getQuotedItems(data, str[0]);
+                String[] items = checkItems(getQuotedItems(data, str[0]), str[0]);
                 if (blSkip && items.length == 0) {
                     continue;
                 } else {
@@ -300,6 +311,66 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         }
     }
 
+    /**
+     * Supplies the items of the input lines. If the whole input is going to be read anyway (no
+     * limit on the number of lines or records), the lines are read in large batches and split into
+     * items by parallel tasks, otherwise they are read and split one by one.
+     */
+    private static final class ItemReader {
+        private static final int LINES_PER_TASK = 4096;
+
+        private final LocalData data;
+        private final boolean blSkip;
+        private final int threads;
+
+        private String[] lines;
+        private String[][] lineItems;
+        private int pos;
+
+        ItemReader(LocalData data, boolean blSkip, boolean wholeInput) {
+            this.data = data;
+            this.blSkip = blSkip;
+            this.threads = wholeInput ? ParallelChunks.getThreadCount() : 1;
+        }
+
+        String[] next() throws IOException {
+            if (threads <= 1) {
+                return getItems(data, blSkip);
+            }
+            while (true) {
+                if (lines == null || pos == lines.length) {
+                    if (!readBatch()) {
+                        return null;
+                    }
+                }
+                String[] items = checkItems(lineItems[pos], lines[pos]);
+                pos++;
+                if (blSkip && items.length == 0) {
+                    continue;
+                }
+                return items.length == 0 ? new String[]{""} : items;
+            }
+        }
+
+        private boolean readBatch() throws IOException {
+            String[] batch = data.con.readLines(LINES_PER_TASK * threads, EnumSet.of(ReadLineWarning.EMBEDDED_NUL), false);
+            if (batch == null || batch.length == 0) {
+                lines = null;
+                return false;
+            }
+            String[][] batchItems = new String[batch.length][];
+            ParallelChunks.run(batch.length, LINES_PER_TASK, threads, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    batchItems[i] = getQuotedItems(data, batch[i]);
+                }
+            });
+            lines = batch;
+            lineItems = batchItems;
+            pos = 0;
+            return true;
+        }
+    }
+
     private void fillEmpty(int from, int to, int records, RList list, LocalData data) {
         for (int i = from; i < to; i++) {
             RVector<?> vec = (RVector<?>) list.getDataAt(i);
@@ -339,9 +410,10 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         int n = 0;
         int lines = 0;
         int records = 0;
+        ItemReader reader = new ItemReader(data, blSkip, maxRecords == 0 && maxLines == 0);
         while (true) {
             // TODO: does not do any fancy stuff, like handling comments
-            String[] strItems = getItems(data, blSkip);
+            String[] strItems = reader.next();
             if (strItems == null) {
                 break;
             }
@@ -358,7 +430,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                     } else if (!multiLine) {
                         throw error(RError.Message.LINE_ELEMENTS, lines + 1, nc);
                     } else {
-                        strItems = getItems(data, blSkip);
+                        strItems = reader.next();
                         // Checkstyle: stop modified control variable check
                         i = 0;
                         // Checkstyle: resume modified control variable check
@@ -436,9 +508,10 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
         int n = 0;
         int lines = 0;
+        ItemReader reader = new ItemReader(data, blSkip, maxItems == 0 && maxLines == 0);
         while (true) {
             // TODO: does not do any fancy stuff, like handling comments
-            String[] strItems = getItems(data, blSkip);
+            String[] strItems = reader.next();
             if (strItems == null) {
                 break;
             }
@@ -525,8 +598,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                     if (isNaString(buffer, 1, data)) {
                         return RRuntime.STRING_NA;
                     } else {
-                        String oldEntry = data.stringTable.putIfAbsent(buffer, buffer);
-                        return oldEntry == null ? buffer : oldEntry;
+                        return StringCache.intern(buffer);
                     }
                 case Raw:
                     if (isNaString(buffer, 0, data)) {
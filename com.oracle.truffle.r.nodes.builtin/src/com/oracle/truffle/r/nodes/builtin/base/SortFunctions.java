@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -40,10 +40,15 @@ import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 import java.util.Arrays;
 import java.util.Collections;
 
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.NodeWithArgumentCasts.Casts;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.nodes.builtin.base.Order.IsAtomicNA;
+import com.oracle.truffle.r.nodes.unary.CastToVectorNode;
+import com.oracle.truffle.r.nodes.unary.CastToVectorNodeGen;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
@@ -54,12 +59,14 @@ import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RLogicalVector;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractListVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 
 /**
  * The internal functions mandated by {@code base/sort.R}. N.B. We use the standard JDK sorting
@@ -129,14 +136,37 @@ public class SortFunctions {
         return data;
     }
 
+    /**
+     * Sorts the data unless the vector is known to be sorted in the requested order. The result is
+     * marked as sorted if it does not contain {@code NA}s, which the JDK sort puts at one of the
+     * ends (with the {@code NaN}s).
+     */
     protected static RDoubleVector jdkSort(RAbstractDoubleVector vec, boolean decreasing) {
+        int sortedness = decreasing ? RVector.SORTED_DESCENDING : RVector.SORTED_ASCENDING;
+        boolean knownSorted = vec.getKnownSortedness() == sortedness;
         double[] data = vec.materialize().getDataCopy();
-        return RDataFactory.createDoubleVector(sort(data, decreasing), vec.isComplete());
+        if (!knownSorted) {
+            sort(data, decreasing);
+        }
+        RDoubleVector result = RDataFactory.createDoubleVector(data, vec.isComplete());
+        if (knownSorted || data.length == 0 || !Double.isNaN(data[decreasing ? 0 : data.length - 1])) {
+            result.setKnownSortedness(sortedness);
+        }
+        return result;
     }
 
     protected static RIntVector jdkSort(RAbstractIntVector vec, boolean decreasing) {
+        int sortedness = decreasing ? RVector.SORTED_DESCENDING : RVector.SORTED_ASCENDING;
+        boolean knownSorted = vec.getKnownSortedness() == sortedness;
         int[] data = vec.materialize().getDataCopy();
-        return RDataFactory.createIntVector(sort(data, decreasing), vec.isComplete());
+        if (!knownSorted) {
+            sort(data, decreasing);
+        }
+        RIntVector result = RDataFactory.createIntVector(data, vec.isComplete());
+        if (knownSorted || data.length == 0 || !RRuntime.isNA(data[decreasing ? data.length - 1 : 0])) {
+            result.setKnownSortedness(sortedness);
+        }
+        return result;
     }
 
     protected static RStringVector jdkSort(RAbstractStringVector vec, boolean decreasing) {
@@ -264,12 +294,21 @@ public class SortFunctions {
     /**
      * This a helper function for the code in sort.R. It does NOT return the input vectors sorted,
      * but returns an {@link RIntVector} of indices (positions) indicating the sort order (Or
-     * {@link RNull#instance} if no vectors). In short it is a special variant of {@code order}. For
-     * now we delegate to {@code order} and do not implement the {@code retgrp} argument.
+     * {@link RNull#instance} if no vectors). In short it is a special variant of {@code order}.
+     * Integer, logical, double and character keys (the latter in the C locale as in GNU R) are
+     * ordered by {@link RadixOrderNode}, other keys are delegated to {@code order}. The
+     * {@code retgrp} argument is not implemented.
      */
     @RBuiltin(name = "radixsort", kind = INTERNAL, parameterNames = {"na.last", "decreasing", "retgrp", "sortstr", "..."}, behavior = PURE)
     public abstract static class RadixSort extends RBuiltinNode.Arg5 {
-        @Child private Order orderNode = OrderNodeGen.create();
+        @Child private Order orderNode;
+        @Child private RadixOrderNode radixOrderNode = RadixOrderNode.create();
+        @Child private CastToVectorNode castVector = CastToVectorNodeGen.create(false);
+        @Child private IsAtomicNA isNANode;
+
+        private final ConditionProfile radixProfile = ConditionProfile.createBinaryProfile();
+        private final ConditionProfile removeNAsProfile = ConditionProfile.createBinaryProfile();
+        private final ConditionProfile sortedKeyProfile = ConditionProfile.createBinaryProfile();
 
         static {
             Casts casts = new Casts(RadixSort.class);
@@ -282,7 +321,6 @@ public class SortFunctions {
         @SuppressWarnings("unused")
         @Specialization
         protected Object radixSort(byte naLast, RAbstractLogicalVector decreasingVec, boolean retgrp, boolean sortstr, RArgsValuesAndNames zz) {
-            // Partial implementation just to get startup to work
             if (retgrp) {
                 // sortstr only has an effect when retrgrp == true
                 throw RError.nyi(this, "radixsort: retgrp == TRUE not implemented");
@@ -294,26 +332,88 @@ public class SortFunctions {
             if (nargs != decreasingVec.getLength()) {
                 throw error(RError.Message.RADIX_SORT_DEC_MATCH);
             }
-            /*
-             * Order takes a single decreasing argument that applies to all the vectors. We
-             * potentially have a different value for each vector, so we have to process one by one.
-             * However, OrderNode can't yet handle that, so we abort if nargs > 1 and the decreasing
-             * values don't match.
-             */
-            byte lastdb = RRuntime.LOGICAL_NA;
+            boolean[] decreasing = new boolean[nargs];
             for (int i = 0; i < nargs; i++) {
                 byte db = decreasingVec.getDataAt(i);
                 if (RRuntime.isNA(db)) {
                     throw error(RError.Message.RADIX_SORT_DEC_NOT_LOGICAL);
                 }
-                if (lastdb != RRuntime.LOGICAL_NA && db != lastdb) {
-                    throw RError.nyi(this, "radixsort: args > 1 with differing 'decreasing' values not implemented");
+                decreasing[i] = RRuntime.fromLogical(db);
+            }
+            RAbstractVector[] keys = new RAbstractVector[nargs];
+            boolean supported = true;
+            for (int i = 0; i < nargs; i++) {
+                Object key = castVector.doCast(zz.getArgument(i));
+                if (!RadixOrderNode.isSupportedKey(key)) {
+                    supported = false;
+                    break;
+                }
+                keys[i] = (RAbstractVector) key;
+                if (keys[i].getLength() != keys[0].getLength()) {
+                    throw error(RError.Message.ARGUMENT_LENGTHS_DIFFER);
+                }
+            }
+            if (radixProfile.profile(supported)) {
+                if (sortedKeyProfile.profile(nargs == 1 && keys[0].getKnownSortedness() == (decreasing[0] ? RVector.SORTED_DESCENDING : RVector.SORTED_ASCENDING))) {
+                    // no NAs and the identity is the stable order
+                    return RDataFactory.createIntSequence(1, 1, keys[0].getLength());
+                }
+                int[] indx = createIndexes(keys, naLast);
+                radixOrderNode.execute(indx, 0, indx.length - 1, keys, decreasing, RRuntime.fromLogical(naLast));
+                for (int i = 0; i < indx.length; i++) {
+                    indx[i] = indx[i] + 1;
+                }
+                return RDataFactory.createIntVector(indx, RDataFactory.COMPLETE_VECTOR);
+            }
+            return orderFallback(naLast, decreasing, zz);
+        }
+
+        /**
+         * With {@code na.last = NA}, the elements that are NA in any of the keys are removed.
+         */
+        private int[] createIndexes(RAbstractVector[] keys, byte naLast) {
+            int n = keys[0].getLength();
+            boolean[] isNA = null;
+            int naCount = 0;
+            if (removeNAsProfile.profile(RRuntime.isNA(naLast))) {
+                if (isNANode == null) {
+                    CompilerDirectives.transferToInterpreterAndInvalidate();
+                    isNANode = insert(IsAtomicNA.create());
+                }
+                isNA = new boolean[n];
+                for (RAbstractVector key : keys) {
+                    for (int i = 0; i < n; i++) {
+                        if (!isNA[i] && isNANode.execute(key, i)) {
+                            isNA[i] = true;
+                            naCount++;
+                        }
+                    }
+                }
+            }
+            int[] result = new int[n - naCount];
+            for (int i = 0, resultIdx = 0; i < n; i++) {
+                if (isNA == null || !isNA[i]) {
+                    result[resultIdx++] = i;
                 }
-                lastdb = db;
             }
-            boolean decreasing = RRuntime.fromLogical(decreasingVec.getDataAt(0));
-            Object result = orderNode.execute(naLast, decreasing, zz);
             return result;
         }
+
+        /*
+         * Order takes a single decreasing argument that applies to all the vectors, so we abort if
+         * nargs > 1 and the decreasing values don't match.
+         */
+        private Object orderFallback(byte naLast, boolean[] decreasing, RArgsValuesAndNames zz) {
+            for (int i = 1; i < decreasing.length; i++) {
+                if (decreasing[i] != decreasing[0]) {
+                    throw RError.nyi(this, "radixsort: args > 1 with differing 'decreasing' values not implemented");
+                }
+            }
+            if (orderNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                orderNode = insert(OrderNodeGen.create());
+            }
+            return orderNode.execute(naLast, decreasing[0], zz);
+        }
     }
 }
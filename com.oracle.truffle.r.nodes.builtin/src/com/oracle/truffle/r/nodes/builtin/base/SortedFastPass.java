@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -30,20 +30,30 @@ import static com.oracle.truffle.r.runtime.RError.Message.ONLY_ATOMIC_CAN_BE_SOR
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
-import com.oracle.truffle.r.runtime.data.RIntSequence;
+import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 
 /**
- * Fast path check if a vector is already sorted. For now we simply return {@code FALSE}. This
- * should be improved.
+ * Fast path check if a vector is already sorted, in which case {@code sort} returns it as it is.
+ * Vectors with known sortedness (see {@link RVector#getKnownSortedness()}) are answered without
+ * looking at the data, otherwise the data are scanned until the first element out of order. A
+ * vector found to be sorted (and without {@code NA}s) remembers it, so that the subsequent checks
+ * are constant time. {@code FALSE} is always a valid answer, it only means that the vector will be
+ * sorted.
  */
 @RBuiltin(name = "sorted_fpass", kind = INTERNAL, parameterNames = {"x", "decr", "nalast"}, behavior = PURE)
 public abstract class SortedFastPass extends RBuiltinNode.Arg3 {
 
+    private final ConditionProfile knownProfile = ConditionProfile.createBinaryProfile();
+
     static {
         Casts casts = new Casts(SortedFastPass.class);
         casts.arg("x").allowNull().mustBe(abstractVectorValue(), ONLY_ATOMIC_CAN_BE_SORTED);
@@ -52,13 +62,64 @@ public abstract class SortedFastPass extends RBuiltinNode.Arg3 {
     }
 
     @Specialization
-    protected byte isSorted(RIntSequence x, boolean decr, @SuppressWarnings("unused") byte nalast) {
+    protected byte isSorted(RAbstractIntVector x, boolean decr, @SuppressWarnings("unused") byte nalast) {
+        int wanted = decr ? RVector.SORTED_DESCENDING : RVector.SORTED_ASCENDING;
+        int known = x.getKnownSortedness();
+        if (knownProfile.profile(known != RVector.SORTED_UNKNOWN)) {
+            return RRuntime.asLogical(known == wanted);
+        }
+        return RRuntime.asLogical(checkSorted(x, wanted));
+    }
+
+    @Specialization
+    protected byte isSorted(RAbstractDoubleVector x, boolean decr, @SuppressWarnings("unused") byte nalast) {
+        int wanted = decr ? RVector.SORTED_DESCENDING : RVector.SORTED_ASCENDING;
+        int known = x.getKnownSortedness();
+        if (knownProfile.profile(known != RVector.SORTED_UNKNOWN)) {
+            return RRuntime.asLogical(known == wanted);
+        }
+        return RRuntime.asLogical(checkSorted(x, wanted));
+    }
 
-        if (decr) {
-            return RRuntime.asLogical(x.getStride() < 0);
-        } else {
-            return RRuntime.asLogical(x.getStride() >= 0);
+    @TruffleBoundary
+    private static boolean checkSorted(RAbstractIntVector x, int wanted) {
+        int length = x.getLength();
+        int last = length == 0 ? 0 : x.getDataAt(0);
+        if (RRuntime.isNA(last)) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            int current = x.getDataAt(i);
+            if (RRuntime.isNA(current) || (wanted == RVector.SORTED_ASCENDING ? last > current : last < current)) {
+                return false;
+            }
+            last = current;
+        }
+        if (x instanceof RVector) {
+            ((RVector<?>) x).setKnownSortedness(wanted);
+        }
+        return true;
+    }
+
+    @TruffleBoundary
+    private static boolean checkSorted(RAbstractDoubleVector x, int wanted) {
+        int length = x.getLength();
+        double last = length == 0 ? 0 : x.getDataAt(0);
+        if (Double.isNaN(last)) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            double current = x.getDataAt(i);
+            // NaN compares false
+            if (!(wanted == RVector.SORTED_ASCENDING ? last <= current : last >= current)) {
+                return false;
+            }
+            last = current;
+        }
+        if (x instanceof RVector) {
+            ((RVector<?>) x).setKnownSortedness(wanted);
         }
+        return true;
     }
 
     @Fallback
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -54,6 +54,7 @@ import com.oracle.truffle.r.runtime.data.RLogicalVector;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RRawVector;
 import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
@@ -70,6 +71,7 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
     private static final long BIG_THRESHOLD = 100;
 
     private final ConditionProfile bigProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile knownSortedProfile = ConditionProfile.createBinaryProfile();
 
     static {
         Casts casts = new Casts(Unique.class);
@@ -258,12 +260,46 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
         }
     }
 
+    // the duplicates in a sorted vector are next to each other and the result is sorted as well
+    @TruffleBoundary
+    private static RIntVector uniqueSorted(RAbstractIntVector vec) {
+        int[] data = new int[vec.getLength()];
+        int ind = 0;
+        for (int i = 0; i < data.length; i++) {
+            int val = vec.getDataAt(i);
+            if (ind == 0 || data[ind - 1] != val) {
+                data[ind++] = val;
+            }
+        }
+        RIntVector result = RDataFactory.createIntVector(Arrays.copyOf(data, ind), RDataFactory.COMPLETE_VECTOR);
+        result.setKnownSortedness(vec.getKnownSortedness());
+        return result;
+    }
+
+    @TruffleBoundary
+    private static RDoubleVector uniqueSorted(RAbstractDoubleVector vec) {
+        double[] data = new double[vec.getLength()];
+        int ind = 0;
+        for (int i = 0; i < data.length; i++) {
+            double val = vec.getDataAt(i);
+            if (ind == 0 || data[ind - 1] != val) {
+                data[ind++] = val;
+            }
+        }
+        RDoubleVector result = RDataFactory.createDoubleVector(Arrays.copyOf(data, ind), RDataFactory.COMPLETE_VECTOR);
+        result.setKnownSortedness(vec.getKnownSortedness());
+        return result;
+    }
+
     @SuppressWarnings("unused")
     @Specialization(guards = "vecIn.getClass() == vecClass")
     protected RIntVector doUniqueCached(RAbstractIntVector vecIn, byte incomparables, byte fromLast, int nmax,
                     @Cached("vecIn.getClass()") Class<? extends RAbstractIntVector> vecClass) {
         RAbstractIntVector vec = vecClass.cast(vecIn);
         reportWork(vec.getLength());
+        if (knownSortedProfile.profile(vec.getKnownSortedness() != RVector.SORTED_UNKNOWN)) {
+            return uniqueSorted(vec);
+        }
         if (bigProfile.profile(vec.getLength() * (long) vec.getLength() > BIG_THRESHOLD)) {
             NonRecursiveHashSetInt set = new NonRecursiveHashSetInt();
             int[] data = new int[16];
@@ -396,6 +432,9 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
     @Specialization
     protected RDoubleVector doUnique(RAbstractDoubleVector vec, byte incomparables, byte fromLast, int nmax) {
         reportWork(vec.getLength());
+        if (knownSortedProfile.profile(vec.getKnownSortedness() != RVector.SORTED_UNKNOWN)) {
+            return uniqueSorted(vec);
+        }
         if (bigProfile.profile(vec.getLength() * (long) vec.getLength() > BIG_THRESHOLD)) {
             NonRecursiveHashSetDouble set = new NonRecursiveHashSetDouble(vec.getLength());
             double[] data = new double[vec.getLength()];
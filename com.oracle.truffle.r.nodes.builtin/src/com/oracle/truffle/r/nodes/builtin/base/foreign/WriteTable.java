@@ -1,7 +1,7 @@
 /*
  * Copyright (c) 1995-2012, The R Core Team
  * Copyright (c) 2003, The R Foundation
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -24,6 +24,7 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -34,6 +35,7 @@ import com.oracle.truffle.r.nodes.builtin.base.printer.DoubleVectorPrinter;
 import com.oracle.truffle.r.nodes.function.ClassHierarchyNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
+import com.oracle.truffle.r.runtime.ParallelChunks;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.conn.RConnection;
@@ -41,6 +43,7 @@ import com.oracle.truffle.r.runtime.data.RAttributable;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RRaw;
+import com.oracle.truffle.r.runtime.data.RSequence;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
@@ -50,7 +53,6 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
-import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 
 //Transcribed from GnuR, library/utils/src/io.c
 
@@ -80,6 +82,12 @@ public abstract class WriteTable extends RExternalBuiltinNode.Arg11 {
         casts.arg(10).mustNotBeNull().asLogicalVector().findFirst().mustNotBeNA().map(toBoolean());
     }
 
+    /**
+     * The number of rows formatted by one task, the rows are formatted in blocks of this size times
+     * the number of threads and each block is written with one call to the connection.
+     */
+    private static final int ROWS_PER_CHUNK = 2048;
+
     // Transcribed from GnuR, library/utils/src/io.c
 
     @Specialization
@@ -98,8 +106,9 @@ public abstract class WriteTable extends RExternalBuiltinNode.Arg11 {
             }
         }
         try (RConnection con = RConnection.fromIndex(file).forceOpen("wt")) {
+            Column[] columns = new Column[nc];
             if (xx instanceof RAttributable && ClassHierarchyNode.hasClass((RAttributable) xx, RRuntime.CLASS_DATA_FRAME)) {
-                executeDataFrame(con, (RVector<?>) xx, nr, nc, rnames, csep, ceol, cna, cdec, qmethod, quoteCol, quoteRn);
+                createDataFrameColumns(columns, (RVector<?>) xx, nr, cna, cdec, qmethod, quoteCol, quoteRn);
             } else { /* A matrix */
 
                 // if (!isVectorAtomic(x))
@@ -109,121 +118,355 @@ public abstract class WriteTable extends RExternalBuiltinNode.Arg11 {
                 if (x.getLength() != nr * nc) {
                     throw new IllegalArgumentException("corrupt matrix -- dims not not match length");
                 }
-
-                StringBuilder tmp = new StringBuilder();
-                for (int i = 0; i < nr; i++) {
-                    if (!(rnames instanceof RNull)) {
-                        tmp.append(encodeElement2((RAbstractStringVector) rnames, i, quoteRn, qmethod, cdec));
-                        tmp.append(csep);
-                    }
-                    for (int j = 0; j < nc; j++) {
-                        if (j > 0) {
-                            tmp.append(csep);
-                        }
-                        if (isna(x, i + j * nr)) {
-                            tmp.append(cna);
-                        } else {
-                            tmp.append(encodeElement2(x, i + j * nr, quoteCol[j], qmethod, cdec));
-                            /* if(cdec) change_dec(tmp, cdec, TYPEOF(x)); */
-                        }
-                    }
-                    tmp.append(ceol);
-                    con.writeString(tmp.toString(), false);
-                    tmp.setLength(0);
+                for (int j = 0; j < nc; j++) {
+                    columns[j] = createColumn(x, j * nr, null, cna, cdec, quoteCol[j], qmethod);
                 }
             }
+            Column rowNames = rnames instanceof RNull ? null : new StringColumn((RAbstractStringVector) rnames, 0, null, quoteRn, qmethod);
+            writeRows(con, nr, rowNames, columns, csep, ceol);
         } catch (IOException | IllegalArgumentException ex) {
             throw RError.error(RError.SHOW_CALLER, RError.Message.GENERIC, ex.getMessage());
         }
         return RNull.instance;
     }
 
-    private static void executeDataFrame(RConnection con, RVector<?> x, int nr, int nc, Object rnames, String csep, String ceol, String cna, char cdec, boolean qmethod, boolean[] quoteCol,
-                    boolean quoteRn)
-                    throws IOException {
-
+    private static void createDataFrameColumns(Column[] columns, RVector<?> x, int nr, String cna, char cdec, boolean qmethod, boolean[] quoteCol, boolean quoteRn) {
         /* handle factors internally, check integrity */
-        RStringVector[] levels = new RStringVector[nc];
-        for (int j = 0; j < nc; j++) {
+        for (int j = 0; j < columns.length; j++) {
             Object xjObj = x.getDataAtAsObject(j);
             if (xjObj instanceof RAbstractContainer) {
                 RAbstractContainer xj = (RAbstractContainer) xjObj;
                 if (xj.getLength() != nr) {
                     throw new IllegalArgumentException("corrupt data frame -- length of column " + (j + 1) + " does not not match nrows");
                 }
-                if (isFactor(xj)) {
-                    levels[j] = (RStringVector) xj.getAttributes().get("levels");
-                }
+                RStringVector levels = isFactor(xj) ? (RStringVector) xj.getAttributes().get("levels") : null;
+                columns[j] = createColumn(xj, 0, levels, cna, cdec, quoteCol[j], qmethod);
             } else {
                 if (nr != 1) {
                     throw new IllegalArgumentException("corrupt data frame -- length of column " + (j + 1) + " does not not match nrows");
                 }
+                columns[j] = new ConstantColumn(encodePrimitiveElement(xjObj, cna, quoteRn, qmethod));
+            }
+        }
+    }
+
+    /**
+     * Formats the rows in parallel chunks into reusable buffers and writes the buffers in the
+     * order of the rows. The columns do not access the context, so that they can be formatted in
+     * any thread, unless the vectors themselves need it (e.g. foreign arrays), in which case
+     * everything is formatted in the current thread.
+     */
+    private static void writeRows(RConnection con, int nr, Column rowNames, Column[] columns, String csep, String ceol) throws IOException {
+        int threads = 1;
+        if (nr > ROWS_PER_CHUNK && (rowNames == null || rowNames.isThreadSafe()) && Arrays.stream(columns).allMatch(Column::isThreadSafe)) {
+            threads = ParallelChunks.getThreadCount();
+        }
+        StringBuilder[] buffers = new StringBuilder[threads];
+        for (int i = 0; i < threads; i++) {
+            buffers[i] = new StringBuilder();
+        }
+        int blockRows = ROWS_PER_CHUNK * threads;
+        for (int blockStart = 0; blockStart < nr; blockStart += blockRows) {
+            int start = blockStart;
+            int length = Math.min(nr - start, blockRows);
+            int chunks = ParallelChunks.getChunkCount(length, ROWS_PER_CHUNK, threads);
+            ParallelChunks.run(chunks, 1, threads, (from, to) -> {
+                for (int c = from; c < to; c++) {
+                    int first = start + (int) ((long) length * c / chunks);
+                    int last = start + (int) ((long) length * (c + 1) / chunks);
+                    formatRows(buffers[c], first, last, rowNames, columns, csep, ceol);
+                }
+            });
+            for (int c = 0; c < chunks; c++) {
+                con.writeString(buffers[c].toString(), false);
+                buffers[c].setLength(0);
             }
         }
+    }
 
-        StringBuilder tmp = new StringBuilder();
-        for (int i = 0; i < nr; i++) {
-            // if (i % 1000 == 999)
-            // R_CheckUserInterrupt();
-            if (!(rnames instanceof RNull)) {
-                tmp.append(encodeElement2((RAbstractStringVector) rnames, i, quoteRn, qmethod, cdec)).append(csep);
+    private static void formatRows(StringBuilder out, int first, int last, Column rowNames, Column[] columns, String csep, String ceol) {
+        for (int i = first; i < last; i++) {
+            if (rowNames != null) {
+                rowNames.append(out, i);
+                out.append(csep);
             }
-            for (int j = 0; j < nc; j++) {
-                Object xjObj = x.getDataAtAsObject(j);
+            for (int j = 0; j < columns.length; j++) {
                 if (j > 0) {
-                    tmp.append(csep);
-                }
-                if (xjObj instanceof RAbstractContainer) {
-                    RAbstractContainer xj = (RAbstractContainer) xjObj;
-                    if (isna(xj, i)) {
-                        tmp.append(cna);
-                    } else {
-                        if (levels[j] != null) {
-                            tmp.append(encodeElement2(levels[j], (int) xj.getDataAtAsObject(i) - 1, quoteCol[j], qmethod, cdec));
-                        } else {
-                            tmp.append(encodeElement2((RAbstractVector) xj, i, quoteCol[j], qmethod, cdec));
-                        }
-                        /* if(cdec) change_dec(tmp, cdec, TYPEOF(xj)); */
-                    }
-                } else {
-                    tmp.append(encodePrimitiveElement(xjObj, cna, quoteRn, qmethod));
-                    /* if(cdec) change_dec(tmp, cdec, TYPEOF(xj)); */
+                    out.append(csep);
                 }
+                columns[j].append(out, i);
             }
-            tmp.append(ceol);
-            con.writeString(tmp.toString(), false);
-            tmp.setLength(0);
+            out.append(ceol);
         }
     }
 
-    private static String encodeStringElement(String p0, boolean quote, boolean qmethod) {
+    private static Column createColumn(RAbstractContainer x, int offset, RStringVector levels, String cna, char cdec, boolean quote, boolean qmethod) {
+        if (levels != null) {
+            return new FactorColumn((RAbstractIntVector) x, levels, cna, quote, qmethod);
+        } else if (x instanceof RAbstractStringVector) {
+            return new StringColumn((RAbstractStringVector) x, offset, cna, quote, qmethod);
+        } else if (x instanceof RAbstractDoubleVector) {
+            return new DoubleColumn((RAbstractDoubleVector) x, offset, cna, cdec);
+        } else if (x instanceof RAbstractIntVector) {
+            return new IntColumn((RAbstractIntVector) x, offset, cna);
+        } else if (x instanceof RAbstractLogicalVector) {
+            return new LogicalColumn((RAbstractLogicalVector) x, offset, cna);
+        } else if (x instanceof RAbstractComplexVector) {
+            return new ComplexColumn((RAbstractComplexVector) x, offset, cna, cdec);
+        } else if (x instanceof RAbstractRawVector) {
+            return new RawColumn((RAbstractRawVector) x, offset);
+        }
+        throw RInternalError.unimplemented();
+    }
+
+    /**
+     * Formats the elements of one column, including the {@code NA} handling and quoting.
+     */
+    private abstract static class Column {
+
+        abstract void append(StringBuilder out, int row);
+
+        boolean isThreadSafe() {
+            return true;
+        }
+
+        static boolean isThreadSafe(RAbstractContainer vector) {
+            return vector instanceof RVector || vector instanceof RSequence;
+        }
+    }
+
+    private static final class ConstantColumn extends Column {
+        private final String text;
+
+        ConstantColumn(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void append(StringBuilder out, int row) {
+            out.append(text);
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        private final RAbstractStringVector vector;
+        private final int offset;
+        /**
+         * The {@code NA} string or {@code null} if NA values are written as they are (row names).
+         */
+        private final String cna;
+        private final boolean quote;
+        private final boolean qmethod;
+
+        StringColumn(RAbstractStringVector vector, int offset, String cna, boolean quote, boolean qmethod) {
+            this.vector = vector;
+            this.offset = offset;
+            this.cna = cna;
+            this.quote = quote;
+            this.qmethod = qmethod;
+        }
+
+        @Override
+        void append(StringBuilder out, int row) {
+            String value = vector.getDataAt(offset + row);
+            if (cna != null && RRuntime.isNA(value)) {
+                out.append(cna);
+            } else {
+                appendString(out, value, quote, qmethod);
+            }
+        }
+
+        @Override
+        boolean isThreadSafe() {
+            return isThreadSafe(vector);
+        }
+    }
+
+    private static final class FactorColumn extends Column {
+        private final RAbstractIntVector codes;
+        private final String[] encodedLevels;
+        private final String cna;
+
+        FactorColumn(RAbstractIntVector codes, RStringVector levels, String cna, boolean quote, boolean qmethod) {
+            this.codes = codes;
+            this.cna = cna;
+            // the levels are encoded just once
+            encodedLevels = new String[levels.getLength()];
+            for (int i = 0; i < encodedLevels.length; i++) {
+                encodedLevels[i] = encodeStringElement(levels.getDataAt(i), quote, qmethod);
+            }
+        }
+
+        @Override
+        void append(StringBuilder out, int row) {
+            int code = codes.getDataAt(row);
+            if (RRuntime.isNA(code)) {
+                out.append(cna);
+            } else if (code < 1 || code > encodedLevels.length) {
+                throw new IllegalArgumentException("index out of range");
+            } else {
+                out.append(encodedLevels[code - 1]);
+            }
+        }
+
+        @Override
+        boolean isThreadSafe() {
+            return isThreadSafe(codes);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private final RAbstractDoubleVector vector;
+        private final int offset;
+        private final String cna;
+        private final char cdec;
+
+        DoubleColumn(RAbstractDoubleVector vector, int offset, String cna, char cdec) {
+            this.vector = vector;
+            this.offset = offset;
+            this.cna = cna;
+            this.cdec = cdec;
+        }
+
+        @Override
+        void append(StringBuilder out, int row) {
+            double value = vector.getDataAt(offset + row);
+            if (RRuntime.isNA(value)) {
+                out.append(cna);
+            } else {
+                DoubleVectorPrinter.appendReal(out, value, cdec);
+            }
+        }
+
+        @Override
+        boolean isThreadSafe() {
+            return isThreadSafe(vector);
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private final RAbstractIntVector vector;
+        private final int offset;
+        private final String cna;
+
+        IntColumn(RAbstractIntVector vector, int offset, String cna) {
+            this.vector = vector;
+            this.offset = offset;
+            this.cna = cna;
+        }
+
+        @Override
+        void append(StringBuilder out, int row) {
+            int value = vector.getDataAt(offset + row);
+            if (RRuntime.isNA(value)) {
+                out.append(cna);
+            } else {
+                out.append(value);
+            }
+        }
+
+        @Override
+        boolean isThreadSafe() {
+            return isThreadSafe(vector);
+        }
+    }
+
+    private static final class LogicalColumn extends Column {
+        private final RAbstractLogicalVector vector;
+        private final int offset;
+        private final String cna;
+
+        LogicalColumn(RAbstractLogicalVector vector, int offset, String cna) {
+            this.vector = vector;
+            this.offset = offset;
+            this.cna = cna;
+        }
+
+        @Override
+        void append(StringBuilder out, int row) {
+            byte value = vector.getDataAt(offset + row);
+            out.append(RRuntime.isNA(value) ? cna : RRuntime.logicalToStringNoCheck(value));
+        }
+
+        @Override
+        boolean isThreadSafe() {
+            return isThreadSafe(vector);
+        }
+    }
+
+    private static final class ComplexColumn extends Column {
+        private final RAbstractComplexVector vector;
+        private final int offset;
+        private final String cna;
+        private final char cdec;
+
+        ComplexColumn(RAbstractComplexVector vector, int offset, String cna, char cdec) {
+            this.vector = vector;
+            this.offset = offset;
+            this.cna = cna;
+            this.cdec = cdec;
+        }
+
+        @Override
+        void append(StringBuilder out, int row) {
+            RComplex value = vector.getDataAt(offset + row);
+            if (value.isNA()) {
+                out.append(cna);
+            } else {
+                // change_dec in GnuR
+                out.append(ComplexVectorPrinter.encodeComplex(value).replace('.', cdec));
+            }
+        }
+
+        @Override
+        boolean isThreadSafe() {
+            return isThreadSafe(vector);
+        }
+    }
+
+    private static final class RawColumn extends Column {
+        private final RAbstractRawVector vector;
+        private final int offset;
+
+        RawColumn(RAbstractRawVector vector, int offset) {
+            this.vector = vector;
+            this.offset = offset;
+        }
+
+        @Override
+        void append(StringBuilder out, int row) {
+            out.append(RRuntime.rawToHexString(vector.getRawDataAt(offset + row)));
+        }
+
+        @Override
+        boolean isThreadSafe() {
+            return isThreadSafe(vector);
+        }
+    }
+
+    private static void appendString(StringBuilder out, String p0, boolean quote, boolean qmethod) {
         if (!quote) {
-            return p0;
+            out.append(p0);
+            return;
         }
-        StringBuilder sb = new StringBuilder();
-        sb.append('"');
+        out.append('"');
         for (int i = 0; i < p0.length(); i++) {
             char p = p0.charAt(i);
             if (p == '"') {
-                sb.append(qmethod ? '\\' : '"');
+                out.append(qmethod ? '\\' : '"');
             }
-            sb.append(p);
+            out.append(p);
         }
-        sb.append('"');
-        return sb.toString();
+        out.append('"');
     }
 
-    /* a version of EncodeElement with different escaping of char strings */
-    private static String encodeElement2(RAbstractVector x, int indx, boolean quote, boolean qmethod, char cdec) {
-        if (indx < 0 || indx >= x.getLength()) {
-            throw new IllegalArgumentException("index out of range");
-        }
-        if (x instanceof RAbstractStringVector) {
-            RAbstractStringVector sx = (RAbstractStringVector) x;
-            String p0 = /* translateChar */sx.getDataAt(indx);
-            return encodeStringElement(p0, quote, qmethod);
+    private static String encodeStringElement(String p0, boolean quote, boolean qmethod) {
+        if (!quote) {
+            return p0;
         }
-        return encodeElement(x, indx, quote ? '"' : 0, cdec);
+        StringBuilder sb = new StringBuilder();
+        appendString(sb, p0, quote, qmethod);
+        return sb.toString();
     }
 
     private static String encodePrimitiveElement(Object o, String cna, boolean quote, boolean qmethod) {
@@ -249,48 +492,6 @@ public abstract class WriteTable extends RExternalBuiltinNode.Arg11 {
         throw RInternalError.unimplemented();
     }
 
-    private static boolean isna(RAbstractContainer x, int indx) {
-        if (x instanceof RAbstractLogicalVector) {
-            return RRuntime.isNA(((RAbstractLogicalVector) x).getDataAt(indx));
-        } else if (x instanceof RAbstractDoubleVector) {
-            return RRuntime.isNA(((RAbstractDoubleVector) x).getDataAt(indx));
-        } else if (x instanceof RAbstractIntVector) {
-            return RRuntime.isNA(((RAbstractIntVector) x).getDataAt(indx));
-        } else if (x instanceof RAbstractStringVector) {
-            return RRuntime.isNA(((RAbstractStringVector) x).getDataAt(indx));
-        } else if (x instanceof RAbstractComplexVector) {
-            RAbstractComplexVector cvec = (RAbstractComplexVector) x;
-            RComplex c = cvec.getDataAt(indx);
-            return c.isNA();
-        } else {
-            return false;
-        }
-    }
-
-    private static String encodeElement(Object x, int indx, @SuppressWarnings("unused") char quote, @SuppressWarnings("unused") char dec) {
-        if (x instanceof RAbstractDoubleVector) {
-            RAbstractDoubleVector v = (RAbstractDoubleVector) x;
-            return DoubleVectorPrinter.encodeReal(v.getDataAt(indx));
-        }
-        if (x instanceof RAbstractIntVector) {
-            RAbstractIntVector v = (RAbstractIntVector) x;
-            return RRuntime.intToString(v.getDataAt(indx));
-        }
-        if (x instanceof RAbstractLogicalVector) {
-            RAbstractLogicalVector v = (RAbstractLogicalVector) x;
-            return RRuntime.logicalToString(v.getDataAt(indx));
-        }
-        if (x instanceof RAbstractComplexVector) {
-            RAbstractComplexVector v = (RAbstractComplexVector) x;
-            return ComplexVectorPrinter.encodeComplex(v.getDataAt(indx));
-        }
-        if (x instanceof RAbstractRawVector) {
-            RAbstractRawVector v = (RAbstractRawVector) x;
-            return RRuntime.rawToHexString(v.getRawDataAt(indx));
-        }
-        throw RInternalError.unimplemented();
-    }
-
     @TruffleBoundary
     private static boolean isFactor(RAbstractContainer v) {
         RStringVector hierarchy = ClassHierarchyNode.getClassHierarchy(v);
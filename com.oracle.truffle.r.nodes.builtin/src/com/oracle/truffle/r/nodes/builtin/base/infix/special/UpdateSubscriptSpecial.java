@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -50,6 +50,7 @@ public abstract class UpdateSubscriptSpecial extends IndexingSpecialCommon {
     protected RIntVector setInt(RIntVector vector, int index, int value,
                     @Cached("vector.access()") VectorAccess access) {
         try (VectorAccess.RandomIterator iter = access.randomAccess(vector)) {
+            vector.resetKnownSortedness();
             access.setInt(iter, index - 1, value);
             if (RRuntime.isNA(value)) {
                 vector.setComplete(false);
@@ -67,6 +68,7 @@ public abstract class UpdateSubscriptSpecial extends IndexingSpecialCommon {
     protected RDoubleVector setDouble(RDoubleVector vector, int index, double value,
                     @Cached("vector.access()") VectorAccess access) {
         try (VectorAccess.RandomIterator iter = access.randomAccess(vector)) {
+            vector.resetKnownSortedness();
             access.setDouble(iter, index - 1, value);
             if (RRuntime.isNA(value)) {
                 vector.setComplete(false);
@@ -84,6 +86,7 @@ public abstract class UpdateSubscriptSpecial extends IndexingSpecialCommon {
     protected RStringVector setString(RStringVector vector, int index, String value,
                     @Cached("vector.access()") VectorAccess access) {
         try (VectorAccess.RandomIterator iter = access.randomAccess(vector)) {
+            vector.resetKnownSortedness();
             access.setString(iter, index - 1, value);
             if (RRuntime.isNA(value)) {
                 vector.setComplete(false);
@@ -115,6 +118,7 @@ public abstract class UpdateSubscriptSpecial extends IndexingSpecialCommon {
     protected RDoubleVector setDoubleIntIndexIntValue(RDoubleVector vector, int index, int value,
                     @Cached("vector.access()") VectorAccess access) {
         try (VectorAccess.RandomIterator iter = access.randomAccess(vector)) {
+            vector.resetKnownSortedness();
             if (RRuntime.isNA(value)) {
                 access.setDouble(iter, index - 1, RRuntime.DOUBLE_NA);
                 vector.setComplete(false);
@@ -377,6 +377,93 @@ public final class DoubleVectorPrinter extends VectorPrinter<RAbstractDoubleVect
         return encodeReal(x, digits, '.', 0, RRuntime.STRING_NA);
     }
 
+    /**
+     * Powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] EXACT_POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    /**
+     * Appends the finite or infinite value (not {@code NA}) formatted as by
+     * {@link #encodeReal(double, int, char, int, String)} with 15 digits, but without allocating
+     * for values that are the closest double to a decimal with at most 15 significant digits and
+     * less than {@code 1e15} in magnitude, which is the common case for data read from text. Such a
+     * decimal is exactly the 15 digits representation of the value, so the fixed or scientific
+     * notation is chosen from its digits with the same width rule as
+     * {@link #formatDoubleVector}. The other values go through the general formatting.
+     */
+    public static void appendReal(StringBuilder out, double x, char cdec) {
+        assert !RRuntime.isNA(x);
+        if (x == 0) {
+            out.append('0');
+            return;
+        }
+        double abs = Math.abs(x);
+        if (abs < 1e15) {
+            for (int d = 0; d < EXACT_POW10.length; d++) {
+                double scaled = abs * EXACT_POW10[d];
+                if (scaled >= 1e15) {
+                    break;
+                }
+                long m = Math.round(scaled);
+                if (m != 0 && m / EXACT_POW10[d] == abs) {
+                    appendDecimal(out, x < 0, m, d, cdec);
+                    return;
+                }
+            }
+        }
+        out.append(encodeReal(x, 15, cdec, 0, RRuntime.STRING_NA));
+    }
+
+    /**
+     * Appends the decimal {@code m * 10^-d}, where {@code m} has no trailing zeros if {@code d > 0}.
+     */
+    private static void appendDecimal(StringBuilder out, boolean negative, long m, int d, char cdec) {
+        int digits = 1;
+        for (long t = m / 10; t != 0; t /= 10) {
+            digits++;
+        }
+        int trailingZeros = 0;
+        for (long t = m; t % 10 == 0; t /= 10) {
+            trailingZeros++;
+        }
+        int nsig = digits - trailingZeros;
+        int kpower = digits - 1 - d;
+        int left = kpower + 1;
+        int rgt = Math.max(0, nsig - left);
+        int widthF = (left <= 0 ? 1 : left) + rgt + (rgt != 0 ? 1 : 0);
+        int widthE = (nsig > 1 ? 1 : 0) + nsig - 1 + 4 + 1;
+        if (negative) {
+            out.append('-');
+        }
+        if (widthF <= widthE) {
+            assert rgt == d;
+            long scale = (long) EXACT_POW10[d];
+            out.append(m / scale);
+            if (d > 0) {
+                out.append(cdec);
+                long fraction = m % scale;
+                for (long pos = scale / 10; pos > 0; pos /= 10) {
+                    out.append((char) ('0' + fraction / pos % 10));
+                }
+            }
+        } else {
+            long pos = 1;
+            for (int i = 1; i < digits; i++) {
+                pos *= 10;
+            }
+            out.append((char) ('0' + m / pos));
+            if (nsig > 1) {
+                out.append(cdec);
+                for (int i = 1; i < nsig; i++) {
+                    pos /= 10;
+                    out.append((char) ('0' + m / pos % 10));
+                }
+            }
+            int exponent = Math.abs(kpower);
+            out.append('e').append(kpower < 0 ? '-' : '+').append((char) ('0' + exponent / 10)).append((char) ('0' + exponent % 10));
+        }
+    }
+
     @TruffleBoundary
     public static String encodeReal(double x, int digits, char cdec, int sciPen, String naString) {
         RDouble value = RDouble.valueOf(x);
@@ -55,6 +55,7 @@ import com.oracle.truffle.r.runtime.context.FastROptions;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.context.RContext.ConsoleIO;
 import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.runtime.context.WorkerPool;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
@@ -248,26 +249,7 @@ public class FastRContext {
         @TruffleBoundary
         protected RNull eval(RAbstractIntVector handle) {
             try {
-                int[] multiSlotIndices = new int[handle.getLength()];
-                for (int i = 0; i < handle.getLength(); i++) {
-                    int id = handle.getDataAt(i);
-                    Thread thread = RContext.getInstance().threads.get(id);
-                    if (EvalThread.idToMultiSlotTable.containsKey(id)) {
-                        multiSlotIndices[i] = EvalThread.idToMultiSlotTable.remove(id);
-                    }
-                    if (thread == null) {
-                        // already done
-                        continue;
-                    } else {
-                        thread.join();
-                    }
-                }
-                // If all eval threads died, completely remove multi slot data.
-                if (EvalThread.threadCnt.get() == 0) {
-                    REnvironment.cleanupSearchpathFromMultiSlot();
-                } else {
-                    REnvironment.cleanupSearchpathFromMultiSlot(multiSlotIndices);
-                }
+                EvalThread.join(RContext.getInstance().threads, handle.materialize().getReadonlyData());
             } catch (InterruptedException ex) {
                 throw error(RError.Message.GENERIC, "error finishing eval thread");
 
@@ -301,6 +283,66 @@ public class FastRContext {
         }
     }
 
+    /**
+     * Returns the workers in the pool of the current context (see {@link WorkerPool}) as a list
+     * with the ids of their contexts and the master sides of their channels.
+     */
+    @RBuiltin(name = ".fastr.context.pool.get", kind = PRIMITIVE, parameterNames = {}, behavior = READS_STATE)
+    public abstract static class PoolGet extends RBuiltinNode.Arg0 {
+
+        static {
+            Casts.noCasts(PoolGet.class);
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RList get() {
+            int[][] workers = RContext.getInstance().stateWorkerPool.getWorkers();
+            return RDataFactory.createList(new Object[]{RDataFactory.createIntVector(workers[0], RDataFactory.COMPLETE_VECTOR), RDataFactory.createIntVector(workers[1], RDataFactory.COMPLETE_VECTOR)},
+                            RDataFactory.createStringVector(new String[]{"context", "channel"}, RDataFactory.COMPLETE_VECTOR));
+        }
+    }
+
+    /**
+     * Adds contexts created by {@code .fastr.context.spawn} and running the worker loop on the
+     * given channels to the pool of the current context. They are kept running until
+     * {@code .fastr.context.pool.shutdown} is called or the current context is disposed.
+     */
+    @RBuiltin(name = ".fastr.context.pool.add", visibility = OFF, kind = PRIMITIVE, parameterNames = {"contexts", "channels"}, behavior = COMPLEX)
+    public abstract static class PoolAdd extends RBuiltinNode.Arg2 {
+
+        static {
+            Casts casts = new Casts(PoolAdd.class);
+            casts.arg("contexts").asIntegerVector();
+            casts.arg("channels").asIntegerVector();
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RNull add(RAbstractIntVector contexts, RAbstractIntVector channels) {
+            if (contexts.getLength() != channels.getLength()) {
+                throw error(RError.Message.GENERIC, "the numbers of contexts and channels differ");
+            }
+            RContext.getInstance().stateWorkerPool.add(contexts.materialize().getReadonlyData(), channels.materialize().getReadonlyData());
+            return RNull.instance;
+        }
+    }
+
+    @RBuiltin(name = ".fastr.context.pool.shutdown", visibility = OFF, kind = PRIMITIVE, parameterNames = {}, behavior = COMPLEX)
+    public abstract static class PoolShutdown extends RBuiltinNode.Arg0 {
+
+        static {
+            Casts.noCasts(PoolShutdown.class);
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RNull shutdown() {
+            RContext.getInstance().stateWorkerPool.shutdown();
+            return RNull.instance;
+        }
+    }
+
     /**
      * Evaluate expressions in {@code pc} new contexts of type {@code kind}, with the expression
      * taken from the expression in the usual R repeating mode. The invoking context (thread) waits
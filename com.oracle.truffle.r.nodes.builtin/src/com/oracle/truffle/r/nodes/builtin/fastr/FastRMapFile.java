@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.equalTo;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.gte;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.Utils;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.NativeDataAccess;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RMissing;
+import com.oracle.truffle.r.runtime.data.RVector;
+
+/**
+ * Maps a binary file, e.g., the output of {@code writeBin}, into memory and returns its contents as
+ * a double, integer or raw vector without reading it. The file must contain the values in the
+ * native byte order, {@code offset} bytes are skipped and {@code n} elements are mapped ({@code -1}
+ * means up to the end of the file).
+ *
+ * The result is an ordinary vector whose data live in native memory, as if they had been
+ * allocated by native code, so that arithmetic, {@code sum}, subsetting etc. read them directly
+ * and {@code .Call} gets their address. The mapping is private, i.e., the data are copied lazily,
+ * page by page, when they are modified and the modifications are never written back to the file.
+ * A file that cannot be opened for writing is mapped read-only and the vector is marked as
+ * permanently shared, so that R code never modifies it in place. The file is unmapped once the
+ * vector is collected.
+ */
+@RBuiltin(name = ".fastr.mmap", kind = PRIMITIVE, parameterNames = {"file", "what", "n", "offset"}, behavior = IO)
+public abstract class FastRMapFile extends RBuiltinNode.Arg4 {
+
+    static {
+        Casts casts = new Casts(FastRMapFile.class);
+        casts.arg("file").mustBe(stringValue()).asStringVector().findFirst().mustNotBeNA();
+        casts.arg("what").mustBe(stringValue()).asStringVector().findFirst().mustNotBeNA().mustBe(
+                        equalTo("double").or(equalTo("numeric")).or(equalTo("integer")).or(equalTo("int")).or(equalTo("raw")));
+        casts.arg("n").asDoubleVector().findFirst().mustNotBeNA().mustBe(gte(-1.0));
+        casts.arg("offset").asDoubleVector().findFirst().mustNotBeNA().mustBe(gte(0.0));
+    }
+
+    @Override
+    public Object[] getDefaultParameterValues() {
+        return new Object[]{RMissing.instance, "double", -1.0, 0.0};
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected RVector<?> map(String file, String what, double n, double offset) {
+        int elementSize;
+        switch (what) {
+            case "double":
+            case "numeric":
+                elementSize = Double.BYTES;
+                break;
+            case "integer":
+            case "int":
+                elementSize = Integer.BYTES;
+                break;
+            case "raw":
+                elementSize = 1;
+                break;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+        Path path = FileSystems.getDefault().getPath(Utils.tildeExpand(file));
+        FileChannel channel;
+        boolean readOnly = false;
+        try {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (AccessDeniedException e) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                readOnly = true;
+            }
+        } catch (IOException e) {
+            throw error(RError.Message.CANNOT_OPEN_FILE, file, e.getMessage());
+        }
+        try {
+            long start = (long) offset;
+            long available = Math.max(0, channel.size() - start) / elementSize;
+            long length = n < 0 ? available : (long) n;
+            if (length > available) {
+                throw error(RError.Message.GENERIC, "file '" + file + "' is too short for " + length + " elements");
+            }
+            if (length * elementSize > Integer.MAX_VALUE) {
+                throw error(RError.Message.GENERIC, "file '" + file + "' is too large to be mapped, the limit is 2GB");
+            }
+            int len = (int) length;
+            if (len == 0) {
+                return createEmpty(elementSize);
+            }
+            ByteBuffer buffer = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.PRIVATE, start, length * elementSize).order(ByteOrder.nativeOrder());
+            long address = NativeDataAccess.getDirectBufferAddress(buffer);
+            RVector<?> result;
+            switch (elementSize) {
+                case Double.BYTES:
+                    result = RDataFactory.createDoubleVectorFromNative(address, len);
+                    break;
+                case Integer.BYTES:
+                    result = RDataFactory.createIntVectorFromNative(address, len);
+                    break;
+                default:
+                    result = RDataFactory.createRawVectorFromNative(address, len);
+                    break;
+            }
+            NativeDataAccess.setNativeContentsOwner(result, buffer);
+            if (readOnly) {
+                result.makeSharedPermanent();
+            }
+            return result;
+        } catch (IOException e) {
+            throw error(RError.Message.GENERIC, "cannot map file '" + file + "': " + e.getMessage());
+        } finally {
+            try {
+                // the mapping stays valid after the channel is closed
+                channel.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+
+    private static RVector<?> createEmpty(int elementSize) {
+        switch (elementSize) {
+            case Double.BYTES:
+                return RDataFactory.createEmptyDoubleVector();
+            case Integer.BYTES:
+                return RDataFactory.createEmptyIntVector();
+            default:
+                return RDataFactory.createEmptyRawVector();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.COMPLEX;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.ffi.NativeCallStatistics;
+import com.oracle.truffle.r.runtime.ffi.NativeCallStatistics.CallEntry;
+import com.oracle.truffle.r.runtime.ffi.NativeCallStatistics.CopyEntry;
+
+/**
+ * Enables ({@code enable=TRUE}) or disables ({@code enable=FALSE}) the collection of the
+ * {@link NativeCallStatistics} and returns the statistics collected so far as a data frame with one
+ * row per native function called by {@code .Call} or {@code .External} (type {@code "call"}), per
+ * R API function called from the native code ({@code "upcall"}), and per type of vectors copied to
+ * ({@code "to.native"}) or from ({@code "from.native"}) the native memory. The times are in
+ * seconds. If {@code reset} is {@code TRUE}, the statistics are cleared after they are returned.
+ */
+@RBuiltin(name = ".fastr.native.stats", kind = PRIMITIVE, parameterNames = {"enable", "reset"}, behavior = COMPLEX)
+public abstract class FastRNativeStats extends RBuiltinNode.Arg2 {
+
+    private static final String[] NAMES = new String[]{"type", "dll", "name", "count", "time", "max.time", "bytes"};
+
+    static {
+        Casts casts = new Casts(FastRNativeStats.class);
+        casts.arg("enable").asLogicalVector().findFirst(RRuntime.LOGICAL_NA);
+        casts.arg("reset").asLogicalVector().findFirst(RRuntime.LOGICAL_FALSE).map(toBoolean());
+    }
+
+    @Override
+    public Object[] getDefaultParameterValues() {
+        return new Object[]{RRuntime.LOGICAL_NA, RRuntime.LOGICAL_FALSE};
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected RList stats(byte enable, boolean reset) {
+        if (!RRuntime.isNA(enable)) {
+            NativeCallStatistics.setEnabled(RRuntime.fromLogical(enable));
+        }
+        List<CallEntry> calls = NativeCallStatistics.getCalls();
+        List<Map.Entry<String, Long>> upcalls = NativeCallStatistics.getUpcalls();
+        List<Map.Entry<String, CopyEntry>> toNative = NativeCallStatistics.getCopies(true);
+        List<Map.Entry<String, CopyEntry>> fromNative = NativeCallStatistics.getCopies(false);
+        if (reset) {
+            NativeCallStatistics.reset();
+        }
+
+        Rows rows = new Rows();
+        for (CallEntry call : calls) {
+            rows.add("call", call.dll, call.name, call.getCount(), call.getTotalTime() / 1e9, call.getMaxTime() / 1e9, RRuntime.DOUBLE_NA);
+        }
+        for (Map.Entry<String, Long> upcall : upcalls) {
+            rows.add("upcall", RRuntime.STRING_NA, upcall.getKey(), upcall.getValue(), RRuntime.DOUBLE_NA, RRuntime.DOUBLE_NA, RRuntime.DOUBLE_NA);
+        }
+        for (Map.Entry<String, CopyEntry> copy : toNative) {
+            rows.add("to.native", RRuntime.STRING_NA, copy.getKey(), copy.getValue().getCount(), RRuntime.DOUBLE_NA, RRuntime.DOUBLE_NA, copy.getValue().getBytes());
+        }
+        for (Map.Entry<String, CopyEntry> copy : fromNative) {
+            rows.add("from.native", RRuntime.STRING_NA, copy.getKey(), copy.getValue().getCount(), RRuntime.DOUBLE_NA, RRuntime.DOUBLE_NA, copy.getValue().getBytes());
+        }
+        return rows.toDataFrame();
+    }
+
+    private static final class Rows {
+        private final ArrayList<String> type = new ArrayList<>();
+        private final ArrayList<String> dll = new ArrayList<>();
+        private final ArrayList<String> name = new ArrayList<>();
+        private final ArrayList<Double> count = new ArrayList<>();
+        private final ArrayList<Double> time = new ArrayList<>();
+        private final ArrayList<Double> maxTime = new ArrayList<>();
+        private final ArrayList<Double> bytes = new ArrayList<>();
+
+        void add(String rowType, String rowDll, String rowName, double rowCount, double rowTime, double rowMaxTime, double rowBytes) {
+            type.add(rowType);
+            dll.add(rowDll);
+            name.add(rowName);
+            count.add(rowCount);
+            time.add(rowTime);
+            maxTime.add(rowMaxTime);
+            bytes.add(rowBytes);
+        }
+
+        RList toDataFrame() {
+            Object[] columns = new Object[]{strings(type), strings(dll), strings(name), doubles(count), doubles(time), doubles(maxTime), doubles(bytes)};
+            RList result = RDataFactory.createList(columns, RDataFactory.createStringVector(NAMES, RDataFactory.COMPLETE_VECTOR));
+            result.setClassAttr(RDataFactory.createStringVectorFromScalar(RRuntime.CLASS_DATA_FRAME));
+            result.setAttr(RRuntime.ROWNAMES_ATTR_KEY, RDataFactory.createIntVector(new int[]{RRuntime.INT_NA, -type.size()}, RDataFactory.INCOMPLETE_VECTOR));
+            return result;
+        }
+
+        private static Object strings(ArrayList<String> values) {
+            String[] data = values.toArray(new String[values.size()]);
+            boolean complete = true;
+            for (int i = 0; i < data.length; i++) {
+                complete &= !RRuntime.isNA(data[i]);
+            }
+            return RDataFactory.createStringVector(data, complete);
+        }
+
+        private static Object doubles(ArrayList<Double> values) {
+            double[] data = new double[values.size()];
+            boolean complete = true;
+            for (int i = 0; i < data.length; i++) {
+                data[i] = values.get(i);
+                complete &= !RRuntime.isNA(data[i]);
+            }
+            return RDataFactory.createDoubleVector(data, complete);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElement;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
+import static com.oracle.truffle.r.runtime.RVisibility.OFF;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLanguage.Env;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.Utils;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.instrument.RprofWriter;
+
+/**
+ * Converts a profile written by {@code Rprof} in the binary format (see {@link RprofWriter}) to the
+ * text format that can be processed by {@code summaryRprof}.
+ */
+@RBuiltin(name = ".fastr.rprof.totext", visibility = OFF, kind = PRIMITIVE, parameterNames = {"from", "to"}, behavior = IO)
+public abstract class FastRRprofToText extends RBuiltinNode.Arg2 {
+
+    static {
+        Casts casts = new Casts(FastRRprofToText.class);
+        casts.arg("from").mustBe(stringValue()).asStringVector().mustBe(singleElement()).findFirst();
+        casts.arg("to").mustBe(stringValue()).asStringVector().mustBe(singleElement()).findFirst();
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Object convert(String from, String to) {
+        Env env = RContext.getInstance().getEnv();
+        try (InputStream in = new BufferedInputStream(env.getTruffleFile(Utils.tildeExpand(from)).newInputStream());
+                        PrintStream out = new PrintStream(new BufferedOutputStream(env.getTruffleFile(Utils.tildeExpand(to)).newOutputStream()))) {
+            RprofWriter.binaryToText(in, out);
+        } catch (IOException ex) {
+            throw error(RError.Message.GENERIC, ex.getMessage());
+        }
+        return RNull.instance;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -285,6 +285,7 @@ final class CachedReplaceVectorNode extends CachedVectorNode {
             }
         }
 
+        RVector.resetKnownSortedness(vector);
         writeVectorNode.execute(vector, positions, value, vectorDimensions);
 
         RBaseNode.reportWork(this, replacementLength);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -24,7 +24,6 @@ package com.oracle.truffle.r.nodes.binary;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.Cached;
-import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.profiles.ConditionProfile;
@@ -45,23 +44,48 @@ import com.oracle.truffle.r.runtime.ops.UnaryArithmeticFactory;
  * handling, which is replicated here, others (notably pow and mul) throw
  * {@link RSpecialFactory#throwFullCallNeeded()} on NA.
  */
-@NodeChild(value = "left", type = RNode.class)
-@NodeChild(value = "right", type = RNode.class)
-public abstract class BinaryArithmeticSpecial extends RNode {
+public abstract class BinaryArithmeticSpecial extends RNode implements DeferredArithmetic.Consumer {
 
     private final boolean handleNA;
+    protected final int deferredOp;
     private final BinaryArithmeticFactory binaryFactory;
     private final UnaryArithmeticFactory unaryFactory;
 
     @Child private BinaryArithmetic operation;
+    @Child private RNode leftNode;
+    @Child private RNode rightNode;
 
-    public BinaryArithmeticSpecial(BinaryArithmeticFactory binaryFactory, UnaryArithmeticFactory unaryFactory) {
+    public BinaryArithmeticSpecial(BinaryArithmeticFactory binaryFactory, UnaryArithmeticFactory unaryFactory, RNode left, RNode right) {
+        this.leftNode = left;
+        this.rightNode = right;
         this.binaryFactory = binaryFactory;
         this.unaryFactory = unaryFactory;
         this.operation = binaryFactory.createOperation();
         this.handleNA = !(binaryFactory == BinaryArithmetic.POW || binaryFactory == BinaryArithmetic.MOD);
+        this.deferredOp = DeferredArithmetic.arithmeticCode(binaryFactory);
     }
 
+    @Override
+    public boolean consumesDeferred() {
+        return deferredOp >= 0;
+    }
+
+    @Override
+    public final Object execute(VirtualFrame frame) {
+        Object leftValue = leftNode.execute(frame);
+        Object rightValue;
+        try {
+            rightValue = rightNode.execute(frame);
+        } catch (RuntimeException e) {
+            // e.g., the special calls bail out to full calls, which evaluate the arguments again
+            DeferredArithmetic.releaseIfDeferred(leftValue);
+            throw e;
+        }
+        return execute(frame, leftValue, rightValue);
+    }
+
+    protected abstract Object execute(VirtualFrame frame, Object leftValue, Object rightValue);
+
     public static RSpecialFactory createSpecialFactory(BinaryArithmeticFactory binaryFactory, UnaryArithmeticFactory unaryFactory) {
         return (signature, arguments, inReplacement) -> {
             if (signature.getNonNullCount() == 0) {
@@ -106,10 +130,24 @@ public abstract class BinaryArithmeticSpecial extends RNode {
         return operation instanceof BinaryArithmetic.Div || operation instanceof BinaryArithmetic.Pow ? RType.Double.getEmpty() : RType.Integer.getEmpty();
     }
 
+    protected boolean isFusable(Object left, Object right) {
+        return DeferredArithmetic.canFuse(left, right) && (DeferredArithmetic.isDeferred(left) || DeferredArithmetic.isDeferred(right) || DeferredArithmetic.isConsumedDeferred(this));
+    }
+
+    /**
+     * Long double vectors in a chain of arithmetic specials are combined into a
+     * {@link DeferredArithmetic}, which is only evaluated by the outermost operation.
+     */
+    @Specialization(guards = {"deferredOp >= 0", "isFusable(left, right)"})
+    protected Object doDeferred(Object left, Object right) {
+        DeferredArithmetic result = DeferredArithmetic.binary(deferredOp, left, right);
+        return DeferredArithmetic.isConsumedDeferred(this) ? result : result.materialize();
+    }
+
     @Specialization
     protected Object doFallback(VirtualFrame frame, Object left, Object right,
                     @Cached("createFull()") BinaryArithmeticNode binary) {
-        return binary.call(frame, left, right);
+        return binary.call(frame, DeferredArithmetic.materializeIfDeferred(left), DeferredArithmetic.materializeIfDeferred(right));
     }
 
     protected BinaryArithmetic getOperation() {
@@ -132,8 +170,8 @@ public abstract class BinaryArithmeticSpecial extends RNode {
      */
     abstract static class IntegerBinaryArithmeticSpecial extends BinaryArithmeticSpecial {
 
-        IntegerBinaryArithmeticSpecial(BinaryArithmeticFactory binaryFactory, UnaryArithmeticFactory unaryFactory) {
-            super(binaryFactory, unaryFactory);
+        IntegerBinaryArithmeticSpecial(BinaryArithmeticFactory binaryFactory, UnaryArithmeticFactory unaryFactory, RNode left, RNode right) {
+            super(binaryFactory, unaryFactory, left, right);
         }
 
         @Specialization(insertBefore = "doFallback")
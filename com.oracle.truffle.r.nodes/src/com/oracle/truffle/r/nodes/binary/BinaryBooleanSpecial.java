@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -23,8 +23,8 @@
 package com.oracle.truffle.r.nodes.binary;
 
 import com.oracle.truffle.api.dsl.Fallback;
-import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RSpecialFactory;
@@ -37,18 +37,47 @@ import com.oracle.truffle.r.runtime.ops.BooleanOperationFactory;
  * empty type system to avoid conversions to vector types. NA values cause
  * {@link RSpecialFactory#throwFullCallNeeded()} exception.
  */
-@NodeChild(value = "arguments", type = RNode[].class)
-public abstract class BinaryBooleanSpecial extends RNode {
+public abstract class BinaryBooleanSpecial extends RNode implements DeferredArithmetic.Consumer {
     @Child private BooleanOperation operation;
 
+    protected final int deferredOp;
+
     private final BranchProfile naProfile = BranchProfile.create();
 
-    protected BinaryBooleanSpecial(BooleanOperation operation) {
+    @Child private RNode leftNode;
+    @Child private RNode rightNode;
+
+    protected BinaryBooleanSpecial(BooleanOperation operation, int deferredOp, RNode left, RNode right) {
         this.operation = operation;
+        this.deferredOp = deferredOp;
+        this.leftNode = left;
+        this.rightNode = right;
     }
 
     public static RSpecialFactory createSpecialFactory(final BooleanOperationFactory opFactory) {
-        return (signature, arguments, inReplacement) -> signature.getNonNullCount() == 0 && arguments.length == 2 ? BinaryBooleanSpecialNodeGen.create(opFactory.createOperation(), arguments) : null;
+        return (signature, arguments, inReplacement) -> signature.getNonNullCount() == 0 && arguments.length == 2
+                        ? BinaryBooleanSpecialNodeGen.create(opFactory.createOperation(), DeferredArithmetic.compareCode(opFactory), arguments[0], arguments[1]) : null;
+    }
+
+    @Override
+    public final Object execute(VirtualFrame frame) {
+        Object leftValue = leftNode.execute(frame);
+        Object rightValue;
+        try {
+            rightValue = rightNode.execute(frame);
+        } catch (RuntimeException e) {
+            // e.g., the special calls bail out to full calls, which evaluate the arguments again
+            DeferredArithmetic.releaseIfDeferred(leftValue);
+            throw e;
+        }
+        return execute(leftValue, rightValue);
+    }
+
+    protected abstract Object execute(Object leftValue, Object rightValue);
+
+    @Override
+    public boolean consumesDeferred() {
+        return deferredOp >= 0;
     }
 
     @Specialization
@@ -96,9 +125,19 @@ public abstract class BinaryBooleanSpecial extends RNode {
         return RRuntime.asLogical(operation.opLogical(left, right));
     }
 
+    protected static boolean isDeferredComparison(Object left, Object right) {
+        return (DeferredArithmetic.isDeferred(left) || DeferredArithmetic.isDeferred(right)) && DeferredArithmetic.canFuse(left, right);
+    }
+
+    @Specialization(guards = {"deferredOp >= 0", "isDeferredComparison(left, right)"})
+    public Object doDeferred(Object left, Object right) {
+        return DeferredArithmetic.compare(deferredOp, left, right);
+    }
+
     @Fallback
-    @SuppressWarnings("unused")
     public byte doFallback(Object left, Object right) {
+        DeferredArithmetic.releaseIfDeferred(left);
+        DeferredArithmetic.releaseIfDeferred(right);
         throw RSpecialFactory.throwFullCallNeeded();
     }
 }
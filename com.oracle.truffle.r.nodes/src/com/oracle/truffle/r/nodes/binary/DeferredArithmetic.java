@@ -0,0 +1,487 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.binary;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.r.nodes.function.RCallSpecialNode;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.nodes.RNode;
+import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
+import com.oracle.truffle.r.runtime.ops.BinaryArithmeticFactory;
+import com.oracle.truffle.r.runtime.ops.BinaryCompare;
+import com.oracle.truffle.r.runtime.ops.BooleanOperationFactory;
+
+/**
+ * The deferred result of an element-wise arithmetic operation on long double vectors without
+ * attributes. Nested calls of the arithmetic specials (e.g., {@code a * b + c / d - e}) build a
+ * tree of these instead of allocating a full-length intermediate vector for every operator, and the
+ * special call at the root of the tree materializes the whole expression in a single pass.
+ *
+ * Instances never escape to R code: a special only returns a deferred value if the enclosing
+ * special call is a {@link Consumer}, and the consumers materialize any deferred operand they
+ * cannot fuse before passing it on. If the enclosing special call bails out to a full call, the
+ * deferred value is released by {@link #releaseIfDeferred(Object)} and the arguments are evaluated
+ * again.
+ *
+ * The operand vectors that are bound to a variable are marked as shared until the expression is
+ * evaluated, so that a replacement executed in the meantime (e.g., by forcing a promise of another
+ * operand) copies the vector instead of updating the data that the expression refers to.
+ *
+ * The tree is evaluated in chunks of {@link #CHUNK_SIZE} elements, so that the temporary storage
+ * does not depend on the vector length and each operator runs a simple loop over arrays.
+ */
+public final class DeferredArithmetic {
+
+    /**
+     * Vectors shorter than this are not worth the deferred evaluation.
+     */
+    public static final int MIN_LENGTH = 1024;
+
+    private static final int CHUNK_SIZE = 1024;
+
+    static final int ADD = 0;
+    static final int SUBTRACT = 1;
+    static final int MULTIPLY = 2;
+    static final int DIV = 3;
+
+    static final int EQUAL = 0;
+    static final int NOT_EQUAL = 1;
+    static final int LESS_THAN = 2;
+    static final int LESS_EQUAL = 3;
+    static final int GREATER_THAN = 4;
+    static final int GREATER_EQUAL = 5;
+
+    /**
+     * Implemented by the specials that can consume deferred operands.
+     */
+    public interface Consumer {
+        boolean consumesDeferred();
+    }
+
+    /**
+     * Returns {@code true} if the result of the given special node is an argument of a special call
+     * that consumes deferred values.
+     */
+    public static boolean isConsumedDeferred(Node special) {
+        Node call = special.getParent();
+        if (call instanceof RCallSpecialNode) {
+            RNode parentSpecial = ((RCallSpecialNode) call).getCallSpecialParentSpecial();
+            return parentSpecial instanceof Consumer && ((Consumer) parentSpecial).consumesDeferred();
+        }
+        return false;
+    }
+
+    /**
+     * Maps the supported arithmetic operations to the internal operation codes, returns {@code -1}
+     * for the other operations.
+     */
+    static int arithmeticCode(BinaryArithmeticFactory factory) {
+        if (factory == BinaryArithmetic.ADD) {
+            return ADD;
+        } else if (factory == BinaryArithmetic.SUBTRACT) {
+            return SUBTRACT;
+        } else if (factory == BinaryArithmetic.MULTIPLY) {
+            return MULTIPLY;
+        } else if (factory == BinaryArithmetic.DIV) {
+            return DIV;
+        }
+        return -1;
+    }
+
+    /**
+     * Maps the comparison operations to the internal operation codes, returns {@code -1} for the
+     * other boolean operations.
+     */
+    static int compareCode(BooleanOperationFactory factory) {
+        if (factory == BinaryCompare.EQUAL) {
+            return EQUAL;
+        } else if (factory == BinaryCompare.NOT_EQUAL) {
+            return NOT_EQUAL;
+        } else if (factory == BinaryCompare.LESS_THAN) {
+            return LESS_THAN;
+        } else if (factory == BinaryCompare.LESS_EQUAL) {
+            return LESS_EQUAL;
+        } else if (factory == BinaryCompare.GREATER_THAN) {
+            return GREATER_THAN;
+        } else if (factory == BinaryCompare.GREATER_EQUAL) {
+            return GREATER_EQUAL;
+        }
+        return -1;
+    }
+
+    private final Expr expr;
+    private final int length;
+
+    private DeferredArithmetic(Expr expr, int length) {
+        this.expr = expr;
+        this.length = length;
+    }
+
+    /**
+     * Returns the length of the vector the given operand represents, {@code 1} for scalars that
+     * can be fused and {@code -1} for operands that cannot take part in a deferred operation.
+     */
+    public static int getFusableLength(Object value) {
+        if (value instanceof DeferredArithmetic) {
+            return ((DeferredArithmetic) value).length;
+        } else if (value instanceof RDoubleVector) {
+            RDoubleVector vector = (RDoubleVector) value;
+            int length = vector.getLength();
+            return length >= MIN_LENGTH && vector.getAttributes() == null ? length : -1;
+        } else if (value instanceof Double || value instanceof Integer) {
+            return 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@code true} if the operands can be combined by a deferred operation: either both
+     * are vectors of the same length or one of them is a scalar.
+     */
+    static boolean canFuse(Object left, Object right) {
+        int leftLength = getFusableLength(left);
+        int rightLength = getFusableLength(right);
+        if (leftLength < 0 || rightLength < 0) {
+            return false;
+        }
+        return leftLength == rightLength ? leftLength > 1 : (leftLength == 1 || rightLength == 1);
+    }
+
+    public static boolean isDeferred(Object value) {
+        return value instanceof DeferredArithmetic;
+    }
+
+    public static Object materializeIfDeferred(Object value) {
+        return value instanceof DeferredArithmetic ? ((DeferredArithmetic) value).materialize() : value;
+    }
+
+    /**
+     * Drops a deferred value that will not be evaluated, e.g., because the special call that would
+     * consume it bails out to a full call.
+     */
+    public static void releaseIfDeferred(Object value) {
+        if (value instanceof DeferredArithmetic) {
+            ((DeferredArithmetic) value).release();
+        }
+    }
+
+    @TruffleBoundary
+    private void release() {
+        expr.release();
+    }
+
+    @TruffleBoundary
+    static DeferredArithmetic binary(int op, Object left, Object right) {
+        return new DeferredArithmetic(new Binary(op, toExpr(left), toExpr(right)), Math.max(getFusableLength(left), getFusableLength(right)));
+    }
+
+    @TruffleBoundary
+    public static DeferredArithmetic negate(Object operand) {
+        return new DeferredArithmetic(new Negate(toExpr(operand)), getFusableLength(operand));
+    }
+
+    private static Expr toExpr(Object value) {
+        if (value instanceof DeferredArithmetic) {
+            return ((DeferredArithmetic) value).expr;
+        } else if (value instanceof RDoubleVector) {
+            return new Vector((RDoubleVector) value);
+        } else if (value instanceof Integer) {
+            int intValue = (int) value;
+            return new Scalar(RRuntime.isNA(intValue) ? RRuntime.DOUBLE_NA : intValue);
+        } else if (value instanceof Double) {
+            return new Scalar((double) value);
+        }
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    /**
+     * Evaluates the whole expression into a new vector.
+     */
+    @TruffleBoundary
+    public RDoubleVector materialize() {
+        double[] result = new double[length];
+        for (int offset = 0; offset < length; offset += CHUNK_SIZE) {
+            expr.evaluate(offset, Math.min(CHUNK_SIZE, length - offset), result, offset);
+        }
+        expr.release();
+        return RDataFactory.createDoubleVector(result, expr.isComplete());
+    }
+
+    /**
+     * Evaluates the comparison of two operands of which at least one is deferred.
+     */
+    @TruffleBoundary
+    static RLogicalVector compare(int op, Object left, Object right) {
+        int length = Math.max(getFusableLength(left), getFusableLength(right));
+        Expr leftExpr = toExpr(left);
+        Expr rightExpr = toExpr(right);
+        byte[] result = new byte[length];
+        double[] leftChunk = new double[Math.min(CHUNK_SIZE, length)];
+        double[] rightChunk = new double[leftChunk.length];
+        boolean complete = true;
+        for (int offset = 0; offset < length; offset += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, length - offset);
+            leftExpr.evaluate(offset, count, leftChunk, 0);
+            rightExpr.evaluate(offset, count, rightChunk, 0);
+            for (int i = 0; i < count; i++) {
+                double l = leftChunk[i];
+                double r = rightChunk[i];
+                byte value;
+                if (Double.isNaN(l) || Double.isNaN(r)) {
+                    value = RRuntime.LOGICAL_NA;
+                    complete = false;
+                } else {
+                    value = RRuntime.asLogical(compare(op, l, r));
+                }
+                result[offset + i] = value;
+            }
+        }
+        leftExpr.release();
+        rightExpr.release();
+        return RDataFactory.createLogicalVector(result, complete);
+    }
+
+    private static boolean compare(int op, double l, double r) {
+        switch (op) {
+            case EQUAL:
+                return l == r;
+            case NOT_EQUAL:
+                return l != r;
+            case LESS_THAN:
+                return l < r;
+            case LESS_EQUAL:
+                return l <= r;
+            case GREATER_THAN:
+                return l > r;
+            case GREATER_EQUAL:
+                return l >= r;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+    }
+
+    private abstract static class Expr {
+        /**
+         * Stores the elements {@code offset .. offset + count - 1} of the expression to
+         * {@code out}, starting at {@code outOffset}. {@code count} is at most
+         * {@link DeferredArithmetic#CHUNK_SIZE}.
+         */
+        abstract void evaluate(int offset, int count, double[] out, int outOffset);
+
+        /**
+         * Returns {@code true} if the expression cannot produce an NA value.
+         */
+        abstract boolean isComplete();
+
+        /**
+         * Called once the expression was evaluated.
+         */
+        void release() {
+        }
+    }
+
+    private static final class Vector extends Expr {
+        private final RDoubleVector vector;
+        private final double[] data;
+        private boolean retained;
+
+        Vector(RDoubleVector vector) {
+            this.vector = vector;
+            this.data = vector.getReadonlyData();
+            // refCount == 1: bound to a single variable and could be updated in place
+            this.retained = !vector.isTemporary() && !vector.isShared() && !vector.isSharedPermanent();
+            if (retained) {
+                vector.incRefCount();
+            }
+        }
+
+        @Override
+        void evaluate(int offset, int count, double[] out, int outOffset) {
+            System.arraycopy(data, offset, out, outOffset, count);
+        }
+
+        @Override
+        boolean isComplete() {
+            return vector.isComplete();
+        }
+
+        @Override
+        void release() {
+            if (retained) {
+                vector.decRefCount();
+                retained = false;
+            }
+        }
+    }
+
+    private static final class Scalar extends Expr {
+        private final double value;
+
+        Scalar(double value) {
+            this.value = value;
+        }
+
+        @Override
+        void evaluate(int offset, int count, double[] out, int outOffset) {
+            Arrays.fill(out, outOffset, outOffset + count, value);
+        }
+
+        @Override
+        boolean isComplete() {
+            return !RRuntime.isNA(value);
+        }
+    }
+
+    private static final class Negate extends Expr {
+        private final Expr operand;
+
+        Negate(Expr operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void evaluate(int offset, int count, double[] out, int outOffset) {
+            operand.evaluate(offset, count, out, outOffset);
+            for (int i = outOffset; i < outOffset + count; i++) {
+                double value = out[i];
+                // NA stays NA, the sign would make it a plain NaN
+                if (!RRuntime.isNA(value)) {
+                    out[i] = -value;
+                }
+            }
+        }
+
+        @Override
+        boolean isComplete() {
+            return operand.isComplete();
+        }
+
+        @Override
+        void release() {
+            operand.release();
+        }
+    }
+
+    private static final class Binary extends Expr {
+        private final int op;
+        private final Expr left;
+        private final Expr right;
+        private double[] leftChunk;
+        private double[] rightChunk;
+
+        Binary(int op, Expr left, Expr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void evaluate(int offset, int count, double[] out, int outOffset) {
+            double[] l;
+            int lOffset;
+            if (left instanceof Vector) {
+                // read the operand vectors in place
+                l = ((Vector) left).data;
+                lOffset = offset;
+            } else {
+                if (leftChunk == null) {
+                    leftChunk = new double[CHUNK_SIZE];
+                }
+                left.evaluate(offset, count, leftChunk, 0);
+                l = leftChunk;
+                lOffset = 0;
+            }
+            double[] r;
+            int rOffset;
+            if (right instanceof Vector) {
+                r = ((Vector) right).data;
+                rOffset = offset;
+            } else {
+                if (rightChunk == null) {
+                    rightChunk = new double[CHUNK_SIZE];
+                }
+                right.evaluate(offset, count, rightChunk, 0);
+                r = rightChunk;
+                rOffset = 0;
+            }
+            switch (op) {
+                case ADD:
+                    for (int i = 0; i < count; i++) {
+                        out[outOffset + i] = l[lOffset + i] + r[rOffset + i];
+                    }
+                    break;
+                case SUBTRACT:
+                    for (int i = 0; i < count; i++) {
+                        out[outOffset + i] = l[lOffset + i] - r[rOffset + i];
+                    }
+                    break;
+                case MULTIPLY:
+                    for (int i = 0; i < count; i++) {
+                        out[outOffset + i] = l[lOffset + i] * r[rOffset + i];
+                    }
+                    break;
+                case DIV:
+                    for (int i = 0; i < count; i++) {
+                        out[outOffset + i] = l[lOffset + i] / r[rOffset + i];
+                    }
+                    break;
+                default:
+                    throw RInternalError.shouldNotReachHere();
+            }
+            // NA and NaN operands always produce NaN, fix up the results to the R semantics
+            for (int i = 0; i < count; i++) {
+                if (Double.isNaN(out[outOffset + i])) {
+                    out[outOffset + i] = handleNaN(l[lOffset + i], r[rOffset + i], out[outOffset + i]);
+                }
+            }
+        }
+
+        private static double handleNaN(double l, double r, double result) {
+            if (RRuntime.isNA(l)) {
+                return RRuntime.DOUBLE_NA;
+            } else if (RRuntime.isNA(r)) {
+                // NaN op NA == NaN
+                return Double.isNaN(l) ? l : RRuntime.DOUBLE_NA;
+            }
+            return result;
+        }
+
+        @Override
+        boolean isComplete() {
+            return left.isComplete() && right.isComplete();
+        }
+
+        @Override
+        void release() {
+            left.release();
+            right.release();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -42,6 +42,7 @@ import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RSequence;
 import com.oracle.truffle.r.runtime.data.RStringSequence;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
@@ -62,6 +63,7 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Node.Child private CastStringNode castString;
 
     private final ConditionProfile bigTableProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile knownSortedProfile = ConditionProfile.createBinaryProfile();
 
     private RAbstractStringVector castString(RAbstractVector operand) {
         if (castString == null) {
@@ -71,6 +73,43 @@ public abstract class MatchInternalNode extends RBaseNode {
         return (RAbstractStringVector) RRuntime.asAbstractVector(castString.doCast(operand));
     }
 
+    /**
+     * Finds the first occurrence of given value in a table with known sortedness (which contains no
+     * {@code NA}s) by binary search, returns {@code -1} if there is none.
+     */
+    private static int findInSorted(RAbstractIntVector table, int value) {
+        boolean ascending = table.getKnownSortedness() == RVector.SORTED_ASCENDING;
+        int low = 0;
+        int high = table.getLength();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int current = table.getDataAt(mid);
+            if (ascending ? current < value : current > value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < table.getLength() && table.getDataAt(low) == value ? low : -1;
+    }
+
+    private static int findInSorted(RAbstractDoubleVector table, double value) {
+        boolean ascending = table.getKnownSortedness() == RVector.SORTED_ASCENDING;
+        int low = 0;
+        int high = table.getLength();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            double current = table.getDataAt(mid);
+            if (ascending ? current < value : current > value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // NA and NaN values are never found
+        return low < table.getLength() && table.getDataAt(low) == value ? low : -1;
+    }
+
     protected boolean isSequence(RAbstractVector vec) {
         return vec instanceof RSequence;
     }
@@ -110,6 +149,10 @@ public abstract class MatchInternalNode extends RBaseNode {
                     @Cached("create()") BranchProfile notFoundProfile) {
         int element = x.getDataAt(0);
         int length = table.getLength();
+        if (knownSortedProfile.profile(table.getKnownSortedness() != RVector.SORTED_UNKNOWN)) {
+            int index = findInSorted(table, element);
+            return index == -1 ? nomatch : index + 1;
+        }
         if (naProfile.isNA(element)) {
             for (int i = 0; i < length; i++) {
                 if (RRuntime.isNA(table.getDataAt(i))) {
@@ -134,6 +177,17 @@ public abstract class MatchInternalNode extends RBaseNode {
     protected RIntVector match(RAbstractIntVector x, RAbstractIntVector table, int nomatch) {
         int[] result = initResult(x.getLength(), nomatch);
         boolean matchAll = true;
+        if (knownSortedProfile.profile(table.getKnownSortedness() != RVector.SORTED_UNKNOWN)) {
+            for (int i = 0; i < result.length; i++) {
+                int index = findInSorted(table, x.getDataAt(i));
+                if (index != -1) {
+                    result[i] = index + 1;
+                } else {
+                    matchAll = false;
+                }
+            }
+            return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        }
         NonRecursiveHashMapInt hashTable;
         if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
             hashTable = new NonRecursiveHashMapInt(x.getLength());
@@ -252,6 +306,10 @@ public abstract class MatchInternalNode extends RBaseNode {
                     @Cached("create()") BranchProfile notFoundProfile) {
         double element = x.getDataAt(0);
         int length = table.getLength();
+        if (knownSortedProfile.profile(table.getKnownSortedness() != RVector.SORTED_UNKNOWN)) {
+            int index = findInSorted(table, element);
+            return index == -1 ? nomatch : index + 1;
+        }
         if (naProfile.isNA(element)) {
             for (int i = 0; i < length; i++) {
                 if (RRuntime.isNA(table.getDataAt(i))) {
@@ -276,6 +334,17 @@ public abstract class MatchInternalNode extends RBaseNode {
     protected RIntVector match(RAbstractDoubleVector x, RAbstractDoubleVector table, int nomatch) {
         int[] result = initResult(x.getLength(), nomatch);
         boolean matchAll = true;
+        if (knownSortedProfile.profile(table.getKnownSortedness() != RVector.SORTED_UNKNOWN)) {
+            for (int i = 0; i < result.length; i++) {
+                int index = findInSorted(table, x.getDataAt(i));
+                if (index != -1) {
+                    result[i] = index + 1;
+                } else {
+                    matchAll = false;
+                }
+            }
+            return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+        }
         NonRecursiveHashMapDouble hashTable;
         if (bigTableProfile.profile(table.getLength() > (x.getLength() * TABLE_SIZE_FACTOR))) {
             hashTable = new NonRecursiveHashMapDouble(x.getLength());
@@ -33,6 +33,7 @@ import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeCost;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.nodes.binary.DeferredArithmetic;
 import com.oracle.truffle.r.nodes.function.visibility.SetVisibilityNode;
 import com.oracle.truffle.r.runtime.Arguments;
 import com.oracle.truffle.r.runtime.ArgumentsSignature;
@@ -85,6 +86,12 @@ abstract class ClassCheckNode extends RNode {
         return value;
     }
 
+    @Specialization
+    protected static DeferredArithmetic doDeferred(DeferredArithmetic value) {
+        // only produced for consumers that handle them, never has a class
+        return value;
+    }
+
     @Specialization
     public Object doGeneric(Object value,
                     @Cached("create()") ClassHierarchyNode classHierarchy) {
@@ -360,6 +367,14 @@ public final class RCallSpecialNode extends RCallBaseNode implements RSyntaxNode
         callSpecialParent = call;
     }
 
+    /**
+     * Returns the special node of the enclosing special call if this call is one of its arguments,
+     * {@code null} otherwise.
+     */
+    public RNode getCallSpecialParentSpecial() {
+        return callSpecialParent == null ? null : callSpecialParent.special;
+    }
+
     @Override
     public Object execute(VirtualFrame frame) {
         return execute(frame, functionNode.execute(frame));
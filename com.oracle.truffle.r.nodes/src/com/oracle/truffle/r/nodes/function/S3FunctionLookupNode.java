@@ -34,6 +34,7 @@ import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeCost;
+import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
@@ -47,6 +48,7 @@ import com.oracle.truffle.r.runtime.RDispatch;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.S3DispatchCache;
 import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
@@ -56,6 +58,8 @@ import com.oracle.truffle.r.runtime.data.RPromise;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.env.REnvironment;
 import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor.FrameAndSlotLookupResult;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor.LookupResult;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 
 public abstract class S3FunctionLookupNode extends RBaseNode {
@@ -452,36 +456,105 @@ public abstract class S3FunctionLookupNode extends RBaseNode {
 
         @TruffleBoundary
         private Result executeInternal(String genericName, RStringVector type, String group, MaterializedFrame callerFrame, MaterializedFrame genericDefFrame) {
+            Result result;
+            if (S3DispatchCache.ContextStateImpl.isEnabled()) {
+                S3DispatchCache.ContextStateImpl cache = RContext.getInstance().stateS3DispatchCache;
+                S3DispatchCache.Key key = new S3DispatchCache.Key(genericName, group, type, callerFrame, genericDefFrame, nextMethod, defaultMethod);
+                Object cached = cache.get(key);
+                if (cached != null) {
+                    result = cached == NO_METHOD ? null : (Result) cached;
+                } else {
+                    LookupDependencies dependencies = new LookupDependencies();
+                    result = lookup(genericName, type, group, callerFrame, genericDefFrame, dependencies);
+                    if (dependencies.cacheable) {
+                        cache.put(key, result == null ? NO_METHOD : result, dependencies.results, dependencies.names);
+                    }
+                }
+            } else {
+                result = lookup(genericName, type, group, callerFrame, genericDefFrame, null);
+            }
+
+            if (result == null) {
+                if (throwsError) {
+                    RFunction function = RContext.getInstance().lookupBuiltin(genericName);
+                    if (function != null) {
+                        return new Result(genericName, function, RNull.instance, genericName, false);
+                    }
+                    throw RError.error(this, RError.Message.UNKNOWN_FUNCTION_USE_METHOD, genericName, RRuntime.toString(type));
+                } else {
+                    return null;
+                }
+            }
+            return result;
+        }
+
+        private Result lookup(String genericName, RStringVector type, String group, MaterializedFrame callerFrame, MaterializedFrame genericDefFrame, LookupDependencies dependencies) {
             LookupOperation op = (lookupFrame, name, inMethodsTable) -> {
-                return ReadVariableNode.lookupFunction(name, lookupFrame, inMethodsTable, true);
+                RFunction function = ReadVariableNode.lookupFunction(name, lookupFrame, inMethodsTable, true);
+                if (dependencies != null) {
+                    dependencies.add(lookupFrame, name, inMethodsTable, function);
+                }
+                return function;
             };
 
             GetMethodsTable getTable = () -> {
-                FrameSlot slot = genericDefFrame == null ? null : genericDefFrame.getFrameDescriptor().findFrameSlot(RRuntime.RS3MethodsTable);
-                if (slot == null) {
+                if (genericDefFrame == null) {
                     return null;
                 }
+                FrameSlot slot = genericDefFrame.getFrameDescriptor().findFrameSlot(RRuntime.RS3MethodsTable);
+                Object table;
                 try {
-                    return FrameSlotChangeMonitor.getObject(slot, genericDefFrame);
+                    table = slot == null ? null : FrameSlotChangeMonitor.getObject(slot, genericDefFrame);
                 } catch (FrameSlotTypeException e) {
                     throw RInternalError.shouldNotReachHere();
                 }
+                if (dependencies != null) {
+                    dependencies.add(genericDefFrame, RRuntime.RS3MethodsTable, true, table);
+                }
+                return table;
             };
 
-            Result result = performLookup(callerFrame, genericName, group, type, nextMethod, defaultMethod, op, getTable);
+            return performLookup(callerFrame, genericName, group, type, nextMethod, defaultMethod, op, getTable);
+        }
+    }
 
-            if (result == null) {
-                if (throwsError) {
-                    RFunction function = RContext.getInstance().lookupBuiltin(genericName);
-                    if (function != null) {
-                        return new Result(genericName, function, RNull.instance, genericName, false);
-                    }
-                    throw RError.error(this, RError.Message.UNKNOWN_FUNCTION_USE_METHOD, genericName, RRuntime.toString(type));
-                } else {
-                    return null;
+    /**
+     * Marks a lookup without result in {@link S3DispatchCache}.
+     */
+    private static final Object NO_METHOD = new Object();
+
+    /**
+     * Collects the {@link LookupResult}s that describe all the reads done by one lookup. The lookup
+     * can only be cached if all the reads can be described by valid lookup results, i.e., if each
+     * name was either not found at all or found as a stable binding.
+     */
+    private static final class LookupDependencies {
+        private final ArrayList<LookupResult> results = new ArrayList<>();
+        private final ArrayList<String> names = new ArrayList<>();
+        private boolean cacheable = true;
+
+        void add(Frame frame, String name, boolean local, Object value) {
+            if (!cacheable) {
+                return;
+            }
+            String internedName = Utils.intern(name);
+            LookupResult lookup = local ? FrameSlotChangeMonitor.lookupLocal(frame, internedName) : FrameSlotChangeMonitor.lookup(frame, internedName);
+            if (lookup == null || lookup instanceof FrameAndSlotLookupResult || !lookup.isValid()) {
+                cacheable = false;
+            } else if (value == null) {
+                // a binding that is not a function is skipped by the lookup
+                cacheable = lookup.isMissing();
+            } else {
+                try {
+                    cacheable = lookup.getValue() == value;
+                } catch (InvalidAssumptionException e) {
+                    cacheable = false;
                 }
             }
-            return result;
+            if (cacheable) {
+                results.add(lookup);
+                names.add(internedName);
+            }
         }
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -243,9 +243,11 @@ final class BinaryMapVectorNode extends BinaryMapNode {
                 assert right.getLength() == rightLength;
                 if (mayShareLeft && left.getRType() == resultType && shareLeft.profile(leftLength == maxLength && ((RShareable) left).isTemporary())) {
                     target = left;
+                    RVector.resetKnownSortedness(target);
                     vectorNode.execute(function, leftLength, rightLength, left, leftAccess, leftIter, left, leftAccess, leftIter, right, rightAccess, rightIter);
                 } else if (mayShareRight && right.getRType() == resultType && shareRight.profile(rightLength == maxLength && ((RShareable) right).isTemporary())) {
                     target = right;
+                    RVector.resetKnownSortedness(target);
                     vectorNode.execute(function, leftLength, rightLength, right, rightAccess, rightIter, left, leftAccess, leftIter, right, rightAccess, rightIter);
                 } else {
                     if (resultAccess == null) {
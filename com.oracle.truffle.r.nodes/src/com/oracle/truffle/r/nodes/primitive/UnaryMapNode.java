@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -149,6 +149,7 @@ final class UnaryMapVectorNode extends UnaryMapNode {
             try (SequentialIterator operandIter = operandAccess.access(operand)) {
                 if (mayShareOperand && operand.getRType() == resultType && shareOperand.profile(((RShareable) operand).isTemporary())) {
                     target = operand;
+                    RVector.resetKnownSortedness(target);
                     vectorNode.execute(function, operandLength, operandAccess, operandIter, operandAccess, operandIter);
                 } else {
                     if (resultAccess == null) {
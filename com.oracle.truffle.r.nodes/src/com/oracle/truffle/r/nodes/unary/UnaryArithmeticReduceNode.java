@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -38,6 +38,7 @@ import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RTypes;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
@@ -78,9 +79,18 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNode {
     private final ConditionProfile naRmProfile = ConditionProfile.createBinaryProfile();
     private final BranchProfile emptyProfile = BranchProfile.create();
     private final BranchProfile naResultProfile = BranchProfile.create();
+    private final ConditionProfile knownSortedProfile = ConditionProfile.createBinaryProfile();
+
+    /**
+     * {@link RVector#SORTED_ASCENDING} for {@code max} and {@link RVector#SORTED_DESCENDING} for
+     * {@code min}, i.e., the last element of a vector sorted in this order is the result,
+     * {@link RVector#SORTED_UNKNOWN} for other operations.
+     */
+    private final int extremum;
 
     protected UnaryArithmeticReduceNode(ReduceSemantics semantics, BinaryArithmeticFactory factory) {
         this.factory = factory;
+        this.extremum = factory == BinaryArithmetic.MAX ? RVector.SORTED_ASCENDING : factory == BinaryArithmetic.MIN ? RVector.SORTED_DESCENDING : RVector.SORTED_UNKNOWN;
         this.semantics = semantics;
         this.arithmetic = factory.createOperation();
         this.supportString = semantics.supportString;
@@ -201,7 +211,19 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNode {
         }
     }
 
+    private boolean isKnownSorted(RAbstractVector vector) {
+        return knownSortedProfile.profile(extremum != RVector.SORTED_UNKNOWN && vector.getKnownSortedness() != RVector.SORTED_UNKNOWN && vector.getLength() > 0);
+    }
+
+    private int getExtremumIndex(RAbstractVector vector) {
+        return vector.getKnownSortedness() == extremum ? vector.getLength() - 1 : 0;
+    }
+
     private Object doInt(RAbstractVector vector, boolean naRm, VectorAccess access) {
+        if (isKnownSorted(vector)) {
+            // no NAs, the result is one of the end points
+            return ((RAbstractIntVector) vector).getDataAt(getExtremumIndex(vector));
+        }
         boolean profiledNaRm = naRmProfile.profile(naRm);
         int result = semantics.getIntStart();
         int oldResult = result;
@@ -288,6 +310,12 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNode {
     }
 
     private double doDouble(RAbstractDoubleVector vector, boolean naRm, boolean finite, ConditionProfile finiteProfile, ConditionProfile isInfiniteProfile, VectorAccess access) {
+        if (isKnownSorted(vector)) {
+            double value = vector.getDataAt(getExtremumIndex(vector));
+            if (!finite || RRuntime.isFinite(value)) {
+                return value;
+            }
+        }
         boolean profiledNaRm = naRmProfile.profile(naRm);
         boolean profiledFinite = finiteProfile.profile(finite);
         double result = semantics.getDoubleStart();
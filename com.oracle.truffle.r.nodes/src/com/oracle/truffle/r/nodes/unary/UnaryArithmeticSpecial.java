@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -28,6 +28,7 @@ import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.binary.BoxPrimitiveNode;
+import com.oracle.truffle.r.nodes.binary.DeferredArithmetic;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RSpecialFactory;
@@ -41,15 +42,22 @@ import com.oracle.truffle.r.runtime.ops.UnaryArithmeticFactory;
  */
 @ImportStatic(RType.class)
 @NodeChild(value = "operand", type = RNode.class)
-public abstract class UnaryArithmeticSpecial extends RNode {
+public abstract class UnaryArithmeticSpecial extends RNode implements DeferredArithmetic.Consumer {
 
     private final UnaryArithmeticFactory unaryFactory;
+    protected final boolean negate;
 
     @Child protected UnaryArithmetic operation;
 
     protected UnaryArithmeticSpecial(UnaryArithmeticFactory unaryFactory) {
         this.unaryFactory = unaryFactory;
         this.operation = unaryFactory.createOperation();
+        this.negate = unaryFactory == UnaryArithmetic.NEGATE;
+    }
+
+    @Override
+    public boolean consumesDeferred() {
+        return negate;
     }
 
     public static RSpecialFactory createSpecialFactory(UnaryArithmeticFactory unaryFactory) {
@@ -88,11 +96,24 @@ public abstract class UnaryArithmeticSpecial extends RNode {
         return getOperation().op((double) operand);
     }
 
+    protected boolean isFusable(Object operand) {
+        return DeferredArithmetic.getFusableLength(operand) > 1 && (DeferredArithmetic.isDeferred(operand) || DeferredArithmetic.isConsumedDeferred(this));
+    }
+
+    /**
+     * See {@link DeferredArithmetic}.
+     */
+    @Specialization(guards = {"negate", "isFusable(operand)"})
+    protected Object doDeferred(Object operand) {
+        DeferredArithmetic result = DeferredArithmetic.negate(operand);
+        return DeferredArithmetic.isConsumedDeferred(this) ? result : result.materialize();
+    }
+
     @Specialization
     protected Object doFallback(Object operand,
                     @Cached("create()") BoxPrimitiveNode boxPrimitive,
                     @Cached("createFull()") UnaryArithmeticNode unary) {
-        return unary.execute(boxPrimitive.execute(operand));
+        return unary.execute(boxPrimitive.execute(DeferredArithmetic.materializeIfDeferred(operand)));
     }
 
     protected UnaryArithmetic getOperation() {
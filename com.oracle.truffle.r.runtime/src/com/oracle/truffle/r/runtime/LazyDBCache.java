@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -23,35 +23,169 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
-import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.r.runtime.context.RContext;
 
+/**
+ * Cache of the lazy-load database files ({@code .rdb}) used by {@code lazyLoadDBfetch}.
+ *
+ * The files are mapped read-only into memory and the mappings are shared by all the contexts in
+ * the VM. Every context that accesses a database holds one reference to the shared entry and
+ * releases it when the database is flushed or when the context is disposed. The entry is dropped
+ * from the VM-wide table once the last reference is released.
+ */
 public class LazyDBCache {
 
-    public static final class ContextStateImpl implements RContext.ContextState {
-        private final Map<String, byte[]> dbCache = new HashMap<>();
-
-        public byte[] getData(String dbPath) {
-            byte[] dbData = dbCache.get(dbPath);
-            if (dbData == null) {
-                try {
-                    dbData = Files.readAllBytes(FileSystems.getDefault().getPath(dbPath));
-                } catch (IOException ex) {
-                    // unexpected
-                    throw RInternalError.shouldNotReachHere(ex);
+    private static final ConcurrentHashMap<String, SharedDB> sharedDBs = new ConcurrentHashMap<>();
+
+    /**
+     * A read-only mapping of one database file shared by all the contexts. The {@link ByteBuffer}
+     * must not be modified (including its position and limit), users should use the absolute
+     * {@code get} methods or {@link #read(int, byte[], int, int)}.
+     */
+    private static final class SharedDB {
+        private final String path;
+        private final ByteBuffer data;
+        /**
+         * Number of contexts that hold this entry, {@code 0} means that the entry was already
+         * removed from {@link LazyDBCache#sharedDBs} and must not be handed out anymore.
+         */
+        private int refCount;
+
+        private SharedDB(String path, ByteBuffer data) {
+            this.path = path;
+            this.data = data;
+        }
+
+        private synchronized boolean retain() {
+            if (refCount == 0) {
+                return false;
+            }
+            refCount++;
+            return true;
+        }
+
+        private synchronized void release() {
+            assert refCount > 0;
+            if (--refCount == 0) {
+                sharedDBs.remove(path, this);
+            }
+        }
+    }
+
+    @TruffleBoundary
+    private static SharedDB acquire(String dbPath) {
+        while (true) {
+            SharedDB db = sharedDBs.get(dbPath);
+            if (db == null) {
+                SharedDB newDB = new SharedDB(dbPath, map(dbPath));
+                newDB.refCount = 1;
+                db = sharedDBs.putIfAbsent(dbPath, newDB);
+                if (db == null) {
+                    return newDB;
                 }
-                dbCache.put(dbPath, dbData);
             }
-            return dbData;
+            if (db.retain()) {
+                return db;
+            }
+            // the entry is being released by its last holder, it will be removed from the table
+            sharedDBs.remove(dbPath, db);
+        }
+    }
+
+    private static ByteBuffer map(String dbPath) {
+        try (FileChannel channel = FileChannel.open(FileSystems.getDefault().getPath(dbPath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw RInternalError.unimplemented("lazy-load database larger than 2GB: " + dbPath);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException ex) {
+            // unexpected
+            throw RInternalError.shouldNotReachHere(ex);
         }
+    }
+
+    /**
+     * Read-only view of a lazy-load database as returned by {@link ContextStateImpl#getData}.
+     */
+    public static final class DBData {
+        private final ByteBuffer data;
 
+        private DBData(ByteBuffer data) {
+            this.data = data;
+        }
+
+        public int size() {
+            return data.capacity();
+        }
+
+        public byte getByte(int offset) {
+            return data.get(offset);
+        }
+
+        /**
+         * Reads the big-endian integer stored at {@code offset}.
+         */
+        public int getInt(int offset) {
+            return data.getInt(offset);
+        }
+
+        /**
+         * Copies {@code length} bytes starting at {@code offset} into a new array, the rest of the
+         * database is not touched.
+         */
+        public byte[] getBytes(int offset, int length) {
+            byte[] result = new byte[length];
+            ByteBuffer view = data.duplicate();
+            view.position(offset);
+            view.get(result, 0, length);
+            return result;
+        }
+    }
+
+    public static final class ContextStateImpl implements RContext.ContextState {
+        private final Map<String, SharedDB> dbCache = new HashMap<>();
+
+        @TruffleBoundary
+        public DBData getData(String dbPath) {
+            SharedDB db = dbCache.get(dbPath);
+            if (db == null) {
+                db = acquire(dbPath);
+                dbCache.put(dbPath, db);
+            }
+            return new DBData(db.data);
+        }
+
+        /**
+         * Releases this context's reference to the database and removes it from the VM-wide table,
+         * so that the next {@link #getData(String)} in any context maps the file again. Other
+         * contexts that still use the old mapping keep it until they flush it or are disposed.
+         */
+        @TruffleBoundary
         public void remove(String dbPath) {
             // no an error if missing
-            dbCache.remove(dbPath);
+            SharedDB db = dbCache.remove(dbPath);
+            if (db != null) {
+                sharedDBs.remove(dbPath, db);
+                db.release();
+            }
+        }
+
+        @Override
+        public void beforeDispose(RContext context) {
+            for (SharedDB db : dbCache.values()) {
+                db.release();
+            }
+            dbCache.clear();
         }
 
         public static ContextStateImpl newContextState() {
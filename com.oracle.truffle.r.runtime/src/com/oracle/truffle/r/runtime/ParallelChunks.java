@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * Runs data parallel work of the builtins (parsing of input, conversions) split into chunks of an
+ * index range on a shared {@link ForkJoinPool}. The chunks must not access the {@link RContext},
+ * i.e., they cannot raise R errors or warnings, allocate R vectors that need a context or evaluate
+ * R code. Exceptions thrown by the chunks are propagated to the caller.
+ */
+public final class ParallelChunks {
+
+    /**
+     * R option that limits the number of threads, {@code NULL}, {@code NA} or an empty vector mean
+     * the number of available processors, {@code 1} disables the parallel execution. Values above
+     * the number of available processors are capped to it.
+     */
+    public static final String THREADS_OPTION = "fastr.parallel.threads";
+
+    private static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
+
+    @FunctionalInterface
+    public interface Chunk {
+        void run(int from, int to);
+    }
+
+    /**
+     * The pool is sized to {@link #MAX_THREADS} and never replaced or shut down, since other
+     * threads may be using it at any time. A job uses fewer threads by creating fewer tasks.
+     */
+    private static ForkJoinPool pool;
+
+    private ParallelChunks() {
+        // no instances
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(MAX_THREADS);
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the number of threads to be used according to {@link #THREADS_OPTION}.
+     */
+    @TruffleBoundary
+    public static int getThreadCount() {
+        Object value = RContext.getInstance().stateROptions.getValue(THREADS_OPTION);
+        if (value == RNull.instance || value == null || (value instanceof RAbstractVector && ((RAbstractVector) value).getLength() == 0)) {
+            return MAX_THREADS;
+        }
+        int threads = RRuntime.asInteger(value);
+        if (RRuntime.isNA(threads)) {
+            return MAX_THREADS;
+        }
+        return Math.max(1, Math.min(threads, MAX_THREADS));
+    }
+
+    /**
+     * Returns the number of chunks that {@link #run} will use for the given range.
+     */
+    public static int getChunkCount(int length, int minChunkSize, int threads) {
+        return Math.max(1, Math.min(threads, length / minChunkSize));
+    }
+
+    /**
+     * Splits the range {@code 0 .. length - 1} into at most as many chunks as there are threads,
+     * each at least {@code minChunkSize} long, and runs them. If there is just one chunk, it is
+     * executed directly in the current thread.
+     */
+    @TruffleBoundary
+    public static void run(int length, int minChunkSize, Chunk chunk) {
+        run(length, minChunkSize, getThreadCount(), chunk);
+    }
+
+    @TruffleBoundary
+    public static void run(int length, int minChunkSize, int threads, Chunk chunk) {
+        int chunkCount = getChunkCount(length, minChunkSize, threads);
+        if (chunkCount == 1) {
+            chunk.run(0, length);
+            return;
+        }
+        RecursiveAction[] tasks = new RecursiveAction[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            int from = (int) ((long) length * i / chunkCount);
+            int to = (int) ((long) length * (i + 1) / chunkCount);
+            tasks[i] = new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    chunk.run(from, to);
+                }
+            };
+        }
+        getPool().invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Runs {@code body} for each index of the range {@code 0 .. length - 1}. The indices are
+     * distributed cyclically over at most {@code threads} tasks, which, unlike {@link #run},
+     * balances loops whose iterations get progressively cheaper or more expensive, e.g. over the
+     * rows of a triangular matrix.
+     */
+    @TruffleBoundary
+    public static void runCyclic(int length, int threads, IntConsumer body) {
+        int tasks = Math.max(1, Math.min(threads, length));
+        run(tasks, 1, tasks, (from, to) -> {
+            for (int task = from; task < to; task++) {
+                for (int i = task; i < length; i += tasks) {
+                    body.accept(i);
+                }
+            }
+        });
+    }
+}
@@ -82,6 +82,7 @@ public class RChannel {
 
     private final ArrayBlockingQueue<Object> masterToClient = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
     private final ArrayBlockingQueue<Object> clientToMaster = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private volatile boolean discardClientMessages;
 
     public static int createChannel(int key) {
         if (key <= 0) {
@@ -215,6 +216,9 @@ public class RChannel {
         Output out = new Output();
         Object msg = out.processOutgoingMessage(data);
         RChannel channel = getChannelFromId(id);
+        if (id < 0 && channel.discardClientMessages) {
+            return;
+        }
         try {
             (id > 0 ? channel.masterToClient : channel.clientToMaster).put(msg);
         } catch (InterruptedException x) {
@@ -245,6 +249,33 @@ public class RChannel {
         }
     }
 
+    /**
+     * Drops the pending messages in both directions and all the messages sent by the client from
+     * now on, so that a client blocked on sending a result can proceed and the next
+     * {@link #send(int, Object)} by the master does not block. Unlike the other operations, this one
+     * is allowed on a channel that has already been closed by the other side, the result is
+     * {@code false} in that case.
+     */
+    public static boolean discardPending(int id) {
+        int actualId = Math.abs(id);
+        RChannel channel;
+        try {
+            create.acquire();
+            channel = actualId < channels.length ? channels[actualId] : null;
+        } catch (InterruptedException x) {
+            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error accessing channel");
+        } finally {
+            create.release();
+        }
+        if (channel == null) {
+            return false;
+        }
+        channel.discardClientMessages = true;
+        channel.clientToMaster.clear();
+        channel.masterToClient.clear();
+        return true;
+    }
+
     public static Object poll(int id) {
         RChannel channel = getChannelFromId(id);
         Object msg = (id < 0 ? channel.masterToClient : channel.clientToMaster).poll();
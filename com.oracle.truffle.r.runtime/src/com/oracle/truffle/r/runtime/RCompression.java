@@ -23,23 +23,30 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ProcessBuilder.Redirect;
-import java.nio.file.OpenOption;
-import java.nio.file.StandardOpenOption;
-import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.tukaani.xz.LZMA2InputStream;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZ;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
 
+import com.oracle.truffle.r.runtime.conn.BZip2InputStream;
+import com.oracle.truffle.r.runtime.conn.BZip2OutputStream;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.ffi.ZipRFFI;
 
 /**
  * Abstracts the implementation of the various forms of compression used in R. Since the C API for
- * LZMA is very complex (as used by GnuR), we use an 'xz' subprocess to do the work.
+ * LZMA is very complex (as used by GnuR), we use an 'xz' subprocess to do the work. BZIP2 is
+ * implemented in Java by {@link BZip2InputStream} and {@link BZip2OutputStream}.
  */
 public class RCompression {
     public enum Type {
@@ -93,6 +100,13 @@ public class RCompression {
         return RCompression.Type.NONE;
     }
 
+    /**
+     * Decodes the compression type from the first bytes of {@code data}.
+     */
+    public static Type getCompressionType(byte[] data) {
+        return data.length >= 5 ? RCompression.Type.decodeBuf(data) : RCompression.Type.NONE;
+    }
+
     /**
      * Uncompress for internal use in {@code LazyLoadDBFetch} where size of uncompressed data is
      * known.
@@ -110,7 +124,7 @@ public class RCompression {
             case GZIP:
                 return gzipUncompress(udata, cdata);
             case BZIP2:
-                throw RInternalError.unimplemented("BZIP2 compression");
+                return bzipUncompress(udata, cdata);
             case XZ:
                 return lzmaUncompress(udata, cdata);
             default:
@@ -136,7 +150,7 @@ public class RCompression {
             case GZIP:
                 return gzipCompress(udata, cdata);
             case BZIP2:
-                throw RInternalError.unimplemented("BZIP2 compression");
+                return bzipCompress(udata, cdata);
             case XZ:
                 return lzmaCompress(udata, cdata);
             default:
@@ -198,55 +212,96 @@ public class RCompression {
         }
     }
 
-    public static byte[] bzipUncompressFromFile(String path) throws IOException {
-        String[] command = new String[]{"bzip2", "-dc", path};
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectError(Redirect.INHERIT);
-        Process p = pb.start();
-        InputStream is = p.getInputStream();
-        ProcessOutputManager.OutputThreadVariable readThread = new ProcessOutputManager.OutputThreadVariable(command[0], is);
-        readThread.start();
+    private static boolean bzipCompress(byte[] udata, byte[] cdata) {
+        byte[] data;
         try {
-            int rc = p.waitFor();
-            if (rc == 0) {
-                readThread.join();
-                return Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
-            } else {
-                throw new IOException("bzip2 error code: " + rc);
+            data = compress(Type.BZIP2, udata);
+        } catch (IOException ex) {
+            return false;
+        }
+        if (data.length > cdata.length) {
+            return false;
+        }
+        System.arraycopy(data, 0, cdata, 0, data.length);
+        return true;
+    }
+
+    private static boolean bzipUncompress(byte[] udata, byte[] cdata) {
+        try (InputStream is = new BZip2InputStream(new ByteArrayInputStream(cdata))) {
+            int totalRead = 0;
+            int n;
+            while (totalRead < udata.length && (n = is.read(udata, totalRead, udata.length - totalRead)) > 0) {
+                totalRead += n;
             }
-        } catch (InterruptedException ex) {
-            // fall through
+            return totalRead == udata.length;
+        } catch (IOException ex) {
+            return false;
         }
-        throw new IOException();
     }
 
-    public static void bzipCompressToFile(byte[] data, String path, boolean append) throws IOException {
-        String[] command = new String[]{"bzip2", "-zc"};
-        int rc;
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectError(Redirect.INHERIT);
-        Process p = pb.start();
-        InputStream is = p.getInputStream();
-        OutputStream os = p.getOutputStream();
-        ProcessOutputManager.OutputThreadVariable readThread = new ProcessOutputManager.OutputThreadVariable(command[0], is);
-        readThread.start();
-        os.write(data);
-        os.close();
-        try {
-            rc = p.waitFor();
-            if (rc == 0) {
-                readThread.join();
-                byte[] cData = Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
-                OpenOption[] openOptions = append ? new OpenOption[]{StandardOpenOption.APPEND} : new OpenOption[0];
-                RContext.getInstance().getEnv().getTruffleFile(path).newOutputStream(openOptions).write(cData);
-                return;
-            } else {
-                throw new IOException("bzip2 error code: " + rc);
+    /**
+     * Compresses the whole {@code udata} as {@code memCompress} does: {@link Type#GZIP} produces
+     * the zlib format (not gzip), {@link Type#BZIP2} and {@link Type#XZ} complete streams of the
+     * respective formats.
+     */
+    public static byte[] compress(Type type, byte[] udata) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(udata.length / 4 + 64);
+        OutputStream os;
+        switch (type) {
+            case NONE:
+                return udata;
+            case GZIP:
+                os = new DeflaterOutputStream(bos);
+                break;
+            case BZIP2:
+                os = new BZip2OutputStream(bos);
+                break;
+            case XZ:
+                os = new XZOutputStream(bos, new LZMA2Options(), XZ.CHECK_CRC32);
+                break;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+        try (OutputStream out = os) {
+            out.write(udata);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Uncompresses the whole {@code cdata} as {@code memDecompress} does, {@link Type#GZIP}
+     * accepts both the zlib and the gzip format.
+     */
+    public static byte[] uncompress(Type type, byte[] cdata) throws IOException {
+        InputStream is;
+        switch (type) {
+            case NONE:
+                return cdata;
+            case GZIP:
+                if (getCompressionType(cdata) == Type.GZIP) {
+                    is = new GZIPInputStream(new ByteArrayInputStream(cdata));
+                } else {
+                    is = new InflaterInputStream(new ByteArrayInputStream(cdata));
+                }
+                break;
+            case BZIP2:
+                is = new BZip2InputStream(new ByteArrayInputStream(cdata));
+                break;
+            case XZ:
+                is = new XZInputStream(new ByteArrayInputStream(cdata));
+                break;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(cdata.length, 32));
+        try (InputStream in = is) {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                bos.write(buf, 0, n);
             }
-        } catch (InterruptedException ex) {
-            // fall through
         }
-        throw new IOException();
+        return bos.toByteArray();
     }
 
     public static String getBz2Version() throws IOException {
@@ -27,7 +27,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
@@ -67,16 +67,21 @@ import com.oracle.truffle.r.runtime.data.Closure;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RAttributable;
 import com.oracle.truffle.r.runtime.data.RAttributesLayout;
+import com.oracle.truffle.r.runtime.data.RComplexVector;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.REmpty;
 import com.oracle.truffle.r.runtime.data.RExternalPtr;
 import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RPairList;
 import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
 import com.oracle.truffle.r.runtime.data.RMissing;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RPromise;
 import com.oracle.truffle.r.runtime.data.RPromise.PromiseState;
+import com.oracle.truffle.r.runtime.data.RRawVector;
 import com.oracle.truffle.r.runtime.data.RScalar;
 import com.oracle.truffle.r.runtime.data.RShareable;
 import com.oracle.truffle.r.runtime.data.RStringVector;
@@ -84,6 +89,7 @@ import com.oracle.truffle.r.runtime.data.RSymbol;
 import com.oracle.truffle.r.runtime.data.RTypedValue;
 import com.oracle.truffle.r.runtime.data.RUnboundValue;
 import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.data.StringCache;
 import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
@@ -299,6 +305,12 @@ public class RSerialize {
 
     public static final int DEFAULT_VERSION = 2;
 
+    /**
+     * Number of elements converted at once when logical vectors are read and written through
+     * their XDR representation as ints.
+     */
+    private static final int BULK_CHUNK_SIZE = 8192;
+
     /**
      * Lazily read in case set during execution for debugging purposes. This is necessary because
      * setting the option on startup will trace all the standard library functions as they are
@@ -740,13 +752,13 @@ public class RSerialize {
                 case INTSXP: {
                     int len = stream.readInt();
                     int[] data = new int[len];
+                    stream.readInts(data, 0, len);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
-                        int intVal = stream.readInt();
-                        if (intVal == RRuntime.INT_NA) {
+                        if (data[i] == RRuntime.INT_NA) {
                             complete = false;
+                            break;
                         }
-                        data[i] = intVal;
                     }
                     result = RDataFactory.createIntVector(data, complete);
                     break;
@@ -755,14 +767,19 @@ public class RSerialize {
                 case LGLSXP: {
                     int len = stream.readInt();
                     byte[] data = new byte[len];
+                    int[] chunk = new int[Math.min(len, BULK_CHUNK_SIZE)];
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
-                    for (int i = 0; i < len; i++) {
-                        int intVal = stream.readInt();
-                        if (intVal == RRuntime.INT_NA) {
-                            complete = false;
-                            data[i] = RRuntime.LOGICAL_NA;
-                        } else {
-                            data[i] = (byte) intVal;
+                    for (int start = 0; start < len; start += chunk.length) {
+                        int n = Math.min(chunk.length, len - start);
+                        stream.readInts(chunk, 0, n);
+                        for (int i = 0; i < n; i++) {
+                            int intVal = chunk[i];
+                            if (intVal == RRuntime.INT_NA) {
+                                complete = false;
+                                data[start + i] = RRuntime.LOGICAL_NA;
+                            } else {
+                                data[start + i] = (byte) intVal;
+                            }
                         }
                     }
                     result = RDataFactory.createLogicalVector(data, complete);
@@ -772,13 +789,13 @@ public class RSerialize {
                 case REALSXP: {
                     int len = stream.readInt();
                     double[] data = new double[len];
+                    stream.readDoubles(data, 0, len);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
-                        double doubleVal = stream.readDouble();
-                        if (RRuntime.isNA(doubleVal)) {
+                        if (RRuntime.isNA(data[i])) {
                             complete = false;
+                            break;
                         }
-                        data[i] = doubleVal;
                     }
                     result = RDataFactory.createDoubleVector(data, complete);
                     break;
@@ -787,23 +804,18 @@ public class RSerialize {
                 case CPLXSXP: {
                     int len = stream.readInt();
                     double[] data = new double[2 * len];
+                    stream.readDoubles(data, 0, 2 * len);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
                         int ix = 2 * i;
-                        double reVal = stream.readDouble();
-                        if (RRuntime.isNA(reVal)) {
+                        boolean reNA = RRuntime.isNA(data[ix]);
+                        boolean imNA = RRuntime.isNA(data[ix + 1]);
+                        if (reNA || imNA) {
                             complete = false;
-                        }
-                        double imVal = stream.readDouble();
-                        if (RRuntime.isNA(imVal)) {
-                            complete = false;
-                        }
-                        if (RRuntime.isNA(reVal) && RRuntime.isNA(imVal)) {
-                            data[ix] = RRuntime.COMPLEX_NA_REAL_PART;
-                            data[ix + 1] = RRuntime.COMPLEX_NA_IMAGINARY_PART;
-                        } else {
-                            data[ix] = reVal;
-                            data[ix + 1] = imVal;
+                            if (reNA && imNA) {
+                                data[ix] = RRuntime.COMPLEX_NA_REAL_PART;
+                                data[ix + 1] = RRuntime.COMPLEX_NA_IMAGINARY_PART;
+                            }
                         }
                     }
                     result = RDataFactory.createComplexVector(data, complete);
@@ -1078,6 +1090,17 @@ public class RSerialize {
 
         abstract void readRaw(byte[] data) throws IOException;
 
+        /**
+         * Reads {@code length} ints into {@code data} starting at {@code offset}, equivalent to
+         * (but faster than) calling {@link #readInt()} {@code length} times.
+         */
+        abstract void readInts(int[] data, int offset, int length) throws IOException;
+
+        /**
+         * Reads {@code length} doubles into {@code data} starting at {@code offset}, equivalent to
+         * (but faster than) calling {@link #readDouble()} {@code length} times.
+         */
+        abstract void readDoubles(double[] data, int offset, int length) throws IOException;
     }
 
     @SuppressWarnings("unused")
@@ -1138,15 +1161,7 @@ public class RSerialize {
                     result = new String(buf, offset, len, StandardCharsets.UTF_8);
                 }
                 offset += len;
-                WeakReference<String> entry;
-                if ((entry = strings.get(result)) != null) {
-                    String string = entry.get();
-                    if (string != null) {
-                        return string;
-                    }
-                }
-                strings.put(result, new WeakReference<>(result));
-                return result;
+                return StringCache.intern(result);
             }
 
             void readRaw(byte[] data) {
@@ -1154,6 +1169,16 @@ public class RSerialize {
                 offset += data.length;
             }
 
+            void readInts(int[] data, int start, int n) {
+                ByteBuffer.wrap(buf, offset, n * 4).asIntBuffer().get(data, start, n);
+                offset += n * 4;
+            }
+
+            void readDoubles(double[] data, int start, int n) {
+                ByteBuffer.wrap(buf, offset, n * 8).asDoubleBuffer().get(data, start, n);
+                offset += n * 8;
+            }
+
             void readData(int n) throws IOException {
                 if (offset + n > size) {
                     if (offset != size) {
@@ -1181,8 +1206,6 @@ public class RSerialize {
          */
         private final Buffer defaultBuffer;
 
-        private final WeakHashMap<String, WeakReference<String>> strings = RContext.getInstance().stringMap;
-
         XdrInputFormat(InputStream is) {
             super(is);
             if (is instanceof PByteArrayInputStream) {
@@ -1218,6 +1241,31 @@ public class RSerialize {
             ensureData(data.length).readRaw(data);
         }
 
+        /*
+         * The bulk reads decode the data in chunks that fit into the default buffer, the views
+         * created by ByteBuffer are big-endian, which is the XDR byte order.
+         */
+
+        @Override
+        void readInts(int[] data, int offset, int length) throws IOException {
+            int maxChunk = defaultBuffer.buf.length / 4;
+            for (int done = 0; done < length;) {
+                int n = Math.min(length - done, maxChunk);
+                ensureData(n * 4).readInts(data, offset + done, n);
+                done += n;
+            }
+        }
+
+        @Override
+        void readDoubles(double[] data, int offset, int length) throws IOException {
+            int maxChunk = defaultBuffer.buf.length / 8;
+            for (int done = 0; done < length;) {
+                int n = Math.min(length - done, maxChunk);
+                ensureData(n * 8).readDoubles(data, offset + done, n);
+                done += n;
+            }
+        }
+
         private Buffer ensureData(int n) throws IOException {
             Buffer usedBuffer;
             if (n > defaultBuffer.buf.length) {
@@ -1307,6 +1355,20 @@ public class RSerialize {
 
         abstract void writeRaw(byte value) throws IOException;
 
+        /**
+         * Writes {@code length} ints from {@code values} starting at {@code offset}, equivalent to
+         * (but faster than) calling {@link #writeInt(int)} for each of them.
+         */
+        abstract void writeInts(int[] values, int offset, int length) throws IOException;
+
+        /**
+         * Writes {@code length} doubles from {@code values} starting at {@code offset}, equivalent
+         * to (but faster than) calling {@link #writeDouble(double)} for each of them.
+         */
+        abstract void writeDoubles(double[] values, int offset, int length) throws IOException;
+
+        abstract void writeRaw(byte[] values) throws IOException;
+
         abstract void flush() throws IOException;
 
     }
@@ -1385,6 +1447,42 @@ public class RSerialize {
             buf[offset++] = (byte) (valueBits & 0xff);
         }
 
+        @Override
+        void writeInts(int[] values, int start, int length) throws IOException {
+            int maxChunk = buf.length / 4;
+            for (int done = 0; done < length;) {
+                int n = Math.min(length - done, maxChunk);
+                ensureSpace(n * 4);
+                ByteBuffer.wrap(buf, offset, n * 4).asIntBuffer().put(values, start + done, n);
+                offset += n * 4;
+                done += n;
+            }
+        }
+
+        @Override
+        void writeDoubles(double[] values, int start, int length) throws IOException {
+            int maxChunk = buf.length / 8;
+            for (int done = 0; done < length;) {
+                int n = Math.min(length - done, maxChunk);
+                ensureSpace(n * 8);
+                ByteBuffer.wrap(buf, offset, n * 8).asDoubleBuffer().put(values, start + done, n);
+                offset += n * 8;
+                done += n;
+            }
+        }
+
+        @Override
+        void writeRaw(byte[] values) throws IOException {
+            if (values.length > buf.length) {
+                flushBuffer();
+                os.write(values);
+            } else {
+                ensureSpace(values.length);
+                System.arraycopy(values, 0, buf, offset, values.length);
+                offset += values.length;
+            }
+        }
+
         private void ensureSpace(int n) throws IOException {
             if (offset + n > buf.length) {
                 flushBuffer();
@@ -1579,6 +1677,16 @@ public class RSerialize {
 
                             case INTSXP:
                             case LGLSXP: {
+                                if (obj instanceof RIntVector) {
+                                    int[] data = ((RIntVector) obj).getReadonlyData();
+                                    stream.writeInt(data.length);
+                                    stream.writeInts(data, 0, data.length);
+                                    break;
+                                }
+                                if (obj instanceof RLogicalVector) {
+                                    outLogicals(((RLogicalVector) obj).getReadonlyData());
+                                    break;
+                                }
                                 // logicals are written as ints
                                 RAbstractVector vector = (RAbstractVector) obj;
                                 VectorAccess access = vector.slowPathAccess();
@@ -1592,6 +1700,12 @@ public class RSerialize {
                             }
 
                             case REALSXP: {
+                                if (obj instanceof RDoubleVector) {
+                                    double[] data = ((RDoubleVector) obj).getReadonlyData();
+                                    stream.writeInt(data.length);
+                                    stream.writeDoubles(data, 0, data.length);
+                                    break;
+                                }
                                 RAbstractDoubleVector vector = (RAbstractDoubleVector) obj;
                                 VectorAccess access = vector.slowPathAccess();
                                 try (SequentialIterator iter = access.access(vector)) {
@@ -1604,6 +1718,13 @@ public class RSerialize {
                             }
 
                             case CPLXSXP: {
+                                // NA is written as (NA, NA) while its imaginary part may differ
+                                if (obj instanceof RComplexVector && ((RComplexVector) obj).isComplete()) {
+                                    double[] data = ((RComplexVector) obj).getReadonlyData();
+                                    stream.writeInt(data.length / 2);
+                                    stream.writeDoubles(data, 0, data.length);
+                                    break;
+                                }
                                 RAbstractComplexVector vector = (RAbstractComplexVector) obj;
                                 VectorAccess access = vector.slowPathAccess();
                                 try (SequentialIterator iter = access.access(vector)) {
@@ -1635,6 +1756,12 @@ public class RSerialize {
                             }
 
                             case RAWSXP: {
+                                if (obj instanceof RRawVector) {
+                                    byte[] data = ((RRawVector) obj).getReadonlyData();
+                                    stream.writeInt(data.length);
+                                    stream.writeRaw(data);
+                                    break;
+                                }
                                 RAbstractRawVector vector = (RAbstractRawVector) obj;
                                 VectorAccess access = vector.slowPathAccess();
                                 try (SequentialIterator iter = access.access(vector)) {
@@ -1791,6 +1918,19 @@ public class RSerialize {
             return result;
         }
 
+        private void outLogicals(byte[] data) throws IOException {
+            stream.writeInt(data.length);
+            int[] chunk = new int[Math.min(data.length, BULK_CHUNK_SIZE)];
+            for (int start = 0; start < data.length; start += chunk.length) {
+                int n = Math.min(chunk.length, data.length - start);
+                for (int i = 0; i < n; i++) {
+                    byte value = data[start + i];
+                    chunk[i] = value == RRuntime.LOGICAL_NA ? RRuntime.INT_NA : value;
+                }
+                stream.writeInts(chunk, 0, n);
+            }
+        }
+
         private void outStringVec(RAbstractStringVector vec, boolean strsxp) throws IOException {
             if (!strsxp) {
                 stream.writeInt(0);
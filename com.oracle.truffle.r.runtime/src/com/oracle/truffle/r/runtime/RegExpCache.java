@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.ffi.PCRERFFI;
+
+/**
+ * Per-context LRU cache of the compiled regular expressions used by the {@code grep} family of
+ * builtins. Java {@link Pattern}s are keyed by the pattern and the {@link Pattern} flags (which
+ * encode {@code fixed} as {@link Pattern#LITERAL} and {@code ignore.case} as
+ * {@link Pattern#CASE_INSENSITIVE}), PCRE patterns by the pattern and the PCRE compile options.
+ *
+ * The PCRE handles are native memory, they are freed when they are evicted from the cache and when
+ * the context is disposed. Therefore a {@link PCRERFFI.Result} obtained from the cache may only be
+ * used until the next lookup in the same context.
+ */
+public final class RegExpCache {
+
+    /**
+     * The maximal number of compiled patterns (of both kinds) kept per context.
+     */
+    public static final int CACHE_SIZE = 256;
+
+    private static final class Key {
+        private final String pattern;
+        private final int flags;
+        private final boolean pcre;
+
+        private Key(String pattern, int flags, boolean pcre) {
+            this.pattern = pattern;
+            this.flags = flags;
+            this.pcre = pcre;
+        }
+
+        @Override
+        public int hashCode() {
+            return (pattern.hashCode() * 31 + flags) * 31 + (pcre ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return flags == other.flags && pcre == other.pcre && pattern.equals(other.pattern);
+        }
+    }
+
+    public static final class ContextStateImpl implements RContext.ContextState {
+        private final LinkedHashMap<Key, Object> cache = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > CACHE_SIZE) {
+                    release(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private long hits;
+        private long misses;
+        /**
+         * The PCRE character tables shared by all the PCRE patterns compiled in this context,
+         * {@code 0} if not created yet.
+         */
+        private long pcreTables;
+        private PCRERFFI.FreeNode freeNode;
+
+        /**
+         * Returns the compiled {@link Pattern}, compiling it if it is not in the cache.
+         *
+         * @throws java.util.regex.PatternSyntaxException if the pattern is not valid
+         */
+        @TruffleBoundary
+        public Pattern getPattern(String pattern, int flags) {
+            Key key = new Key(pattern, flags, false);
+            Pattern result = (Pattern) cache.get(key);
+            if (result == null) {
+                misses++;
+                result = Pattern.compile(pattern, flags);
+                cache.put(key, result);
+            } else {
+                hits++;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the cached PCRE pattern or {@code null}, in which case the caller is expected
+         * to compile it with {@link #getPCRETables} and add it with {@link #putPCRE}.
+         */
+        @TruffleBoundary
+        public PCRERFFI.Result getPCRE(String pattern, int options) {
+            PCRERFFI.Result result = (PCRERFFI.Result) cache.get(new Key(pattern, options, true));
+            if (result == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return result;
+        }
+
+        @TruffleBoundary
+        public void putPCRE(String pattern, int options, PCRERFFI.Result compiled) {
+            assert compiled.result != 0;
+            Object previous = cache.put(new Key(pattern, options, true), compiled);
+            if (previous != null) {
+                release(previous);
+            }
+        }
+
+        /**
+         * Returns the PCRE character tables of this context, creating them with {@code maketables}
+         * on the first call.
+         */
+        public long getPCRETables(PCRERFFI.MaketablesNode maketablesNode) {
+            if (pcreTables == 0) {
+                pcreTables = maketablesNode.execute();
+            }
+            return pcreTables;
+        }
+
+        private void release(Object value) {
+            if (value instanceof PCRERFFI.Result) {
+                getFreeNode().execute(((PCRERFFI.Result) value).result, 0);
+            }
+        }
+
+        private PCRERFFI.FreeNode getFreeNode() {
+            if (freeNode == null) {
+                freeNode = PCRERFFI.FreeNode.create();
+            }
+            return freeNode;
+        }
+
+        /**
+         * Returns the number of hits, misses and the current number of cached patterns.
+         */
+        @TruffleBoundary
+        public long[] getStatistics() {
+            return new long[]{hits, misses, cache.size()};
+        }
+
+        /**
+         * Removes all the patterns from the cache and resets the statistics.
+         */
+        @TruffleBoundary
+        public void clear() {
+            Iterator<Object> iter = cache.values().iterator();
+            while (iter.hasNext()) {
+                release(iter.next());
+                iter.remove();
+            }
+            hits = 0;
+            misses = 0;
+        }
+
+        @Override
+        public void beforeDispose(RContext context) {
+            clear();
+            if (pcreTables != 0) {
+                getFreeNode().execute(pcreTables, 0);
+                pcreTables = 0;
+            }
+        }
+
+        public static ContextStateImpl newContextState() {
+            return new ContextStateImpl();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor.LookupResult;
+import com.oracle.truffle.r.runtime.env.frame.NSBaseMaterializedFrame;
+
+/**
+ * Per-context cache of the results of S3 method lookups, used by the call sites that have seen too
+ * many different classes to cache the lookups in the AST.
+ *
+ * An entry is keyed by the generic, the group, the class vector and the frame descriptors of the
+ * caller frame and of the frame the generic was defined in. It remembers the
+ * {@link FrameSlotChangeMonitor.LookupResult}s of all the names that were looked up to find the
+ * method, and is only used while all of them are valid. Defining, removing or registering a method
+ * (or attaching an environment that shadows it) therefore invalidates the entries that depend on
+ * it.
+ */
+public final class S3DispatchCache {
+
+    /**
+     * The maximal number of lookups kept per context.
+     */
+    public static final int CACHE_SIZE = 1024;
+
+    public static final class Key {
+        private final String generic;
+        private final String group;
+        private final String[] classes;
+        private final FrameDescriptor callerDescriptor;
+        private final FrameDescriptor defDescriptor;
+        private final boolean nextMethod;
+        private final boolean defaultMethod;
+        private final int hash;
+
+        public Key(String generic, String group, RStringVector classes, Frame callerFrame, Frame genericDefFrame, boolean nextMethod, boolean defaultMethod) {
+            this.generic = generic;
+            this.group = group;
+            this.classes = classes.getDataCopy();
+            this.callerDescriptor = getDescriptor(callerFrame);
+            this.defDescriptor = getDescriptor(genericDefFrame);
+            this.nextMethod = nextMethod;
+            this.defaultMethod = defaultMethod;
+            int h = generic.hashCode();
+            h = h * 31 + (group == null ? 0 : group.hashCode());
+            h = h * 31 + Arrays.hashCode(this.classes);
+            h = h * 31 + System.identityHashCode(callerDescriptor);
+            h = h * 31 + System.identityHashCode(defDescriptor);
+            this.hash = h * 4 + (nextMethod ? 2 : 0) + (defaultMethod ? 1 : 0);
+        }
+
+        private static FrameDescriptor getDescriptor(Frame frame) {
+            if (frame == null) {
+                return null;
+            }
+            // namespace:base shares the descriptor with package:base, but has a different parent
+            return frame instanceof NSBaseMaterializedFrame ? ((NSBaseMaterializedFrame) frame).getMarkerFrameDescriptor() : frame.getFrameDescriptor();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && callerDescriptor == other.callerDescriptor && defDescriptor == other.defDescriptor && nextMethod == other.nextMethod &&
+                            defaultMethod == other.defaultMethod && generic.equals(other.generic) && (group == null ? other.group == null : group.equals(other.group)) &&
+                            Arrays.equals(classes, other.classes);
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final LookupResult[] dependencies;
+        /**
+         * The lookup results are registered in {@link FrameSlotChangeMonitor} under the (interned)
+         * names in weak maps, the names must be kept alive as long as the results are used.
+         */
+        @SuppressWarnings("unused") private final String[] names;
+
+        private Entry(Object value, LookupResult[] dependencies, String[] names) {
+            this.value = value;
+            this.dependencies = dependencies;
+            this.names = names;
+        }
+
+        private boolean isValid() {
+            for (LookupResult dependency : dependencies) {
+                if (!dependency.isValid()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static final class ContextStateImpl implements RContext.ContextState {
+        private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        /**
+         * The bindings of the shared contexts may hold different values in different contexts,
+         * which are not tracked by the lookup results.
+         */
+        public static boolean isEnabled() {
+            return !FastROptions.sharedContextsOptionValue || RContext.isSingle();
+        }
+
+        /**
+         * Returns the cached value for given key or {@code null} if there is no valid entry.
+         */
+        @TruffleBoundary
+        public Object get(Key key) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                if (entry.isValid()) {
+                    return entry.value;
+                }
+                cache.remove(key);
+            }
+            return null;
+        }
+
+        /**
+         * Adds a value, which must not be {@code null}, that stays valid as long as all the given
+         * lookup results are valid. The names must be the interned names of the lookups.
+         */
+        @TruffleBoundary
+        public void put(Key key, Object value, List<LookupResult> dependencies, List<String> names) {
+            assert value != null;
+            cache.put(key, new Entry(value, dependencies.toArray(new LookupResult[dependencies.size()]), names.toArray(new String[names.size()])));
+        }
+
+        @Override
+        public void beforeDispose(RContext context) {
+            cache.clear();
+        }
+
+        public static ContextStateImpl newContextState() {
+            return new ContextStateImpl();
+        }
+    }
+}
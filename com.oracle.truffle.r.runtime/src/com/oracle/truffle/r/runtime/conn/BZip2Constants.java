@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+/**
+ * Constants and the CRC shared by {@link BZip2InputStream} and {@link BZip2OutputStream}. The
+ * format is the one of {@code bzip2} 1.0 (Julian Seward), see {@code bzip2/compress.c} and
+ * {@code bzip2/decompress.c}.
+ */
+final class BZip2Constants {
+
+    private BZip2Constants() {
+        // no instances
+    }
+
+    static final int BASE_BLOCK_SIZE = 100000;
+    static final int MIN_BLOCK_SIZE_100K = 1;
+    static final int MAX_BLOCK_SIZE_100K = 9;
+
+    static final int MAX_ALPHA_SIZE = 258;
+    static final int MAX_CODE_LEN = 23;
+    /**
+     * The longest code accepted by the decoder ({@code bzip2} never produces more than 17 bits).
+     */
+    static final int MAX_DECODE_CODE_LEN = 20;
+    static final int MAX_ENCODE_CODE_LEN = 17;
+    static final int RUNA = 0;
+    static final int RUNB = 1;
+    static final int N_GROUPS = 6;
+    static final int G_SIZE = 50;
+    static final int N_ITERS = 4;
+    static final int MAX_SELECTORS = 2 + (900000 / G_SIZE);
+
+    static final long BLOCK_MAGIC = 0x314159265359L;
+    static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+
+    /**
+     * The {@code bzip2} CRC is the big-endian CRC-32 (polynomial {@code 0x04c11db7}), i.e. not the
+     * one of {@link java.util.zip.CRC32}.
+     */
+    static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int c = i << 24;
+            for (int j = 0; j < 8; j++) {
+                c = (c & 0x80000000) != 0 ? (c << 1) ^ 0x04c11db7 : c << 1;
+            }
+            CRC_TABLE[i] = c;
+        }
+    }
+
+    static int updateCRC(int crc, int b) {
+        return (crc << 8) ^ CRC_TABLE[((crc >>> 24) ^ b) & 0xff];
+    }
+
+    static int updateCRC(int crc, int b, int count) {
+        int result = crc;
+        for (int i = 0; i < count; i++) {
+            result = (result << 8) ^ CRC_TABLE[((result >>> 24) ^ b) & 0xff];
+        }
+        return result;
+    }
+}
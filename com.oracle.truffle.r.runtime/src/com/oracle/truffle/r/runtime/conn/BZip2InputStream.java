@@ -0,0 +1,513 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.BASE_BLOCK_SIZE;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.BLOCK_MAGIC;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.END_OF_STREAM_MAGIC;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.G_SIZE;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MAX_ALPHA_SIZE;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MAX_BLOCK_SIZE_100K;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MAX_CODE_LEN;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MAX_DECODE_CODE_LEN;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MAX_SELECTORS;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MIN_BLOCK_SIZE_100K;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.N_GROUPS;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.RUNB;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming decompressor of the {@code bzip2} format. Only one block is held in memory at a time
+ * (at most 3.6MB for the 900k blocks), so arbitrarily large files can be read. Concatenated
+ * streams (as produced e.g. by appending to a {@code bzfile}) are read as one stream, anything
+ * after the last stream that does not start with the stream header is ignored.
+ *
+ * The randomised blocks produced by {@code bzip2} versions older than 0.9.5 are not supported.
+ */
+public final class BZip2InputStream extends InputStream {
+
+    private final InputStream in;
+    private final byte[] inBuffer = new byte[8192];
+    private int inPos;
+    private int inLimit;
+    private long bitBuffer;
+    private int bitCount;
+
+    private boolean closed;
+    private boolean eof;
+    private int blockSize100k;
+
+    /**
+     * The inverse BWT vector: the low 8 bits of each element hold a byte of the block, the upper
+     * 24 bits the index of the next element.
+     */
+    private int[] tt;
+    private int nblock;
+    private int used;
+    private int tPos;
+    private boolean inBlock;
+
+    /*
+     * State of the run-length decoding of the block: four equal bytes are followed by the number of
+     * their additional repetitions.
+     */
+    private int lastByte;
+    private int runLength;
+    private int repeatByte;
+    private int repeatCount;
+
+    private int storedBlockCRC;
+    private int blockCRC;
+    private int combinedCRC;
+
+    private final byte[] seqToUnseq = new byte[256];
+    private final byte[] selectorMtf = new byte[MAX_SELECTORS];
+    private final byte[] selectors = new byte[MAX_SELECTORS];
+    private final byte[][] lens = new byte[N_GROUPS][MAX_ALPHA_SIZE];
+    private final int[][] limit = new int[N_GROUPS][MAX_CODE_LEN];
+    private final int[][] base = new int[N_GROUPS][MAX_CODE_LEN];
+    private final int[][] perm = new int[N_GROUPS][MAX_ALPHA_SIZE];
+    private final int[] minLens = new int[N_GROUPS];
+    private final int[] unzftab = new int[256];
+    private final int[] cftab = new int[257];
+    private final byte[] yy = new byte[256];
+
+    private int nSelectors;
+    private int groupNo;
+    private int groupPos;
+    private int[] groupLimit;
+    private int[] groupBase;
+    private int[] groupPerm;
+    private int groupMinLen;
+
+    /**
+     * Creates the decompressor and reads the stream header.
+     *
+     * @throws IOException if {@code in} does not start with a {@code bzip2} stream header
+     */
+    public BZip2InputStream(InputStream in) throws IOException {
+        this.in = in;
+        if (!readStreamHeader()) {
+            throw new IOException("not a bzip2 stream");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        int n = 0;
+        while (n < len) {
+            if (repeatCount > 0) {
+                int count = Math.min(repeatCount, len - n);
+                Arrays.fill(b, off + n, off + n + count, (byte) repeatByte);
+                blockCRC = BZip2Constants.updateCRC(blockCRC, repeatByte, count);
+                repeatCount -= count;
+                n += count;
+            } else if (used == nblock) {
+                if (!nextBlock()) {
+                    break;
+                }
+            } else {
+                tPos = tt[tPos];
+                int ch = tPos & 0xff;
+                tPos >>>= 8;
+                used++;
+                if (runLength == 4) {
+                    repeatByte = lastByte;
+                    repeatCount = ch;
+                    lastByte = -1;
+                    runLength = 0;
+                } else {
+                    if (ch == lastByte) {
+                        runLength++;
+                    } else {
+                        lastByte = ch;
+                        runLength = 1;
+                    }
+                    b[off + n++] = (byte) ch;
+                    blockCRC = BZip2Constants.updateCRC(blockCRC, ch);
+                }
+            }
+        }
+        return n == 0 && len > 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            tt = null;
+            in.close();
+        }
+    }
+
+    /**
+     * Finishes the current block (if any) and decodes the next one.
+     *
+     * @return {@code false} if there are no more blocks
+     */
+    private boolean nextBlock() throws IOException {
+        if (inBlock) {
+            inBlock = false;
+            if (~blockCRC != storedBlockCRC) {
+                throw new IOException("bzip2 block CRC error");
+            }
+            combinedCRC = ((combinedCRC << 1) | (combinedCRC >>> 31)) ^ storedBlockCRC;
+        }
+        while (!eof) {
+            long magic = (long) getBits(24) << 24 | getBits(24);
+            if (magic == BLOCK_MAGIC) {
+                readBlock();
+                return true;
+            } else if (magic == END_OF_STREAM_MAGIC) {
+                int storedCombinedCRC = getInt();
+                if (storedCombinedCRC != combinedCRC) {
+                    throw new IOException("bzip2 stream CRC error");
+                }
+                // streams are byte aligned
+                bitCount -= bitCount % 8;
+                eof = !readStreamHeader();
+            } else {
+                throw new IOException("bzip2 data error: bad block header");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the {@code "BZh"} header followed by the block size.
+     *
+     * @return {@code false} if the input is at its end or does not continue with a stream header
+     */
+    private boolean readStreamHeader() throws IOException {
+        if (readByte() != 'B' || readByte() != 'Z' || readByte() != 'h') {
+            return false;
+        }
+        int size = readByte() - '0';
+        if (size < MIN_BLOCK_SIZE_100K || size > MAX_BLOCK_SIZE_100K) {
+            return false;
+        }
+        blockSize100k = size;
+        combinedCRC = 0;
+        if (tt == null || tt.length < size * BASE_BLOCK_SIZE) {
+            tt = new int[size * BASE_BLOCK_SIZE];
+        }
+        return true;
+    }
+
+    private void readBlock() throws IOException {
+        storedBlockCRC = getInt();
+        if (getBits(1) != 0) {
+            throw new IOException("randomised bzip2 blocks are not supported");
+        }
+        int origPtr = getBits(24);
+        int nInUse = readMappingTable();
+        int alphaSize = nInUse + 2;
+        int nGroups = getBits(3);
+        if (nGroups < 2 || nGroups > N_GROUPS) {
+            throw dataError();
+        }
+        readSelectors(nGroups);
+        readCodingTables(nGroups, alphaSize);
+
+        nblock = decodeSymbols(nInUse);
+        if (origPtr >= nblock) {
+            throw dataError();
+        }
+        // inverse BWT
+        cftab[0] = 0;
+        for (int i = 1; i <= 256; i++) {
+            cftab[i] = cftab[i - 1] + unzftab[i - 1];
+        }
+        int[] t = tt;
+        for (int i = 0; i < nblock; i++) {
+            int uc = t[i] & 0xff;
+            t[cftab[uc]++] |= i << 8;
+        }
+        tPos = t[origPtr] >>> 8;
+        used = 0;
+        lastByte = -1;
+        runLength = 0;
+        repeatCount = 0;
+        blockCRC = 0xffffffff;
+        inBlock = true;
+    }
+
+    private int readMappingTable() throws IOException {
+        int inUse16 = getBits(16);
+        int nInUse = 0;
+        for (int i = 0; i < 16; i++) {
+            if ((inUse16 & (0x8000 >>> i)) != 0) {
+                int inUse = getBits(16);
+                for (int j = 0; j < 16; j++) {
+                    if ((inUse & (0x8000 >>> j)) != 0) {
+                        seqToUnseq[nInUse++] = (byte) (i * 16 + j);
+                    }
+                }
+            }
+        }
+        if (nInUse == 0) {
+            throw dataError();
+        }
+        return nInUse;
+    }
+
+    private void readSelectors(int nGroups) throws IOException {
+        int n = getBits(15);
+        if (n < 1) {
+            throw dataError();
+        }
+        for (int i = 0; i < n; i++) {
+            int j = 0;
+            while (getBits(1) != 0) {
+                j++;
+                if (j >= nGroups) {
+                    throw dataError();
+                }
+            }
+            // bzip2 1.0.8 reads and ignores the selectors that cannot be used
+            if (i < MAX_SELECTORS) {
+                selectorMtf[i] = (byte) j;
+            }
+        }
+        nSelectors = Math.min(n, MAX_SELECTORS);
+        byte[] pos = new byte[N_GROUPS];
+        for (int v = 0; v < nGroups; v++) {
+            pos[v] = (byte) v;
+        }
+        for (int i = 0; i < nSelectors; i++) {
+            int v = selectorMtf[i];
+            byte tmp = pos[v];
+            while (v > 0) {
+                pos[v] = pos[v - 1];
+                v--;
+            }
+            pos[0] = tmp;
+            selectors[i] = tmp;
+        }
+    }
+
+    private void readCodingTables(int nGroups, int alphaSize) throws IOException {
+        for (int t = 0; t < nGroups; t++) {
+            int curr = getBits(5);
+            byte[] len = lens[t];
+            int minLen = 32;
+            int maxLen = 0;
+            for (int i = 0; i < alphaSize; i++) {
+                while (true) {
+                    if (curr < 1 || curr > MAX_DECODE_CODE_LEN) {
+                        throw dataError();
+                    }
+                    if (getBits(1) == 0) {
+                        break;
+                    }
+                    curr += getBits(1) == 0 ? 1 : -1;
+                }
+                len[i] = (byte) curr;
+                minLen = Math.min(minLen, curr);
+                maxLen = Math.max(maxLen, curr);
+            }
+            createDecodeTables(limit[t], base[t], perm[t], len, minLen, maxLen, alphaSize);
+            minLens[t] = minLen;
+        }
+    }
+
+    /**
+     * Creates the tables for decoding the canonical Huffman code given by the code lengths, see
+     * {@code BZ2_hbCreateDecodeTables}.
+     */
+    private static void createDecodeTables(int[] limit, int[] base, int[] perm, byte[] length, int minLen, int maxLen, int alphaSize) {
+        int pp = 0;
+        for (int i = minLen; i <= maxLen; i++) {
+            for (int j = 0; j < alphaSize; j++) {
+                if (length[j] == i) {
+                    perm[pp++] = j;
+                }
+            }
+        }
+        Arrays.fill(base, 0);
+        for (int i = 0; i < alphaSize; i++) {
+            base[length[i] + 1]++;
+        }
+        for (int i = 1; i < MAX_CODE_LEN; i++) {
+            base[i] += base[i - 1];
+        }
+        Arrays.fill(limit, 0);
+        int vec = 0;
+        for (int i = minLen; i <= maxLen; i++) {
+            vec += base[i + 1] - base[i];
+            limit[i] = vec - 1;
+            vec <<= 1;
+        }
+        for (int i = minLen + 1; i <= maxLen; i++) {
+            base[i] = ((limit[i - 1] + 1) << 1) - base[i];
+        }
+    }
+
+    /**
+     * Decodes the Huffman coded MTF values into the (run-length encoded) BWT of the block, which
+     * is stored in the low 8 bits of {@link #tt}.
+     *
+     * @return the length of the block
+     */
+    private int decodeSymbols(int nInUse) throws IOException {
+        int eob = nInUse + 1;
+        int nblockMax = blockSize100k * BASE_BLOCK_SIZE;
+        int[] t = tt;
+        Arrays.fill(unzftab, 0);
+        for (int i = 0; i < 256; i++) {
+            yy[i] = (byte) i;
+        }
+        groupNo = -1;
+        groupPos = 0;
+        int n = 0;
+        int nextSym = nextSymbol();
+        while (nextSym != eob) {
+            if (nextSym <= RUNB) {
+                int es = 0;
+                int weight = 1;
+                do {
+                    if (weight >= 2 * 1024 * 1024) {
+                        throw dataError();
+                    }
+                    es += (nextSym + 1) * weight;
+                    weight <<= 1;
+                    nextSym = nextSymbol();
+                } while (nextSym <= RUNB);
+                int uc = seqToUnseq[yy[0] & 0xff] & 0xff;
+                if (es > nblockMax - n) {
+                    throw dataError();
+                }
+                unzftab[uc] += es;
+                Arrays.fill(t, n, n + es, uc);
+                n += es;
+            } else {
+                if (n >= nblockMax) {
+                    throw dataError();
+                }
+                int nn = nextSym - 1;
+                byte tmp = yy[nn];
+                System.arraycopy(yy, 0, yy, 1, nn);
+                yy[0] = tmp;
+                int uc = seqToUnseq[tmp & 0xff] & 0xff;
+                unzftab[uc]++;
+                t[n++] = uc;
+                nextSym = nextSymbol();
+            }
+        }
+        return n;
+    }
+
+    private int nextSymbol() throws IOException {
+        if (groupPos == 0) {
+            groupNo++;
+            if (groupNo >= nSelectors) {
+                throw dataError();
+            }
+            groupPos = G_SIZE;
+            int sel = selectors[groupNo];
+            groupLimit = limit[sel];
+            groupBase = base[sel];
+            groupPerm = perm[sel];
+            groupMinLen = minLens[sel];
+        }
+        groupPos--;
+        int zn = groupMinLen;
+        int zvec = getBits(zn);
+        while (zvec > groupLimit[zn]) {
+            zn++;
+            if (zn > MAX_DECODE_CODE_LEN) {
+                throw dataError();
+            }
+            zvec = (zvec << 1) | getBits(1);
+        }
+        int index = zvec - groupBase[zn];
+        if (index < 0 || index >= MAX_ALPHA_SIZE) {
+            throw dataError();
+        }
+        return groupPerm[index];
+    }
+
+    private static IOException dataError() {
+        return new IOException("bzip2 data error");
+    }
+
+    private int getInt() throws IOException {
+        return getBits(16) << 16 | getBits(16);
+    }
+
+    /**
+     * Reads {@code n} (at most 24) bits.
+     */
+    private int getBits(int n) throws IOException {
+        while (bitCount < n) {
+            int b = nextInputByte();
+            if (b < 0) {
+                throw new EOFException("unexpected end of bzip2 stream");
+            }
+            bitBuffer = (bitBuffer << 8) | b;
+            bitCount += 8;
+        }
+        bitCount -= n;
+        return (int) (bitBuffer >>> bitCount) & ((1 << n) - 1);
+    }
+
+    /**
+     * Reads a byte at a byte aligned position, {@code -1} if there is no more input.
+     */
+    private int readByte() throws IOException {
+        assert bitCount % 8 == 0;
+        if (bitCount > 0) {
+            return getBits(8);
+        }
+        return nextInputByte();
+    }
+
+    private int nextInputByte() throws IOException {
+        if (inPos == inLimit) {
+            int n = in.read(inBuffer, 0, inBuffer.length);
+            if (n <= 0) {
+                return -1;
+            }
+            inPos = 0;
+            inLimit = n;
+        }
+        return inBuffer[inPos++] & 0xff;
+    }
+}
@@ -0,0 +1,688 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.BASE_BLOCK_SIZE;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.BLOCK_MAGIC;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.END_OF_STREAM_MAGIC;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.G_SIZE;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MAX_ALPHA_SIZE;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MAX_BLOCK_SIZE_100K;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MAX_ENCODE_CODE_LEN;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.MIN_BLOCK_SIZE_100K;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.N_GROUPS;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.N_ITERS;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.RUNA;
+import static com.oracle.truffle.r.runtime.conn.BZip2Constants.RUNB;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming compressor producing the {@code bzip2} format. The data are compressed block by block
+ * as they are written, so the memory needed does not depend on the amount of data (it is about
+ * 20MB for the 900k blocks).
+ *
+ * The block sorting uses prefix doubling on the rotations of the block, which is slower than the
+ * algorithm of {@code bzip2} on typical data, but has no degenerate cases on repetitive data.
+ * {@link #flush()} does not end the current block, the data are complete only after
+ * {@link #close()} or {@link #finish()}.
+ */
+public final class BZip2OutputStream extends OutputStream {
+
+    private static final int LESSER_ICOST = 0;
+    private static final int GREATER_ICOST = 15;
+
+    private final OutputStream out;
+    private final int blockSize100k;
+    private final byte[] outBuffer = new byte[8192];
+    private int outPos;
+    private long bitBuffer;
+    private int bitCount;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * The run-length encoded data of the current block.
+     */
+    private final byte[] block;
+    /**
+     * The block is compressed once it gets longer than this, it leaves space for the longest
+     * encoded run.
+     */
+    private final int maxBlockLength;
+    private int nblock;
+    private final boolean[] inUse = new boolean[256];
+    private int blockCRC = 0xffffffff;
+    private int combinedCRC;
+    private int runByte = -1;
+    private int runLength;
+
+    // the sorting and coding arrays are allocated with the first block
+    private int[] sa;
+    private int[] rank;
+    private int[] tmp;
+    private int[] counts;
+    private char[] mtfv;
+
+    private final int[] mtfFreq = new int[MAX_ALPHA_SIZE];
+    private final byte[][] lens = new byte[N_GROUPS][MAX_ALPHA_SIZE];
+    private final int[][] codes = new int[N_GROUPS][MAX_ALPHA_SIZE];
+    private final int[][] rfreq = new int[N_GROUPS][MAX_ALPHA_SIZE];
+    private final byte[] selectors = new byte[BZip2Constants.MAX_SELECTORS];
+    private final byte[] selectorMtf = new byte[BZip2Constants.MAX_SELECTORS];
+
+    public BZip2OutputStream(OutputStream out) throws IOException {
+        this(out, MAX_BLOCK_SIZE_100K);
+    }
+
+    /**
+     * Creates the compressor and writes the stream header.
+     *
+     * @param blockSize100k the block size in units of 100k, between 1 and 9
+     */
+    public BZip2OutputStream(OutputStream out, int blockSize100k) throws IOException {
+        if (blockSize100k < MIN_BLOCK_SIZE_100K || blockSize100k > MAX_BLOCK_SIZE_100K) {
+            throw new IllegalArgumentException("invalid bzip2 block size: " + blockSize100k);
+        }
+        this.out = out;
+        this.blockSize100k = blockSize100k;
+        this.block = new byte[blockSize100k * BASE_BLOCK_SIZE];
+        this.maxBlockLength = block.length - 19;
+        writeBits(8, 'B');
+        writeBits(8, 'Z');
+        writeBits(8, 'h');
+        writeBits(8, '0' + blockSize100k);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (finished) {
+            throw new IOException("stream finished");
+        }
+        int v = b & 0xff;
+        if (v == runByte && runLength < 255) {
+            runLength++;
+        } else {
+            if (runLength > 0) {
+                endRun();
+            }
+            runByte = v;
+            runLength = 1;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("stream finished");
+        }
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        for (int i = off; i < off + len; i++) {
+            int v = b[i] & 0xff;
+            if (v == runByte && runLength < 255) {
+                runLength++;
+            } else {
+                if (runLength > 0) {
+                    endRun();
+                }
+                runByte = v;
+                runLength = 1;
+            }
+        }
+    }
+
+    /**
+     * Writes the compressed data produced so far to the underlying stream. The current block is
+     * not ended.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!closed) {
+            flushOutBuffer();
+            out.flush();
+        }
+    }
+
+    /**
+     * Compresses the remaining data and writes the end of the stream without closing the
+     * underlying stream.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (runLength > 0) {
+            endRun();
+        }
+        if (nblock > 0) {
+            writeBlock();
+        }
+        writeBits(24, (int) (END_OF_STREAM_MAGIC >>> 24));
+        writeBits(24, (int) END_OF_STREAM_MAGIC & 0xffffff);
+        writeInt(combinedCRC);
+        if (bitCount > 0) {
+            writeBits(8 - bitCount, 0);
+        }
+        flushOutBuffer();
+        finished = true;
+        sa = null;
+        rank = null;
+        tmp = null;
+        counts = null;
+        mtfv = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            try {
+                finish();
+            } finally {
+                closed = true;
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Adds the current run to the block: up to three bytes are stored as they are, longer runs as
+     * four bytes followed by the number of the remaining repetitions.
+     */
+    private void endRun() throws IOException {
+        int b = runByte;
+        int len = runLength;
+        blockCRC = BZip2Constants.updateCRC(blockCRC, b, len);
+        inUse[b] = true;
+        byte v = (byte) b;
+        if (len < 4) {
+            for (int i = 0; i < len; i++) {
+                block[nblock++] = v;
+            }
+        } else {
+            block[nblock++] = v;
+            block[nblock++] = v;
+            block[nblock++] = v;
+            block[nblock++] = v;
+            block[nblock++] = (byte) (len - 4);
+            inUse[len - 4] = true;
+        }
+        runByte = -1;
+        runLength = 0;
+        if (nblock >= maxBlockLength) {
+            writeBlock();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        blockCRC = ~blockCRC;
+        combinedCRC = ((combinedCRC << 1) | (combinedCRC >>> 31)) ^ blockCRC;
+        if (sa == null) {
+            sa = new int[block.length];
+            rank = new int[block.length];
+            tmp = new int[block.length];
+            counts = new int[Math.max(block.length, 257)];
+            mtfv = new char[block.length + 1];
+        }
+        int origPtr = sortBlock();
+        writeBits(24, (int) (BLOCK_MAGIC >>> 24));
+        writeBits(24, (int) BLOCK_MAGIC & 0xffffff);
+        writeInt(blockCRC);
+        writeBits(1, 0);
+        writeBits(24, origPtr);
+        int nInUse = 0;
+        int[] unseqToSeq = new int[256];
+        for (int i = 0; i < 256; i++) {
+            if (inUse[i]) {
+                unseqToSeq[i] = nInUse++;
+            }
+        }
+        int nMTF = generateMTFValues(unseqToSeq, nInUse);
+        writeMappingTable();
+        sendMTFValues(nInUse + 2, nMTF);
+
+        nblock = 0;
+        blockCRC = 0xffffffff;
+        Arrays.fill(inUse, false);
+    }
+
+    /**
+     * Sorts the rotations of the block into {@link #sa} by prefix doubling: in each round the
+     * rotations are ordered by the ranks of their first {@code h} bytes and the ranks of the
+     * following {@code h} bytes, until all the ranks differ or the whole rotations are compared.
+     *
+     * @return the position of the unrotated block in the sorted rotations
+     */
+    private int sortBlock() {
+        int n = nblock;
+        int[] s = sa;
+        int[] r = rank;
+        int[] t = tmp;
+        int[] c = counts;
+        Arrays.fill(c, 0, 257, 0);
+        for (int i = 0; i < n; i++) {
+            c[(block[i] & 0xff) + 1]++;
+        }
+        for (int i = 1; i <= 256; i++) {
+            c[i] += c[i - 1];
+        }
+        for (int i = 0; i < n; i++) {
+            s[c[block[i] & 0xff]++] = i;
+        }
+        int nRanks = 1;
+        r[s[0]] = 0;
+        for (int j = 1; j < n; j++) {
+            if (block[s[j]] != block[s[j - 1]]) {
+                nRanks++;
+            }
+            r[s[j]] = nRanks - 1;
+        }
+        for (int h = 1; nRanks < n && h < n; h <<= 1) {
+            // the rotations ordered by their second half
+            for (int j = 0; j < n; j++) {
+                int p = s[j] - h;
+                t[j] = p < 0 ? p + n : p;
+            }
+            // stable counting sort by the first half
+            Arrays.fill(c, 0, nRanks + 1, 0);
+            for (int j = 0; j < n; j++) {
+                c[r[t[j]] + 1]++;
+            }
+            for (int i = 1; i <= nRanks; i++) {
+                c[i] += c[i - 1];
+            }
+            for (int j = 0; j < n; j++) {
+                int p = t[j];
+                s[c[r[p]]++] = p;
+            }
+            // new ranks
+            nRanks = 1;
+            t[s[0]] = 0;
+            for (int j = 1; j < n; j++) {
+                int cur = s[j];
+                int prev = s[j - 1];
+                if (r[cur] != r[prev] || r[cur + h < n ? cur + h : cur + h - n] != r[prev + h < n ? prev + h : prev + h - n]) {
+                    nRanks++;
+                }
+                t[cur] = nRanks - 1;
+            }
+            int[] swap = r;
+            r = t;
+            t = swap;
+        }
+        rank = r;
+        tmp = t;
+        for (int j = 0; j < n; j++) {
+            if (s[j] == 0) {
+                return j;
+            }
+        }
+        throw new AssertionError();
+    }
+
+    /**
+     * Applies the move-to-front transform to the last column of the sorted rotations, the runs of
+     * zeros are encoded with {@link BZip2Constants#RUNA} and {@link BZip2Constants#RUNB} in
+     * bijective base 2.
+     *
+     * @return the number of MTF values including the end of block symbol
+     */
+    private int generateMTFValues(int[] unseqToSeq, int nInUse) {
+        int n = nblock;
+        int eob = nInUse + 1;
+        Arrays.fill(mtfFreq, 0, eob + 1, 0);
+        byte[] yy = new byte[256];
+        for (int i = 0; i < nInUse; i++) {
+            yy[i] = (byte) i;
+        }
+        int wr = 0;
+        int zPend = 0;
+        for (int j = 0; j < n; j++) {
+            int p = sa[j] - 1;
+            byte v = (byte) unseqToSeq[block[p < 0 ? p + n : p] & 0xff];
+            if (yy[0] == v) {
+                zPend++;
+            } else {
+                if (zPend > 0) {
+                    wr = writeZeroRun(wr, zPend);
+                    zPend = 0;
+                }
+                int pos = 1;
+                while (yy[pos] != v) {
+                    pos++;
+                }
+                System.arraycopy(yy, 0, yy, 1, pos);
+                yy[0] = v;
+                mtfv[wr++] = (char) (pos + 1);
+                mtfFreq[pos + 1]++;
+            }
+        }
+        if (zPend > 0) {
+            wr = writeZeroRun(wr, zPend);
+        }
+        mtfv[wr++] = (char) eob;
+        mtfFreq[eob]++;
+        return wr;
+    }
+
+    private int writeZeroRun(int start, int length) {
+        int wr = start;
+        int zPend = length - 1;
+        while (true) {
+            int sym = (zPend & 1) != 0 ? RUNB : RUNA;
+            mtfv[wr++] = (char) sym;
+            mtfFreq[sym]++;
+            if (zPend < 2) {
+                break;
+            }
+            zPend = (zPend - 2) / 2;
+        }
+        return wr;
+    }
+
+    private void writeMappingTable() throws IOException {
+        int inUse16 = 0;
+        for (int i = 0; i < 16; i++) {
+            for (int j = 0; j < 16; j++) {
+                if (inUse[i * 16 + j]) {
+                    inUse16 |= 0x8000 >>> i;
+                    break;
+                }
+            }
+        }
+        writeBits(16, inUse16);
+        for (int i = 0; i < 16; i++) {
+            if ((inUse16 & (0x8000 >>> i)) != 0) {
+                int bits = 0;
+                for (int j = 0; j < 16; j++) {
+                    if (inUse[i * 16 + j]) {
+                        bits |= 0x8000 >>> j;
+                    }
+                }
+                writeBits(16, bits);
+            }
+        }
+    }
+
+    /**
+     * Chooses the Huffman tables for the groups of {@link BZip2Constants#G_SIZE} symbols and
+     * writes the tables, the selectors and the coded symbols, see {@code sendMTFValues} in
+     * {@code bzip2}.
+     */
+    private void sendMTFValues(int alphaSize, int nMTF) throws IOException {
+        int nGroups = nMTF < 200 ? 2 : nMTF < 600 ? 3 : nMTF < 1200 ? 4 : nMTF < 2400 ? 5 : 6;
+
+        // initial tables, each covering a range of symbols with about the same frequency
+        int nPart = nGroups;
+        int remF = nMTF;
+        int gs = 0;
+        while (nPart > 0) {
+            int tFreq = remF / nPart;
+            int ge = gs - 1;
+            int aFreq = 0;
+            while (aFreq < tFreq && ge < alphaSize - 1) {
+                ge++;
+                aFreq += mtfFreq[ge];
+            }
+            if (ge > gs && nPart != nGroups && nPart != 1 && ((nGroups - nPart) % 2 == 1)) {
+                aFreq -= mtfFreq[ge];
+                ge--;
+            }
+            byte[] len = lens[nPart - 1];
+            for (int v = 0; v < alphaSize; v++) {
+                len[v] = (byte) (v >= gs && v <= ge ? LESSER_ICOST : GREATER_ICOST);
+            }
+            nPart--;
+            gs = ge + 1;
+            remF -= aFreq;
+        }
+
+        int nSelectors = 0;
+        int[] cost = new int[N_GROUPS];
+        for (int iter = 0; iter < N_ITERS; iter++) {
+            for (int t = 0; t < nGroups; t++) {
+                Arrays.fill(rfreq[t], 0);
+            }
+            nSelectors = 0;
+            for (gs = 0; gs < nMTF; gs += G_SIZE) {
+                int ge = Math.min(gs + G_SIZE, nMTF);
+                Arrays.fill(cost, 0);
+                for (int i = gs; i < ge; i++) {
+                    int icv = mtfv[i];
+                    for (int t = 0; t < nGroups; t++) {
+                        cost[t] += lens[t][icv];
+                    }
+                }
+                int bt = 0;
+                for (int t = 1; t < nGroups; t++) {
+                    if (cost[t] < cost[bt]) {
+                        bt = t;
+                    }
+                }
+                selectors[nSelectors++] = (byte) bt;
+                int[] freq = rfreq[bt];
+                for (int i = gs; i < ge; i++) {
+                    freq[mtfv[i]]++;
+                }
+            }
+            for (int t = 0; t < nGroups; t++) {
+                makeCodeLengths(lens[t], rfreq[t], alphaSize, MAX_ENCODE_CODE_LEN);
+            }
+        }
+
+        byte[] pos = new byte[N_GROUPS];
+        for (int i = 0; i < nGroups; i++) {
+            pos[i] = (byte) i;
+        }
+        for (int i = 0; i < nSelectors; i++) {
+            byte v = selectors[i];
+            int j = 0;
+            while (pos[j] != v) {
+                j++;
+            }
+            System.arraycopy(pos, 0, pos, 1, j);
+            pos[0] = v;
+            selectorMtf[i] = (byte) j;
+        }
+
+        for (int t = 0; t < nGroups; t++) {
+            assignCodes(codes[t], lens[t], alphaSize);
+        }
+
+        writeBits(3, nGroups);
+        writeBits(15, nSelectors);
+        for (int i = 0; i < nSelectors; i++) {
+            for (int j = 0; j < selectorMtf[i]; j++) {
+                writeBits(1, 1);
+            }
+            writeBits(1, 0);
+        }
+
+        for (int t = 0; t < nGroups; t++) {
+            byte[] len = lens[t];
+            int curr = len[0];
+            writeBits(5, curr);
+            for (int i = 0; i < alphaSize; i++) {
+                while (curr < len[i]) {
+                    writeBits(2, 2);
+                    curr++;
+                }
+                while (curr > len[i]) {
+                    writeBits(2, 3);
+                    curr--;
+                }
+                writeBits(1, 0);
+            }
+        }
+
+        int selCtr = 0;
+        for (gs = 0; gs < nMTF; gs += G_SIZE) {
+            int ge = Math.min(gs + G_SIZE, nMTF);
+            int t = selectors[selCtr++];
+            byte[] len = lens[t];
+            int[] code = codes[t];
+            for (int i = gs; i < ge; i++) {
+                int sym = mtfv[i];
+                writeBits(len[sym], code[sym]);
+            }
+        }
+    }
+
+    /**
+     * Computes the Huffman code lengths, limited to {@code maxLen} bits by repeatedly flattening
+     * the frequencies, see {@code BZ2_hbMakeCodeLengths}. The low 8 bits of the weights hold the
+     * depth of the subtree so that shallower trees are preferred on ties.
+     */
+    private static void makeCodeLengths(byte[] len, int[] freq, int alphaSize, int maxLen) {
+        int[] weight = new int[alphaSize * 2];
+        int[] parent = new int[alphaSize * 2];
+        int[] heap = new int[alphaSize + 1];
+        for (int i = 0; i < alphaSize; i++) {
+            weight[i] = (freq[i] == 0 ? 1 : freq[i]) << 8;
+        }
+        while (true) {
+            int nNodes = alphaSize;
+            int nHeap = 0;
+            for (int i = 0; i < alphaSize; i++) {
+                parent[i] = -1;
+                heap[++nHeap] = i;
+                upHeap(heap, weight, nHeap);
+            }
+            while (nHeap > 1) {
+                int n1 = heap[1];
+                heap[1] = heap[nHeap--];
+                downHeap(heap, weight, nHeap);
+                int n2 = heap[1];
+                heap[1] = heap[nHeap--];
+                downHeap(heap, weight, nHeap);
+                parent[n1] = nNodes;
+                parent[n2] = nNodes;
+                int w1 = weight[n1];
+                int w2 = weight[n2];
+                weight[nNodes] = ((w1 & 0xffffff00) + (w2 & 0xffffff00)) | (1 + Math.max(w1 & 0xff, w2 & 0xff));
+                parent[nNodes] = -1;
+                heap[++nHeap] = nNodes;
+                upHeap(heap, weight, nHeap);
+                nNodes++;
+            }
+            boolean tooLong = false;
+            for (int i = 0; i < alphaSize; i++) {
+                int depth = 0;
+                for (int k = i; parent[k] >= 0; k = parent[k]) {
+                    depth++;
+                }
+                len[i] = (byte) depth;
+                tooLong |= depth > maxLen;
+            }
+            if (!tooLong) {
+                return;
+            }
+            for (int i = 0; i < alphaSize; i++) {
+                int j = weight[i] >> 8;
+                weight[i] = (1 + j / 2) << 8;
+            }
+        }
+    }
+
+    private static void upHeap(int[] heap, int[] weight, int start) {
+        int z = start;
+        int node = heap[z];
+        while (z > 1 && weight[node] < weight[heap[z >> 1]]) {
+            heap[z] = heap[z >> 1];
+            z >>= 1;
+        }
+        heap[z] = node;
+    }
+
+    private static void downHeap(int[] heap, int[] weight, int nHeap) {
+        int z = 1;
+        int node = heap[z];
+        while (true) {
+            int child = z << 1;
+            if (child > nHeap) {
+                break;
+            }
+            if (child < nHeap && weight[heap[child + 1]] < weight[heap[child]]) {
+                child++;
+            }
+            if (weight[node] < weight[heap[child]]) {
+                break;
+            }
+            heap[z] = heap[child];
+            z = child;
+        }
+        heap[z] = node;
+    }
+
+    /**
+     * Assigns the canonical Huffman codes: shorter codes first, symbols of the same length in
+     * ascending order.
+     */
+    private static void assignCodes(int[] code, byte[] len, int alphaSize) {
+        int minLen = 32;
+        int maxLen = 0;
+        for (int i = 0; i < alphaSize; i++) {
+            minLen = Math.min(minLen, len[i]);
+            maxLen = Math.max(maxLen, len[i]);
+        }
+        int vec = 0;
+        for (int n = minLen; n <= maxLen; n++) {
+            for (int i = 0; i < alphaSize; i++) {
+                if (len[i] == n) {
+                    code[i] = vec++;
+                }
+            }
+            vec <<= 1;
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeBits(16, value >>> 16);
+        writeBits(16, value & 0xffff);
+    }
+
+    /**
+     * Writes the {@code n} (at most 24) low bits of {@code value}.
+     */
+    private void writeBits(int n, int value) throws IOException {
+        bitBuffer = (bitBuffer << n) | (value & ((1 << n) - 1));
+        bitCount += n;
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            outBuffer[outPos++] = (byte) (bitBuffer >>> bitCount);
+            if (outPos == outBuffer.length) {
+                flushOutBuffer();
+            }
+        }
+    }
+
+    private void flushOutBuffer() throws IOException {
+        if (outPos > 0) {
+            out.write(outBuffer, 0, outPos);
+            outPos = 0;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -37,6 +37,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Objects;
 
@@ -60,6 +61,7 @@ abstract class DelegateRConnection extends RObject implements RConnection, ByteC
     protected final BaseRConnection base;
     private final ByteBuffer cache;
     private final boolean readCache;
+    private LineScanner lineScanner;
 
     DelegateRConnection(BaseRConnection base) {
         this(base, DEFAULT_CACHE_SIZE, true);
@@ -137,6 +139,12 @@ abstract class DelegateRConnection extends RObject implements RConnection, ByteC
     @Override
     @TruffleBoundary
     public String[] readLines(int n, EnumSet<ReadLineWarning> warn, boolean skipNul) throws IOException {
+        if (readCache && cache != null) {
+            if (lineScanner == null) {
+                lineScanner = new LineScanner();
+            }
+            return lineScanner.readLines(n, warn, skipNul);
+        }
         base.setIncomplete(false);
         ArrayList<String> lines = new ArrayList<>();
         int totalRead = 0;
@@ -213,6 +221,158 @@ abstract class DelegateRConnection extends RObject implements RConnection, ByteC
         return result;
     }
 
+    /**
+     * Reads lines directly from the read cache: the line terminators are searched for in the cache
+     * array and whole runs of bytes are copied into the line buffer, which is kept for the
+     * subsequent calls. Lines that consist of ASCII characters only are not passed through the
+     * charset decoder if the encoding is ASCII compatible. The semantics are the same as of the
+     * byte-by-byte reading in {@link DelegateRConnection#readLines}.
+     */
+    private final class LineScanner {
+        private byte[] lineBytes = new byte[256];
+        private char[] lineChars = new char[256];
+        private int lineLength;
+        private boolean ascii;
+
+        String[] readLines(int n, EnumSet<ReadLineWarning> warn, boolean skipNul) throws IOException {
+            base.setIncomplete(false);
+            ArrayList<String> lines = new ArrayList<>(n > 0 ? Math.min(n, 1024) : 16);
+            int nBytesConsumed = 0;
+            boolean eof = false;
+            while (n <= 0 || lines.size() < n) {
+                String line = nextLine(warn, skipNul, lines.size());
+                if (line == null) {
+                    eof = true;
+                    break;
+                }
+                nBytesConsumed += lineLength;
+                lines.add(line);
+            }
+            if (eof && lineLength > 0) {
+                /*
+                 * GnuR says if non-blocking and in text mode, silently push back incomplete lines,
+                 * otherwise keep data and output warning.
+                 */
+                String incompleteFinalLine = toLineString();
+                nBytesConsumed += lineLength;
+                if (!base.isBlocking() && base.isTextMode()) {
+                    base.pushBack(RDataFactory.createStringVector(incompleteFinalLine), false);
+                    base.setIncomplete(true);
+                } else {
+                    lines.add(incompleteFinalLine);
+                    if (warn.contains(ReadLineWarning.INCOMPLETE_LAST_LINE)) {
+                        RError.warning(RError.SHOW_CALLER, RError.Message.INCOMPLETE_FINAL_LINE, base.getSummaryDescription());
+                    }
+                }
+                lineLength = 0;
+            }
+            updateReadOffset(nBytesConsumed);
+            return lines.toArray(new String[lines.size()]);
+        }
+
+        /**
+         * Returns the next complete line or {@code null} at the end of the input, in which case
+         * the bytes of an incomplete last line are left in the line buffer.
+         */
+        private String nextLine(EnumSet<ReadLineWarning> warn, boolean skipNul, int lineIndex) throws IOException {
+            lineLength = 0;
+            ascii = true;
+            boolean nullRead = false;
+            while (true) {
+                if (!cache.hasRemaining()) {
+                    ensureDataAvailable(1);
+                    if (!cache.hasRemaining()) {
+                        return null;
+                    }
+                }
+                byte[] array = cache.array();
+                int start = cache.arrayOffset() + cache.position();
+                int limit = cache.arrayOffset() + cache.limit();
+                int i = start;
+                byte b = 0;
+                while (i < limit) {
+                    b = array[i];
+                    if (b == '\n' || b == '\r' || b == 0) {
+                        break;
+                    }
+                    i++;
+                }
+                if (!nullRead) {
+                    append(array, start, i - start);
+                }
+                if (i == limit) {
+                    cache.position(limit - cache.arrayOffset());
+                    continue;
+                }
+                cache.position(i + 1 - cache.arrayOffset());
+                if (b == 0) {
+                    if (!skipNul) {
+                        nullRead = true;
+                        if (warn.contains(ReadLineWarning.EMBEDDED_NUL)) {
+                            RError.warning(RError.SHOW_CALLER, RError.Message.LINE_CONTAINS_EMBEDDED_NULLS, lineIndex + 1);
+                        }
+                    }
+                    continue;
+                }
+                if (b == '\r') {
+                    if (!cache.hasRemaining()) {
+                        ensureDataAvailable(1);
+                    }
+                    if (cache.hasRemaining() && cache.get(cache.position()) == '\n') {
+                        // swallow the trailing lf
+                        cache.get();
+                    }
+                }
+                return toLineString();
+            }
+        }
+
+        private void append(byte[] array, int start, int length) {
+            if (length == 0) {
+                return;
+            }
+            if (lineLength + length > lineBytes.length) {
+                lineBytes = Arrays.copyOf(lineBytes, Math.max(lineBytes.length * 2, lineLength + length));
+            }
+            System.arraycopy(array, start, lineBytes, lineLength, length);
+            if (ascii) {
+                for (int i = start; i < start + length; i++) {
+                    if (array[i] < 0) {
+                        ascii = false;
+                        break;
+                    }
+                }
+            }
+            lineLength += length;
+        }
+
+        private String toLineString() {
+            Charset encoding = base.getEncoding();
+            if (ascii && isASCIICompatible(encoding)) {
+                if (lineChars.length < lineLength) {
+                    lineChars = new char[Math.max(lineChars.length * 2, lineLength)];
+                }
+                for (int i = 0; i < lineLength; i++) {
+                    lineChars[i] = (char) lineBytes[i];
+                }
+                return new String(lineChars, 0, lineLength);
+            }
+            return new String(lineBytes, 0, lineLength, encoding);
+        }
+    }
+
+    private static boolean isASCIICompatible(Charset encoding) {
+        switch (encoding.name()) {
+            case "UTF-8":
+            case "ISO-8859-1":
+            case "US-ASCII":
+            case "windows-1252":
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Updates the read cursor.<br>
      * <p>
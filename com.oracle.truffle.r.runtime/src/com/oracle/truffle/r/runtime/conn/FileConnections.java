@@ -22,8 +22,6 @@
  */
 package com.oracle.truffle.r.runtime.conn;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -103,7 +101,8 @@ public class FileConnections {
      */
     public static class CompressedRConnection extends BasePathRConnection {
         private final RCompression.Type cType;
-        @SuppressWarnings("unused") private final int compression; // TODO
+        /** The compression level, only bzfile uses it (as the block size). */
+        private final int compression;
 
         public CompressedRConnection(String path, String modeString, Type cType, String encoding, int compression) throws IOException {
             super(path, path, mapConnectionClass(cType), modeString, AbstractOpenMode.ReadBinary, encoding);
@@ -204,18 +203,19 @@ public class FileConnections {
     }
 
     private static DelegateRConnection createBZIP2DelegateConnection(BasePathRConnection base) throws IOException {
-
+        // the compression level of bzip2 is the block size, GNU R uses 9 unless told otherwise
+        int blockSize100k = base instanceof CompressedRConnection ? Math.max(((CompressedRConnection) base).compression, 1) : 9;
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
             case ReadBinary:
-                byte[] bzipUdata = RCompression.bzipUncompressFromFile(base.path);
-                return new ByteStreamCompressedInputRConnection(base, new ByteArrayInputStream(bzipUdata));
+                return new CompressedInputRConnection(base, new BZip2InputStream(RContext.getInstance().getEnv().getTruffleFile(base.path).newInputStream()));
             case Append:
             case AppendBinary:
-                return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), true);
+                return new CompressedOutputRConnection(base,
+                                new BZip2OutputStream(RContext.getInstance().getEnv().getTruffleFile(base.path).newOutputStream(StandardOpenOption.APPEND), blockSize100k), false);
             case Write:
             case WriteBinary:
-                return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), false);
+                return new CompressedOutputRConnection(base, new BZip2OutputStream(RContext.getInstance().getEnv().getTruffleFile(base.path).newOutputStream(), blockSize100k), false);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
@@ -739,12 +739,6 @@ public class FileConnections {
         }
     }
 
-    private static class ByteStreamCompressedInputRConnection extends CompressedInputRConnection {
-        ByteStreamCompressedInputRConnection(BasePathRConnection base, ByteArrayInputStream is) {
-            super(base, is);
-        }
-    }
-
     private static class CompressedOutputRConnection extends DelegateWriteRConnection {
         protected ByteChannel channel;
         private final boolean seekable;
@@ -789,23 +783,4 @@ public class FileConnections {
             throw RError.nyi(RError.SHOW_CALLER, "truncating compressed file not");
         }
     }
-
-    private static class BZip2OutputRConnection extends CompressedOutputRConnection {
-        private final ByteArrayOutputStream bos;
-        private final boolean append;
-
-        BZip2OutputRConnection(BasePathRConnection base, ByteArrayOutputStream os, boolean append) {
-            super(base, os, false);
-            this.bos = os;
-            this.append = append;
-        }
-
-        @Override
-        public void close() throws IOException {
-            flush();
-            // Now actually do the compression using sub-process
-            byte[] data = bos.toByteArray();
-            RCompression.bzipCompressToFile(data, ((BasePathRConnection) base).path, append);
-        }
-    }
 }
@@ -244,6 +244,13 @@ public interface Engine {
      */
     Object parseAndEval(Source sourceDesc, MaterializedFrame frame, boolean printResult) throws ParseException;
 
+    /**
+     * Like {@link #parseAndEval}, but intended for the R sources of the system packages that are
+     * evaluated by every new context. The AST is parsed only once per language instance and cached
+     * under the content of the source, every evaluation then executes a fresh copy of it.
+     */
+    Object parseAndEvalCached(Source sourceDesc, MaterializedFrame frame) throws ParseException;
+
     default Object eval(RExpression expr, REnvironment envir, RCaller caller) {
         return eval(expr, envir, null, caller, null);
     }
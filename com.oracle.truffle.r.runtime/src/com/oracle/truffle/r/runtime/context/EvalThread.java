@@ -35,9 +35,11 @@ import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.context.Engine.ParseException;
+import com.oracle.truffle.r.runtime.data.NativeDataAccess;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.env.REnvironment;
 
 /**
  * A thread for performing an evaluation (used by {@code .fastr} builtins).
@@ -74,6 +76,8 @@ public class EvalThread extends Thread {
         try {
             evalResult = run(truffleContext, info, source);
         } finally {
+            // the free native memory cached by this thread would not be reused by anyone else
+            NativeDataAccess.flushNativeMemoryCache();
             threadMap.remove(info.getId());
             threadCnt.decrementAndGet();
         }
@@ -124,6 +128,31 @@ public class EvalThread extends Thread {
         return result;
     }
 
+    /**
+     * Waits for the eval threads of the given child contexts to finish and releases their multi
+     * slots (as done by {@code .fastr.context.join}).
+     */
+    public static void join(Map<Integer, Thread> threadMap, int[] ids) throws InterruptedException {
+        int[] multiSlotIndices = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            Thread thread = threadMap.get(id);
+            if (idToMultiSlotTable.containsKey(id)) {
+                multiSlotIndices[i] = idToMultiSlotTable.remove(id);
+            }
+            if (thread != null) {
+                thread.join();
+            }
+            // otherwise already done
+        }
+        // If all eval threads died, completely remove multi slot data.
+        if (threadCnt.get() == 0) {
+            REnvironment.cleanupSearchpathFromMultiSlot();
+        } else {
+            REnvironment.cleanupSearchpathFromMultiSlot(multiSlotIndices);
+        }
+    }
+
     @TruffleBoundary
     public static RList createErrorResult(String errorMsg) {
         RList list = RDataFactory.createList(new Object[]{RRuntime.LOGICAL_NA});
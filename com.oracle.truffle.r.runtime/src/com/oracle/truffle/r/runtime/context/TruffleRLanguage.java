@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -23,11 +23,20 @@
 package com.oracle.truffle.r.runtime.context;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
 
 public abstract class TruffleRLanguage extends TruffleLanguage<RContext> {
 
     public abstract HashMap<String, RFunction> getBuiltinFunctionCache();
+
+    /**
+     * The ASTs of the R sources of the system packages parsed by the contexts of this language,
+     * keyed by the source content, see {@link Engine#parseAndEvalCached}.
+     */
+    public abstract ConcurrentHashMap<String, List<RSyntaxNode>> getParsedSourceCache();
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.context;
+
+import java.util.ArrayList;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RChannel;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RNull;
+
+/**
+ * The pool of warm worker contexts used by the FastR implementation of {@code mclapply} and of the
+ * default cluster of the {@code parallel} package. The workers are child contexts spawned by
+ * {@code .fastr.context.spawn} that run the {@code parallel:::slaveLoop} on a channel, the pool only
+ * remembers them so that they can be reused by the subsequent calls and shuts them down when the
+ * owning context is disposed (or when the R code asks for it).
+ *
+ * The pool is not thread-safe, it is only used by the thread that evaluates the owning context.
+ */
+public final class WorkerPool implements RContext.ContextState {
+
+    private static final class Worker {
+        private final int contextId;
+        private final int channelId;
+
+        private Worker(int contextId, int channelId) {
+            this.contextId = contextId;
+            this.channelId = channelId;
+        }
+    }
+
+    private final ArrayList<Worker> workers = new ArrayList<>();
+    private RContext context;
+
+    private WorkerPool() {
+    }
+
+    public static WorkerPool newContextState() {
+        return new WorkerPool();
+    }
+
+    @Override
+    public RContext.ContextState initialize(RContext ctx) {
+        this.context = ctx;
+        return this;
+    }
+
+    /**
+     * Adds workers with given child context ids and master sides of their channels to the pool.
+     */
+    @TruffleBoundary
+    public void add(int[] contextIds, int[] channelIds) {
+        assert contextIds.length == channelIds.length;
+        for (int i = 0; i < contextIds.length; i++) {
+            workers.add(new Worker(contextIds[i], channelIds[i]));
+        }
+    }
+
+    /**
+     * Returns the context ids (first element) and channel ids (second element) of the workers that
+     * are still alive, the workers whose eval thread has finished are dropped from the pool.
+     */
+    @TruffleBoundary
+    public int[][] getWorkers() {
+        workers.removeIf(w -> context.threads.get(w.contextId) == null);
+        int[][] result = new int[2][workers.size()];
+        for (int i = 0; i < workers.size(); i++) {
+            result[0][i] = workers.get(i).contextId;
+            result[1][i] = workers.get(i).channelId;
+        }
+        return result;
+    }
+
+    /**
+     * Stops all the workers and waits for them to finish. The results of the jobs that the workers
+     * may still be running are discarded.
+     */
+    @TruffleBoundary
+    public void shutdown() {
+        if (workers.isEmpty()) {
+            return;
+        }
+        int[] ids = new int[workers.size()];
+        try {
+            // the same message as sent by parallel:::stopCluster
+            RList done = RDataFactory.createList(new Object[]{"DONE", RNull.instance, RNull.instance}, RDataFactory.createStringVector(new String[]{"type", "data", "tag"}, true));
+            for (int i = 0; i < workers.size(); i++) {
+                Worker worker = workers.get(i);
+                ids[i] = worker.contextId;
+                // a worker blocked on sending a result would never take the DONE message
+                if (RChannel.discardPending(worker.channelId)) {
+                    RChannel.send(worker.channelId, done);
+                }
+            }
+            EvalThread.join(context.threads, ids);
+        } catch (InterruptedException ex) {
+            throw RError.error(RError.NO_CALLER, RError.Message.GENERIC, "error finishing worker contexts");
+        } finally {
+            workers.clear();
+        }
+    }
+
+    @Override
+    public void beforeDispose(RContext ctx) {
+        shutdown();
+    }
+}
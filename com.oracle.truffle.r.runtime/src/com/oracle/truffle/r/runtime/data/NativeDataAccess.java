@@ -27,6 +27,8 @@ import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -53,6 +55,7 @@ import com.oracle.truffle.r.runtime.RLogger;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.ffi.NativeCallStatistics;
 import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
 import java.util.logging.Level;
 
@@ -217,10 +220,15 @@ public final class NativeDataAccess {
          */
         private boolean external;
 
+        /**
+         * The Java object that owns the external memory, if any, e.g., the buffer of a
+         * memory-mapped file. It is kept reachable for as long as the mirror is alive.
+         */
+        private Object externalOwner;
+
         NativeMirror(RObject owner) {
             super(owner, nativeReferenceQueue());
-            this.id = counter.addAndGet(2);
-            nativeMirrors.put(id, this);
+            this.id = nativeMirrors.add(this);
         }
 
         /**
@@ -233,7 +241,7 @@ public final class NativeDataAccess {
             this.id = address;
             setDataAddress(address);
             if (address != 0) {
-                nativeMirrors.put(id, this);
+                customNativeMirrors.put(id, this);
             }
         }
 
@@ -252,6 +260,7 @@ public final class NativeDataAccess {
             if (len != 0) {
                 setDataAddress(allocateNativeMemory(trueLen * elementSize));
                 UnsafeAdapter.UNSAFE.copyMemory(source, elementBase, null, dataAddress, trueLen * elementSize);
+                countCopy(this, trueLen * elementSize, true);
             } else {
                 setDataAddress(getEmptyDataAddress());
             }
@@ -268,6 +277,7 @@ public final class NativeDataAccess {
             UnsafeAdapter.UNSAFE.copyMemory(bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, null, dataAddress, bytes.length);
             UnsafeAdapter.UNSAFE.putByte(dataAddress + bytes.length, (byte) 0); // C strings
                                                                                 // terminator
+            countCopy(this, bytes.length + 1, true);
             this.length = bytes.length + 1;
 
             // ensure that marker address is not used
@@ -283,6 +293,7 @@ public final class NativeDataAccess {
                 for (int i = 0; i < wrappers.length; i++) {
                     UnsafeAdapter.UNSAFE.putLong(addr + i * Long.BYTES, asPointer(wrappers[i]));
                 }
+                countCopy(this, wrappers.length * Long.BYTES, true);
             }
         }
 
@@ -300,13 +311,16 @@ public final class NativeDataAccess {
                     }
                     UnsafeAdapter.UNSAFE.putLong(addr + i * Long.BYTES, asPointer(element));
                 }
+                countCopy(this, elements.length * Long.BYTES, true);
             }
         }
 
         @Override
         public void release() {
-            if (id != 0) {
+            if (NativeHandleTable.isHandle(id)) {
                 nativeMirrors.remove(id, this);
+            } else if (id != 0) {
+                customNativeMirrors.remove(id, this);
             }
             // System.out.println(String.format("gc'ing %16x", id));
             // RFFILog.log("gc'ing %16x (dataAddress=%16x)", id, dataAddress);
@@ -332,10 +346,10 @@ public final class NativeDataAccess {
         }
     }
 
-    // The counter is initialized to invalid address and incremented by 2 to always get invalid
-    // address value
-    private static final AtomicLong counter = new AtomicLong(0xdef000000000001L);
-    private static final ConcurrentHashMap<Long, NativeMirror> nativeMirrors = new ConcurrentHashMap<>(512);
+    // The handles of the mirrors are invalid addresses, the mirrors with custom addresses are
+    // registered separately
+    private static final NativeHandleTable<NativeMirror> nativeMirrors = new NativeHandleTable<>(mirror -> mirror.id);
+    private static final ConcurrentHashMap<Long, NativeMirror> customNativeMirrors = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<Long, NativeMirror> dataAddressToNativeMirrors = System.getenv(FastROptions.DEBUG_LLVM_LIBS) != null ? new ConcurrentHashMap<>(512) : null;
     private static final ConcurrentHashMap<Long, RuntimeException> nativeMirrorInfo = TRACE_MIRROR_ALLOCATION_SITES ? new ConcurrentHashMap<>() : null;
 
@@ -413,12 +427,12 @@ public final class NativeDataAccess {
     }
 
     /**
-     * For given native mirror ID returns the Java side object (vector). TruffleBoundary because it
-     * calls into HashMap.
+     * For given native mirror ID returns the Java side object (vector). TruffleBoundary because the
+     * IDs of mirrors with custom addresses are looked up in a HashMap.
      */
     @TruffleBoundary
     public static Object lookup(long address) {
-        NativeMirror nativeMirror = nativeMirrors.get(address);
+        NativeMirror nativeMirror = NativeHandleTable.isHandle(address) ? nativeMirrors.get(address) : customNativeMirrors.get(address);
         if (nativeMirror == null) {
             CompilerDirectives.transferToInterpreter();
             throw reportDataAccessError(address);
@@ -434,7 +448,7 @@ public final class NativeDataAccess {
     private static RuntimeException reportDataAccessError(long address) {
         RuntimeException location = TRACE_MIRROR_ALLOCATION_SITES ? nativeMirrorInfo.get(address) : null;
         printDataAccessErrorLocation(location);
-        throw RInternalError.shouldNotReachHere("unknown native reference " + address + "L / 0x" + Long.toHexString(address) + " (current id count: " + Long.toHexString(counter.get()) + ")");
+        throw RInternalError.shouldNotReachHere("unknown native reference " + address + "L / 0x" + Long.toHexString(address) + " (current mirror count: " + nativeMirrors.size() + ")");
     }
 
     private static void printDataAccessErrorLocation(RuntimeException location) {
@@ -578,6 +592,7 @@ public final class NativeDataAccess {
         assert address != 0;
         double[] data = new double[(int) mirror.length];
         UnsafeAdapter.UNSAFE.copyMemory(null, address, data, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
+        countCopy(mirror, data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE, false);
         return data;
     }
 
@@ -587,6 +602,7 @@ public final class NativeDataAccess {
         assert address != 0;
         double[] data = new double[(int) (mirror.length << 1)];
         UnsafeAdapter.UNSAFE.copyMemory(null, address, data, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
+        countCopy(mirror, data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE, false);
         return data;
     }
 
@@ -596,6 +612,7 @@ public final class NativeDataAccess {
         assert address != 0;
         int[] data = new int[(int) mirror.length];
         UnsafeAdapter.UNSAFE.copyMemory(null, address, data, Unsafe.ARRAY_INT_BASE_OFFSET, data.length * Unsafe.ARRAY_INT_INDEX_SCALE);
+        countCopy(mirror, data.length * Unsafe.ARRAY_INT_INDEX_SCALE, false);
         return data;
     }
 
@@ -606,6 +623,7 @@ public final class NativeDataAccess {
         assert address != 0;
         byte[] data = new byte[(int) mirror.length];
         UnsafeAdapter.UNSAFE.copyMemory(null, address, data, Unsafe.ARRAY_BYTE_BASE_OFFSET, data.length * Unsafe.ARRAY_BYTE_INDEX_SCALE);
+        countCopy(mirror, data.length * Unsafe.ARRAY_BYTE_INDEX_SCALE, false);
         return data;
     }
 
@@ -621,6 +639,7 @@ public final class NativeDataAccess {
             assert elem instanceof CharSXPWrapper;
             data[i] = ((CharSXPWrapper) elem).getContents();
         }
+        countCopy(mirror, data.length * Long.BYTES, false);
         return data;
     }
 
@@ -635,9 +654,27 @@ public final class NativeDataAccess {
             Object elem = lookup(elemAddr);
             data[i] = elem;
         }
+        countCopy(mirror, data.length * Long.BYTES, false);
         return data;
     }
 
+    private static void countCopy(NativeMirror mirror, long bytes, boolean toNative) {
+        if (NativeCallStatistics.isEnabled()) {
+            countCopyBoundary(mirror, bytes, toNative);
+        }
+    }
+
+    @TruffleBoundary
+    private static void countCopyBoundary(NativeMirror mirror, long bytes, boolean toNative) {
+        RObject owner = mirror.get();
+        String type = owner == null ? "unknown" : owner.getClass().getSimpleName();
+        if (toNative) {
+            NativeCallStatistics.copiedToNative(type, bytes);
+        } else {
+            NativeCallStatistics.copiedFromNative(type, bytes);
+        }
+    }
+
     // methods operating on vectors that may have a native mirror assigned:
 
     private static final Assumption noIntNative = Truffle.getRuntime().createAssumption();
@@ -691,6 +728,7 @@ public final class NativeDataAccess {
     }
 
     static void setData(RIntVector vector, int[] data, int index, int value) {
+        vector.resetKnownSortedness();
         if (noIntNative.isValid() || data != null) {
             data[index] = value;
         } else {
@@ -834,6 +872,7 @@ public final class NativeDataAccess {
     }
 
     static void setData(RDoubleVector vector, double[] data, int index, double value) {
+        vector.resetKnownSortedness();
         if (noDoubleNative.isValid() || data != null) {
             data[index] = value;
         } else {
@@ -1069,6 +1108,7 @@ public final class NativeDataAccess {
     }
 
     static void setData(RStringVector vector, Object data, int index, String value) {
+        vector.resetKnownSortedness();
         assert data != null;
         if (RStringVector.noWrappedStrings.isValid() || data instanceof String[]) {
             assert !vector.isNativized();
@@ -1085,6 +1125,7 @@ public final class NativeDataAccess {
     }
 
     static void setData(RStringVector vector, CharSXPWrapper[] data, int index, CharSXPWrapper value) {
+        vector.resetKnownSortedness();
         assert data != null;
         data[index] = value;
         if (!noStringNative.isValid() && vector.isNativized()) {
@@ -1292,6 +1333,35 @@ public final class NativeDataAccess {
         mirror.external = true;
     }
 
+    /**
+     * Makes the vector, whose data were set by {@link #setNativeContents(RObject, long, int)}, keep
+     * given owner of the native memory reachable, e.g., a {@link ByteBuffer} of a memory-mapped
+     * file, which is unmapped only once it is collected.
+     */
+    public static void setNativeContentsOwner(RObject obj, Object owner) {
+        NativeMirror mirror = (NativeMirror) obj.getNativeMirror();
+        assert mirror != null && mirror.external;
+        mirror.externalOwner = owner;
+    }
+
+    private static final long BUFFER_ADDRESS_OFFSET = initBufferAddressOffset();
+
+    private static long initBufferAddressOffset() {
+        try {
+            return UnsafeAdapter.UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException("exception while trying to get the address of Buffer", e);
+        }
+    }
+
+    /**
+     * Returns the address of the memory of given direct (or memory-mapped) buffer.
+     */
+    public static long getDirectBufferAddress(ByteBuffer buffer) {
+        assert buffer.isDirect();
+        return UnsafeAdapter.UNSAFE.getLong(buffer, BUFFER_ADDRESS_OFFSET);
+    }
+
     public static void setNativeWrapper(RObject obj, Object wrapper) {
         NativeMirror mirror = (NativeMirror) obj.getNativeMirror();
         if (mirror == null) {
@@ -1312,7 +1382,7 @@ public final class NativeDataAccess {
     }
 
     private static long allocateNativeMemory(long bytes) {
-        long result = UnsafeAdapter.UNSAFE.allocateMemory(bytes);
+        long result = NativeMemoryArena.allocate(bytes);
         // Uncomment for debugging
         // System.out.printf("DEBUG: allocated %x, length %d\n", result, bytes);
         return result;
@@ -1321,7 +1391,40 @@ public final class NativeDataAccess {
     private static void freeNativeMemory(long address) {
         // Uncomment for debugging
         // System.out.printf("DEBUG: freeing %x\n", address);
-        UnsafeAdapter.UNSAFE.freeMemory(address);
+        NativeMemoryArena.free(address);
+    }
+
+    /**
+     * Releases the native memory of the mirrors that are already collected, but still wait in the
+     * reference queue, and returns the memory cached by the current thread and the slabs that are
+     * no longer used by {@link NativeMemoryArena} to the system. Called when a context is disposed.
+     */
+    @TruffleBoundary
+    public static void releaseNativeMemory() {
+        Reference<?> ref;
+        while ((ref = nativeRefQueue.poll()) != null) {
+            if (ref instanceof Releasable) {
+                ((Releasable) ref).release();
+            }
+        }
+        NativeMemoryArena.flushThreadCache();
+        NativeMemoryArena.trim();
+    }
+
+    /**
+     * Makes the native memory released by the current thread available to the other threads, see
+     * {@link NativeMemoryArena#flushThreadCache()}.
+     */
+    public static void flushNativeMemoryCache() {
+        NativeMemoryArena.flushThreadCache();
+    }
+
+    /**
+     * Returns the statistics of the native memory allocated for the mirrors, see
+     * {@link NativeMemoryArena#getStatistics(boolean)}.
+     */
+    public static double[] getNativeMemoryStatistics(boolean resetPeak) {
+        return NativeMemoryArena.getStatistics(resetPeak);
     }
 
     /**
@@ -1362,7 +1465,7 @@ public final class NativeDataAccess {
 
         @Override
         public int getNativeMirrorsSize() {
-            return NativeDataAccess.nativeMirrors.size();
+            return NativeDataAccess.nativeMirrors.size() + NativeDataAccess.customNativeMirrors.size();
         }
 
         @Override
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+
+/**
+ * Table of the objects identified by handles that are passed to the native code as SEXPs, see
+ * {@link NativeDataAccess}.
+ *
+ * A handle consists of the {@link #TAG} in the upper 16 bits, which makes it an invalid address, a
+ * 16 bit generation, and the index of its slot shifted by one bit with the lowest bit set, which
+ * keeps the handle odd. The slots are stored in segments of {@link #SEGMENT_SIZE} entries, which are
+ * never moved, so that {@link #get(long)} needs no lock. The slots of the removed handles are
+ * reused with the next generation, so that a stale handle is not resolved to the new object for the
+ * next 2^16 reuses of its slot.
+ */
+public final class NativeHandleTable<T> {
+
+    static final long TAG = 0x0defL << 48;
+    private static final long TAG_MASK = 0xffffL << 48;
+    private static final int GENERATION_SHIFT = 32;
+    private static final long GENERATION_MASK = 0xffffL << GENERATION_SHIFT;
+
+    private static final int SEGMENT_SHIFT = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int MAX_SEGMENTS = (Integer.MAX_VALUE >> SEGMENT_SHIFT) + 1;
+
+    /**
+     * Returns the handle under which an object was registered, it is compared with the handle
+     * passed to {@link #get(long)} to detect stale handles.
+     */
+    private final ToLongFunction<T> handleOf;
+
+    private volatile AtomicReferenceArray<T>[] segments = newSegments(16);
+
+    /**
+     * The handles most recently removed, their slots are reused first. Guarded by {@code this}.
+     */
+    private long[] freeHandles = new long[SEGMENT_SIZE];
+    private int freeCount;
+    /**
+     * The number of slots ever used. Guarded by {@code this}.
+     */
+    private int used;
+    private int size;
+
+    public NativeHandleTable(ToLongFunction<T> handleOf) {
+        this.handleOf = handleOf;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> AtomicReferenceArray<T>[] newSegments(int length) {
+        return new AtomicReferenceArray[length];
+    }
+
+    public static boolean isHandle(long handle) {
+        return (handle & TAG_MASK) == TAG && (handle & 1) != 0;
+    }
+
+    private static int slotIndex(long handle) {
+        return (int) (handle >>> 1) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Registers the object and returns its new handle.
+     */
+    public synchronized long add(T value) {
+        long handle;
+        if (freeCount > 0) {
+            long old = freeHandles[--freeCount];
+            handle = (old & ~GENERATION_MASK) | ((old + (1L << GENERATION_SHIFT)) & GENERATION_MASK);
+        } else {
+            int index = used;
+            int segment = index >>> SEGMENT_SHIFT;
+            if (segment >= MAX_SEGMENTS) {
+                throw new OutOfMemoryError("too many native handles");
+            }
+            AtomicReferenceArray<T>[] current = segments;
+            if (segment >= current.length) {
+                current = Arrays.copyOf(current, Math.min(current.length * 2, MAX_SEGMENTS));
+                segments = current;
+            }
+            if (current[segment] == null) {
+                current[segment] = new AtomicReferenceArray<>(SEGMENT_SIZE);
+                // republish the directory with the new segment
+                segments = current;
+            }
+            used++;
+            handle = TAG | ((long) index << 1) | 1;
+        }
+        int index = slotIndex(handle);
+        segments[index >>> SEGMENT_SHIFT].set(index & (SEGMENT_SIZE - 1), value);
+        size++;
+        return handle;
+    }
+
+    /**
+     * Returns the object of the given handle or {@code null} if there is none, which is also the
+     * case for a stale handle whose slot has been reused for another object.
+     */
+    public T get(long handle) {
+        if (!isHandle(handle)) {
+            return null;
+        }
+        int index = slotIndex(handle);
+        AtomicReferenceArray<T>[] current = segments;
+        int segment = index >>> SEGMENT_SHIFT;
+        if (segment >= current.length || current[segment] == null) {
+            return null;
+        }
+        T value = current[segment].get(index & (SEGMENT_SIZE - 1));
+        return value != null && handleOf.applyAsLong(value) == handle ? value : null;
+    }
+
+    /**
+     * Unregisters the object of the given handle if it is {@code value} and the handle is not stale,
+     * and makes its slot available for reuse.
+     */
+    public synchronized boolean remove(long handle, T value) {
+        if (!isHandle(handle) || slotIndex(handle) >= used || handleOf.applyAsLong(value) != handle) {
+            return false;
+        }
+        int index = slotIndex(handle);
+        if (!segments[index >>> SEGMENT_SHIFT].compareAndSet(index & (SEGMENT_SIZE - 1), value, null)) {
+            return false;
+        }
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeHandles.length * 2);
+        }
+        freeHandles[freeCount++] = handle;
+        size--;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
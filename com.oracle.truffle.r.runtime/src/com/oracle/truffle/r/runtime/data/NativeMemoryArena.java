@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Allocator of the native memory of the native mirrors of vectors, see {@link NativeDataAccess}.
+ *
+ * Blocks of up to {@link #MAX_SMALL_BLOCK} bytes are carved out of slabs of {@link #SLAB_SIZE}
+ * bytes in power of two size classes. Each thread has a small cache of free blocks per size class,
+ * which is refilled from and flushed to the shared free list of the size class in batches, so that
+ * most allocations and releases (which mostly happen in the "Native-Reference-Queue-Worker" thread)
+ * do not take a lock. Larger blocks are allocated directly with {@code Unsafe.allocateMemory}.
+ *
+ * Every block is preceded by a header: the size class index and the slab index for small blocks,
+ * and {@code -1} and the size for the large ones. Slabs whose blocks are all in the shared free
+ * list are returned to the system by {@link #trim()}, which is called when a context is disposed.
+ *
+ * The blocks cached by a thread are not available to the other threads until the thread calls
+ * {@link #flushThreadCache()}, which happens when a context is disposed and when the eval thread of
+ * a child context (e.g., a worker of the {@code parallel} package) finishes. A long living thread
+ * therefore holds at most {@link #THREAD_CACHE_SIZE} free blocks per size class.
+ */
+public final class NativeMemoryArena {
+
+    private static final int SMALL_HEADER = 8;
+    private static final int LARGE_HEADER = 16;
+    private static final int MIN_BLOCK_SHIFT = 4;
+    private static final int MAX_SMALL_BLOCK = 4096;
+    private static final int SLAB_SIZE = 64 * 1024;
+
+    private static final int THREAD_CACHE_SIZE = 32;
+    private static final int BATCH_SIZE = THREAD_CACHE_SIZE / 2;
+
+    private static final SizeClass[] sizeClasses = new SizeClass[Integer.numberOfTrailingZeros(MAX_SMALL_BLOCK) - MIN_BLOCK_SHIFT + 1];
+    static {
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass(i, 1 << (i + MIN_BLOCK_SHIFT));
+        }
+    }
+
+    /**
+     * All slabs, indexed by the slab index stored in the block headers. Slabs freed by
+     * {@link #trim()} leave a {@code null} entry, which is reused by the next slab. The array is
+     * copied on every change, so that it can be read without a lock.
+     */
+    private static volatile Slab[] slabs = new Slab[0];
+
+    private static final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(ThreadCache::new);
+
+    private static final AtomicLong liveBytes = new AtomicLong();
+    private static final AtomicLong peakBytes = new AtomicLong();
+    private static final AtomicLong reservedBytes = new AtomicLong();
+    private static final AtomicLong allocations = new AtomicLong();
+    private static final AtomicLong releases = new AtomicLong();
+
+    private static long lastStatsTime = System.nanoTime();
+    private static long lastStatsAllocations;
+
+    private NativeMemoryArena() {
+        // no instances
+    }
+
+    private static final class Slab {
+        private final long address;
+        private final int index;
+        /**
+         * The number of blocks of this slab in the shared free list of its size class, guarded by
+         * the size class.
+         */
+        private int free;
+
+        Slab(long address, int index) {
+            this.address = address;
+            this.index = index;
+        }
+    }
+
+    private static final class SizeClass {
+        private final int index;
+        private final int blockSize;
+        private final int blocksPerSlab;
+        private long[] free = new long[THREAD_CACHE_SIZE];
+        private int freeCount;
+
+        SizeClass(int index, int blockSize) {
+            this.index = index;
+            this.blockSize = blockSize;
+            this.blocksPerSlab = SLAB_SIZE / blockSize;
+        }
+
+        /**
+         * Moves up to {@link #BATCH_SIZE} free blocks (their addresses after the header) into
+         * {@code dest} starting at {@code destPos} and returns their number.
+         */
+        synchronized int take(long[] dest, int destPos) {
+            if (freeCount == 0) {
+                addSlab();
+            }
+            int n = Math.min(BATCH_SIZE, freeCount);
+            for (int i = 0; i < n; i++) {
+                long block = free[--freeCount];
+                getSlab(block).free--;
+                dest[destPos + i] = block;
+            }
+            return n;
+        }
+
+        synchronized void put(long[] src, int srcPos, int n) {
+            if (freeCount + n > free.length) {
+                free = Arrays.copyOf(free, Math.max(free.length * 2, freeCount + n));
+            }
+            for (int i = 0; i < n; i++) {
+                long block = src[srcPos + i];
+                getSlab(block).free++;
+                free[freeCount++] = block;
+            }
+        }
+
+        private void addSlab() {
+            long address = UnsafeAdapter.UNSAFE.allocateMemory(SLAB_SIZE);
+            reservedBytes.addAndGet(SLAB_SIZE);
+            Slab slab = registerSlab(address);
+            if (free.length < blocksPerSlab) {
+                free = Arrays.copyOf(free, blocksPerSlab);
+            }
+            // in reverse order so that the blocks are handed out in the order of addresses
+            for (int i = blocksPerSlab - 1; i >= 0; i--) {
+                long block = address + (long) i * blockSize;
+                UnsafeAdapter.UNSAFE.putInt(block, index);
+                UnsafeAdapter.UNSAFE.putInt(block + 4, slab.index);
+                free[freeCount++] = block + SMALL_HEADER;
+            }
+            slab.free = blocksPerSlab;
+        }
+
+        /**
+         * Frees the slabs that have all their blocks in the free list.
+         */
+        synchronized void trim() {
+            ArrayList<Slab> empty = new ArrayList<>();
+            int kept = 0;
+            for (int i = 0; i < freeCount; i++) {
+                long block = free[i];
+                Slab slab = getSlab(block);
+                if (slab.free == blocksPerSlab) {
+                    // marks the slab as collected for its other blocks
+                    slab.free = -1;
+                    empty.add(slab);
+                } else if (slab.free != -1) {
+                    free[kept++] = block;
+                }
+            }
+            freeCount = kept;
+            for (Slab slab : empty) {
+                unregisterSlab(slab);
+                UnsafeAdapter.UNSAFE.freeMemory(slab.address);
+                reservedBytes.addAndGet(-SLAB_SIZE);
+            }
+            if (free.length > THREAD_CACHE_SIZE && kept < free.length / 4) {
+                free = Arrays.copyOf(free, Math.max(THREAD_CACHE_SIZE, kept * 2));
+            }
+        }
+    }
+
+    /**
+     * The free blocks cached by a thread, {@code count[i]} blocks of the size class {@code i} are
+     * stored in {@code blocks[i]}.
+     */
+    private static final class ThreadCache {
+        private final long[][] blocks = new long[sizeClasses.length][THREAD_CACHE_SIZE];
+        private final int[] count = new int[sizeClasses.length];
+    }
+
+    private static synchronized Slab registerSlab(long address) {
+        Slab[] newSlabs = slabs;
+        int index = Arrays.asList(newSlabs).indexOf(null);
+        if (index == -1) {
+            index = newSlabs.length;
+            newSlabs = Arrays.copyOf(newSlabs, Math.max(16, index * 2));
+        } else {
+            newSlabs = newSlabs.clone();
+        }
+        Slab slab = new Slab(address, index);
+        newSlabs[index] = slab;
+        slabs = newSlabs;
+        return slab;
+    }
+
+    private static synchronized void unregisterSlab(Slab slab) {
+        Slab[] newSlabs = slabs.clone();
+        newSlabs[slab.index] = null;
+        slabs = newSlabs;
+    }
+
+    private static Slab getSlab(long block) {
+        return slabs[UnsafeAdapter.UNSAFE.getInt(block - SMALL_HEADER + 4)];
+    }
+
+    private static int sizeClassIndex(long bytes) {
+        long blockSize = bytes + SMALL_HEADER;
+        if (blockSize <= 1 << MIN_BLOCK_SHIFT) {
+            return 0;
+        }
+        return 64 - Long.numberOfLeadingZeros(blockSize - 1) - MIN_BLOCK_SHIFT;
+    }
+
+    @TruffleBoundary
+    public static long allocate(long bytes) {
+        long address;
+        long size;
+        if (bytes + SMALL_HEADER <= MAX_SMALL_BLOCK) {
+            int classIndex = sizeClassIndex(bytes);
+            ThreadCache cache = threadCache.get();
+            if (cache.count[classIndex] == 0) {
+                cache.count[classIndex] = sizeClasses[classIndex].take(cache.blocks[classIndex], 0);
+            }
+            address = cache.blocks[classIndex][--cache.count[classIndex]];
+            size = sizeClasses[classIndex].blockSize;
+        } else {
+            size = bytes + LARGE_HEADER;
+            long block = UnsafeAdapter.UNSAFE.allocateMemory(size);
+            UnsafeAdapter.UNSAFE.putLong(block, size);
+            UnsafeAdapter.UNSAFE.putLong(block + 8, -1L);
+            address = block + LARGE_HEADER;
+            reservedBytes.addAndGet(size);
+        }
+        allocations.incrementAndGet();
+        long live = liveBytes.addAndGet(size);
+        long peak;
+        while (live > (peak = peakBytes.get()) && !peakBytes.compareAndSet(peak, live)) {
+            // retry
+        }
+        return address;
+    }
+
+    @TruffleBoundary
+    public static void free(long address) {
+        int classIndex = UnsafeAdapter.UNSAFE.getInt(address - SMALL_HEADER);
+        long size;
+        if (classIndex == -1) {
+            long block = address - LARGE_HEADER;
+            size = UnsafeAdapter.UNSAFE.getLong(block);
+            UnsafeAdapter.UNSAFE.freeMemory(block);
+            reservedBytes.addAndGet(-size);
+        } else {
+            SizeClass sizeClass = sizeClasses[classIndex];
+            ThreadCache cache = threadCache.get();
+            if (cache.count[classIndex] == THREAD_CACHE_SIZE) {
+                cache.count[classIndex] -= BATCH_SIZE;
+                sizeClass.put(cache.blocks[classIndex], cache.count[classIndex], BATCH_SIZE);
+            }
+            cache.blocks[classIndex][cache.count[classIndex]++] = address;
+            size = sizeClass.blockSize;
+        }
+        releases.incrementAndGet();
+        liveBytes.addAndGet(-size);
+    }
+
+    /**
+     * Returns the number of bytes that can be used at an address returned by {@link #allocate},
+     * i.e., the size of its block without the header.
+     */
+    public static long getUsableSize(long address) {
+        int classIndex = UnsafeAdapter.UNSAFE.getInt(address - SMALL_HEADER);
+        if (classIndex == -1) {
+            return UnsafeAdapter.UNSAFE.getLong(address - LARGE_HEADER) - LARGE_HEADER;
+        }
+        return sizeClasses[classIndex].blockSize - SMALL_HEADER;
+    }
+
+    /**
+     * Returns the blocks cached by the current thread to the shared free lists.
+     */
+    @TruffleBoundary
+    public static void flushThreadCache() {
+        ThreadCache cache = threadCache.get();
+        for (int i = 0; i < sizeClasses.length; i++) {
+            if (cache.count[i] > 0) {
+                sizeClasses[i].put(cache.blocks[i], 0, cache.count[i]);
+                cache.count[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the slabs that contain no allocated or thread cached blocks to the system.
+     */
+    @TruffleBoundary
+    static void trim() {
+        for (SizeClass sizeClass : sizeClasses) {
+            sizeClass.trim();
+        }
+    }
+
+    /**
+     * Returns the bytes currently allocated (including the block headers and the unused parts of
+     * the size classes), the peak of that since the last reset, the bytes reserved from the system,
+     * the number of allocations and releases, and the number of allocations per second since the
+     * previous call of this method.
+     */
+    @TruffleBoundary
+    public static synchronized double[] getStatistics(boolean resetPeak) {
+        long now = System.nanoTime();
+        long allocs = allocations.get();
+        double rate = (allocs - lastStatsAllocations) / Math.max((now - lastStatsTime) / 1e9, 1e-9);
+        lastStatsTime = now;
+        lastStatsAllocations = allocs;
+        double[] result = new double[]{liveBytes.get(), peakBytes.get(), reservedBytes.get(), allocs, releases.get(), rate};
+        if (resetPeak) {
+            peakBytes.set(liveBytes.get());
+        }
+        return result;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -103,7 +103,17 @@ public final class RDoubleSequence extends RSequence implements RAbstractDoubleV
 
     @Override
     protected RDoubleVector internalCreateVector() {
-        return populateVectorData(new double[getLength()]);
+        RDoubleVector result = populateVectorData(new double[getLength()]);
+        result.setKnownSortedness(getKnownSortedness());
+        return result;
+    }
+
+    @Override
+    public int getKnownSortedness() {
+        if (Double.isNaN(start) || Double.isNaN(stride) || Double.isNaN(getEnd())) {
+            return RVector.SORTED_UNKNOWN;
+        }
+        return stride >= 0 ? RVector.SORTED_ASCENDING : RVector.SORTED_DESCENDING;
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -108,7 +108,14 @@ public final class RIntSequence extends RSequence implements RAbstractIntVector
 
     @Override
     protected RIntVector internalCreateVector() {
-        return populateVectorData(new int[getLength()]);
+        RIntVector result = populateVectorData(new int[getLength()]);
+        result.setKnownSortedness(getKnownSortedness());
+        return result;
+    }
+
+    @Override
+    public int getKnownSortedness() {
+        return stride >= 0 ? RVector.SORTED_ASCENDING : RVector.SORTED_DESCENDING;
     }
 
     @Override
@@ -64,8 +64,19 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
      */
     protected static volatile int fence;
 
+    public static final int SORTED_DESCENDING = -1;
+    public static final int SORTED_UNKNOWN = 0;
+    public static final int SORTED_ASCENDING = 1;
+
     protected boolean complete; // "complete" means: does not contain NAs
 
+    /**
+     * The known order of the elements, see {@link #getKnownSortedness()}. It is set by the
+     * builtins that produce or check sorted data and reset by anything that may write into the
+     * data of this vector.
+     */
+    private byte sortedness = SORTED_UNKNOWN;
+
     protected RVector(boolean complete) {
         this.complete = complete;
     }
@@ -124,7 +135,11 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
      * @return vector data
      */
     public final ArrayT getDataNonShared() {
-        return !isShared() ? getReadonlyData() : getDataCopy();
+        if (!isShared()) {
+            resetKnownSortedness();
+            return getReadonlyData();
+        }
+        return getDataCopy();
     }
 
     /**
@@ -136,7 +151,11 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
      * @return vector data
      */
     public final ArrayT getDataTemp() {
-        return isTemporary() ? getReadonlyData() : getDataCopy();
+        if (isTemporary()) {
+            resetKnownSortedness();
+            return getReadonlyData();
+        }
+        return getDataCopy();
     }
 
     @Override
@@ -373,6 +392,48 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
         return complete;
     }
 
+    /**
+     * Returns {@link #SORTED_ASCENDING} or {@link #SORTED_DESCENDING} if the elements of this
+     * vector are known to be sorted (ties are allowed) and to contain no {@code NA} or {@code NaN}
+     * values, {@link #SORTED_UNKNOWN} otherwise. Vectors whose data were moved to native memory
+     * are never known to be sorted, since the native code can write into the data directly.
+     */
+    @Override
+    public final int getKnownSortedness() {
+        return hasNativeMemoryData() ? SORTED_UNKNOWN : sortedness;
+    }
+
+    /**
+     * Records that the data of this vector are sorted, the caller must make sure that the data do
+     * not contain {@code NA} or {@code NaN} values. A sorted vector is also marked as complete.
+     */
+    public final void setKnownSortedness(int newSortedness) {
+        assert newSortedness >= SORTED_DESCENDING && newSortedness <= SORTED_ASCENDING;
+        this.sortedness = (byte) newSortedness;
+        if (newSortedness != SORTED_UNKNOWN) {
+            this.complete = true;
+        }
+        assert RAbstractVector.verify(this);
+    }
+
+    /**
+     * Must be called before the data of this vector are modified in place through something else
+     * than the {@code setDataAt}, {@code updateDataAt} and similar methods, which reset the known
+     * sortedness themselves.
+     */
+    public final void resetKnownSortedness() {
+        sortedness = SORTED_UNKNOWN;
+    }
+
+    /**
+     * Resets the known sortedness of given vector if it is an {@link RVector}.
+     */
+    public static void resetKnownSortedness(Object vector) {
+        if (vector instanceof RVector) {
+            ((RVector<?>) vector).resetKnownSortedness();
+        }
+    }
+
     @Override
     public final boolean hasDimensions() {
         return attributes == null ? false : attributes.containsKey(RRuntime.DIM_ATTR_KEY);
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RRuntime;
+
+/**
+ * Global table of canonical {@code String} instances shared by all the contexts, the counterpart of
+ * the {@code CHARSXP} cache of GNU R. The builtins that create many strings from external data
+ * ({@code scan}, {@code readLines}, {@code paste}, {@code unserialize}, ...) pass them through
+ * {@link #intern(String)}, so that a character vector with a few distinct values holds only a few
+ * distinct {@code String} objects. This saves memory and also makes the comparisons of such
+ * strings cheap, since {@link String#equals(Object)} and the subsequent hash lookups first check
+ * the identity.
+ *
+ * The entries are weak, a string is removed once no vector refers to it anymore. The table is
+ * split into independently locked segments so that the threads of the parallel builtins and of
+ * the other contexts do not contend on a single lock.
+ *
+ * Unlike {@link String#intern()}, the table never contains {@link RRuntime#STRING_NA}, which is
+ * distinguished from the string {@code "NA"} by its identity.
+ */
+public final class StringCache {
+
+    private static final int SEGMENTS = 64;
+
+    @SuppressWarnings("unchecked") private static final WeakHashMap<String, WeakReference<String>>[] segments = new WeakHashMap[SEGMENTS];
+
+    static {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new WeakHashMap<>();
+        }
+    }
+
+    private StringCache() {
+        // no instances
+    }
+
+    /**
+     * Returns the canonical instance of given string, {@code null} and {@link RRuntime#STRING_NA}
+     * are returned as they are.
+     */
+    @TruffleBoundary
+    public static String intern(String value) {
+        if (value == null || RRuntime.isNA(value)) {
+            return value;
+        }
+        int hash = value.hashCode();
+        WeakHashMap<String, WeakReference<String>> segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            WeakReference<String> entry = segment.get(value);
+            if (entry != null) {
+                String result = entry.get();
+                if (result != null) {
+                    return result;
+                }
+            }
+            segment.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * Replaces the elements of given array with their canonical instances and returns the array.
+     */
+    @TruffleBoundary
+    public static String[] internAll(String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = intern(values[i]);
+        }
+        return values;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -61,6 +61,15 @@ public interface RAbstractVector extends RAbstractContainer {
     @Override
     RVector<?> materialize();
 
+    /**
+     * Returns {@link RVector#SORTED_ASCENDING} or {@link RVector#SORTED_DESCENDING} if the elements
+     * are known to be sorted and to contain no {@code NA} or {@code NaN} values, i.e., if the
+     * consumers of the vector can rely on it without checking the data.
+     */
+    default int getKnownSortedness() {
+        return RVector.SORTED_UNKNOWN;
+    }
+
     boolean isMatrix();
 
     boolean isArray();
@@ -128,6 +137,21 @@ public interface RAbstractVector extends RAbstractContainer {
                 }
             }
         }
+        int sortedness = vector.getKnownSortedness();
+        if (sortedness != RVector.SORTED_UNKNOWN) {
+            // check the known order
+            assert access.getType() == RType.Integer || access.getType() == RType.Double;
+            access.na.enable(true);
+            try (SequentialIterator iter = access.access(vector)) {
+                double last = sortedness == RVector.SORTED_ASCENDING ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+                while (access.next(iter)) {
+                    double current = access.getDouble(iter);
+                    assert !access.na.checkNAorNaN(current) : "element " + iter.getIndex() + " of sorted vector " + vector + " is NA";
+                    assert sortedness == RVector.SORTED_ASCENDING ? last <= current : last >= current : "element " + iter.getIndex() + " of vector " + vector + " is not sorted";
+                    last = current;
+                }
+            }
+        }
         return true;
     }
 }
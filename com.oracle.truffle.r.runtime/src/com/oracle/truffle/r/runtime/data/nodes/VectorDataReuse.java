@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -50,6 +50,7 @@ public class VectorDataReuse {
 
         @Specialization(guards = {"!vec.hasNativeMemoryData()", "vec.isTemporary()"})
         protected int[] doManagedTempRVector(RIntVector vec) {
+            vec.resetKnownSortedness();
             return vec.getInternalManagedData();
         }
 
@@ -75,6 +76,7 @@ public class VectorDataReuse {
 
         @Specialization(guards = {"!vec.hasNativeMemoryData()", "vec.isTemporary()"})
         protected double[] doManagedTempRVector(RDoubleVector vec) {
+            vec.resetKnownSortedness();
             return vec.getInternalManagedData();
         }
 
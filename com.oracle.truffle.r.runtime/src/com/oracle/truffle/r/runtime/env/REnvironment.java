@@ -62,6 +62,7 @@ import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.env.frame.NSBaseMaterializedFrame;
 import com.oracle.truffle.r.runtime.env.frame.REnvEmptyFrameAccess;
 import com.oracle.truffle.r.runtime.env.frame.REnvFrameAccess;
+import com.oracle.truffle.r.runtime.env.frame.REnvHashFrameAccess;
 import com.oracle.truffle.r.runtime.env.frame.REnvTruffleFrameAccess;
 
 /**
@@ -770,14 +771,18 @@ public abstract class REnvironment extends RAttributeStorage {
      * An environment associated with an already materialized frame.
      */
     private REnvironment(String name, MaterializedFrame frame) {
-        this(name, new REnvTruffleFrameAccess(frame));
+        this(name, new REnvTruffleFrameAccess(frame), frame);
+    }
+
+    private REnvironment(String name, REnvFrameAccess frameAccess, MaterializedFrame frame) {
+        this(name, frameAccess);
 
         // Associate frame with the environment
         RArguments.setEnvironment(frame, this);
     }
 
     public REnvironment getParent() {
-        MaterializedFrame enclosingFrame = RArguments.getEnclosingFrame(getFrame());
+        MaterializedFrame enclosingFrame = RArguments.getEnclosingFrame(peekFrame());
         return enclosingFrame == null ? emptyEnv : frameToEnvironment(enclosingFrame);
     }
 
@@ -787,7 +792,7 @@ public abstract class REnvironment extends RAttributeStorage {
      */
     public void setParent(REnvironment env) {
         if (getParent() != env) {
-            RArguments.setEnclosingFrame(getFrame(), env.getFrame(), true);
+            RArguments.setEnclosingFrame(peekFrame(), env.getFrame(), true);
         }
     }
 
@@ -836,8 +841,8 @@ public abstract class REnvironment extends RAttributeStorage {
     }
 
     /**
-     * Return the {@link MaterializedFrame} associated with this environment, installing one if
-     * there is none in the case of {@link NewEnv} environments.
+     * Return the {@link MaterializedFrame} associated with this environment. All the bindings of
+     * the environment are accessible through the frame.
      */
     public MaterializedFrame getFrame() {
         return frameAccess.getFrame();
@@ -847,6 +852,27 @@ public abstract class REnvironment extends RAttributeStorage {
         return frameAccessProfile.profile(frameAccess).getFrame();
     }
 
+    /**
+     * Return the {@link MaterializedFrame} associated with this environment for accessing its frame
+     * descriptor or arguments (e.g., the enclosing frame). The bindings of hashed {@link NewEnv}
+     * environments may be stored outside of the frame, see {@link REnvHashFrameAccess}.
+     */
+    public MaterializedFrame peekFrame() {
+        return frameAccess.peekFrame();
+    }
+
+    public MaterializedFrame peekFrame(ValueProfile frameAccessProfile) {
+        return frameAccessProfile.profile(frameAccess).peekFrame();
+    }
+
+    /**
+     * Returns {@code true} if some bindings of this environment are not stored in the frame
+     * returned by {@link #peekFrame()}.
+     */
+    public boolean hasBindingsOutsideFrame() {
+        return frameAccess.hasBindingsOutsideFrame();
+    }
+
     public void lock(boolean bindings) {
         locked = true;
         if (bindings) {
@@ -1104,17 +1130,25 @@ public abstract class REnvironment extends RAttributeStorage {
     /**
      * An environment explicitly created with, typically, {@code new.env}, but also used internally.
      * Such environments are always {@link #UNNAMED} but can later be given a name as an attribute.
-     * This is the class used by the {@code new.env} function. We record but do not interpret the
-     * {@code hash} input, as we always use a hashmap, for possible use by the serialization code
-     * (GnuR generates different output format for hash environments).
+     * This is the class used by the {@code new.env} function. The {@code hash} input is recorded
+     * for the serialization code (GnuR generates different output format for hash environments)
+     * and it allows large environments to store their bindings in a hash table instead of frame
+     * slots, see {@link REnvHashFrameAccess}. The {@code size} input is the initial capacity of
+     * that table.
      *
      */
     public static final class NewEnv extends REnvironment {
+        private final REnvHashFrameAccess hashFrameAccess;
         private boolean hashed;
         private int initialSize;
 
         public NewEnv(MaterializedFrame frame, String name) {
-            super(UNNAMED, frame);
+            this(frame, name, new REnvHashFrameAccess(frame));
+        }
+
+        private NewEnv(MaterializedFrame frame, String name, REnvHashFrameAccess hashFrameAccess) {
+            super(UNNAMED, hashFrameAccess, frame);
+            this.hashFrameAccess = hashFrameAccess;
             if (name != null) {
                 setAttr(NAME_ATTR_KEY, name);
             }
@@ -1126,6 +1160,7 @@ public abstract class REnvironment extends RAttributeStorage {
 
         public void setHashed(boolean hashed) {
             this.hashed = hashed;
+            hashFrameAccess.setHashed(hashed, initialSize);
         }
 
         public int getInitialSize() {
@@ -1134,6 +1169,7 @@ public abstract class REnvironment extends RAttributeStorage {
 
         public void setInitialSize(int initialSize) {
             this.initialSize = initialSize;
+            hashFrameAccess.setHashed(hashed, initialSize);
         }
     }
 
@@ -22,6 +22,8 @@
  */
 package com.oracle.truffle.r.runtime.env.frame;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Collection;
@@ -30,6 +32,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
@@ -61,6 +64,12 @@ import com.oracle.truffle.r.runtime.data.RShareable;
  * This class maintains information about the current hierarchy of environments in the system. This
  * information is described as assumptions that will be invalidated if the layout changes, and thus
  * make sure that code is properly deoptimized.
+ *
+ * The metadata may be accessed by multiple threads (e.g., parallel contexts that share the search
+ * path). Queries, i.e., cached lookups and the retrieval of assumptions, singleton frames and
+ * stable values, do not take any lock. Structural changes (new frame descriptors and slots, changes
+ * of the enclosing frames, invalidation of lookups) and the computation of new lookup results are
+ * serialized by the lock on this class. Changes of stable values are serialized per frame slot.
  */
 public final class FrameSlotChangeMonitor {
 
@@ -87,6 +96,13 @@ public final class FrameSlotChangeMonitor {
 
         public abstract Object getValue() throws InvalidAssumptionException;
 
+        /**
+         * Returns {@code true} if the lookup did not find any binding of the name.
+         */
+        public boolean isMissing() {
+            return false;
+        }
+
         private void invalidate() {
             assumption.invalidate();
         }
@@ -139,6 +155,11 @@ public final class FrameSlotChangeMonitor {
             assumption.check();
             return null;
         }
+
+        @Override
+        public boolean isMissing() {
+            return true;
+        }
     }
 
     public static final class FrameAndSlotLookupResult extends LookupResult {
@@ -178,21 +199,32 @@ public final class FrameSlotChangeMonitor {
     private static final class FrameDescriptorMetaData {
         private final String name; // name for debug purposes
         private final WeakReference<MaterializedFrame> singletonFrame;
+        /**
+         * Only accessed while holding the lock on {@link FrameSlotChangeMonitor}.
+         */
         private final Set<FrameDescriptor> subDescriptors = Collections.newSetFromMap(new WeakHashMap<>(2));
 
         /**
          * This set contains all lookups that have been performed "across" this frame descriptor. If
          * a binding with one of these names is modified, then the lookups in this frame descriptor
-         * and all child frame descriptors need to be checked.
+         * and all child frame descriptors need to be checked. Only accessed while holding the lock
+         * on {@link FrameSlotChangeMonitor}.
          */
         private final Set<Object> previousLookups = new HashSet<>();
         /**
-         * A set of all lookups that started in this frame descriptor.
+         * A set of all lookups that started in this frame descriptor. Read without locking, updated
+         * only while holding the lock on {@link FrameSlotChangeMonitor}. The entries are removed
+         * once their results were collected, see {@link LookupResultReference}.
+         */
+        private final ConcurrentHashMap<Object, LookupResultReference> lookupResults = new ConcurrentHashMap<>(2);
+        /**
+         * A set of all local (i.e., not following the enclosing frames) lookups in this frame
+         * descriptor. Same rules as for {@link #lookupResults}.
          */
-        private final WeakHashMap<Object, WeakReference<LookupResult>> lookupResults = new WeakHashMap<>(2);
+        private final ConcurrentHashMap<Object, LookupResultReference> localLookupResults = new ConcurrentHashMap<>(1);
 
-        private WeakReference<FrameDescriptor> enclosingFrameDescriptor = new WeakReference<>(null);
-        private Assumption enclosingFrameDescriptorAssumption = Truffle.getRuntime().createAssumption("enclosing frame descriptor");
+        private volatile WeakReference<FrameDescriptor> enclosingFrameDescriptor = new WeakReference<>(null);
+        private volatile Assumption enclosingFrameDescriptorAssumption = Truffle.getRuntime().createAssumption("enclosing frame descriptor");
         private final Assumption containsNoActiveBindingAssumption = Truffle.getRuntime().createAssumption("contains no active binding");
 
         private FrameDescriptorMetaData(String name, MaterializedFrame singletonFrame) {
@@ -202,11 +234,14 @@ public final class FrameSlotChangeMonitor {
 
         public void updateEnclosingFrameDescriptor(FrameDescriptor newEnclosingDescriptor) {
             CompilerAsserts.neverPartOfCompilation();
-            if (enclosingFrameDescriptorAssumption != null) {
-                enclosingFrameDescriptorAssumption.invalidate();
-            }
+            Assumption oldAssumption = enclosingFrameDescriptorAssumption;
+            // publish the new state before invalidating the old assumption, so that a concurrent
+            // reader never sees a valid assumption together with a stale descriptor
             enclosingFrameDescriptor = new WeakReference<>(newEnclosingDescriptor);
             enclosingFrameDescriptorAssumption = Truffle.getRuntime().createAssumption("enclosing frame descriptor");
+            if (oldAssumption != null) {
+                oldAssumption.invalidate();
+            }
         }
 
         public FrameDescriptor getEnclosingFrameDescriptor() {
@@ -224,19 +259,118 @@ public final class FrameSlotChangeMonitor {
         }
     }
 
-    private static final WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> frameDescriptors = new WeakHashMap<>();
+    /**
+     * A map from frame descriptors (compared by identity) to their metadata that does not keep the
+     * frame descriptors alive. Unlike {@link WeakHashMap}, it can be read concurrently without
+     * locking. Updates are only done while holding the lock on {@link FrameSlotChangeMonitor}.
+     */
+    private static final class DescriptorMap {
+
+        private static final class WeakKey extends WeakReference<FrameDescriptor> {
+            private final int hash;
+
+            WeakKey(FrameDescriptor descriptor, ReferenceQueue<FrameDescriptor> queue) {
+                super(descriptor, queue);
+                this.hash = System.identityHashCode(descriptor);
+            }
+
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                if (obj == this) {
+                    return true;
+                }
+                if (!(obj instanceof WeakKey)) {
+                    return false;
+                }
+                FrameDescriptor descriptor = get();
+                return descriptor != null && descriptor == ((WeakKey) obj).get();
+            }
+        }
+
+        private final ConcurrentHashMap<WeakKey, FrameDescriptorMetaData> map = new ConcurrentHashMap<>();
+        private final ReferenceQueue<FrameDescriptor> queue = new ReferenceQueue<>();
+
+        FrameDescriptorMetaData get(FrameDescriptor descriptor) {
+            return descriptor == null ? null : map.get(new WeakKey(descriptor, null));
+        }
+
+        void put(FrameDescriptor descriptor, FrameDescriptorMetaData metaData) {
+            expungeStaleEntries();
+            map.put(new WeakKey(descriptor, queue), metaData);
+        }
+
+        private void expungeStaleEntries() {
+            Reference<? extends FrameDescriptor> ref;
+            while ((ref = queue.poll()) != null) {
+                map.remove(ref);
+            }
+        }
+    }
+
+    private static final DescriptorMap frameDescriptors = new DescriptorMap();
+
+    /**
+     * A cached lookup result that knows its map entry, so that the entry can be removed once the
+     * result was collected. Otherwise the lookup result maps would keep the identifiers of all the
+     * lookups ever done in a frame descriptor.
+     */
+    private static final class LookupResultReference extends WeakReference<LookupResult> {
+        private final Map<Object, LookupResultReference> results;
+        private final Object identifier;
+
+        LookupResultReference(Map<Object, LookupResultReference> results, Object identifier, LookupResult result) {
+            super(result, collectedLookupResults);
+            this.results = results;
+            this.identifier = identifier;
+        }
+    }
+
+    private static final ReferenceQueue<LookupResult> collectedLookupResults = new ReferenceQueue<>();
+
+    /**
+     * Caches the given lookup result. Must be called while holding the lock on
+     * {@link FrameSlotChangeMonitor}.
+     */
+    private static void putLookupResult(Map<Object, LookupResultReference> results, Object identifier, LookupResult result) {
+        Reference<? extends LookupResult> ref;
+        while ((ref = collectedLookupResults.poll()) != null) {
+            LookupResultReference collected = (LookupResultReference) ref;
+            // the entry may have been replaced by a newer result in the meantime
+            collected.results.remove(collected.identifier, collected);
+        }
+        results.put(identifier, new LookupResultReference(results, identifier, result));
+    }
 
     /**
      * This function tries to fulfill the lookup for the given name in the given frame based only on
      * the static knowledge about the frame descriptor hierarchy and stable bindings. Returns
      * {@code null} in case this was not possible.
      */
-    public static synchronized LookupResult lookup(Frame frame, Object identifier) {
+    public static LookupResult lookup(Frame frame, Object identifier) {
         CompilerAsserts.neverPartOfCompilation();
         FrameDescriptorMetaData metaData = getMetaData(frame);
-        WeakReference<LookupResult> weakResult = metaData.lookupResults.get(identifier);
+        LookupResult result = getValidResult(metaData.lookupResults, identifier);
+        if (result != null) {
+            return result;
+        }
+        return computeLookup(frame, metaData, identifier);
+    }
+
+    private static LookupResult getValidResult(Map<Object, LookupResultReference> results, Object identifier) {
+        LookupResultReference weakResult = results.get(identifier);
         LookupResult result = weakResult == null ? null : weakResult.get();
-        if (result != null && result.isValid()) {
+        return result != null && result.isValid() ? result : null;
+    }
+
+    private static synchronized LookupResult computeLookup(Frame frame, FrameDescriptorMetaData metaData, Object identifier) {
+        // another thread may have computed the result in the meantime
+        LookupResult result = getValidResult(metaData.lookupResults, identifier);
+        if (result != null) {
             return result;
         }
         Frame current = frame;
@@ -258,7 +392,7 @@ public final class FrameSlotChangeMonitor {
                     }
                 }
                 addPreviousLookups(frame, current, identifier);
-                metaData.lookupResults.put(identifier, new WeakReference<>(lookupResult));
+                putLookupResult(metaData.lookupResults, identifier, lookupResult);
                 return lookupResult;
             }
             Frame next = RArguments.getEnclosingFrame(current);
@@ -273,10 +407,46 @@ public final class FrameSlotChangeMonitor {
         // not frame slot found: missing value
         addPreviousLookups(frame, current, identifier);
         LookupResult lookupResult = new MissingLookupResult(identifier.toString());
-        metaData.lookupResults.put(identifier, new WeakReference<>(lookupResult));
+        putLookupResult(metaData.lookupResults, identifier, lookupResult);
         return lookupResult;
     }
 
+    /**
+     * Like {@link #lookup(Frame, Object)}, but only looks at the given frame and not at its
+     * enclosing frames. This is only supported for frames of non-function environments, for other
+     * frames or if the binding is not stable, {@code null} is returned.
+     */
+    public static LookupResult lookupLocal(Frame frame, Object identifier) {
+        CompilerAsserts.neverPartOfCompilation();
+        FrameDescriptor descriptor = frame.getFrameDescriptor();
+        FrameDescriptorMetaData metaData = getMetaData(descriptor);
+        if (metaData.singletonFrame == null) {
+            return null;
+        }
+        LookupResult result = getValidResult(metaData.localLookupResults, identifier);
+        if (result != null) {
+            return result;
+        }
+        return computeLookupLocal(descriptor, metaData, identifier);
+    }
+
+    private static synchronized LookupResult computeLookupLocal(FrameDescriptor descriptor, FrameDescriptorMetaData metaData, Object identifier) {
+        // the slot is added while holding the lock, so checking for it here is not racy
+        FrameSlot slot = descriptor.findFrameSlot(identifier);
+        if (slot != null) {
+            StableValue<Object> stableValue = getFrameSlotInfo(slot).stableValue;
+            return stableValue == null ? null : new StableValueLookupResult(identifier.toString(), stableValue);
+        }
+        LookupResult result = getValidResult(metaData.localLookupResults, identifier);
+        if (result == null) {
+            // adding the slot will invalidate the result
+            metaData.previousLookups.add(identifier);
+            result = new MissingLookupResult(identifier.toString());
+            putLookupResult(metaData.localLookupResults, identifier, result);
+        }
+        return result;
+    }
+
     private static void addPreviousLookups(Frame from, Frame to, Object identifier) {
         Frame mark = from;
         while (true) {
@@ -299,13 +469,8 @@ public final class FrameSlotChangeMonitor {
     private static synchronized void invalidateNames(FrameDescriptorMetaData metaData, Collection<Object> identifiers) {
         if (metaData.previousLookups.removeAll(identifiers)) {
             for (Object identifier : identifiers) {
-                WeakReference<LookupResult> result = metaData.lookupResults.remove(identifier);
-                if (result != null) {
-                    LookupResult lookup = result.get();
-                    if (lookup != null) {
-                        lookup.invalidate();
-                    }
-                }
+                invalidateLookup(metaData.lookupResults.remove(identifier));
+                invalidateLookup(metaData.localLookupResults.remove(identifier));
             }
             for (FrameDescriptor descriptor : metaData.subDescriptors) {
                 FrameDescriptorMetaData sub = getMetaData(descriptor);
@@ -314,6 +479,15 @@ public final class FrameSlotChangeMonitor {
         }
     }
 
+    private static void invalidateLookup(LookupResultReference result) {
+        if (result != null) {
+            LookupResult lookup = result.get();
+            if (lookup != null) {
+                lookup.invalidate();
+            }
+        }
+    }
+
     /**
      * Special handling (return a marker frame descriptor) for the namespace:base environment.
      */
@@ -321,7 +495,7 @@ public final class FrameSlotChangeMonitor {
         return frame == null ? null : frame instanceof NSBaseMaterializedFrame ? ((NSBaseMaterializedFrame) frame).getMarkerFrameDescriptor() : frame.getFrameDescriptor();
     }
 
-    private static synchronized FrameDescriptorMetaData getMetaData(FrameDescriptor descriptor) {
+    private static FrameDescriptorMetaData getMetaData(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
         FrameDescriptorMetaData result = frameDescriptors.get(descriptor);
         assert result != null : "null metadata for " + descriptor;
@@ -339,7 +513,7 @@ public final class FrameSlotChangeMonitor {
         return target;
     }
 
-    public static synchronized boolean isEnclosingFrameDescriptor(FrameDescriptor descriptor, Frame newEnclosingFrame) {
+    public static boolean isEnclosingFrameDescriptor(FrameDescriptor descriptor, Frame newEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
         FrameDescriptorMetaData target = getDescriptorMetaData(descriptor);
         FrameDescriptor newEnclosingDescriptor = handleBaseNamespaceEnv(newEnclosingFrame);
@@ -401,13 +575,18 @@ public final class FrameSlotChangeMonitor {
     }
 
     private static void invalidateAllNames(FrameDescriptorMetaData target) {
-        for (Map.Entry<Object, WeakReference<LookupResult>> entry : target.lookupResults.entrySet()) {
+        for (Map.Entry<Object, LookupResultReference> entry : target.lookupResults.entrySet()) {
             LookupResult lookup = entry.getValue().get();
             if (lookup != null) {
                 lookup.invalidate();
             }
         }
         target.lookupResults.clear();
+        // the previous lookups are cleared, so that adding a slot would not invalidate these
+        for (LookupResultReference result : target.localLookupResults.values()) {
+            invalidateLookup(result);
+        }
+        target.localLookupResults.clear();
         if (!target.previousLookups.isEmpty()) {
             target.previousLookups.clear();
             for (FrameDescriptor sub : target.subDescriptors) {
@@ -537,40 +716,52 @@ public final class FrameSlotChangeMonitor {
         private void setValue(boolean value, FrameSlot slot) {
             StableValue<Object> sv = stableValue;
             if (sv != null && (!(sv.getValue() instanceof Boolean) || ((boolean) sv.getValue()) != value)) {
-                invalidateStableValue(sv, value, slot);
+                invalidateStableValue(value, slot);
             }
         }
 
         private void setValue(byte value, FrameSlot slot) {
             StableValue<Object> sv = stableValue;
             if (sv != null && (!(sv.getValue() instanceof Byte) || ((byte) sv.getValue()) != value)) {
-                invalidateStableValue(sv, value, slot);
+                invalidateStableValue(value, slot);
             }
         }
 
         private void setValue(int value, FrameSlot slot) {
             StableValue<Object> sv = stableValue;
             if (sv != null && (!(sv.getValue() instanceof Integer) || ((int) sv.getValue()) != value)) {
-                invalidateStableValue(sv, value, slot);
+                invalidateStableValue(value, slot);
             }
         }
 
         private void setValue(double value, FrameSlot slot) {
             StableValue<Object> sv = stableValue;
             if (sv != null && (!(sv.getValue() instanceof Double) || ((double) sv.getValue()) != value)) {
-                invalidateStableValue(sv, value, slot);
+                invalidateStableValue(value, slot);
             }
         }
 
         private void setValue(Object value, FrameSlot slot) {
             StableValue<Object> sv = stableValue;
             if (sv != null && sv.getValue() != value) {
-                invalidateStableValue(sv, value, slot);
+                invalidateStableValue(value, slot);
             }
         }
 
-        private void invalidateStableValue(StableValue<Object> sv, Object value, FrameSlot slot) {
+        private void invalidateStableValue(Object value, FrameSlot slot) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
+            invalidateStableValueSynchronized(value, slot);
+        }
+
+        @TruffleBoundary
+        private synchronized void invalidateStableValueSynchronized(Object value, FrameSlot slot) {
+            StableValue<Object> sv = stableValue;
+            if (sv == null) {
+                // another thread has already turned this slot into a non-stable one
+                return;
+            }
+            // if another thread has installed a new stable value in the meantime, it may not be
+            // the value written by this thread, so it is invalidated as well
             sv.getAssumption().invalidate();
             if (invalidationCount > 0) {
                 invalidationCount--;
@@ -753,9 +944,15 @@ public final class FrameSlotChangeMonitor {
         return findOrAddFrameSlot(fd, (Object) identifier, initialKind);
     }
 
-    private static synchronized FrameSlot findOrAddFrameSlot(FrameDescriptor fd, Object identifier, FrameSlotKind initialKind) {
+    private static FrameSlot findOrAddFrameSlot(FrameDescriptor fd, Object identifier, FrameSlotKind initialKind) {
         CompilerAsserts.neverPartOfCompilation();
         assert identifier instanceof String || identifier instanceof RFrameSlot;
+        // frame slots are never removed, so an existing slot can be returned without locking
+        FrameSlot frameSlot = fd.findFrameSlot(identifier);
+        return frameSlot != null ? frameSlot : addFrameSlot(fd, identifier, initialKind);
+    }
+
+    private static synchronized FrameSlot addFrameSlot(FrameDescriptor fd, Object identifier, FrameSlotKind initialKind) {
         FrameSlot frameSlot = fd.findFrameSlot(identifier);
         if (frameSlot != null) {
             return frameSlot;
@@ -937,17 +1134,17 @@ public final class FrameSlotChangeMonitor {
         return frameDescriptor;
     }
 
-    public static synchronized Assumption getEnclosingFrameDescriptorAssumption(FrameDescriptor descriptor) {
+    public static Assumption getEnclosingFrameDescriptorAssumption(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        return frameDescriptors.get(descriptor).getEnclosingFrameDescriptorAssumption();
+        return getMetaData(descriptor).getEnclosingFrameDescriptorAssumption();
     }
 
-    public static synchronized Assumption getContainsNoActiveBindingAssumption(FrameDescriptor descriptor) {
+    public static Assumption getContainsNoActiveBindingAssumption(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        return frameDescriptors.get(descriptor).getContainsNoActiveBindingAssumption();
+        return getMetaData(descriptor).getContainsNoActiveBindingAssumption();
     }
 
-    public static synchronized StableValue<Object> getStableValueAssumption(FrameDescriptor descriptor, FrameSlot frameSlot, Object value) {
+    public static StableValue<Object> getStableValueAssumption(FrameDescriptor descriptor, FrameSlot frameSlot, Object value) {
         CompilerAsserts.neverPartOfCompilation();
         StableValue<Object> stableValue = getFrameSlotInfo(frameSlot).getStableValue();
         if (stableValue != null) {
@@ -958,7 +1155,7 @@ public final class FrameSlotChangeMonitor {
         return stableValue;
     }
 
-    public static synchronized MaterializedFrame getSingletonFrame(FrameDescriptor descriptor) {
+    public static MaterializedFrame getSingletonFrame(FrameDescriptor descriptor) {
         WeakReference<MaterializedFrame> singleton = getMetaData(descriptor).singletonFrame;
         return singleton == null ? null : singleton.get();
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -79,4 +79,21 @@ public abstract class REnvFrameAccess {
 
     public abstract MaterializedFrame getFrame();
 
+    /**
+     * Like {@link #getFrame()}, but the bindings of the environment need not be stored in the
+     * returned frame (see {@link REnvHashFrameAccess}). Only the frame descriptor and the arguments
+     * of the frame (e.g., the enclosing frame) may be accessed.
+     */
+    public MaterializedFrame peekFrame() {
+        return getFrame();
+    }
+
+    /**
+     * Returns {@code true} if some bindings are currently not stored in the frame returned by
+     * {@link #peekFrame()}.
+     */
+    public boolean hasBindingsOutsideFrame() {
+        return false;
+    }
+
 }
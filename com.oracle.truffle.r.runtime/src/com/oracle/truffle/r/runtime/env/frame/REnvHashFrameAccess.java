@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.env.frame;
+
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.Utils;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.env.REnvironment.PutException;
+
+/**
+ * Variant of {@link REnvFrameAccess} for hashed environments created by {@code new.env} that are
+ * used as hash maps by R code. Every binding stored in a Truffle frame needs a {@link
+ * com.oracle.truffle.api.frame.FrameSlot}, which makes environments with many thousands of keys
+ * expensive. Once the frame of such an environment has {@link #HASH_THRESHOLD} slots, new bindings
+ * are stored in an open-addressing hash table instead.
+ *
+ * The bindings in the hash table are not visible to the code that accesses the frame directly
+ * (variable lookup, closures, {@code eval}). Therefore, as soon as the frame is requested via
+ * {@link #getFrame()}, all the bindings are moved to frame slots and the environment permanently
+ * switches to the frame storage. Each binding is always stored in exactly one place: a name that
+ * has a frame slot is never stored in the hash table.
+ */
+public final class REnvHashFrameAccess extends REnvFrameAccess {
+
+    /**
+     * The number of frame slots from which the new bindings are stored in the hash table.
+     */
+    public static final int HASH_THRESHOLD = 512;
+
+    private final REnvTruffleFrameAccess frameAccess;
+    /**
+     * Set by {@code new.env(hash = TRUE)}, other environments always use the frame storage.
+     */
+    private boolean hashed;
+    private int initialSize;
+    /**
+     * {@code true} once the frame was handed out by {@link #getFrame()}.
+     */
+    private boolean frameExposed;
+    private BindingTable table;
+
+    public REnvHashFrameAccess(MaterializedFrame frame) {
+        this.frameAccess = new REnvTruffleFrameAccess(frame);
+    }
+
+    public void setHashed(boolean hashed, int initialSize) {
+        this.hashed = hashed;
+        this.initialSize = initialSize;
+    }
+
+    @Override
+    public boolean hasBindingsOutsideFrame() {
+        return table != null;
+    }
+
+    @Override
+    @TruffleBoundary
+    public MaterializedFrame getFrame() {
+        if (table != null) {
+            moveTableToFrame();
+        }
+        frameExposed = true;
+        return frameAccess.getFrame();
+    }
+
+    @Override
+    public MaterializedFrame peekFrame() {
+        return frameAccess.getFrame();
+    }
+
+    private void moveTableToFrame() {
+        BindingTable old = table;
+        table = null;
+        for (int i = 0; i < old.keys.length; i++) {
+            String key = old.keys[i];
+            if (key != null) {
+                boolean locked = frameAccess.bindingIsLocked(key);
+                if (locked) {
+                    frameAccess.unlockBinding(key);
+                }
+                try {
+                    frameAccess.put(key, old.values[i]);
+                } catch (PutException ex) {
+                    throw RInternalError.shouldNotReachHere(ex);
+                } finally {
+                    if (locked) {
+                        frameAccess.lockBinding(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean hasSlot(String key) {
+        return frameAccess.getFrame().getFrameDescriptor().findFrameSlot(key) != null;
+    }
+
+    @Override
+    public Object get(String key) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (table != null && !hasSlot(key)) {
+            return table.get(key);
+        }
+        return frameAccess.get(key);
+    }
+
+    @Override
+    public boolean isActiveBinding(String key) {
+        // active bindings are never stored in the hash table
+        return frameAccess.isActiveBinding(key);
+    }
+
+    @Override
+    public void put(String key, Object value) throws PutException {
+        CompilerAsserts.neverPartOfCompilation();
+        assert key != null;
+        assert value != null;
+        if (table == null && hashed && !frameExposed && !(value instanceof ActiveBinding) && frameAccess.getFrame().getFrameDescriptor().getSize() >= HASH_THRESHOLD && !hasSlot(key)) {
+            table = new BindingTable(Math.max(initialSize, HASH_THRESHOLD));
+        }
+        if (table == null || hasSlot(key)) {
+            frameAccess.put(key, value);
+        } else if (value instanceof ActiveBinding) {
+            // active bindings are handled by the frame storage
+            moveTableToFrame();
+            frameAccess.put(key, value);
+        } else {
+            if (frameAccess.bindingIsLocked(key)) {
+                throw new PutException(RError.Message.ENV_CHANGE_BINDING, key);
+            }
+            table.put(Utils.intern(key), value);
+        }
+    }
+
+    @Override
+    public void rm(String key) throws PutException {
+        CompilerAsserts.neverPartOfCompilation();
+        if (table == null || hasSlot(key)) {
+            frameAccess.rm(key);
+        } else {
+            frameAccess.unlockBinding(key);
+            if (!table.remove(key)) {
+                throw new PutException(RError.Message.UNKNOWN_OBJECT, key);
+            }
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public RStringVector ls(boolean allNames, Pattern pattern, boolean sorted) {
+        if (table == null) {
+            return frameAccess.ls(allNames, pattern, sorted);
+        }
+        ArrayList<String> names = new ArrayList<>(table.size);
+        REnvTruffleFrameAccess.getStringIdentifiersAndValues(frameAccess.getFrame(), names, null);
+        for (String key : table.keys) {
+            if (key != null) {
+                names.add(key);
+            }
+        }
+        ArrayList<String> matchedNames = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (REnvironment.includeName(name, allNames, pattern)) {
+                matchedNames.add(name);
+            }
+        }
+        String[] data = matchedNames.toArray(new String[matchedNames.size()]);
+        if (sorted) {
+            REnvTruffleFrameAccess.sortNames(data);
+        }
+        return RDataFactory.createStringVector(data, RDataFactory.COMPLETE_VECTOR);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void lockBindings() {
+        frameAccess.lockBindings();
+        if (table != null) {
+            for (String key : table.keys) {
+                if (key != null) {
+                    frameAccess.lockBinding(key);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void lockBinding(String key) {
+        frameAccess.lockBinding(key);
+    }
+
+    @Override
+    public void unlockBinding(String key) {
+        frameAccess.unlockBinding(key);
+    }
+
+    @Override
+    public boolean bindingIsLocked(String key) {
+        return frameAccess.bindingIsLocked(key);
+    }
+
+    /**
+     * Open-addressing hash table with linear probing keyed by interned strings. Removal shifts the
+     * following entries of the probe sequence back, so that no tombstones are needed and both
+     * insertion and removal are O(1) on average.
+     */
+    private static final class BindingTable {
+        private String[] keys;
+        private Object[] values;
+        private int size;
+
+        BindingTable(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+            keys = new String[capacity];
+            values = new Object[capacity];
+        }
+
+        private static int hash(String key, int mask) {
+            int h = key.hashCode();
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private int indexOf(String key) {
+            int mask = keys.length - 1;
+            int i = hash(key, mask);
+            while (true) {
+                String k = keys[i];
+                if (k == null) {
+                    return -1;
+                }
+                // the keys are interned, the equals is only a fallback for non-interned arguments
+                if (k == key || k.equals(key)) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        Object get(String key) {
+            int i = indexOf(key);
+            return i < 0 ? null : values[i];
+        }
+
+        void put(String key, Object value) {
+            int mask = keys.length - 1;
+            int i = hash(key, mask);
+            while (keys[i] != null) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+        }
+
+        boolean remove(String key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return false;
+            }
+            int mask = keys.length - 1;
+            // shift back the entries whose probe sequence passes through the removed one
+            int hole = i;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                String k = keys[j];
+                if (k == null) {
+                    break;
+                }
+                int home = hash(k, mask);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = k;
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = null;
+            values[hole] = null;
+            size--;
+            return true;
+        }
+
+        private void resize(int capacity) {
+            String[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new String[capacity];
+            values = new Object[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -43,9 +43,13 @@ public interface CallRFFI {
             LibHandle handle = dllInfo == null ? null : dllInfo.handle;
             Type rffiType = handle == null ? null : handle.getRFFIType();
             long before = stateRFFI.beforeDowncall(rffiType);
+            long startTime = NativeCallStatistics.isEnabled() ? NativeCallStatistics.callStarted() : 0;
             try {
                 return execute(nativeCallInfo, args);
             } finally {
+                if (startTime != 0) {
+                    NativeCallStatistics.callFinished(nativeCallInfo, startTime);
+                }
                 stateRFFI.afterDowncall(before, rffiType);
             }
         }
@@ -62,9 +66,13 @@ public interface CallRFFI {
         default void dispatch(NativeCallInfo nativeCallInfo, Object[] args) {
             RFFIContext stateRFFI = RContext.getInstance().getStateRFFI();
             long before = stateRFFI.beforeDowncall(nativeCallInfo.dllInfo.handle.getRFFIType());
+            long startTime = NativeCallStatistics.isEnabled() ? NativeCallStatistics.callStarted() : 0;
             try {
                 execute(nativeCallInfo, args);
             } finally {
+                if (startTime != 0) {
+                    NativeCallStatistics.callFinished(nativeCallInfo, startTime);
+                }
                 stateRFFI.afterDowncall(before, nativeCallInfo.dllInfo.handle.getRFFIType());
             }
         }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.ffi;
+
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+
+/**
+ * Statistics of the calls of native functions via {@code .Call} and {@code .External}, of the
+ * up-calls from the native code to the R API, and of the copying of vector data between the Java
+ * heap and the native memory by {@code NativeDataAccess}.
+ *
+ * The statistics are collected only after they are enabled by {@code .fastr.native.stats}, until
+ * then the checks of {@link #isEnabled()} are folded away by the compiler. Once enabled for the
+ * first time, the statistics are also available on the {@link NativeCallInspectorMBean}.
+ */
+public final class NativeCallStatistics {
+
+    private static final Assumption neverEnabled = Truffle.getRuntime().createAssumption("native call statistics never enabled");
+    private static volatile boolean enabled;
+    private static boolean mbeanRegistered;
+
+    private static final ConcurrentHashMap<String, CallEntry> calls = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongAdder> upcalls = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, CopyEntry> copiesToNative = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, CopyEntry> copiesFromNative = new ConcurrentHashMap<>();
+
+    private NativeCallStatistics() {
+        // no instances
+    }
+
+    public static final class CallEntry {
+        public final String dll;
+        public final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+        private final AtomicLong maxTime = new AtomicLong();
+
+        CallEntry(String dll, String name) {
+            this.dll = dll;
+            this.name = name;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the cumulative wall time of the calls in nanoseconds, including the time spent in
+         * nested up-calls and down-calls.
+         */
+        public long getTotalTime() {
+            return totalTime.sum();
+        }
+
+        public long getMaxTime() {
+            return maxTime.get();
+        }
+    }
+
+    public static final class CopyEntry {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return !neverEnabled.isValid() && enabled;
+    }
+
+    @TruffleBoundary
+    public static synchronized void setEnabled(boolean value) {
+        if (value) {
+            neverEnabled.invalidate();
+            registerMBean();
+        }
+        enabled = value;
+    }
+
+    @TruffleBoundary
+    public static void reset() {
+        calls.clear();
+        upcalls.clear();
+        copiesToNative.clear();
+        copiesFromNative.clear();
+    }
+
+    /**
+     * Returns the start time of a native call to be passed to {@link #callFinished}.
+     */
+    @TruffleBoundary
+    public static long callStarted() {
+        return System.nanoTime();
+    }
+
+    @TruffleBoundary
+    public static void callFinished(NativeCallInfo nativeCallInfo, long startTime) {
+        long time = System.nanoTime() - startTime;
+        String dll = nativeCallInfo.dllInfo == null ? "" : nativeCallInfo.dllInfo.name;
+        CallEntry entry = calls.computeIfAbsent(dll + "::" + nativeCallInfo.name, key -> new CallEntry(dll, nativeCallInfo.name));
+        entry.count.increment();
+        entry.totalTime.add(time);
+        long max;
+        while (time > (max = entry.maxTime.get()) && !entry.maxTime.compareAndSet(max, time)) {
+            // retry
+        }
+    }
+
+    @TruffleBoundary
+    public static void upcall(String name) {
+        upcalls.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records that the data of a vector of given type were copied to the native memory, i.e., that
+     * the vector was nativized.
+     */
+    @TruffleBoundary
+    public static void copiedToNative(String type, long bytes) {
+        record(copiesToNative, type, bytes);
+    }
+
+    /**
+     * Records that the native data of a vector of given type were copied to the Java heap, i.e.,
+     * that the vector was materialized from its native mirror.
+     */
+    @TruffleBoundary
+    public static void copiedFromNative(String type, long bytes) {
+        record(copiesFromNative, type, bytes);
+    }
+
+    private static void record(ConcurrentHashMap<String, CopyEntry> map, String type, long bytes) {
+        CopyEntry entry = map.computeIfAbsent(type, key -> new CopyEntry());
+        entry.count.increment();
+        entry.bytes.add(bytes);
+    }
+
+    /**
+     * Returns the statistics of the native calls sorted by decreasing cumulative time.
+     */
+    @TruffleBoundary
+    public static List<CallEntry> getCalls() {
+        ArrayList<CallEntry> result = new ArrayList<>(calls.values());
+        result.sort(Comparator.comparingLong(CallEntry::getTotalTime).reversed());
+        return result;
+    }
+
+    @TruffleBoundary
+    public static List<Map.Entry<String, Long>> getUpcalls() {
+        ArrayList<Map.Entry<String, Long>> result = new ArrayList<>(upcalls.size());
+        upcalls.forEach((name, count) -> result.add(new SimpleImmutableEntry<>(name, count.sum())));
+        result.sort(Map.Entry.<String, Long> comparingByValue().reversed());
+        return result;
+    }
+
+    @TruffleBoundary
+    public static List<Map.Entry<String, CopyEntry>> getCopies(boolean toNative) {
+        ArrayList<Map.Entry<String, CopyEntry>> result = new ArrayList<>((toNative ? copiesToNative : copiesFromNative).entrySet());
+        result.sort(Comparator.comparingLong((Map.Entry<String, CopyEntry> e) -> e.getValue().getBytes()).reversed());
+        return result;
+    }
+
+    public interface NativeCallInspectorMBean {
+        boolean isEnabled();
+
+        void setEnabled(boolean value);
+
+        void reset();
+
+        long getCallCount();
+
+        long getUpcallCount();
+
+        long getBytesCopiedToNative();
+
+        long getBytesCopiedFromNative();
+
+        long getMaterializations();
+
+        /**
+         * Returns one line per native function: the DLL, the name, the count, the cumulative and
+         * the maximal time in milliseconds.
+         */
+        String[] getCalls();
+
+        String[] getUpcalls();
+    }
+
+    public static final class NativeCallInspector implements NativeCallInspectorMBean {
+
+        @Override
+        public boolean isEnabled() {
+            return NativeCallStatistics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean value) {
+            NativeCallStatistics.setEnabled(value);
+        }
+
+        @Override
+        public void reset() {
+            NativeCallStatistics.reset();
+        }
+
+        @Override
+        public long getCallCount() {
+            return calls.values().stream().mapToLong(CallEntry::getCount).sum();
+        }
+
+        @Override
+        public long getUpcallCount() {
+            return upcalls.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        @Override
+        public long getBytesCopiedToNative() {
+            return copiesToNative.values().stream().mapToLong(CopyEntry::getBytes).sum();
+        }
+
+        @Override
+        public long getBytesCopiedFromNative() {
+            return copiesFromNative.values().stream().mapToLong(CopyEntry::getBytes).sum();
+        }
+
+        @Override
+        public long getMaterializations() {
+            return copiesFromNative.values().stream().mapToLong(CopyEntry::getCount).sum();
+        }
+
+        @Override
+        public String[] getCalls() {
+            return NativeCallStatistics.getCalls().stream().map(e -> String.format("%s::%s count=%d total=%.3fms max=%.3fms", e.dll, e.name, e.getCount(), e.getTotalTime() / 1e6,
+                            e.getMaxTime() / 1e6)).toArray(String[]::new);
+        }
+
+        @Override
+        public String[] getUpcalls() {
+            return NativeCallStatistics.getUpcalls().stream().map(e -> e.getKey() + " count=" + e.getValue()).toArray(String[]::new);
+        }
+    }
+
+    private static void registerMBean() {
+        if (!mbeanRegistered) {
+            mbeanRegistered = true;
+            try {
+                MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+                mbs.registerMBean(new NativeCallInspector(), new ObjectName("FastR:type=JMX,name=NativeCallStatistics"));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -184,6 +184,25 @@ public final class PCRERFFI {
         }
     }
 
+    /**
+     * Releases the compiled pattern {@code code} and its study data {@code extra} (if not
+     * {@code 0}). It is also used to release the character tables created by
+     * {@link MaketablesNode}.
+     */
+    public static final class FreeNode extends NativeCallNode {
+        private FreeNode(DownCallNodeFactory factory) {
+            super(factory.createDownCallNode(NativeFunction.free));
+        }
+
+        public void execute(long code, long extra) {
+            call(code, extra);
+        }
+
+        public static FreeNode create() {
+            return RFFIFactory.getPCRERFFI().createFreeNode();
+        }
+    }
+
     public MaketablesNode createMaketablesNode() {
         return new MaketablesNode(downCallNodeFactory);
     }
@@ -208,4 +227,8 @@ public final class PCRERFFI {
     public ExecNode createExecNode() {
         return new ExecNode(downCallNodeFactory);
     }
+
+    public FreeNode createFreeNode() {
+        return new FreeNode(downCallNodeFactory);
+    }
 }
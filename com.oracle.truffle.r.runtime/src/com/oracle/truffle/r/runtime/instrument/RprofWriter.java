@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.instrument;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Writes the samples collected by {@code Rprof} to the output file as they are taken, either in
+ * the GNU R compatible text format or in a compact binary format.
+ *
+ * The text format starts with a header line (e.g. {@code memory profiling: sample.interval=20000})
+ * and then has one line per sample with the quoted function names, innermost first. With memory
+ * profiling each line is preceded by {@code :largev:smallv:nodes:duplicated:}, with line profiling
+ * each function name is preceded by {@code file#line} of the call and the files are listed as
+ * {@code #File N: path} before their first use.
+ *
+ * The binary format starts with the {@link #BINARY_MAGIC} bytes, a byte with the
+ * {@link #FLAG_MEMORY} and {@link #FLAG_LINE} flags and the sample interval in microseconds as a
+ * variable length integer (7 bits per byte, least significant first). It is followed by records
+ * that start with a tag byte: {@link #TAG_NAME} and {@link #TAG_FILE} define the next index of a
+ * function name or a file path (as {@link DataOutputStream#writeUTF}), {@link #TAG_SAMPLE} is a
+ * sample: the four memory counters if memory profiling, the number of frames and for each frame
+ * the index of its name and, if line profiling, the index of its file ({@code 0} for none) and its
+ * line. Names and files are indexed from {@code 1} in the order of their definition.
+ */
+public abstract class RprofWriter {
+
+    public static final byte[] BINARY_MAGIC = {'R', 'P', 'R', 'O', 'F', 1};
+    public static final int FLAG_MEMORY = 1;
+    public static final int FLAG_LINE = 2;
+    public static final int TAG_NAME = 1;
+    public static final int TAG_FILE = 2;
+    public static final int TAG_SAMPLE = 3;
+
+    protected final boolean memoryProfiling;
+    protected final boolean lineProfiling;
+
+    private RprofWriter(boolean memoryProfiling, boolean lineProfiling) {
+        this.memoryProfiling = memoryProfiling;
+        this.lineProfiling = lineProfiling;
+    }
+
+    public static RprofWriter createText(PrintStream out, long intervalMicros, boolean memoryProfiling, boolean lineProfiling) {
+        return new TextWriter(out, intervalMicros, memoryProfiling, lineProfiling);
+    }
+
+    public static RprofWriter createBinary(OutputStream out, long intervalMicros, boolean memoryProfiling, boolean lineProfiling) throws IOException {
+        return new BinaryWriter(out, intervalMicros, memoryProfiling, lineProfiling);
+    }
+
+    /**
+     * Writes one sample.
+     *
+     * @param names the function names, innermost first
+     * @param files the paths of the source files of the calls or {@code null} elements if not
+     *            known, only used if line profiling
+     * @param lines the lines of the calls, only used if line profiling
+     * @param memory the {@code largev}, {@code smallv}, {@code nodes} and {@code duplicated}
+     *            counters, only used if memory profiling
+     */
+    public abstract void writeSample(String[] names, String[] files, int[] lines, long[] memory) throws IOException;
+
+    public abstract void flush() throws IOException;
+
+    public abstract void close() throws IOException;
+
+    private static final class TextWriter extends RprofWriter {
+        private final PrintStream out;
+        private final HashMap<String, Integer> fileMap = new HashMap<>();
+
+        private TextWriter(PrintStream out, long intervalMicros, boolean memoryProfiling, boolean lineProfiling) {
+            super(memoryProfiling, lineProfiling);
+            this.out = out;
+            if (memoryProfiling) {
+                out.print("memory profiling: ");
+            }
+            if (lineProfiling) {
+                out.print("line profiling: ");
+            }
+            out.printf("sample.interval=%d\n", intervalMicros);
+        }
+
+        @Override
+        public void writeSample(String[] names, String[] files, int[] lines, long[] memory) {
+            StringBuilder str = new StringBuilder();
+            if (memoryProfiling) {
+                str.append(':').append(memory[0]).append(':').append(memory[1]).append(':').append(memory[2]).append(':').append(memory[3]).append(':');
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (lineProfiling && files[i] != null) {
+                    Integer fileIndex = fileMap.get(files[i]);
+                    if (fileIndex == null) {
+                        fileIndex = fileMap.size() + 1;
+                        fileMap.put(files[i], fileIndex);
+                        out.printf("#File %d: %s\n", fileIndex, files[i]);
+                    }
+                    str.append(fileIndex).append('#').append(lines[i]).append(' ');
+                }
+                str.append('"').append(names[i]).append("\" ");
+            }
+            out.println(str);
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            out.close();
+        }
+    }
+
+    private static final class BinaryWriter extends RprofWriter {
+        private final DataOutputStream out;
+        private final HashMap<String, Integer> nameMap = new HashMap<>();
+        private final HashMap<String, Integer> fileMap = new HashMap<>();
+
+        private BinaryWriter(OutputStream out, long intervalMicros, boolean memoryProfiling, boolean lineProfiling) throws IOException {
+            super(memoryProfiling, lineProfiling);
+            this.out = new DataOutputStream(out);
+            this.out.write(BINARY_MAGIC);
+            this.out.writeByte((memoryProfiling ? FLAG_MEMORY : 0) | (lineProfiling ? FLAG_LINE : 0));
+            writeVarLong(intervalMicros);
+        }
+
+        private int index(HashMap<String, Integer> map, String value, int tag) throws IOException {
+            Integer result = map.get(value);
+            if (result == null) {
+                result = map.size() + 1;
+                map.put(value, result);
+                out.writeByte(tag);
+                out.writeUTF(value);
+            }
+            return result;
+        }
+
+        @Override
+        public void writeSample(String[] names, String[] files, int[] lines, long[] memory) throws IOException {
+            int[] nameIndexes = new int[names.length];
+            int[] fileIndexes = lineProfiling ? new int[names.length] : null;
+            for (int i = 0; i < names.length; i++) {
+                nameIndexes[i] = index(nameMap, names[i], TAG_NAME);
+                if (lineProfiling) {
+                    fileIndexes[i] = files[i] == null ? 0 : index(fileMap, files[i], TAG_FILE);
+                }
+            }
+            out.writeByte(TAG_SAMPLE);
+            if (memoryProfiling) {
+                for (int i = 0; i < 4; i++) {
+                    writeVarLong(memory[i]);
+                }
+            }
+            writeVarLong(names.length);
+            for (int i = 0; i < names.length; i++) {
+                writeVarLong(nameIndexes[i]);
+                if (lineProfiling) {
+                    writeVarLong(fileIndexes[i]);
+                    writeVarLong(fileIndexes[i] == 0 ? 0 : lines[i]);
+                }
+            }
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                out.writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.writeByte((int) v);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IOException("malformed Rprof binary file");
+            }
+        }
+    }
+
+    /**
+     * Converts a profile in the binary format to the text format.
+     *
+     * @throws IOException if the input is not a valid profile in the binary format
+     */
+    public static void binaryToText(InputStream input, PrintStream output) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        int flags;
+        long intervalMicros;
+        try {
+            for (byte b : BINARY_MAGIC) {
+                if (in.readByte() != b) {
+                    throw new IOException("not an Rprof binary file");
+                }
+            }
+            flags = in.readUnsignedByte();
+            intervalMicros = readVarLong(in);
+        } catch (EOFException e) {
+            throw new IOException("not an Rprof binary file");
+        }
+        boolean memoryProfiling = (flags & FLAG_MEMORY) != 0;
+        boolean lineProfiling = (flags & FLAG_LINE) != 0;
+        RprofWriter writer = createText(output, intervalMicros, memoryProfiling, lineProfiling);
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<String> files = new ArrayList<>();
+        long[] memory = new long[4];
+        while (true) {
+            int tag = in.read();
+            if (tag == -1) {
+                break;
+            }
+            try {
+                switch (tag) {
+                    case TAG_NAME:
+                        names.add(in.readUTF());
+                        break;
+                    case TAG_FILE:
+                        files.add(in.readUTF());
+                        break;
+                    case TAG_SAMPLE:
+                        if (memoryProfiling) {
+                            for (int i = 0; i < 4; i++) {
+                                memory[i] = readVarLong(in);
+                            }
+                        }
+                        int length = (int) readVarLong(in);
+                        String[] sampleNames = new String[length];
+                        String[] sampleFiles = new String[length];
+                        int[] sampleLines = new int[length];
+                        for (int i = 0; i < length; i++) {
+                            sampleNames[i] = names.get((int) readVarLong(in) - 1);
+                            if (lineProfiling) {
+                                int file = (int) readVarLong(in);
+                                sampleFiles[i] = file == 0 ? null : files.get(file - 1);
+                                sampleLines[i] = (int) readVarLong(in);
+                            }
+                        }
+                        writer.writeSample(sampleNames, sampleFiles, sampleLines, memory);
+                        break;
+                    default:
+                        throw new IOException("malformed Rprof binary file");
+                }
+            } catch (EOFException e) {
+                // a truncated last record, e.g., if the profiled process was killed
+                break;
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("malformed Rprof binary file");
+            }
+        }
+        writer.flush();
+    }
+}
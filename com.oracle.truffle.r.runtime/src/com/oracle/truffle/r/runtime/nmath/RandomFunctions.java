@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -36,6 +36,18 @@ import com.oracle.truffle.r.runtime.rng.RandomNumberGenerator;
 public class RandomFunctions {
     public abstract static class RandFunction3_Double extends RBaseNode {
         public abstract double execute(double a, double b, double c, RandomNumberProvider rand);
+
+        /**
+         * Fills {@code result} with random values for a single set of parameters, which must have
+         * the same effect as calling {@link #execute} for each element. Functions that can draw all
+         * the underlying uniform random numbers in one go (see
+         * {@link RandomNumberGenerator#genrandDouble(double[], int, int)}) override this. Returns
+         * {@code false} if the bulk generation is not supported for given parameters, the caller
+         * must then use {@link #execute}.
+         */
+        public boolean executeBulk(double a, double b, double c, RandomNumberProvider rand, double[] result) {
+            return false;
+        }
     }
 
     public abstract static class RandFunction2_Double extends RandFunction3_Double {
@@ -45,6 +57,16 @@ public class RandomFunctions {
         public final double execute(double a, double b, double c, RandomNumberProvider rand) {
             return execute(a, b, rand);
         }
+
+        @SuppressWarnings("unused")
+        public boolean executeBulk(double a, double b, RandomNumberProvider rand, double[] result) {
+            return false;
+        }
+
+        @Override
+        public final boolean executeBulk(double a, double b, double c, RandomNumberProvider rand, double[] result) {
+            return executeBulk(a, b, rand, result);
+        }
     }
 
     public abstract static class RandFunction1_Double extends RandFunction3_Double {
@@ -84,6 +106,14 @@ public class RandomFunctions {
             return SNorm.normRand(generator, normKind);
         }
 
+        public void unifRand(double[] result) {
+            generator.genrandDouble(result, 0, result.length);
+        }
+
+        public void normRand(double[] result) {
+            SNorm.normRand(generator, normKind, result);
+        }
+
         public double expRand() {
             return SExp.expRand(generator);
         }
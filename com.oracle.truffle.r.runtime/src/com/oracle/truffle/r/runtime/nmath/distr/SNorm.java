@@ -1,7 +1,7 @@
 /*
  * Copyright (C) 1998 Ross Ihaka
  * Copyright (c) 1998--2008, The R Core Team
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -112,6 +112,7 @@ public final class SNorm {
     }
 
     private static final double BIG = 134217728; /* 2^27 */
+    private static final int INVERSION_BLOCK_SIZE = 1024;
 
     static double BMNormKeep = 0.0;
 
@@ -119,6 +120,29 @@ public final class SNorm {
         // only static members
     }
 
+    /**
+     * Fills {@code result} with standard normal random numbers, the effect is the same as of
+     * calling {@link #normRand(RandomNumberGenerator, NormKind)} for each element. The
+     * {@link NormKind#INVERSION} kind draws the uniform random numbers in blocks.
+     */
+    public static void normRand(RandomNumberGenerator rand, NormKind normKind, double[] result) {
+        if (normKind == NormKind.INVERSION) {
+            double[] u = new double[2 * Math.min(result.length, INVERSION_BLOCK_SIZE)];
+            for (int pos = 0; pos < result.length; pos += INVERSION_BLOCK_SIZE) {
+                int n = Math.min(result.length - pos, INVERSION_BLOCK_SIZE);
+                rand.genrandDouble(u, 0, 2 * n);
+                for (int i = 0; i < n; i++) {
+                    double u1 = (int) (BIG * u[2 * i]) + u[2 * i + 1];
+                    result[pos + i] = Qnorm.qnorm(u1 / BIG, 0.0, 1.0, true, false);
+                }
+            }
+        } else {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = normRand(rand, normKind);
+            }
+        }
+    }
+
     @SuppressWarnings("unused")
     public static double normRand(RandomNumberGenerator rand, NormKind normKind) {
         double s;
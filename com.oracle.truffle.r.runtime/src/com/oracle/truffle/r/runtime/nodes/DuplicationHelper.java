@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2014, Purdue University
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -25,7 +25,11 @@ import java.util.HashSet;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 
 /**
  * Code sharing vehicle for the slight differences in behavior between {@code duplicated} and
@@ -86,7 +90,9 @@ public class DuplicationHelper {
     @TruffleBoundary
     public static DuplicationHelper analyze(RAbstractContainer x, RAbstractContainer incomparables, boolean justIndex, boolean fromLast) {
         DuplicationHelper ds = new DuplicationHelper(x, incomparables, justIndex, fromLast);
-        if (fromLast) {
+        if (incomparables == null && x instanceof RAbstractVector && ((RAbstractVector) x).getKnownSortedness() != RVector.SORTED_UNKNOWN) {
+            ds.analyzeSorted(fromLast);
+        } else if (fromLast) {
             for (int i = x.getLength() - 2; i >= 0; i--) {
                 if (ds.doIt(i)) {
                     break;
@@ -102,6 +108,33 @@ public class DuplicationHelper {
         return ds;
     }
 
+    /**
+     * The duplicates in a sorted vector are next to each other, so each element is only compared
+     * with its neighbor.
+     */
+    private void analyzeSorted(boolean fromLast) {
+        int length = x.getLength();
+        int step = fromLast ? 1 : -1;
+        for (int k = 1; k < length; k++) {
+            int i = fromLast ? length - 1 - k : k;
+            boolean dup;
+            if (x instanceof RAbstractIntVector) {
+                RAbstractIntVector vector = (RAbstractIntVector) x;
+                dup = vector.getDataAt(i) == vector.getDataAt(i + step);
+            } else {
+                RAbstractDoubleVector vector = (RAbstractDoubleVector) x;
+                dup = vector.getDataAt(i) == vector.getDataAt(i + step);
+            }
+            if (dup) {
+                if (dupVec == null) {
+                    index = i + 1;
+                    return;
+                }
+                dupVec[i] = RRuntime.LOGICAL_TRUE;
+            }
+        }
+    }
+
     private static final class DupEntry {
 
         private final Object element;
@@ -1,7 +1,7 @@
 /*
  * Copyright (c) 1995-2012, The R Core Team
  * Copyright (c) 2003, The R Foundation
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -37,6 +37,17 @@ public interface RandomNumberGenerator {
 
     double genrandDouble();
 
+    /**
+     * Fills {@code count} elements of {@code result} starting at {@code offset} with random numbers.
+     * The effect is the same as of {@code count} calls to {@link #genrandDouble()}, but the
+     * generators may override this to keep their state in local variables for the whole loop.
+     */
+    default void genrandDouble(double[] result, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            result[i] = genrandDouble();
+        }
+    }
+
     Kind getKind();
 
     /**
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 1995-2012, The R Core Team
+ * Copyright (c) 2003, The R Foundation
+ * Copyright (c) 2019, Oracle and/or its affiliates
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.R-project.org/Licenses/
+ */
+package com.oracle.truffle.r.runtime.rng.lecuyer;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.rng.RNGInitAdapter;
+import com.oracle.truffle.r.runtime.rng.RRNG;
+import com.oracle.truffle.r.runtime.rng.RRNG.Kind;
+
+/**
+ * "L'Ecuyer-CMRG" RNG, i.e. the combined multiple-recursive generator MRG32k3a. Transcribed from
+ * GnuR RNG.c.
+ *
+ * The state of the generator is advanced by multiplying it with a 3x3 matrix (one for each of the
+ * two components) modulo m1 and m2 respectively. Jumping ahead by 2^e steps is therefore a single
+ * multiplication with the e-th power of two of the matrix, which is how the streams (2^127 steps
+ * apart) and the substreams (2^76 steps apart) of {@code parallel::nextRNGStream} and
+ * {@code parallel::nextRNGSubStream} are obtained, see {@link #nextStream(int[])} and
+ * {@link #nextSubStream(int[])}.
+ */
+public final class LecuyerCMRG extends RNGInitAdapter {
+
+    private static final long M1 = 4294967087L;
+    private static final long M2 = 4294944443L;
+    private static final double NORMC = 2.328306549295727688e-10;
+    private static final long A12 = 1403580L;
+    private static final long A13N = 810728L;
+    private static final long A21 = 527612L;
+    private static final long A23N = 1370589L;
+
+    private static final int NSEED = 6;
+
+    private static final long[][] A1P76 = jumpMatrix(transitionMatrix1(), M1, 76);
+    private static final long[][] A2P76 = jumpMatrix(transitionMatrix2(), M2, 76);
+    private static final long[][] A1P127 = jumpMatrix(transitionMatrix1(), M1, 127);
+    private static final long[][] A2P127 = jumpMatrix(transitionMatrix2(), M2, 127);
+
+    public LecuyerCMRG() {
+        super(NSEED + 1);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void init(int seedParam) {
+        int seed = seedParam;
+        for (int i = 0; i < NSEED; i++) {
+            seed = (69069 * seed + 1);
+            while (Integer.toUnsignedLong(seed) >= M2) {
+                seed = (69069 * seed + 1);
+            }
+            setISeedItem(i, seed);
+        }
+    }
+
+    /**
+     * The first three seeds must be in {@code [0, m1)} and not all zero, the other three in
+     * {@code [0, m2)} and not all zero. GnuR re-initializes the generator from the time otherwise.
+     */
+    @Override
+    @TruffleBoundary
+    public void fixupSeeds(boolean initial) {
+        if (!isValidComponent(0, M1) || !isValidComponent(3, M2)) {
+            init(RRNG.timeToSeed());
+        }
+    }
+
+    private boolean isValidComponent(int start, long m) {
+        boolean notAllZero = false;
+        for (int i = start; i < start + 3; i++) {
+            long value = Integer.toUnsignedLong(getISeedItem(i));
+            if (value >= m) {
+                return false;
+            }
+            notAllZero |= value != 0;
+        }
+        return notAllZero;
+    }
+
+    @Override
+    public double genrandDouble() {
+        int[] seeds = getSeeds();
+        long p1 = A12 * Integer.toUnsignedLong(seeds[2]) - A13N * Integer.toUnsignedLong(seeds[1]);
+        p1 %= M1;
+        if (p1 < 0) {
+            p1 += M1;
+        }
+        seeds[1] = seeds[2];
+        seeds[2] = seeds[3];
+        seeds[3] = (int) p1;
+
+        long p2 = A21 * Integer.toUnsignedLong(seeds[6]) - A23N * Integer.toUnsignedLong(seeds[4]);
+        p2 %= M2;
+        if (p2 < 0) {
+            p2 += M2;
+        }
+        seeds[4] = seeds[5];
+        seeds[5] = seeds[6];
+        seeds[6] = (int) p2;
+
+        return ((p1 > p2) ? (p1 - p2) : (p1 - p2 + M1)) * NORMC;
+    }
+
+    /**
+     * The same recurrence as {@link #genrandDouble()}, but the state is kept in local variables
+     * and written back only once.
+     */
+    @Override
+    public void genrandDouble(double[] result, int offset, int count) {
+        int[] seeds = getSeeds();
+        long s10 = Integer.toUnsignedLong(seeds[1]);
+        long s11 = Integer.toUnsignedLong(seeds[2]);
+        long s12 = Integer.toUnsignedLong(seeds[3]);
+        long s20 = Integer.toUnsignedLong(seeds[4]);
+        long s21 = Integer.toUnsignedLong(seeds[5]);
+        long s22 = Integer.toUnsignedLong(seeds[6]);
+        for (int i = offset; i < offset + count; i++) {
+            long p1 = (A12 * s11 - A13N * s10) % M1;
+            if (p1 < 0) {
+                p1 += M1;
+            }
+            s10 = s11;
+            s11 = s12;
+            s12 = p1;
+
+            long p2 = (A21 * s22 - A23N * s20) % M2;
+            if (p2 < 0) {
+                p2 += M2;
+            }
+            s20 = s21;
+            s21 = s22;
+            s22 = p2;
+
+            result[i] = ((p1 > p2) ? (p1 - p2) : (p1 - p2 + M1)) * NORMC;
+        }
+        seeds[1] = (int) s10;
+        seeds[2] = (int) s11;
+        seeds[3] = (int) s12;
+        seeds[4] = (int) s20;
+        seeds[5] = (int) s21;
+        seeds[6] = (int) s22;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.LECUYER_CMRG;
+    }
+
+    @Override
+    public int getNSeed() {
+        return NSEED;
+    }
+
+    /**
+     * Returns the seeds (in the {@code .Random.seed} format) of the start of the next stream, i.e.
+     * of the state 2^127 steps ahead of given one. Corresponds to {@code nextStream} in
+     * rngstream.c of the parallel package.
+     */
+    public static int[] nextStream(int[] seeds) {
+        return jump(seeds, A1P127, A2P127);
+    }
+
+    /**
+     * Returns the seeds (in the {@code .Random.seed} format) of the start of the next substream,
+     * i.e. of the state 2^76 steps ahead of given one. Corresponds to {@code nextSubStream} in
+     * rngstream.c of the parallel package.
+     */
+    public static int[] nextSubStream(int[] seeds) {
+        return jump(seeds, A1P76, A2P76);
+    }
+
+    private static int[] jump(int[] seeds, long[][] a1, long[][] a2) {
+        assert seeds.length >= NSEED + 1;
+        int[] result = new int[NSEED + 1];
+        result[0] = seeds[0];
+        for (int i = 0; i < 3; i++) {
+            long tmp1 = 0;
+            long tmp2 = 0;
+            for (int j = 0; j < 3; j++) {
+                tmp1 = (tmp1 + mulMod(a1[i][j], Integer.toUnsignedLong(seeds[j + 1]), M1)) % M1;
+                tmp2 = (tmp2 + mulMod(a2[i][j], Integer.toUnsignedLong(seeds[j + 4]), M2)) % M2;
+            }
+            result[i + 1] = (int) tmp1;
+            result[i + 4] = (int) tmp2;
+        }
+        return result;
+    }
+
+    private static long[][] transitionMatrix1() {
+        return new long[][]{{0, 1, 0}, {0, 0, 1}, {M1 - A13N, A12, 0}};
+    }
+
+    private static long[][] transitionMatrix2() {
+        return new long[][]{{0, 1, 0}, {0, 0, 1}, {M2 - A23N, 0, A21}};
+    }
+
+    /**
+     * Computes {@code a^(2^e) mod m} by squaring the matrix {@code e} times.
+     */
+    private static long[][] jumpMatrix(long[][] a, long m, int e) {
+        long[][] result = a;
+        for (int i = 0; i < e; i++) {
+            result = multiply(result, result, m);
+        }
+        return result;
+    }
+
+    private static long[][] multiply(long[][] a, long[][] b, long m) {
+        long[][] result = new long[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                long sum = 0;
+                for (int k = 0; k < 3; k++) {
+                    sum = (sum + mulMod(a[i][k], b[k][j], m)) % m;
+                }
+                result[i][j] = sum;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes {@code a * b mod m} for {@code a, b < m < 2^32} without overflowing the 64 bits.
+     */
+    private static long mulMod(long a, long b, long m) {
+        return ((a * (b >>> 16)) % m * 65536 + a * (b & 0xFFFF)) % m;
+    }
+}
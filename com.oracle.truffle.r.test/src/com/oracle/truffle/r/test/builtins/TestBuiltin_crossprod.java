@@ -90,4 +90,10 @@ public class TestBuiltin_crossprod extends TestBase {
     public void testCrossprodDimnames() {
         assertEval("{ crossprod(structure(1:9, .Dim=c(3L,3L), .Dimnames=list(c('a', 'b', 'c'), c('A', 'B', 'C'))), structure(1:9, .Dim=c(3L,3L), .Dimnames=list(c('d', 'e', 'f'), c('D', 'E', 'F')))) }");
     }
+
+    @Test
+    public void testCrossprodParallel() {
+        // the parallel multiplication must give the same results as the serial one
+        assertEval("{ set.seed(42); x <- matrix(runif(300*270), 300); y <- matrix(runif(300*280), 300); old <- options(fastr.parallel.threads=1L); s1 <- crossprod(x); s2 <- crossprod(x, y); s3 <- tcrossprod(t(x)); options(fastr.parallel.threads=4L); p1 <- crossprod(x); p2 <- crossprod(x, y); p3 <- tcrossprod(t(x)); options(old); c(identical(s1, p1), identical(s2, p2), identical(s3, p3)) }");
+    }
 }
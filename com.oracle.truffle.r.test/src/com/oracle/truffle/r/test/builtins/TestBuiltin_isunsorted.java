@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -121,4 +121,19 @@ public class TestBuiltin_isunsorted extends TestBase {
         assertEval("{ is.unsorted(c(1+1i,2+1i,2+1i), strictly=TRUE) }");
         assertEval("{ is.unsorted(c(1,2,2), strictly=NA) }");
     }
+
+    @Test
+    public void testIsUnsortedKnownSortedness() {
+        assertEval("{ x <- c(3,1,2); is.unsorted(x); x <- sort(x); is.unsorted(x) }");
+        assertEval("{ x <- sort(c(3L,1L,2L)); y <- is.unsorted(x); x[1] <- 10L; c(y, is.unsorted(x)) }");
+        assertEval("{ x <- c(1,2,3); y <- is.unsorted(x); x[[3]] <- 0; c(y, is.unsorted(x), min(x), max(x)) }");
+        assertEval("{ x <- sort(c(5,4,1,2)); c(min(x), max(x), range(x)) }");
+        assertEval("{ x <- sort(c(5L,4L,1L,2L), decreasing=TRUE); c(min(x), max(x), range(x)) }");
+        assertEval("{ x <- sort(c(1,5,Inf,-Inf)); c(range(x), range(x, finite=TRUE)) }");
+        assertEval("{ x <- sort(c(3,1,2,3,1)); is.unsorted(x); unique(x) }");
+        assertEval("{ x <- sort(c(3L,1L,2L,3L,1L), decreasing=TRUE); is.unsorted(x); c(unique(x), duplicated(x), anyDuplicated(x)) }");
+        assertEval("{ x <- sort(c(3L,1L,2L,2L,7L)); is.unsorted(x); c(match(2L, x), match(c(7L, 4L, 1L, NA), x)) }");
+        assertEval("{ x <- sort(c(0.5,-1,2,2)); is.unsorted(x); c(match(2, x), match(c(-1, 3, NA, NaN), x)) }");
+        assertEval("{ x <- 10:1; c(is.unsorted(x), min(x), max(x), match(3L, x), order(x)) }");
+    }
 }
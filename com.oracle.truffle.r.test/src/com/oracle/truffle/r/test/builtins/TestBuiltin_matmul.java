@@ -41,4 +41,10 @@ public class TestBuiltin_matmul extends TestBase {
         assertEval("c(NA+2i) %*% c(3,4,5,6)");
         assertEval("c(1+2i) %*% c(3,4,5,6)");
     }
+
+    @Test
+    public void testMatmulParallel() {
+        // the parallel multiplication must give the same results as the serial one
+        assertEval("{ set.seed(42); a <- matrix(runif(300*270), 300); b <- matrix(runif(270*290), 270); b[5, 7] <- NA; old <- options(fastr.parallel.threads=1L); s <- a %*% b; options(fastr.parallel.threads=3L); p <- a %*% b; options(old); identical(s, p) }");
+    }
 }
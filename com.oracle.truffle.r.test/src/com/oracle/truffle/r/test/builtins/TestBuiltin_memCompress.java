@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.builtins;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestBuiltin_memCompress extends TestBase {
+
+    @Test
+    public void testmemCompress() {
+        assertEval("memCompress(as.raw(1:10), 'none')");
+        assertEval("memCompress('Hello World', 'bzip2')");
+        assertEval("memCompress('Hello World', 'gzip')");
+        assertEval("{ x <- paste(rep('abc', 1000), collapse=''); for (t in c('gzip', 'bzip2', 'xz')) print(identical(memDecompress(memCompress(x, t), t, asChar=TRUE), x)) }");
+        assertEval("{ x <- as.raw(sample(0:255, 300000, replace=TRUE)); for (t in c('gzip', 'bzip2', 'xz')) print(identical(memDecompress(memCompress(x, t), 'unknown'), x)) }");
+        assertEval("memCompress(1:10)");
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -37,4 +37,17 @@ public class TestBuiltin_newenv extends TestBase {
         assertEval(Output.ContainsReferences, "parent.env(new.env())");
         assertEval(Output.ContainsReferences, "e <- new.env(); e; parent.env(new.env(TRUE, e))");
     }
+
+    @Test
+    public void testLargeEnv() {
+        // large hashed environments store the bindings outside of the frame
+        String fill = "e <- new.env(); keys <- paste0('k', 1:2000); for (i in seq_along(keys)) assign(keys[[i]], i, envir = e); ";
+        assertEval(fill + "c(length(e), get('k1', envir = e), get('k2000', envir = e), exists('k1500', envir = e), exists('k2001', envir = e, inherits = FALSE))");
+        assertEval(fill + "rm(list = keys[seq(1, 2000, 2)], envir = e); c(length(e), exists('k999', envir = e, inherits = FALSE), exists('k1000', envir = e, inherits = FALSE), e$k2000)");
+        assertEval(fill + "head(ls(e), 5); unlist(mget(c('k3', 'k1999'), envir = e)); sum(unlist(eapply(e, function(x) x))); sum(unlist(as.list(e)))");
+        assertEval(fill + "e$k1800 <- -1; e[['k1801']] <- -2; evalq(k1800 + k1801 + k1, e)");
+        assertEval(fill + "f <- function() k1999; environment(f) <- e; f()");
+        assertEval(fill + "lockBinding('k1990', e); tryCatch(assign('k1990', 0, envir = e), error = function(x) 'locked')");
+        assertEval(fill + "lockEnvironment(e); tryCatch(assign('knew', 0, envir = e), error = function(x) 'locked'); assign('k1990', 0, envir = e); e$k1990");
+    }
 }
@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -121,4 +121,11 @@ public class TestBuiltin_paste extends TestBase {
         // ISOdate utilizes paste
         assertEval("{ ISOdate(2010, 01, 01, 1:10) }");
     }
+
+    @Test
+    public void testPasteSharedStrings() {
+        assertEval("{ x <- paste0('N', c('A', 'A', 'B')); c(is.na(x), x == 'NA', identical(x[1], x[2])) }");
+        assertEval("{ x <- paste('a', rep(1:2, 5)); y <- factor(x); list(levels(y), as.integer(y), match(x, unique(x)), table(x)) }");
+        assertEval("{ x <- scan(text='NA a b a \"NA\" b', what='', quiet=TRUE); list(x, is.na(x), unique(x)) }");
+    }
 }
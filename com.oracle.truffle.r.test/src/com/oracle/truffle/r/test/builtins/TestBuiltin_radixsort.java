@@ -64,4 +64,21 @@ public class TestBuiltin_radixsort extends TestBase {
         // at InternalNode$InternalCallWrapNode.prepareArgs(InternalNode.java:309)
         assertEval(Ignored.ImplementationError, "argv <- list(structure(integer(0), .Label = character(0), class = 'factor'), TRUE, FALSE); .Internal(radixsort(argv[[1]], argv[[2]], argv[[3]]))");
     }
+
+    @Test
+    public void testRadixOrder() {
+        assertEval("order(c(3L, NA, 1L, 2L, 1L), method='radix')");
+        assertEval("order(c(3L, NA, 1L, 2L, 1L), method='radix', decreasing=TRUE)");
+        assertEval("order(c(3L, NA, 1L, 2L, 1L), method='radix', na.last=FALSE)");
+        assertEval("order(c(3L, NA, 1L, 2L, 1L), method='radix', na.last=NA)");
+        assertEval("order(c(2.5, -0, NaN, 0, -Inf, NA, Inf, -1e300, 1e-300), method='radix')");
+        assertEval("order(c(2.5, -0, NaN, 0, -Inf, NA, Inf, -1e300, 1e-300), method='radix', decreasing=TRUE, na.last=FALSE)");
+        assertEval("order(c(TRUE, NA, FALSE, TRUE), method='radix')");
+        assertEval("order(factor(c('b', 'a', 'c', 'a')), method='radix')");
+        assertEval("order(c('b', 'B', NA, 'a', 'b'), method='radix')");
+        assertEval("order(c(1, 1, 2, 2, NA), c(4L, 3L, NA, 1L, 2L), method='radix', decreasing=c(TRUE, FALSE))");
+        assertEval("order(c(1, 1, 2, 2, NA), c(4L, 3L, NA, 1L, 2L), method='radix', decreasing=c(FALSE, TRUE), na.last=NA)");
+        assertEval("sort.list(c(10L, 2L, 33L, 2L), method='radix')");
+        assertEval("{ x <- c(100000L, -7L, 2147483647L, -2147483647L, 0L); order(x, method='radix') }");
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -38,6 +38,15 @@ public class TestBuiltin_unserialize extends TestBase {
         assertEval(template("unserialize(serialize(%0, NULL))", BASIC_TYPE_VALUES));
     }
 
+    @Test
+    public void testLargeVectors() {
+        // larger than the buffers used for reading and writing
+        String vectors = "x <- list(c(as.double(1:50000), NA, NaN, Inf), c(1:50000, NA), rep(c(TRUE, NA, FALSE), 20000), complex(real=1:30000, imaginary=-1), c(1+2i, NA, complex(real=NA, imaginary=3), 4i), as.raw(rep(0:255, 200)))";
+        assertEval("{ " + vectors + "; y <- unserialize(serialize(x, NULL)); c(identical(x, y), sapply(y, anyNA)) }");
+        assertEval("{ " + vectors + "; f <- tempfile(); saveRDS(x, f, compress=FALSE); y <- readRDS(f); unlink(f); c(identical(x, y), sapply(y, anyNA)) }");
+        assertEval("{ x <- c(3+2i, NA, 5+944i); y <- unserialize(serialize(x, NULL)); c(is.na(y), Im(y[[2]]) == Im(NA_complex_)) }");
+    }
+
     @Test
     public void testserializeAndUnserializeClosure() {
         // N.B.: FastR does not preserve code formatting like GNU R does
@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -169,6 +169,20 @@ public class TestS3Dispatch extends TestRBase {
         assertEval("{ fun <- function(x) UseMethod('fun'); fun.NULL <- function(x) 'integer'; fun(); }");
     }
 
+    @Test
+    public void testMegamorphicDispatch() {
+        // more classes at one call site than the call site caches
+        String setup = "foo <- function(x) UseMethod('foo'); foo.default <- function(x) 'default'; for (cl in letters[1:8]) assign(paste0('foo.', cl), eval(bquote(function(x) .(cl)))); " +
+                        "objs <- lapply(letters[1:10], function(cl) structure(1, class=cl)); run <- function() vapply(objs, foo, ''); ";
+        assertEval("{ " + setup + "run(); run() }");
+        assertEval("{ " + setup + "run(); foo.c <- function(x) 'C'; foo.i <- function(x) 'I'; run() }");
+        assertEval("{ " + setup + "run(); rm(foo.b, foo.default); tryCatch(run(), error=function(e) 'error') }");
+        assertEval("{ " + setup + "run(); registerS3method('foo', 'j', function(x) 'J', envir=environment(foo)); run() }");
+        assertEval("{ " + setup + "run(); f <- function() { foo.d <- function(x) 'local'; run2 <- function() vapply(objs, foo, ''); run2() }; f() }");
+        assertEval("{ " + setup + "run(); e <- new.env(); assign('foo.a', function(x) 'attached', envir=e); attach(e, name='s3test'); r <- run(); detach('s3test'); c(r, run()) }");
+        assertEval("{ " + setup + "run(); objs <- lapply(objs, function(o) structure(o, class=c('z', class(o)))); foo.z <- function(x) NextMethod(); run() }");
+    }
+
     @Override
     public String getTestDir() {
         return "S3";
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -212,6 +212,11 @@ public class TestConnections extends TestRBase {
         String[] endings = new String[]{"", "\\n", "\\r", "\\n\\r", "\\r\\n", "\\n\\n\\r", "\\r\\r\\n"};
         String[] text = new String[]{"", "foo"};
         assertEval(template("readLines(textConnection(\"foo%0%1\"))", endings, text));
+
+        // lines longer than the read buffer and lines split across buffer refills
+        assertEval("{ f <- tempfile(); x <- c(strrep('a', 100000), as.character(1:20000), 'x\u00e9y'); writeLines(x, f, useBytes=TRUE); res <- readLines(f, encoding='UTF-8'); unlink(f); c(identical(res, x), nchar(res[[1]]), res[[20002]]) }");
+        assertEval("{ f <- tempfile(); writeBin(charToRaw('a\rb\r\nc\nd'), f); con <- file(f, 'r'); res <- c(readLines(con, 1), readLines(con, 1), readLines(con, 1)); close(con); unlink(f); res }");
+        assertEval("{ f <- tempfile(); con <- gzfile(f, 'w'); writeLines(as.character(1:50000), con); close(con); con <- gzfile(f, 'r'); a <- readLines(con, 3); b <- readLines(con); close(con); unlink(f); c(a, length(b), b[[length(b)]]) }");
     }
 
     @Test
@@ -254,6 +259,14 @@ public class TestConnections extends TestRBase {
         assertEval("f <- tempfile(); unlink(f); x <- 1:10; save(x, file=f); con <- file(f, 'rb'); dput(class(con))");
     }
 
+    @Test
+    public void testBZip2File() {
+        assertEval("{ f <- tempfile(); con <- bzfile(f, 'w'); writeLines(c('Hello', 'World'), con); close(con); con <- bzfile(f, 'a'); writeLines('again', con); close(con); res <- readLines(f); unlink(f); res }");
+        assertEval("{ f <- tempfile(); x <- as.character(1:300000); con <- bzfile(f, 'w', compression=1); writeLines(x, con); close(con); res <- identical(readLines(bzfile(f)), x); unlink(f); res }");
+        assertEval("{ f <- tempfile(); x <- list(a=1:1000, b=rep('abc', 100)); save(x, file=f, compress='bzip2'); rm(x); load(f); unlink(f); x$b[[100]] }");
+        assertEval("{ f <- tempfile(); saveRDS(runif(10) > 2, f, compress='bzip2'); res <- readRDS(f); unlink(f); res }");
+    }
+
     @Test
     public void testFifoOpenInexisting() {
         assertEval("capabilities(\"fifo\")");
@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -792,4 +792,20 @@ public class TestSimpleArithmetic extends TestBase {
         assertEval("{ a <- c(1, 2, 4); foo <- function() { a[[1]] <<- 42; 33; }; a + foo() }");
 
     }
+
+    @Test
+    public void testLongVectorChains() {
+        assertEval("{ x <- seq(0.5, 2000, by=0.5); y <- rev(x); z <- x * y + x / 4 - y; c(length(z), sum(z), z[c(1, 1000, 4000)]) }");
+        assertEval("{ x <- seq(0.5, 2000, by=0.5); y <- rev(x); sum(-x * 2 + y - 1L) }");
+        assertEval("{ x <- seq(0.5, 2000, by=0.5); x[c(3, 10)] <- c(NA, NaN); y <- rev(x); z <- x * y + 1 - x; c(z[c(1, 3, 10, 3991, 3998)], sum(is.na(z)), sum(is.nan(z))) }");
+        assertEval("{ x <- seq(0.5, 2000, by=0.5); x[7] <- NA; y <- rev(x); r <- x + y > 2000; c(sum(r, na.rm=TRUE), which(is.na(r))) }");
+        assertEval("{ x <- seq(0.5, 2000, by=0.5); y <- x * 2 - 1 == x + x - 1; all(y) }");
+        assertEval("{ x <- seq(0.5, 2000, by=0.5); y <- x[1:2000]; r <- x * 2 + y; c(length(r), sum(r)) }");
+        assertEval("{ x <- as.numeric(1:2000); delayedAssign('b', { x[1] <- 100; 1 }); g <- function() x * 2 + b; c(g()[1:3], x[1:3]) }");
+        assertEval("{ x <- structure(as.numeric(1:2000), names=paste0('n', 1:2000)); y <- x * 2 + 1; names(y)[1:3] }");
+        // the enclosing special calls bail out after the operands were fused
+        assertEval("{ x <- as.numeric(1:2000); y <- structure(1, class='foo'); Ops.foo <- function(e1, e2) 42; r <- x * 2 + y; x[1] <- 0; c(r, x[1:2]) }");
+        assertEval("{ x <- as.numeric(1:2000); y <- structure(1, class='foo'); Ops.foo <- function(e1, e2) 42; r <- x * 2 == y; x[1] <- 0; c(r, x[1:2]) }");
+        assertEval("{ x <- as.numeric(1:2000); r <- x * 2 > 'a'; x[1] <- 0; c(sum(r), x[1:2]) }");
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestMapFile extends TestBase {
+
+    @Test
+    public void testMapFile() {
+        assertEvalFastR("{ f <- tempfile(); writeBin(c(1.5, 2, NA, 4), f); x <- .fastr.mmap(f); unlink(f); list(x, sum(x, na.rm=TRUE), x[2:3], x * 2) }", "list(c(1.5, 2, NA, 4), 7.5, c(2, NA), c(3, 4, NA, 8))");
+        assertEvalFastR("{ f <- tempfile(); writeBin(1:10, f); x <- .fastr.mmap(f, 'integer', 3, 8); unlink(f); x }", "3:5");
+        assertEvalFastR("{ f <- tempfile(); writeBin(as.raw(1:4), f); x <- .fastr.mmap(f, 'raw'); unlink(f); x }", "as.raw(1:4)");
+        assertEvalFastR("{ f <- tempfile(); writeBin(c(1, 2), f); x <- .fastr.mmap(f); y <- x; y[1] <- 10; z <- .fastr.mmap(f); unlink(f); list(x, y, z) }", "list(c(1, 2), c(10, 2), c(1, 2))");
+        assertEvalFastR("{ f <- tempfile(); writeBin(numeric(0), f); x <- .fastr.mmap(f); unlink(f); x }", "numeric(0)");
+        assertEvalFastR("{ f <- tempfile(); writeBin(1:2, f); r <- tryCatch(.fastr.mmap(f, 'integer', 3), error=function(e) 'error'); unlink(f); r }", "'error'");
+    }
+}
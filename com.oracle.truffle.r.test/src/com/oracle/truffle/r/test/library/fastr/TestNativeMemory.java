@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestNativeMemory extends TestBase {
+
+    @Test
+    public void testStatistics() {
+        assertEvalFastR("{ s <- .fastr.native.memory(); names(s) }", "c('live', 'peak', 'reserved', 'allocations', 'releases', 'allocations.per.sec')");
+        assertEvalFastR("{ s <- .fastr.native.memory(TRUE); all(s >= 0) && s[['peak']] >= s[['live']] && s[['allocations']] >= s[['releases']] }", "TRUE");
+        assertEvalFastR("{ invisible(.fastr.native.memory(TRUE)); s <- .fastr.native.memory(); s[['peak']] >= s[['live']] }", "TRUE");
+    }
+
+    @Test
+    public void testNativization() {
+        // C_rfilter is implemented in the native code of stats, the data of its small (filter) and
+        // large (x and the result) arguments are copied to the native memory
+        assertEvalFastR("{ x <- as.double(1:100000); s0 <- .fastr.native.memory(); r <- stats::filter(x, 0.5, method='recursive'); s1 <- .fastr.native.memory(); " +
+                        "c(s1[['allocations']] - s0[['allocations']] >= 2, s1[['live']] >= 800000, s1[['reserved']] >= s1[['live']], s1[['peak']] >= s1[['live']]) }",
+                        "rep(TRUE, 4)");
+        // the memory of the collected vectors is released and reused: the second round takes the
+        // blocks of the first one instead of reserving new slabs
+        assertEvalFastR("{ f <- function() invisible(stats::filter(as.double(1:100), 0.5, method='recursive')); s0 <- .fastr.native.memory(); for (i in 1:200) f(); s1 <- .fastr.native.memory(); " +
+                        "n <- s1[['allocations']] - s0[['allocations']]; for (i in 1:100) { gc(); if (.fastr.native.memory()[['releases']] - s1[['releases']] >= 0.9 * n) break; Sys.sleep(0.05) }; s2 <- .fastr.native.memory(); " +
+                        "for (i in 1:200) f(); s3 <- .fastr.native.memory(); " +
+                        "c(n >= 200, s2[['releases']] - s1[['releases']] >= 0.9 * n, s2[['live']] < s1[['live']], s3[['reserved']] - s2[['reserved']] <= 2 * 65536) }",
+                        "rep(TRUE, 4)");
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestNativeStats extends TestBase {
+
+    @Test
+    public void testStatistics() {
+        assertEvalFastR("{ s <- .fastr.native.stats(TRUE, TRUE); s <- .fastr.native.stats(FALSE); c(class(s), names(s)) }",
+                        "c('data.frame', 'type', 'dll', 'name', 'count', 'time', 'max.time', 'bytes')");
+        assertEvalFastR("{ invisible(.fastr.native.stats(FALSE, TRUE)); nrow(.fastr.native.stats()) }", "0");
+        assertEvalFastR("{ s <- .fastr.native.stats(TRUE, TRUE); s <- .fastr.native.stats(FALSE, TRUE); all(s$type %in% c('call', 'upcall', 'to.native', 'from.native')) && all(s$count > 0) }", "TRUE");
+    }
+
+    @Test
+    public void testNativeCall() {
+        // C_rfilter is implemented in the native code of stats, it accesses the data of its arguments
+        assertEvalFastR("{ invisible(.fastr.native.stats(TRUE, TRUE)); x <- stats::filter(as.double(1:100), 0.5, method='recursive'); s <- .fastr.native.stats(FALSE, TRUE); " +
+                        "call <- s[s$type == 'call' & s$name == 'rfilter', ]; copies <- s[s$type == 'to.native', ]; " +
+                        "c(nrow(call) == 1, call$dll == 'stats', call$count >= 1, call$time >= 0, call$max.time <= call$time, any(s$type == 'upcall'), nrow(copies) >= 1, sum(copies$count) >= 1, sum(copies$bytes) > 0) }",
+                        "rep(TRUE, 9)");
+        // nothing is counted while disabled
+        assertEvalFastR("{ invisible(.fastr.native.stats(FALSE, TRUE)); x <- stats::filter(as.double(1:100), 0.5, method='recursive'); nrow(.fastr.native.stats()) }", "0");
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestRegExpCache extends TestBase {
+
+    @Test
+    public void testStatistics() {
+        assertEvalFastR("{ invisible(.fastr.regex.cache(TRUE)); for (i in 1:5) gsub('a+', 'b', 'caaat'); s <- .fastr.regex.cache(); s[['misses']] >= 1 && s[['hits']] >= 4 }", "TRUE");
+        assertEvalFastR("{ invisible(.fastr.regex.cache(TRUE)); for (i in 1:5) regexpr('[0-9]+', 'ab12c', perl=TRUE); s <- .fastr.regex.cache(); s[['misses']] >= 1 && s[['hits']] >= 4 }", "TRUE");
+        assertEvalFastR("{ grepl('x', 'y'); invisible(.fastr.regex.cache(TRUE)); .fastr.regex.cache()[['size']] }", "0");
+    }
+
+    @Test
+    public void testEviction() {
+        // more distinct patterns than the cache can hold
+        assertEval("{ x <- sapply(1:600, function(i) gsub(paste0('x', i, '$'), '', paste0('ax', i), perl=TRUE)); all(x == 'a') }");
+        assertEval("{ x <- sapply(1:600, function(i) regexpr(paste0('[', i %% 10, ']+'), paste0('ab', i))); sum(x) }");
+        assertEval("{ s <- paste0('(', 1:300, ')'); r <- strsplit(paste0('a', 1:300, 'b'), s, perl=TRUE); all(sapply(r, length) == 2) }");
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestRprof extends TestBase {
+
+    private static final String WORK = "f <- function(n) { s <- 0; for (i in 1:n) s <- s + sum(sort(runif(100))); s }; g <- function() f(20000); ";
+
+    @Test
+    public void testText() {
+        assertEval("{ tf <- tempfile(); Rprof(tf, interval=0.005); x <- 1; Rprof(NULL); r <- readLines(tf)[[1]]; unlink(tf); r }");
+        assertEval("{ tf <- tempfile(); Rprof(tf, interval=0.005, memory.profiling=TRUE, line.profiling=TRUE); x <- 1; Rprof(NULL); r <- readLines(tf)[[1]]; unlink(tf); r }");
+        assertEvalFastR("{ " + WORK + "tf <- tempfile(); Rprof(tf, interval=0.001); invisible(g()); Rprof(NULL); r <- readLines(tf); unlink(tf); length(r) > 1 && all(grepl('^\"', r[-1])) }", "TRUE");
+    }
+
+    @Test
+    public void testBinary() {
+        assertEvalFastR("{ " + WORK + "op <- options(fastr.rprof.format='binary'); tf <- tempfile(); tt <- tempfile(); Rprof(tf, interval=0.001, memory.profiling=TRUE); invisible(g()); Rprof(NULL); options(op); " +
+                        "r1 <- readBin(tf, 'raw', 5); .fastr.rprof.totext(tf, tt); r2 <- readLines(tt); unlink(c(tf, tt)); c(rawToChar(r1), r2[[1]], all(grepl('^:[0-9]+:[0-9]+:[0-9]+:[0-9]+:', r2[-1]))) }",
+                        "c('RPROF', 'memory profiling: sample.interval=1000', 'TRUE')");
+        assertEvalFastR("{ tf <- tempfile(); writeLines('abc', tf); r <- tryCatch(.fastr.rprof.totext(tf, tempfile()), error=function(e) conditionMessage(e)); unlink(tf); r }", "'not an Rprof binary file'");
+    }
+}
@@ -53,4 +53,26 @@ public class TestBuiltin_mclapply extends TestBase {
         assertEval(Ignored.ImplementationError,
                         "parallel:::mclapply(1:3, function(i) { Sys.sleep(.1); parallel:::mclapply(1:3, function(i) { Sys.sleep(.1); parallel:::mclapply(1:3, function(i) {i}) }) })");
     }
+
+    @Test
+    public void testMCLapplyWarmWorkers() {
+        // the second call reuses the workers of the first one
+        assertEvalFastR("{ f <- function() unlist(parallel:::mclapply(1:4, function(i) i * 2, mc.cores=2)); r1 <- f(); w1 <- .fastr.context.pool.get()$context; r2 <- f(); w2 <- .fastr.context.pool.get()$context; " +
+                        ".fastr.context.pool.shutdown(); list(r1, r2, length(w1), identical(w1, w2), length(.fastr.context.pool.get()$context)) }",
+                        "list(c(2, 4, 6, 8), c(2, 4, 6, 8), 2L, TRUE, 0L)");
+        assertEvalFastR("{ f <- function(x) parallel:::mclapply(1:4, function(i) sum(x) + i, mc.cores=2); r <- sapply(1:3, function(i) sum(unlist(f(1:1000)))); .fastr.context.pool.shutdown(); r }",
+                        "c(2002010, 2002010, 2002010)");
+        // parLapply and clusterApply without a cluster use the pool of workers
+        assertEvalFastR("{ options(mc.cores=2L); r <- unlist(parallel::parLapply(NULL, 1:4, function(i) i + 1)); .fastr.context.pool.shutdown(); r }", "c(2, 3, 4, 5)");
+        assertEvalFastR("{ options(mc.cores=2L); r <- unlist(parallel::clusterApply(NULL, 1:2, function(i) i * 10)); .fastr.context.pool.shutdown(); r }", "c(10, 20)");
+    }
+
+    @Test
+    public void testMCLapplyStreams() {
+        // every worker draws from its own L'Ecuyer-CMRG stream, reproducibly under set.seed
+        assertEvalFastR("{ RNGkind(\"L'Ecuyer-CMRG\"); f <- function() { set.seed(42); unlist(parallel:::mclapply(1:2, function(i) runif(1), mc.cores=2)) }; r1 <- f(); r2 <- f(); " +
+                        ".fastr.context.pool.shutdown(); RNGkind('Mersenne-Twister'); c(r1[[1]] != r1[[2]], identical(r1, r2)) }", "c(TRUE, TRUE)");
+        assertEvalFastR("{ RNGkind(\"L'Ecuyer-CMRG\"); set.seed(1); r <- unlist(parallel:::mclapply(1:4, function(i) runif(1), mc.cores=4, mc.preschedule=FALSE)); " +
+                        ".fastr.context.pool.shutdown(); RNGkind('Mersenne-Twister'); length(unique(r)) }", "4L");
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.stats;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+public class TestExternal_Cdist extends TestBase {
+    @Test
+    public void testMethods() {
+        assertEval(template("{ m <- matrix(c(1, 2, NA, 4, 0, 6, 7, 0, 9, Inf, 11, 12), 4); dist(m, method='%0') }",
+                        new String[]{"euclidean", "maximum", "manhattan", "canberra", "binary", "minkowski"}));
+        assertEval("{ m <- matrix(c(1, 2, NA, 4, 0, 6, 7, 0, 9, 10, 11, 12), 4); dist(m, method='minkowski', p=3) }");
+        assertEval("{ m <- matrix(c(1, 2, NA, 4, 0, 6, 7, 0, 9, 10, 11, 12), 4); as.matrix(dist(m, diag=TRUE, upper=TRUE)) }");
+    }
+
+    @Test
+    public void testLargeMatrix() {
+        // large enough to be computed in parallel, the result must not depend on the number of threads
+        assertEval("{ set.seed(2); m <- matrix(rnorm(30000), 300); m[sample(length(m), 300)] <- NA; r <- lapply(c(1, 4), function(t) { options(fastr.parallel.threads=t); lapply(c('euclidean', 'maximum', 'manhattan', 'canberra', 'minkowski'), function(method) dist(m, method)) }); options(fastr.parallel.threads=NULL); c(identical(r[[1]], r[[2]]), length(r[[1]][[1]]), sum(r[[1]][[1]])) }");
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -51,4 +51,10 @@ public class TestExternal_covcor extends TestBase {
         assertEval(template("cov(mtcars[,1:4], use='%0', method='%1')", useCov, methods));
         assertEval(template("cov(1:4, c(1,7,1,-4), use='%0', method='%1')", useCov, methods));
     }
+
+    @Test
+    public void testLargeMatrix() {
+        // large enough to be computed in parallel, the result must not depend on the number of threads
+        assertEval("{ set.seed(1); m <- matrix(rnorm(40000), 200); m[sample(length(m), 500)] <- NA; r <- lapply(c(1, 4), function(t) { options(fastr.parallel.threads=t); list(cor(m, use='pairwise'), cov(m, use='pairwise'), cor(m), cov(m, m[,1:150], use='pairwise')) }); options(fastr.parallel.threads=NULL); c(identical(r[[1]], r[[2]]), sum(is.na(r[[1]][[1]])), sum(is.na(r[[1]][[3]]))) }");
+    }
 }
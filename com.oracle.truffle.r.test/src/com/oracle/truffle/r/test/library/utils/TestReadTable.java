@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -46,4 +46,13 @@ public class TestReadTable extends TestBase {
         assertEval("read.table(header = TRUE, blank.lines.skip=FALSE, text = 'a b c\\n\\n1 2 3\\n4 5 6')");
     }
 
+    @Test
+    public void testLargeInput() {
+        // large enough to be split among several parallel tasks
+        assertEval("{ f <- tempfile(); n <- 30000; df <- data.frame(i=1:n, d=(1:n)/8, s=paste0('\"v ', 1:n %% 7, '\"'), l=c(TRUE, FALSE, NA)); write.table(df, f, row.names=FALSE); " +
+                        "old <- options(fastr.parallel.threads=1L); s <- read.table(f, header=TRUE); options(fastr.parallel.threads=4L); p <- read.table(f, header=TRUE); options(old); unlink(f); " +
+                        "c(identical(s, p), dim(p), sapply(p, class), levels(p$s), sum(p$d), sum(is.na(p$l))) }");
+        assertEval("{ f <- tempfile(); writeLines(c(as.character(1:20000), '\"x'), f); r <- tryCatch(scan(f, what='', quiet=TRUE), error=function(e) 'error'); unlink(f); r }");
+    }
+
 }
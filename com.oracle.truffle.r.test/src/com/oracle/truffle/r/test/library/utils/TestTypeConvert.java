@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -96,4 +96,15 @@ public class TestTypeConvert extends TestBase {
         assertEval(".External2(utils:::C_typeconvert, environment(), 'NA', FALSE, '.', 'allow.loss')");
         assertEval(".External2(utils:::C_typeconvert, c('1'), environment(), FALSE, '.', 'allow.loss')");
     }
+
+    @Test
+    public void testLargeVectors() {
+        assertEval("{ x <- as.character(1:50000); x[c(7, 40000)] <- NA; r <- type.convert(x); c(class(r), sum(r, na.rm=TRUE), sum(is.na(r))) }");
+        assertEval("{ x <- as.character((1:50000) / 4); x[c(30000)] <- 'NA'; r <- type.convert(x); c(class(r), sum(r, na.rm=TRUE), sum(is.na(r))) }");
+        assertEval("{ x <- rep(c('T', 'F', 'true', ''), 12500); r <- type.convert(x); c(class(r), sum(r, na.rm=TRUE), sum(is.na(r))) }");
+        assertEval("{ x <- as.character(1:50000); x[45000] <- 'x'; r <- type.convert(x); c(class(r), length(levels(r)), levels(r)[1:5], as.integer(r)[c(1, 45000)]) }");
+        assertEval("{ x <- paste0('b', 50000:1 %% 1000); x[10] <- ''; r <- type.convert(x, as.is=FALSE); c(nlevels(r), head(levels(r)), sum(is.na(r)), as.integer(r)[1:3]) }");
+        // invalid and too large values of fastr.parallel.threads
+        assertEval("{ x <- as.character(1:50000); r <- lapply(list(integer(0), NA, 'x', 10000L), function(t) { old <- options(fastr.parallel.threads=t); on.exit(options(old)); type.convert(x, as.is=TRUE) }); all(sapply(r, identical, 1:50000)) }");
+    }
 }
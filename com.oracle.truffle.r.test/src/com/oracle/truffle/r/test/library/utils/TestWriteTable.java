@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -38,4 +38,17 @@ public class TestWriteTable extends TestBase {
     public void testTable() {
         assertEval("write.table(data.frame(col=c(1,2,3,4), col2=c(T, F, T, F)))");
     }
+
+    @Test
+    public void testNumbersAndQuoting() {
+        assertEval("write.table(data.frame(x=c(100000, 123456, 0.1, 1e-5, 0.0001, -1234.5, 0.1+0.2, 1/3, 1e15, NA, NaN, Inf, -Inf, 0)))");
+        assertEval("write.table(data.frame(x=c(1.5, NA, -2.25), y=c('a\"b', NA, 'c'), z=factor(c('u', NA, 'v'))), dec=',', na='-', qmethod='double')");
+        assertEval("write.csv2(data.frame(x=c(1.5, 2), y=complex(real=c(1.5, 2), imaginary=c(-0.5, 1))))");
+        assertEval("write.table(matrix(c(1.5, NA, 3, 4), 2, dimnames=list(c('r1', 'r2'), c('a', 'b'))), quote=FALSE, sep='\\t')");
+    }
+
+    @Test
+    public void testManyRows() {
+        assertEval("{ n <- 10000; df <- data.frame(i=1:n, d=(1:n) / 8, s=paste0('s', 1:n), f=factor(rep(c('a', 'b'), n / 2))); tc <- textConnection('out', 'w'); write.csv(df, tc); close(tc); c(length(out), out[c(1:3, 4096:4098, 10001)]) }");
+    }
 }
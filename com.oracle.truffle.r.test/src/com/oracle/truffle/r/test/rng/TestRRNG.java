@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -43,6 +43,22 @@ public class TestRRNG extends TestBase {
         assertEval("RNGkind('Marsaglia-Multicarry'); RNGkind('Mersenne-Twister'); set.seed(2); runif(5);");
     }
 
+    @Test
+    public void testLecuyerCMRG() {
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(123); .Random.seed");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(42); runif(5); rnorm(5); runif(3, 1, 2); rnorm(3, 10, 0.5)");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(1); x <- runif(1000); set.seed(1); y <- vapply(1:1000, function(i) runif(1), 1); identical(x, y)");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(123); s <- parallel::nextRNGStream(.Random.seed); s; parallel::nextRNGSubStream(s)");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(7); .Random.seed <- parallel::nextRNGStream(.Random.seed); runif(3)");
+    }
+
+    @Test
+    public void testBulkGeneration() {
+        assertEval("set.seed(3); x <- rnorm(2000); set.seed(3); y <- vapply(1:2000, function(i) rnorm(1), 1); identical(x, y)");
+        assertEval("RNGkind('Marsaglia-Multicarry'); set.seed(3); x <- runif(700, -1, 1); set.seed(3); y <- vapply(1:700, function(i) runif(1, -1, 1), 1); identical(x, y)");
+        assertEval("set.seed(5); runif(3, 2, 2); rnorm(3, 1, 0); runif(2); rnorm(2, NA)");
+    }
+
     @Test
     public void testDirectReadingSeed() {
         assertEval("invisible(runif(1)); length(.Random.seed)");
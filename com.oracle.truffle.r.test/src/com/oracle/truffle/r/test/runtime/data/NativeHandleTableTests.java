@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.runtime.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.data.NativeHandleTable;
+
+public class NativeHandleTableTests {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private static final class Entry {
+        private long handle;
+    }
+
+    private static NativeHandleTable<Entry> createTable() {
+        return new NativeHandleTable<>(e -> e.handle);
+    }
+
+    private static Entry add(NativeHandleTable<Entry> table) {
+        Entry entry = new Entry();
+        entry.handle = table.add(entry);
+        return entry;
+    }
+
+    private static long slot(long handle) {
+        return handle & 0xffffffffL;
+    }
+
+    private static long generation(long handle) {
+        return (handle >>> 32) & 0xffff;
+    }
+
+    @Test
+    public void testAddGetRemove() {
+        NativeHandleTable<Entry> table = createTable();
+        Entry a = add(table);
+        Entry b = add(table);
+        assertNotEquals(a.handle, b.handle);
+        assertTrue(NativeHandleTable.isHandle(a.handle));
+        assertTrue(NativeHandleTable.isHandle(b.handle));
+        assertFalse(NativeHandleTable.isHandle(0x7f0012345670L));
+        assertSame(a, table.get(a.handle));
+        assertSame(b, table.get(b.handle));
+        assertEquals(2, table.size());
+
+        assertFalse(table.remove(a.handle, b));
+        assertTrue(table.remove(a.handle, a));
+        assertFalse(table.remove(a.handle, a));
+        assertNull(table.get(a.handle));
+        assertSame(b, table.get(b.handle));
+        assertEquals(1, table.size());
+        assertNull(table.get(0x7f0012345670L));
+    }
+
+    @Test
+    public void testSlotReuse() {
+        NativeHandleTable<Entry> table = createTable();
+        Entry a = add(table);
+        add(table);
+        assertTrue(table.remove(a.handle, a));
+        Entry c = add(table);
+        // the free slot is reused with the next generation
+        assertEquals(slot(a.handle), slot(c.handle));
+        assertEquals(generation(a.handle) + 1, generation(c.handle));
+        assertTrue(NativeHandleTable.isHandle(c.handle));
+        assertEquals(2, table.size());
+
+        assertTrue(table.remove(c.handle, c));
+        Entry d = add(table);
+        assertEquals(slot(a.handle), slot(d.handle));
+        assertEquals(generation(a.handle) + 2, generation(d.handle));
+    }
+
+    @Test
+    public void testStaleHandle() {
+        NativeHandleTable<Entry> table = createTable();
+        Entry a = add(table);
+        assertTrue(table.remove(a.handle, a));
+        Entry b = add(table);
+        assertEquals(slot(a.handle), slot(b.handle));
+        // the stale handle must not resolve to the new occupant of its slot
+        assertNull(table.get(a.handle));
+        assertFalse(table.remove(a.handle, b));
+        assertSame(b, table.get(b.handle));
+    }
+
+    @Test
+    public void testUnallocatedSegment() {
+        NativeHandleTable<Entry> table = createTable();
+        Entry a = add(table);
+        // a handle of a slot in a segment that was never allocated, within and beyond the
+        // initial directory
+        long inDirectory = a.handle | ((long) (5 * SEGMENT_SIZE) << 1);
+        long beyondDirectory = a.handle | ((long) (1 << 30) << 1);
+        assertTrue(NativeHandleTable.isHandle(inDirectory));
+        assertTrue(NativeHandleTable.isHandle(beyondDirectory));
+        assertNull(table.get(inDirectory));
+        assertNull(table.get(beyondDirectory));
+        assertFalse(table.remove(inDirectory, a));
+        assertFalse(table.remove(beyondDirectory, a));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testGrowth() {
+        NativeHandleTable<Entry> table = createTable();
+        // more than the 16 segments of the initial directory
+        int count = 20 * SEGMENT_SIZE + 7;
+        Entry[] entries = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = add(table);
+        }
+        assertEquals(count, table.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, slot(entries[i].handle) >>> 1);
+            assertSame(entries[i], table.get(entries[i].handle));
+        }
+        for (int i = 0; i < count; i += 2) {
+            assertTrue(table.remove(entries[i].handle, entries[i]));
+        }
+        assertEquals(count / 2, table.size());
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                assertNull(table.get(entries[i].handle));
+            } else {
+                assertSame(entries[i], table.get(entries[i].handle));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.runtime.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.data.NativeMemoryArena;
+
+public class NativeMemoryArenaTests {
+
+    @Test
+    public void testSizeClasses() {
+        // payload sizes and the usable sizes of their blocks, which have 8 bytes of header
+        long[][] sizes = {{1, 8}, {8, 8}, {9, 24}, {24, 24}, {25, 56}, {100, 120}, {2040, 2040}, {2041, 4088}};
+        for (long[] size : sizes) {
+            long address = NativeMemoryArena.allocate(size[0]);
+            assertEquals(0, address % 8);
+            assertEquals(size[1], NativeMemoryArena.getUsableSize(address));
+            NativeMemoryArena.free(address);
+        }
+    }
+
+    @Test
+    public void testLargeBlockBoundary() {
+        // the largest payload that fits into the largest size class
+        long small = NativeMemoryArena.allocate(4088);
+        // the smallest payload that is allocated directly
+        long large = NativeMemoryArena.allocate(4089);
+        assertEquals(4088, NativeMemoryArena.getUsableSize(small));
+        assertEquals(4089, NativeMemoryArena.getUsableSize(large));
+        assertEquals(0, large % 8);
+        NativeMemoryArena.free(small);
+        NativeMemoryArena.free(large);
+    }
+
+    @Test
+    public void testReuse() {
+        long first = NativeMemoryArena.allocate(100);
+        NativeMemoryArena.free(first);
+        // the block comes back from the cache of this thread
+        assertEquals(first, NativeMemoryArena.allocate(100));
+        NativeMemoryArena.free(first);
+
+        // more blocks than the thread cache holds go through the shared free list
+        long[] blocks = new long[1000];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = NativeMemoryArena.allocate(200);
+        }
+        for (long block : blocks) {
+            NativeMemoryArena.free(block);
+        }
+        NativeMemoryArena.flushThreadCache();
+        double reserved = NativeMemoryArena.getStatistics(false)[2];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = NativeMemoryArena.allocate(200);
+        }
+        assertTrue(NativeMemoryArena.getStatistics(false)[2] <= reserved);
+        for (long block : blocks) {
+            NativeMemoryArena.free(block);
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        double[] before = NativeMemoryArena.getStatistics(false);
+        long address = NativeMemoryArena.allocate(1 << 20);
+        double[] allocated = NativeMemoryArena.getStatistics(false);
+        NativeMemoryArena.free(address);
+        double[] released = NativeMemoryArena.getStatistics(false);
+        assertTrue(allocated[0] >= (1 << 20));
+        assertTrue(allocated[1] >= allocated[0]);
+        assertTrue(allocated[2] >= (1 << 20));
+        assertTrue(allocated[3] >= before[3] + 1);
+        assertTrue(released[4] >= allocated[4] + 1);
+    }
+}
@@ -131,6 +131,19 @@ suite = {
       "jacoco" : "include",
     },
 
+    "com.oracle.truffle.r.benchmarks" : {
+      "sourceDirs" : ["src"],
+      "dependencies" : [
+        "mx:JMH_1_21",
+        "com.oracle.truffle.r.engine",
+      ],
+      "checkstyle" : "com.oracle.truffle.r.runtime",
+      "javaCompliance" : "1.8",
+      "annotationProcessors" : ["mx:JMH_1_21"],
+      "spotbugsIgnoresGenerated" : True,
+      "workingSets" : "FastR,Test",
+    },
+
     "com.oracle.truffle.r.test.native" : {
       "native" : True,
       "sourceDirs" : [],
@@ -396,6 +409,19 @@ suite = {
 
     },
 
+    "FASTR_BENCHMARKS" : {
+      "description" : "JMH micro-benchmarks, run with 'mx benchmark jmh-dist:FASTR_BENCHMARKS'",
+      "dependencies" : [
+        "com.oracle.truffle.r.benchmarks",
+      ],
+      "exclude" : ["mx:JMH_1_21"],
+      "distDependencies" : [
+        "FASTR",
+        "truffle:TRUFFLE_API",
+      ],
+      "maven" : False,
+    },
+
     "FASTR_UNIT_TESTS_NATIVE" : {
       "description" : "unit tests support (from test.native project)",
        "native" : True,